@@ -0,0 +1,303 @@
+package com.innoad.comun.auditoria;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Servicio de auditoría asíncrona sobre la tabla auditoria
+ *
+ * Los servicios de negocio llaman a {@link #registrar} y siguen: el registro
+ * entra en una cola sin bloqueos (muchos productores, un consumidor) y un hilo
+ * escritor la vacía en INSERT multi-fila cada intervalo-ms o en cuanto se
+ * juntan tamano-lote registros. Dentro de una transacción el registro solo se
+ * encola si la transacción confirma, así no quedan auditadas operaciones que
+ * se revirtieron.
+ *
+ * Si la base de datos falla, el lote se vuelca a disco ({@link DerrameAuditoria})
+ * y se reprocesa cuando vuelve a haber conexión. Si en cambio rechaza el lote
+ * por el contenido de alguna fila, se repite fila por fila y solo las
+ * rechazadas se apartan, sin volver a derramarlas. Si la cola se llena (la base
+ * de datos lleva mucho tiempo caída y el disco tampoco responde) los registros
+ * nuevos se descartan y se cuentan, nunca se bloquea al hilo de la petición.
+ */
+@Service
+@Slf4j
+public class AuditoriaServicio {
+
+    private static final String COLUMNAS =
+            "INSERT INTO auditoria (tabla_afectada, accion, registro_id, detalles, usuario_id, ip_address, user_agent, fecha) VALUES ";
+    private static final String FILA = "(?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int MAX_USER_AGENT = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final DerrameAuditoria derrame;
+    private final int capacidadCola;
+    private final int tamanoLote;
+    private final long intervaloNanos;
+    private final long reintentoNanos;
+
+    private final ConcurrentLinkedQueue<RegistroAuditoria> cola = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private final AtomicLong descartados = new AtomicLong();
+    private volatile boolean activo = true;
+    private volatile Thread escritor;
+
+    public AuditoriaServicio(JdbcTemplate jdbcTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${auditoria.capacidad-cola:50000}") int capacidadCola,
+                             @Value("${auditoria.tamano-lote:200}") int tamanoLote,
+                             @Value("${auditoria.intervalo-ms:500}") long intervaloMs,
+                             @Value("${auditoria.reintento-derrame-ms:10000}") long reintentoDerrameMs,
+                             @Value("${auditoria.directorio-derrame:logs/auditoria-pendiente}") String directorioDerrame) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.derrame = new DerrameAuditoria(Path.of(directorioDerrame), objectMapper);
+        this.capacidadCola = capacidadCola;
+        this.tamanoLote = tamanoLote;
+        this.intervaloNanos = TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+        this.reintentoNanos = TimeUnit.MILLISECONDS.toNanos(reintentoDerrameMs);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        escritor = new Thread(this::ejecutarEscritor, "auditoria-escritor");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /**
+     * Detiene el escritor y espera a que vacíe la cola (o la vuelque a disco)
+     */
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        activo = false;
+        Thread hilo = escritor;
+        if (hilo != null) {
+            LockSupport.unpark(hilo);
+            hilo.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Registra una operación en la auditoría sin esperar a que se escriba
+     *
+     * @param tablaAfectada tabla sobre la que se hizo la operación
+     * @param accion        CREAR, ACTUALIZAR, CAMBIAR_ESTADO...
+     * @param registroId    ID del registro afectado
+     * @param detalles      datos adicionales, se guardan en la columna JSON
+     * @param usuarioId     usuario que hizo la operación, si se conoce
+     */
+    public void registrar(String tablaAfectada, String accion, Long registroId,
+                          Map<String, ?> detalles, Long usuarioId) {
+        String ipAddress = null;
+        String userAgent = null;
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos instanceof ServletRequestAttributes servlet) {
+            HttpServletRequest request = servlet.getRequest();
+            ipAddress = request.getRemoteAddr();
+            userAgent = recortar(request.getHeader("User-Agent"));
+        }
+
+        RegistroAuditoria registro = new RegistroAuditoria(tablaAfectada, accion, registroId,
+                serializar(detalles), usuarioId, ipAddress, userAgent, LocalDateTime.now());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    encolar(registro);
+                }
+            });
+        } else {
+            encolar(registro);
+        }
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private void encolar(RegistroAuditoria registro) {
+        int tamano = pendientes.incrementAndGet();
+        if (tamano > capacidadCola) {
+            pendientes.decrementAndGet();
+            if (descartados.incrementAndGet() % 1000 == 1) {
+                log.error("Cola de auditoría llena: {} registros descartados hasta ahora", descartados.get());
+            }
+            return;
+        }
+        cola.offer(registro);
+        if (tamano == tamanoLote) {
+            LockSupport.unpark(escritor);
+        }
+    }
+
+    private void ejecutarEscritor() {
+        boolean hayDerrame = true;
+        long proximoReintento = System.nanoTime();
+        while (activo || !cola.isEmpty()) {
+            List<RegistroAuditoria> lote = drenar();
+            if (!lote.isEmpty() && !escribir(lote)) {
+                hayDerrame = true;
+            }
+            if (hayDerrame && System.nanoTime() - proximoReintento >= 0) {
+                hayDerrame = !reprocesarDerrame();
+                proximoReintento = System.nanoTime() + reintentoNanos;
+            }
+            if (activo && pendientes.get() < tamanoLote) {
+                LockSupport.parkNanos(this, intervaloNanos);
+            }
+        }
+    }
+
+    private List<RegistroAuditoria> drenar() {
+        List<RegistroAuditoria> lote = new ArrayList<>(Math.min(tamanoLote, Math.max(pendientes.get(), 1)));
+        RegistroAuditoria registro;
+        while (lote.size() < tamanoLote && (registro = cola.poll()) != null) {
+            lote.add(registro);
+        }
+        pendientes.addAndGet(-lote.size());
+        return lote;
+    }
+
+    /**
+     * Escribe el lote; si falla lo vuelca a disco. Devuelve true si llegó a la base de datos.
+     */
+    private boolean escribir(List<RegistroAuditoria> lote) {
+        try {
+            insertarAislando(lote);
+            return true;
+        } catch (RuntimeException e) {
+            if (e instanceof DerrameAuditoria.EscrituraParcial parcial) {
+                lote = lote.subList(parcial.procesados(), lote.size());
+            }
+            log.warn("No se pudo escribir la auditoría ({} registros), se guarda en disco: {}",
+                    lote.size(), e.getMessage());
+            try {
+                derrame.guardar(lote);
+            } catch (Exception ex) {
+                log.error("Se perdieron {} registros de auditoría: {}", lote.size(), ex.getMessage());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Intenta recuperar lo que quedó en disco. Devuelve true si no queda nada pendiente.
+     */
+    private boolean reprocesarDerrame() {
+        if (!derrame.hayPendientes()) {
+            return true;
+        }
+        try {
+            int recuperados = derrame.reprocesar(tamanoLote, this::insertarAislando);
+            log.info("Auditoría recuperada desde disco: {} registros", recuperados);
+            return true;
+        } catch (Exception e) {
+            log.debug("La auditoría en disco sigue pendiente: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Inserta el lote; si la base de datos lo rechaza por los datos, repite
+     * fila por fila y aparta las filas rechazadas. Un error de otro tipo a
+     * mitad se lanza como {@link DerrameAuditoria.EscrituraParcial}.
+     */
+    private void insertarAislando(List<RegistroAuditoria> lote) {
+        try {
+            insertar(lote);
+            return;
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Lote de auditoría rechazado ({} registros), se reintenta fila por fila: {}",
+                    lote.size(), e.getMostSpecificCause().getMessage());
+        }
+
+        List<RegistroAuditoria> rechazados = new ArrayList<>();
+        for (int i = 0; i < lote.size(); i++) {
+            try {
+                insertar(List.of(lote.get(i)));
+            } catch (DataIntegrityViolationException e) {
+                rechazados.add(lote.get(i));
+            } catch (RuntimeException e) {
+                apartar(rechazados);
+                throw new DerrameAuditoria.EscrituraParcial(i, e);
+            }
+        }
+        apartar(rechazados);
+    }
+
+    private void apartar(List<RegistroAuditoria> rechazados) {
+        if (rechazados.isEmpty()) {
+            return;
+        }
+        try {
+            derrame.apartar(rechazados);
+            log.error("{} registros de auditoría rechazados por la base de datos, apartados en disco", rechazados.size());
+        } catch (IOException e) {
+            log.error("Se perdieron {} registros de auditoría rechazados: {}", rechazados.size(), e.getMessage());
+        }
+    }
+
+    private void insertar(List<RegistroAuditoria> lote) {
+        StringBuilder sql = new StringBuilder(COLUMNAS.length() + lote.size() * (FILA.length() + 1));
+        sql.append(COLUMNAS);
+        Object[] parametros = new Object[lote.size() * 8];
+        int i = 0;
+        for (RegistroAuditoria registro : lote) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(FILA);
+            parametros[i++] = registro.tablaAfectada();
+            parametros[i++] = registro.accion();
+            parametros[i++] = registro.registroId();
+            parametros[i++] = registro.detalles();
+            parametros[i++] = registro.usuarioId();
+            parametros[i++] = registro.ipAddress();
+            parametros[i++] = registro.userAgent();
+            parametros[i++] = Timestamp.valueOf(registro.fecha());
+        }
+        jdbcTemplate.update(sql.toString(), parametros);
+    }
+
+    private String serializar(Map<String, ?> detalles) {
+        if (detalles == null || detalles.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(detalles);
+        } catch (JsonProcessingException e) {
+            log.warn("No se pudieron serializar los detalles de auditoría: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String recortar(String valor) {
+        return valor != null && valor.length() > MAX_USER_AGENT ? valor.substring(0, MAX_USER_AGENT) : valor;
+    }
+}
@@ -0,0 +1,189 @@
+package com.innoad.comun.auditoria;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Respaldo en disco de los registros de auditoría que no se pudieron escribir
+ *
+ * Cuando la base de datos falla, el escritor vuelca el lote a un archivo JSON
+ * por línea en el directorio configurado. Al recuperarse la conexión los
+ * archivos se reprocesan en orden de creación y se borran; si el reproceso
+ * falla a mitad de archivo, se reescribe solo lo pendiente para no duplicar
+ * filas.
+ *
+ * Los registros que la base de datos rechaza por su contenido (no por falta
+ * de conexión) se apartan en archivos rechazada-*.jsonl que no se reprocesan,
+ * para revisarlos a mano sin que bloqueen al resto.
+ *
+ * Solo lo usa el hilo escritor, así que no necesita sincronización.
+ */
+@Slf4j
+public class DerrameAuditoria {
+
+    private static final String PREFIJO = "auditoria-";
+    private static final String PREFIJO_RECHAZADOS = "rechazada-";
+    private static final String EXTENSION = ".jsonl";
+
+    private final Path directorio;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong secuencia = new AtomicLong();
+
+    public DerrameAuditoria(Path directorio, ObjectMapper objectMapper) {
+        this.directorio = directorio;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Guarda el lote en un archivo nuevo
+     */
+    public void guardar(List<RegistroAuditoria> lote) throws IOException {
+        guardarComo(PREFIJO, lote);
+    }
+
+    /**
+     * Aparta registros rechazados por la base de datos; no se vuelven a reprocesar
+     */
+    public void apartar(List<RegistroAuditoria> rechazados) throws IOException {
+        if (!rechazados.isEmpty()) {
+            guardarComo(PREFIJO_RECHAZADOS, rechazados);
+        }
+    }
+
+    /**
+     * Indica si hay archivos pendientes de reprocesar
+     */
+    public boolean hayPendientes() {
+        return !listarArchivos().isEmpty();
+    }
+
+    /**
+     * Reprocesa los archivos pendientes en orden, en trozos de tamanoLote
+     *
+     * @param insertar escribe un trozo en la base de datos; si lanza excepción
+     *                 el reproceso se detiene y lo pendiente queda en disco.
+     *                 Con {@link EscrituraParcial} se descuentan las filas del
+     *                 trozo que ya se procesaron
+     * @return cantidad de registros recuperados
+     */
+    public int reprocesar(int tamanoLote, Consumer<List<RegistroAuditoria>> insertar) throws IOException {
+        int recuperados = 0;
+        for (Path archivo : listarArchivos()) {
+            List<RegistroAuditoria> registros = leer(archivo);
+            int escritos = 0;
+            try {
+                while (escritos < registros.size()) {
+                    List<RegistroAuditoria> trozo =
+                            registros.subList(escritos, Math.min(escritos + tamanoLote, registros.size()));
+                    insertar.accept(trozo);
+                    escritos += trozo.size();
+                }
+            } catch (RuntimeException e) {
+                if (e instanceof EscrituraParcial parcial) {
+                    escritos += parcial.procesados();
+                }
+                if (escritos > 0) {
+                    reemplazar(archivo, registros.subList(escritos, registros.size()));
+                }
+                throw e;
+            } finally {
+                recuperados += escritos;
+            }
+            Files.deleteIfExists(archivo);
+        }
+        return recuperados;
+    }
+
+    /**
+     * Error a mitad de una escritura fila por fila: las primeras procesados
+     * filas ya se escribieron o se apartaron y no deben repetirse
+     */
+    public static class EscrituraParcial extends RuntimeException {
+
+        private final int procesados;
+
+        public EscrituraParcial(int procesados, RuntimeException causa) {
+            super(causa.getMessage(), causa);
+            this.procesados = procesados;
+        }
+
+        public int procesados() {
+            return procesados;
+        }
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private void guardarComo(String prefijo, List<RegistroAuditoria> lote) throws IOException {
+        Files.createDirectories(directorio);
+        String nombre = prefijo + System.currentTimeMillis() + "-" + secuencia.incrementAndGet() + EXTENSION;
+        Path temporal = directorio.resolve(nombre + ".tmp");
+        escribir(temporal, lote);
+        // El archivo solo aparece con su nombre final cuando está completo
+        Files.move(temporal, directorio.resolve(nombre), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private List<Path> listarArchivos() {
+        if (!Files.isDirectory(directorio)) {
+            return List.of();
+        }
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos
+                    .filter(p -> {
+                        String nombre = p.getFileName().toString();
+                        return nombre.startsWith(PREFIJO) && nombre.endsWith(EXTENSION);
+                    })
+                    .sorted((a, b) -> compararPorCreacion(a.getFileName().toString(), b.getFileName().toString()))
+                    .toList();
+        } catch (IOException e) {
+            log.warn("No se pudo listar el directorio de auditoría {}: {}", directorio, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static int compararPorCreacion(String a, String b) {
+        String[] partesA = a.substring(PREFIJO.length(), a.length() - EXTENSION.length()).split("-");
+        String[] partesB = b.substring(PREFIJO.length(), b.length() - EXTENSION.length()).split("-");
+        try {
+            int porTiempo = Long.compare(Long.parseLong(partesA[0]), Long.parseLong(partesB[0]));
+            return porTiempo != 0 ? porTiempo : Long.compare(Long.parseLong(partesA[1]), Long.parseLong(partesB[1]));
+        } catch (RuntimeException e) {
+            return a.compareTo(b);
+        }
+    }
+
+    private List<RegistroAuditoria> leer(Path archivo) throws IOException {
+        List<RegistroAuditoria> registros = new ArrayList<>();
+        for (String linea : Files.readAllLines(archivo, StandardCharsets.UTF_8)) {
+            if (!linea.isBlank()) {
+                registros.add(objectMapper.readValue(linea, RegistroAuditoria.class));
+            }
+        }
+        return registros;
+    }
+
+    private void escribir(Path archivo, List<RegistroAuditoria> registros) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (RegistroAuditoria registro : registros) {
+                writer.write(objectMapper.writeValueAsString(registro));
+                writer.newLine();
+            }
+        }
+    }
+
+    private void reemplazar(Path archivo, List<RegistroAuditoria> pendientes) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        escribir(temporal, pendientes);
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,21 @@
+package com.innoad.comun.auditoria;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila pendiente de escribir en la tabla auditoria
+ *
+ * Los detalles ya van serializados a JSON: se convierten una sola vez en el
+ * hilo que registra el evento y el escritor solo los copia al INSERT.
+ */
+public record RegistroAuditoria(
+        String tablaAfectada,
+        String accion,
+        Long registroId,
+        String detalles,
+        Long usuarioId,
+        String ipAddress,
+        String userAgent,
+        LocalDateTime fecha
+) {
+}
@@ -0,0 +1,25 @@
+package com.innoad.comun.util;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * Reintento de escrituras con control de concurrencia optimista
+ *
+ * Las entidades con @Version (usuarios, dispositivos) se guardan sobre la
+ * versión leída: si otra petición o proceso guardó primero, se repite una vez
+ * sobre la versión nueva en lugar de perder el cambio. Un segundo conflicto se
+ * propaga al llamador.
+ */
+public final class Reintentos {
+
+    private Reintentos() {
+    }
+
+    public static void conReintento(Runnable cambio) {
+        try {
+            cambio.run();
+        } catch (OptimisticLockingFailureException e) {
+            cambio.run();
+        }
+    }
+}
@@ -23,7 +23,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
  * 5. Agregar sistema de métricas y monitoreo de dispositivos
  * 6. Crear panel de control en tiempo real
  */
-@SpringBootApplication
+@SpringBootApplication(scanBasePackages = {"com.innoad.dispositivos", "com.innoad.comun"}) // Auditoría compartida (backend/comun)
 @EnableScheduling  // Para tareas programadas (heartbeat, limpieza, etc.)
 @EnableAsync      // Para operaciones asíncronas de comunicación
 public class MicroservicioDispositivosApplication {
@@ -0,0 +1,46 @@
+package com.innoad.dispositivos.configuracion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.innoad.dispositivos.ia.ClienteIA;
+import com.innoad.dispositivos.ia.ConfiguracionClienteIA;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Cliente del servicio de IA (python-ia)
+ *
+ * Los valores salen de la sección servicio-ia de application.yml; con
+ * IA_URL se puede apuntar al servidor simulado de simulador-dispositivos.
+ */
+@Configuration
+public class ClienteIAConfig {
+
+    @Bean(destroyMethod = "close")
+    public ClienteIA clienteIA(ObjectMapper objectMapper,
+                               @Value("${servicio-ia.url:http://localhost:5000}") String url,
+                               @Value("${servicio-ia.timeout-conexion-ms:500}") long timeoutConexionMs,
+                               @Value("${servicio-ia.timeout-ms:2000}") long timeoutMs,
+                               @Value("${servicio-ia.ventana-lote-ms:10}") long ventanaLoteMs,
+                               @Value("${servicio-ia.max-lote:100}") int maxLote,
+                               @Value("${servicio-ia.capacidad-cola:10000}") int capacidadCola,
+                               @Value("${servicio-ia.ttl-cache-s:300}") long ttlCacheSegundos,
+                               @Value("${servicio-ia.max-entradas-cache:20000}") int maxEntradasCache,
+                               @Value("${servicio-ia.umbral-fallos:5}") int umbralFallos,
+                               @Value("${servicio-ia.espera-circuito-ms:30000}") long esperaCircuitoMs) {
+        return new ClienteIA(new ConfiguracionClienteIA(
+                URI.create(url),
+                Duration.ofMillis(timeoutConexionMs),
+                Duration.ofMillis(timeoutMs),
+                Duration.ofMillis(ventanaLoteMs),
+                maxLote,
+                capacidadCola,
+                Duration.ofSeconds(ttlCacheSegundos),
+                maxEntradasCache,
+                umbralFallos,
+                Duration.ofMillis(esperaCircuitoMs)), objectMapper);
+    }
+}
@@ -0,0 +1,53 @@
+package com.innoad.dispositivos.configuracion;
+
+import com.innoad.dispositivos.websocket.HandshakeDispositivoInterceptor;
+import com.innoad.dispositivos.websocket.RaspberryWebSocketHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+/**
+ * Configuración del endpoint WebSocket para los dispositivos Raspberry Pi
+ *
+ * Los valores salen de la sección websocket.raspberry de application.yml.
+ */
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final RaspberryWebSocketHandler raspberryWebSocketHandler;
+    private final HandshakeDispositivoInterceptor handshakeDispositivoInterceptor;
+
+    @Value("${websocket.raspberry.endpoint:/websocket/raspberry}")
+    private String endpoint;
+
+    @Value("${websocket.raspberry.allowed-origins:*}")
+    private String[] allowedOrigins;
+
+    @Value("${websocket.raspberry.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${websocket.raspberry.connection-timeout:300000}")
+    private long connectionTimeout;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(raspberryWebSocketHandler, endpoint)
+                .addInterceptors(handshakeDispositivoInterceptor)
+                .setAllowedOrigins(allowedOrigins);
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(messageSizeLimit);
+        container.setMaxSessionIdleTimeout(connectionTimeout);
+        return container;
+    }
+}
@@ -0,0 +1,81 @@
+package com.innoad.dispositivos.controlador;
+
+import com.innoad.dispositivos.dto.EstadoActualizacionDTO;
+import com.innoad.dispositivos.dto.PlanActualizacionDTO;
+import com.innoad.dispositivos.servicio.ActualizacionEscalonadaServicio;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.Map;
+
+/**
+ * Controlador REST para los despliegues escalonados de software
+ *
+ * TAREAS PARA EL EQUIPO DE DESARROLLO:
+ * 1. Restringir a administradores con @PreAuthorize
+ */
+@RestController
+@RequestMapping("/api/dispositivos/actualizaciones")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "${cors.allowed-origins:http://localhost:4200}")
+public class ActualizacionControlador {
+
+    private final ActualizacionEscalonadaServicio actualizacionServicio;
+
+    /**
+     * Inicia un despliegue escalonado
+     */
+    @PostMapping
+    public ResponseEntity<?> iniciarDespliegue(@Valid @RequestBody PlanActualizacionDTO plan) {
+        log.info("POST /api/dispositivos/actualizaciones - versión: {}", plan.getVersionObjetivo());
+
+        try {
+            EstadoActualizacionDTO estado = actualizacionServicio.iniciar(plan);
+            return ResponseEntity.status(HttpStatus.CREATED).body(estado);
+        } catch (RuntimeException e) {
+            log.error("Error iniciando despliegue: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Obtiene el progreso del último despliegue
+     */
+    @GetMapping
+    public ResponseEntity<EstadoActualizacionDTO> obtenerEstado() {
+        return actualizacionServicio.obtenerEstado()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/pausar")
+    public ResponseEntity<Map<String, String>> pausar() {
+        log.info("POST /api/dispositivos/actualizaciones/pausar");
+        return ejecutar(() -> actualizacionServicio.pausar("Pausado manualmente"), "Despliegue pausado");
+    }
+
+    @PostMapping("/reanudar")
+    public ResponseEntity<Map<String, String>> reanudar() {
+        log.info("POST /api/dispositivos/actualizaciones/reanudar");
+        return ejecutar(actualizacionServicio::reanudar, "Despliegue reanudado");
+    }
+
+    @PostMapping("/cancelar")
+    public ResponseEntity<Map<String, String>> cancelar() {
+        log.info("POST /api/dispositivos/actualizaciones/cancelar");
+        return ejecutar(actualizacionServicio::cancelar, "Despliegue cancelado");
+    }
+
+    private ResponseEntity<Map<String, String>> ejecutar(Runnable accion, String mensaje) {
+        try {
+            accion.run();
+            return ResponseEntity.ok(Map.of("mensaje", mensaje));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
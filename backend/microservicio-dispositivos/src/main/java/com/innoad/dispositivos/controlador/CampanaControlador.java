@@ -0,0 +1,89 @@
+package com.innoad.dispositivos.controlador;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.innoad.dispositivos.dto.RitmoCampanaDTO;
+import com.innoad.dispositivos.ia.ClienteIA;
+import com.innoad.dispositivos.ia.EstadisticasClienteIA;
+import com.innoad.dispositivos.ia.TipoPrediccion;
+import com.innoad.dispositivos.servicio.RitmoCampanasServicio;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Controlador REST con el estado de entrega de las campañas en las pantallas
+ * y las predicciones del servicio de IA
+ *
+ * Las respuestas salen del control de ritmo y de la caché del cliente de IA
+ * en memoria, sin consultar la base de datos.
+ */
+@RestController
+@RequestMapping("/api/campanas")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "${cors.allowed-origins:http://localhost:4200}")
+public class CampanaControlador {
+
+    private final RitmoCampanasServicio ritmoCampanasServicio;
+    private final ClienteIA clienteIA;
+
+    /**
+     * Gasto, tasa objetivo y factor de entrega de las campañas activas con presupuesto
+     */
+    @GetMapping("/ritmo")
+    public ResponseEntity<List<RitmoCampanaDTO>> obtenerRitmos() {
+        log.debug("GET /api/campanas/ritmo");
+        return ResponseEntity.ok(ritmoCampanasServicio.obtenerRitmos());
+    }
+
+    /**
+     * Estado de entrega de una campaña activa
+     */
+    @GetMapping("/{id}/ritmo")
+    public ResponseEntity<RitmoCampanaDTO> obtenerRitmo(@PathVariable Long id) {
+        log.debug("GET /api/campanas/{}/ritmo", id);
+        return ritmoCampanasServicio.obtenerRitmo(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Predicción del servicio de IA (ctr, roi, conversiones u optimizacion),
+     * servida desde la caché del cliente cuando ya se pidió lo mismo
+     */
+    @PostMapping("/prediccion/{tipo}")
+    public ResponseEntity<?> predecir(@PathVariable String tipo, @RequestBody Map<String, Object> caracteristicas) {
+        log.debug("POST /api/campanas/prediccion/{}", tipo);
+
+        try {
+            JsonNode prediccion = clienteIA.predecir(TipoPrediccion.desdeCodigo(tipo), caracteristicas).get();
+            return ResponseEntity.ok(prediccion);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException causa) {
+                return ResponseEntity.badRequest().body(Map.of("error", causa.getMessage()));
+            }
+            log.warn("Predicción de IA no disponible: {}", e.getCause().getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Servicio de IA no disponible"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Servicio de IA no disponible"));
+        }
+    }
+
+    /**
+     * Aciertos de caché, lotes enviados y estado del circuito del cliente de IA
+     */
+    @GetMapping("/prediccion/estadisticas")
+    public ResponseEntity<EstadisticasClienteIA> obtenerEstadisticasIA() {
+        return ResponseEntity.ok(clienteIA.estadisticas());
+    }
+}
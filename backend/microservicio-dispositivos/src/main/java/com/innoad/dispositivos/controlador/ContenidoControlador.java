@@ -0,0 +1,104 @@
+package com.innoad.dispositivos.controlador;
+
+import com.innoad.dispositivos.servicio.SincronizacionContenidoServicio;
+import com.innoad.dispositivos.servicio.VariantesImagenServicio;
+import com.innoad.dispositivos.variantes.CacheVariantes;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.Map;
+
+/**
+ * Controlador REST de archivos de contenido para los dispositivos
+ *
+ * /archivo entrega la variante de la imagen ajustada a la pantalla del
+ * dispositivo, o redirige al original si todavía no existe. El ETag es el md5
+ * del archivo entregado, el mismo que el cliente calcula sobre su copia local.
+ */
+@RestController
+@RequestMapping("/api/contenidos")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "${cors.allowed-origins:http://localhost:4200}")
+public class ContenidoControlador {
+
+    private static final String CABECERA_CHECKSUM = "X-Checksum";
+
+    private final VariantesImagenServicio variantesImagenServicio;
+    private final SincronizacionContenidoServicio sincronizacionContenidoServicio;
+
+    @GetMapping("/{id}/archivo")
+    public ResponseEntity<?> descargarArchivo(@PathVariable Long id,
+                                              @RequestParam Long dispositivo,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return variantesImagenServicio.entregar(dispositivo, id)
+                .map(entrega -> entrega.esVariante()
+                        ? servirVariante(entrega, ifNoneMatch)
+                        : redirigir(entrega.urlOriginal()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Genera por adelantado las variantes para los perfiles de pantalla de la flota
+     */
+    @PostMapping("/{id}/variantes")
+    public ResponseEntity<?> pregenerarVariantes(@PathVariable Long id) {
+        log.info("POST /api/contenidos/{}/variantes", id);
+
+        try {
+            return ResponseEntity.accepted().body(Map.of("programadas", variantesImagenServicio.pregenerar(id)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/variantes/estadisticas")
+    public ResponseEntity<Map<String, Object>> obtenerEstadisticasVariantes() {
+        return ResponseEntity.ok(variantesImagenServicio.obtenerEstadisticas());
+    }
+
+    /**
+     * Resultado acumulado de las sincronizaciones por manifiesto: con las
+     * cachés de los dispositivos al día, porcentajeVigente se acerca a 100
+     */
+    @GetMapping("/sincronizacion/estadisticas")
+    public ResponseEntity<Map<String, Object>> obtenerEstadisticasSincronizacion() {
+        return ResponseEntity.ok(sincronizacionContenidoServicio.obtenerEstadisticas());
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private ResponseEntity<?> servirVariante(VariantesImagenServicio.Entrega entrega, String ifNoneMatch) {
+        CacheVariantes.Variante variante = entrega.variante();
+        String etag = "\"" + variante.md5() + "\"";
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals(variante.md5()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        try {
+            // Se abre aquí y no en el conversor: si la caché la descartó entre medio se redirige al original
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .header(CABECERA_CHECKSUM, variante.md5())
+                    .cacheControl(CacheControl.noCache())
+                    .contentType(MediaType.parseMediaType(variante.tipoMime()))
+                    .contentLength(variante.bytes())
+                    .body(new InputStreamResource(Files.newInputStream(variante.archivo())));
+        } catch (IOException e) {
+            log.debug("Variante {} ya no está en disco: {}", variante.archivo(), e.getMessage());
+            return redirigir(entrega.urlOriginal());
+        }
+    }
+
+    private static ResponseEntity<?> redirigir(String url) {
+        return ResponseEntity.status(HttpStatus.FOUND).location(URI.create(url)).build();
+    }
+}
@@ -0,0 +1,224 @@
+package com.innoad.dispositivos.controlador;
+
+import com.innoad.dispositivos.dto.CambioConfiguracionDTO;
+import com.innoad.dispositivos.dto.DispositivoDTO;
+import com.innoad.dispositivos.dto.EstadoConfiguracionDTO;
+import com.innoad.dispositivos.dto.PosicionDispositivoDTO;
+import com.innoad.dispositivos.dto.RegistroDispositivoDTO;
+import com.innoad.dispositivos.dto.ReproduccionDTO;
+import com.innoad.dispositivos.dto.ResultadoRegistroLoteDTO;
+import com.innoad.dispositivos.servicio.DispositivoServicio;
+import com.innoad.dispositivos.servicio.HistorialReproduccionesServicio;
+import com.innoad.dispositivos.servicio.ProximidadServicio;
+import com.innoad.dispositivos.servicio.ReconciliacionConfiguracionServicio;
+import com.innoad.dispositivos.servicio.RegistroDispositivosServicio;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Controlador REST para consultas y gestión de dispositivos Raspberry Pi
+ *
+ * TAREAS PARA EL EQUIPO DE DESARROLLO:
+ * 1. Agregar CRUD completo de dispositivos
+ * 2. Validar permisos del propietario con JWT
+ */
+@RestController
+@RequestMapping("/api/dispositivos")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "${cors.allowed-origins:http://localhost:4200}")
+public class DispositivoControlador {
+
+    private final DispositivoServicio dispositivoServicio;
+    private final ProximidadServicio proximidadServicio;
+    private final RegistroDispositivosServicio registroDispositivosServicio;
+    private final HistorialReproduccionesServicio historialReproduccionesServicio;
+    private final ReconciliacionConfiguracionServicio reconciliacionConfiguracionServicio;
+
+    /**
+     * Registra varios dispositivos en una sola operación (puesta en marcha de un sitio)
+     * Las filas inválidas o con MAC ya registrada se devuelven en "rechazados".
+     */
+    @PostMapping("/lote")
+    public ResponseEntity<?> registrarLote(@RequestBody List<RegistroDispositivoDTO> lote) {
+        log.info("POST /api/dispositivos/lote - {} dispositivos", lote != null ? lote.size() : 0);
+
+        try {
+            ResultadoRegistroLoteDTO resultado = registroDispositivosServicio.registrarLote(lote);
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException e) {
+            log.warn("Registro masivo rechazado: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Busca dispositivos a menos de radioMetros de un punto (por defecto 2 km)
+     */
+    @GetMapping("/cercanos")
+    public ResponseEntity<List<PosicionDispositivoDTO>> buscarCercanos(
+            @RequestParam double latitud,
+            @RequestParam double longitud,
+            @RequestParam(defaultValue = "2000") double radioMetros,
+            @RequestParam(required = false) Long propietarioId) {
+        log.debug("GET /api/dispositivos/cercanos - ({}, {}) radio {}m", latitud, longitud, radioMetros);
+
+        try {
+            return ResponseEntity.ok(
+                    proximidadServicio.buscarCercanos(latitud, longitud, radioMetros, propietarioId));
+        } catch (IllegalArgumentException e) {
+            log.warn("Búsqueda por cercanía inválida: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Busca dispositivos dentro de un rectángulo de coordenadas
+     */
+    @GetMapping("/en-area")
+    public ResponseEntity<List<PosicionDispositivoDTO>> buscarEnArea(
+            @RequestParam double latMin,
+            @RequestParam double lonMin,
+            @RequestParam double latMax,
+            @RequestParam double lonMax,
+            @RequestParam(required = false) Long propietarioId) {
+        log.debug("GET /api/dispositivos/en-area - ({}, {}) a ({}, {})", latMin, lonMin, latMax, lonMax);
+
+        try {
+            return ResponseEntity.ok(
+                    proximidadServicio.buscarEnArea(latMin, lonMin, latMax, lonMax, propietarioId));
+        } catch (IllegalArgumentException e) {
+            log.warn("Búsqueda por área inválida: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Historial de reproducciones de una pantalla entre dos fechas (reclamos de facturación)
+     */
+    @GetMapping("/{id}/reproducciones")
+    public ResponseEntity<?> obtenerReproducciones(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        log.debug("GET /api/dispositivos/{}/reproducciones - {} a {}", id, desde, hasta);
+
+        try {
+            List<ReproduccionDTO> reproducciones = historialReproduccionesServicio.consultar(id, desde, hasta);
+            return ResponseEntity.ok(reproducciones);
+        } catch (IllegalArgumentException e) {
+            log.warn("Consulta de reproducciones inválida: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            log.error("Historial de reproducciones no disponible: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Cambia la configuración de pantalla de varios dispositivos a la vez
+     * Solo se envían a cada pantalla los campos que le faltan.
+     */
+    @PutMapping("/configuracion")
+    public ResponseEntity<?> actualizarConfiguracionLote(@Valid @RequestBody CambioConfiguracionDTO cambio) {
+        log.info("PUT /api/dispositivos/configuracion - {} dispositivos",
+                cambio.getDispositivos() != null ? cambio.getDispositivos().size() : 0);
+        return aplicarConfiguracion(cambio.getDispositivos(), cambio, false);
+    }
+
+    @PutMapping("/{id}/configuracion")
+    public ResponseEntity<?> actualizarConfiguracion(@PathVariable Long id,
+                                                     @Valid @RequestBody CambioConfiguracionDTO cambio) {
+        log.info("PUT /api/dispositivos/{}/configuracion", id);
+        return aplicarConfiguracion(List.of(id), cambio, true);
+    }
+
+    /**
+     * Obtiene un dispositivo por ID
+     * El ETag es la versión del dispositivo: con If-None-Match vigente se
+     * responde 304 consultando solo la versión, sin cargar la entidad.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<DispositivoDTO> obtenerDispositivo(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            Optional<Long> version = dispositivoServicio.obtenerVersion(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (coincide(ifNoneMatch, etag(version.get()))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(version.get())).build();
+            }
+        }
+
+        return dispositivoServicio.obtenerDispositivo(id)
+                .map(dispositivo -> ResponseEntity.ok()
+                        .eTag(etag(dispositivo.getVersion()))
+                        .cacheControl(CacheControl.noCache())
+                        .body(DispositivoDTO.desde(dispositivo)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Configuración deseada, reportada y pendiente de un dispositivo
+     */
+    @GetMapping("/{id}/configuracion")
+    public ResponseEntity<EstadoConfiguracionDTO> obtenerConfiguracion(@PathVariable Long id) {
+        return reconciliacionConfiguracionServicio.obtenerEstado(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Dispositivos cuya configuración reportada no coincide con la deseada
+     */
+    @GetMapping("/configuracion/desviados")
+    public ResponseEntity<List<EstadoConfiguracionDTO>> obtenerConfiguracionesDesviadas() {
+        return ResponseEntity.ok(reconciliacionConfiguracionServicio.obtenerDesviados());
+    }
+
+    @GetMapping("/configuracion/estadisticas")
+    public ResponseEntity<Map<String, Object>> obtenerEstadisticasConfiguracion() {
+        return ResponseEntity.ok(reconciliacionConfiguracionServicio.obtenerEstadisticas());
+    }
+
+    private ResponseEntity<?> aplicarConfiguracion(List<Long> dispositivos, CambioConfiguracionDTO cambio,
+                                                   boolean unico) {
+        try {
+            int actualizados = reconciliacionConfiguracionServicio.aplicar(dispositivos, cambio.aConfiguracion(), null);
+            if (unico && actualizados == 0) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(Map.of("actualizados", actualizados));
+        } catch (IllegalArgumentException e) {
+            log.warn("Cambio de configuración rechazado: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static String etag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static boolean coincide(String ifNoneMatch, String etag) {
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*") || valor.equals(etag) || valor.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,65 @@
+package com.innoad.dispositivos.controlador;
+
+import com.innoad.dispositivos.dto.EstadisticasFlotaDTO;
+import com.innoad.dispositivos.dto.LatenciaMensajesDTO;
+import com.innoad.dispositivos.servicio.EstadisticasFlotaServicio;
+import com.innoad.dispositivos.servicio.MetricasWebSocketServicio;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controlador REST para las estadísticas de la flota de dispositivos
+ *
+ * Las respuestas salen de contadores en memoria, por lo que estos endpoints
+ * se pueden consultar con frecuencia desde el tablero sin cargar la base de datos.
+ */
+@RestController
+@RequestMapping("/api/dispositivos/estadisticas")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "${cors.allowed-origins:http://localhost:4200}")
+public class EstadisticasControlador {
+
+    private final EstadisticasFlotaServicio estadisticasFlotaServicio;
+    private final MetricasWebSocketServicio metricasWebSocketServicio;
+
+    /**
+     * Estadísticas globales o de un propietario, con un contador por cada estado
+     */
+    @GetMapping
+    public ResponseEntity<EstadisticasFlotaDTO> obtenerEstadisticas(
+            @RequestParam(required = false) Long propietarioId) {
+        log.debug("GET /api/dispositivos/estadisticas - propietario: {}", propietarioId);
+
+        EstadisticasFlotaDTO estadisticas = propietarioId != null
+                ? estadisticasFlotaServicio.obtenerEstadisticasPorPropietario(propietarioId)
+                : estadisticasFlotaServicio.obtenerEstadisticas();
+        return ResponseEntity.ok(estadisticas);
+    }
+
+    /**
+     * Estadísticas agrupadas por ubicación
+     */
+    @GetMapping("/por-ubicacion")
+    public ResponseEntity<Map<String, EstadisticasFlotaDTO>> obtenerEstadisticasPorUbicacion(
+            @RequestParam(required = false) Long propietarioId) {
+        log.debug("GET /api/dispositivos/estadisticas/por-ubicacion - propietario: {}", propietarioId);
+
+        return ResponseEntity.ok(estadisticasFlotaServicio.obtenerEstadisticasPorUbicacion(propietarioId));
+    }
+
+    /**
+     * Latencia de procesamiento de los mensajes WebSocket (p50/p99 por tipo)
+     * La consulta el simulador de carga al terminar cada corrida.
+     */
+    @GetMapping("/websocket")
+    public ResponseEntity<List<LatenciaMensajesDTO>> obtenerLatenciasWebSocket() {
+        log.debug("GET /api/dispositivos/estadisticas/websocket");
+
+        return ResponseEntity.ok(metricasWebSocketServicio.obtenerLatencias());
+    }
+}
@@ -0,0 +1,45 @@
+package com.innoad.dispositivos.controlador;
+
+import com.innoad.dispositivos.servicio.FlotaEnVivoServicio;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Controlador REST para el tablero en vivo de la flota de dispositivos
+ *
+ * Expone un stream Server-Sent Events por propietario. El primer evento
+ * ("snapshot") trae el estado completo de sus dispositivos; los siguientes
+ * ("delta") solo los dispositivos que cambiaron durante la última ventana.
+ *
+ * TAREAS PARA EL EQUIPO DE DESARROLLO:
+ * 1. Tomar el propietario del token JWT en lugar del parámetro
+ */
+@RestController
+@RequestMapping("/api/dispositivos/flota")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "${cors.allowed-origins:http://localhost:4200}")
+public class FlotaControlador {
+
+    private final FlotaEnVivoServicio flotaEnVivoServicio;
+
+    /**
+     * Abre el stream de cambios de estado de los dispositivos de un propietario
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> suscribirFlota(@RequestParam Long propietarioId) {
+        log.info("GET /api/dispositivos/flota/stream - propietario: {}", propietarioId);
+
+        try {
+            return ResponseEntity.ok(flotaEnVivoServicio.suscribir(propietarioId));
+        } catch (IllegalStateException e) {
+            log.warn("Suscripción rechazada para propietario {}: {}", propietarioId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.innoad.dispositivos.dto;
+
+import com.innoad.dispositivos.modelo.ConfiguracionPantalla;
+import com.innoad.dispositivos.modelo.OrientacionPantalla;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * DTO de un cambio de configuración de pantalla para uno o varios dispositivos
+ *
+ * Solo se cambian los campos enviados; los demás conservan su valor.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioConfiguracionDTO {
+
+    // Dispositivos a los que se aplica (se ignora en el endpoint de un solo dispositivo)
+    private List<Long> dispositivos;
+
+    @Min(value = 0, message = "El volumen debe ser entre 0 y 100")
+    @Max(value = 100, message = "El volumen debe ser entre 0 y 100")
+    private Integer volumenAudio;
+
+    @Min(value = 0, message = "El brillo debe ser entre 0 y 100")
+    @Max(value = 100, message = "El brillo debe ser entre 0 y 100")
+    private Integer brilloPantalla;
+
+    private OrientacionPantalla orientacion;
+
+    @Pattern(regexp = "^[0-9]{3,5}x[0-9]{3,5}$", message = "La resolución debe tener el formato ANCHOxALTO")
+    private String resolucionPantalla;
+
+    public ConfiguracionPantalla aConfiguracion() {
+        return new ConfiguracionPantalla(volumenAudio, brilloPantalla, orientacion, resolucionPantalla);
+    }
+}
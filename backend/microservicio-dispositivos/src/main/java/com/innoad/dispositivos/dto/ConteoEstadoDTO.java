@@ -0,0 +1,24 @@
+package com.innoad.dispositivos.dto;
+
+import com.innoad.dispositivos.modelo.EstadoDispositivo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fila de la consulta agregada de dispositivos activos
+ * agrupados por propietario, ubicación y estado
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConteoEstadoDTO {
+
+    private Long propietarioId;
+
+    private String ubicacion;
+
+    private EstadoDispositivo estado;
+
+    private Long cantidad;
+}
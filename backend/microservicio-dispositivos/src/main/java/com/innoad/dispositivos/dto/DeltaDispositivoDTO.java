@@ -0,0 +1,49 @@
+package com.innoad.dispositivos.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.innoad.dispositivos.evento.CambioDispositivoEvento;
+import com.innoad.dispositivos.modelo.DispositivoRaspberry;
+import com.innoad.dispositivos.modelo.EstadoDispositivo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * DTO con el cambio de estado de un dispositivo que se envía al tablero en vivo
+ *
+ * Solo lleva los campos que el tablero pinta en tiempo real; el resto de la
+ * ficha del dispositivo se consulta por REST cuando el usuario la abre.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DeltaDispositivoDTO {
+
+    private Long id;
+
+    private EstadoDispositivo estado;
+
+    private LocalDateTime ultimoHeartbeat;
+
+    private Long contenidoActualId;
+
+    public static DeltaDispositivoDTO desde(CambioDispositivoEvento evento) {
+        return new DeltaDispositivoDTO(
+                evento.idDispositivo(),
+                evento.estado(),
+                evento.ultimoHeartbeat(),
+                evento.contenidoActualId()
+        );
+    }
+
+    public static DeltaDispositivoDTO desde(DispositivoRaspberry dispositivo) {
+        return new DeltaDispositivoDTO(
+                dispositivo.getIdDispositivo(),
+                dispositivo.getEstado(),
+                dispositivo.getUltimoHeartbeat(),
+                dispositivo.getContenidoActualId()
+        );
+    }
+}
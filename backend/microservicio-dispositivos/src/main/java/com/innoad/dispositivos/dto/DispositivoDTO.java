@@ -0,0 +1,91 @@
+package com.innoad.dispositivos.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.innoad.dispositivos.modelo.DispositivoRaspberry;
+import com.innoad.dispositivos.modelo.EstadoDispositivo;
+import com.innoad.dispositivos.modelo.OrientacionPantalla;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * DTO con la ficha de un dispositivo que se entrega por REST
+ *
+ * Desacopla la respuesta de la entidad: un campo nuevo en la tabla no se
+ * publica hasta agregarlo aquí, y la serialización no toca el proxy de JPA.
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DispositivoDTO {
+
+    private Long idDispositivo;
+
+    private String nombre;
+
+    private String macAddress;
+
+    private String ipAddress;
+
+    private String ubicacion;
+
+    private String descripcion;
+
+    private Double latitud;
+
+    private Double longitud;
+
+    private EstadoDispositivo estado;
+
+    // Calculado: conectado y con heartbeat en los últimos 2 minutos
+    private Boolean online;
+
+    private LocalDateTime ultimoHeartbeat;
+
+    private Long contenidoActualId;
+
+    private LocalDateTime fechaRegistro;
+
+    private String versionSoftware;
+
+    private String resolucionPantalla;
+
+    private OrientacionPantalla orientacion;
+
+    private Integer volumenAudio;
+
+    private Integer brilloPantalla;
+
+    private Boolean activo;
+
+    private Long propietarioId;
+
+    // Versión de la entidad; en la respuesta va también como ETag
+    private Long version;
+
+    public static DispositivoDTO desde(DispositivoRaspberry dispositivo) {
+        DispositivoDTO dto = new DispositivoDTO();
+        dto.setIdDispositivo(dispositivo.getIdDispositivo());
+        dto.setNombre(dispositivo.getNombre());
+        dto.setMacAddress(dispositivo.getMacAddress());
+        dto.setIpAddress(dispositivo.getIpAddress());
+        dto.setUbicacion(dispositivo.getUbicacion());
+        dto.setDescripcion(dispositivo.getDescripcion());
+        dto.setLatitud(dispositivo.getLatitud());
+        dto.setLongitud(dispositivo.getLongitud());
+        dto.setEstado(dispositivo.getEstado());
+        dto.setOnline(dispositivo.estaOnline());
+        dto.setUltimoHeartbeat(dispositivo.getUltimoHeartbeat());
+        dto.setContenidoActualId(dispositivo.getContenidoActualId());
+        dto.setFechaRegistro(dispositivo.getFechaRegistro());
+        dto.setVersionSoftware(dispositivo.getVersionSoftware());
+        dto.setResolucionPantalla(dispositivo.getResolucionPantalla());
+        dto.setOrientacion(dispositivo.getOrientacion());
+        dto.setVolumenAudio(dispositivo.getVolumenAudio());
+        dto.setBrilloPantalla(dispositivo.getBrilloPantalla());
+        dto.setActivo(dispositivo.getActivo());
+        dto.setPropietarioId(dispositivo.getPropietarioId());
+        dto.setVersion(dispositivo.getVersion());
+        return dto;
+    }
+}
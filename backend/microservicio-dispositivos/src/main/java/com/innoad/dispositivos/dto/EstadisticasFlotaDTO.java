@@ -0,0 +1,42 @@
+package com.innoad.dispositivos.dto;
+
+import com.innoad.dispositivos.modelo.EstadoDispositivo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * DTO con las estadísticas de la flota de dispositivos activos
+ *
+ * Incluye siempre todos los valores de {@link EstadoDispositivo},
+ * con cero para los estados sin dispositivos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticasFlotaDTO {
+
+    private long total;
+
+    private Map<EstadoDispositivo, Long> porEstado;
+
+    /**
+     * Construye el DTO a partir de un arreglo de contadores indexado por ordinal del estado
+     */
+    public static EstadisticasFlotaDTO desdeContadores(long[] contadores) {
+        Map<EstadoDispositivo, Long> porEstado = new EnumMap<>(EstadoDispositivo.class);
+        long total = 0;
+        for (EstadoDispositivo estado : EstadoDispositivo.values()) {
+            long cantidad = contadores[estado.ordinal()];
+            porEstado.put(estado, cantidad);
+            total += cantidad;
+        }
+        return new EstadisticasFlotaDTO(total, porEstado);
+    }
+
+    public long getCantidad(EstadoDispositivo estado) {
+        return porEstado.getOrDefault(estado, 0L);
+    }
+}
@@ -0,0 +1,48 @@
+package com.innoad.dispositivos.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.innoad.dispositivos.modelo.EstadoDespliegue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO con el progreso de un despliegue escalonado de software
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EstadoActualizacionDTO {
+
+    private String versionObjetivo;
+
+    private EstadoDespliegue estado;
+
+    private String motivoPausa;
+
+    private LocalDateTime iniciado;
+
+    // Índice de la oleada en curso (0 = canario)
+    private int oleadaActual;
+
+    private List<OleadaDTO> oleadas;
+
+    /**
+     * Progreso de una oleada del despliegue
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OleadaDTO {
+        private int numero;
+        private int dispositivos;
+        private int pendientes;
+        private int enCurso;
+        private int exitosos;
+        private int fallidos;
+        private int omitidos;
+    }
+}
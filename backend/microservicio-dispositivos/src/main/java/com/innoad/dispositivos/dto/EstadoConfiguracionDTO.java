@@ -0,0 +1,27 @@
+package com.innoad.dispositivos.dto;
+
+import com.innoad.dispositivos.modelo.ConfiguracionPantalla;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Configuración deseada frente a la reportada por un dispositivo
+ *
+ * pendiente son los campos que aún faltan por aplicar, con las claves del
+ * comando ACTUALIZAR_CONFIGURACION; vacío si el dispositivo está al día.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadoConfiguracionDTO {
+
+    private Long idDispositivo;
+    private ConfiguracionPantalla deseada;
+    private ConfiguracionPantalla reportada;
+    private LocalDateTime reportadaEn;
+    private Map<String, Object> pendiente;
+    private boolean conectado;
+}
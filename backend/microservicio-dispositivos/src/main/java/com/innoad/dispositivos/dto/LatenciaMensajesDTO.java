@@ -0,0 +1,27 @@
+package com.innoad.dispositivos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Latencia de procesamiento en el servidor de un tipo de mensaje WebSocket
+ *
+ * Los percentiles cubren la ventana reciente del histograma (unos minutos),
+ * la cantidad es acumulada desde el arranque.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatenciaMensajesDTO {
+
+    private String tipo;
+
+    private long cantidad;
+
+    private double p50Ms;
+
+    private double p99Ms;
+
+    private double maxMs;
+}
@@ -0,0 +1,59 @@
+package com.innoad.dispositivos.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO para los mensajes que envía el cliente Raspberry Pi por WebSocket
+ *
+ * Agrupa los campos de todos los tipos de mensaje del cliente
+ * (HEARTBEAT, ESTADO_REPRODUCCION, DESCARGA_COMPLETADA, MANIFIESTO_CONTENIDO, ERROR);
+ * cada tipo solo llena los que le corresponden.
+ * Los nombres siguen el formato snake_case que usa raspberry-cliente/main.py.
+ */
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MensajeDispositivoDTO {
+
+    private String tipo;
+
+    private String timestamp;
+
+    @JsonProperty("mac_address")
+    private String macAddress;
+
+    @JsonProperty("ip_address")
+    private String ipAddress;
+
+    @JsonProperty("version_software")
+    private String versionSoftware;
+
+    private String estado;
+
+    @JsonProperty("contenido_id")
+    private Long contenidoId;
+
+    private Map<String, Object> metricas;
+
+    private Map<String, Object> reproduccion;
+
+    // Configuración de pantalla que el cliente tiene aplicada (solo HEARTBEAT)
+    private Map<String, Object> configuracion;
+
+    // Checksums del contenido guardado en el dispositivo (solo MANIFIESTO_CONTENIDO)
+    private List<String> checksums;
+
+    private String mensaje;
+
+    // Comando que originó el error (solo ERROR)
+    private String comando;
+
+    public boolean esTipo(String tipoEsperado) {
+        return tipoEsperado.equals(tipo);
+    }
+}
@@ -0,0 +1,56 @@
+package com.innoad.dispositivos.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con los parámetros de un despliegue escalonado de software
+ *
+ * Los campos no enviados toman valores conservadores por defecto; un null
+ * explícito en los numéricos se rechaza al validar.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlanActualizacionDTO {
+
+    // Si no se indica, se usa dispositivos.updates.current-version
+    @Size(max = 50, message = "La versión no puede exceder 50 caracteres")
+    private String versionObjetivo;
+
+    // URL del paquete que descargará el cliente (opcional)
+    @Size(max = 500, message = "La URL no puede exceder 500 caracteres")
+    private String urlPaquete;
+
+    @NotNull(message = "El porcentaje del canario es obligatorio")
+    @Min(value = 1, message = "El canario debe ser al menos 1%")
+    @Max(value = 100, message = "El canario no puede superar 100%")
+    private Integer porcentajeCanario = 5;
+
+    @NotNull(message = "El tamaño de oleada es obligatorio")
+    @Min(value = 1, message = "Cada oleada debe tener al menos un dispositivo")
+    private Integer tamanoOleada = 50;
+
+    // Máximo de dispositivos descargando al mismo tiempo, para no saturar el servidor de contenido
+    @NotNull(message = "El máximo de actualizaciones concurrentes es obligatorio")
+    @Min(value = 1, message = "Debe permitirse al menos una actualización concurrente")
+    private Integer maxConcurrentes = 20;
+
+    @NotNull(message = "El umbral de fallos es obligatorio")
+    @Min(value = 0, message = "El umbral de fallos no puede ser negativo")
+    @Max(value = 100, message = "El umbral de fallos no puede superar 100%")
+    private Integer umbralFallosPorcentaje = 20;
+
+    // Tiempo para que el dispositivo reporte la nueva versión antes de contarlo como fallido
+    @NotNull(message = "El timeout es obligatorio")
+    @Min(value = 1, message = "El timeout debe ser de al menos 1 minuto")
+    private Integer timeoutMinutos = 15;
+
+    // Máximo porcentaje de pantallas de una misma ubicación actualizando a la vez
+    @NotNull(message = "El porcentaje por ubicación es obligatorio")
+    @Min(value = 1, message = "El porcentaje por ubicación debe ser al menos 1%")
+    @Max(value = 100, message = "El porcentaje por ubicación no puede superar 100%")
+    private Integer maxPorcentajePorUbicacion = 50;
+}
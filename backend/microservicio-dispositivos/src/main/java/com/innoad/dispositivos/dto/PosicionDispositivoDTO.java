@@ -0,0 +1,32 @@
+package com.innoad.dispositivos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con la posición geográfica de un dispositivo
+ *
+ * Se usa para cargar el índice espacial y como respuesta de las
+ * búsquedas por cercanía (con la distancia al punto consultado).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PosicionDispositivoDTO {
+
+    private Long idDispositivo;
+
+    private Long propietarioId;
+
+    private Double latitud;
+
+    private Double longitud;
+
+    // Solo en búsquedas por radio
+    private Double distanciaMetros;
+
+    public PosicionDispositivoDTO(Long idDispositivo, Long propietarioId, Double latitud, Double longitud) {
+        this(idDispositivo, propietarioId, latitud, longitud, null);
+    }
+}
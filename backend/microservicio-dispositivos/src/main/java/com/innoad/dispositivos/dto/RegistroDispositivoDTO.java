@@ -0,0 +1,40 @@
+package com.innoad.dispositivos.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Datos de un dispositivo dentro de un registro masivo
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistroDispositivoDTO {
+
+    @NotBlank(message = "El nombre del dispositivo es obligatorio")
+    @Size(min = 3, max = 100, message = "El nombre debe tener entre 3 y 100 caracteres")
+    private String nombre;
+
+    @NotBlank(message = "La dirección MAC es obligatoria")
+    private String macAddress;
+
+    @NotBlank(message = "La ubicación es obligatoria")
+    @Size(max = 200, message = "La ubicación no puede superar 200 caracteres")
+    private String ubicacion;
+
+    @Size(max = 500, message = "La descripción no puede superar 500 caracteres")
+    private String descripcion;
+
+    @NotNull(message = "El propietario es obligatorio")
+    private Long propietarioId;
+
+    @DecimalMin(value = "-90.0", message = "La latitud debe estar entre -90 y 90")
+    @DecimalMax(value = "90.0", message = "La latitud debe estar entre -90 y 90")
+    private Double latitud;
+
+    @DecimalMin(value = "-180.0", message = "La longitud debe estar entre -180 y 180")
+    @DecimalMax(value = "180.0", message = "La longitud debe estar entre -180 y 180")
+    private Double longitud;
+}
@@ -0,0 +1,27 @@
+package com.innoad.dispositivos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO con una reproducción del historial de un dispositivo
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReproduccionDTO {
+
+    private Long idDispositivo;
+
+    private Long contenidoId;
+
+    private LocalDateTime inicio;
+
+    private LocalDateTime fin;
+
+    // COMPLETADO, DETENIDO o ERROR
+    private String resultado;
+}
@@ -0,0 +1,28 @@
+package com.innoad.dispositivos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de un registro masivo: dispositivos creados y filas rechazadas con su motivo
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoRegistroLoteDTO {
+
+    private List<ResumenDispositivoDTO> registrados = new ArrayList<>();
+    private List<RechazoDTO> rechazados = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RechazoDTO {
+        private int posicion;
+        private String macAddress;
+        private String motivo;
+    }
+}
@@ -0,0 +1,24 @@
+package com.innoad.dispositivos.dto;
+
+import com.innoad.dispositivos.modelo.EstadoDispositivo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Proyección mínima de un dispositivo activo, usada para reconstruir
+ * índices y contadores en memoria sin cargar la entidad completa
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumenDispositivoDTO {
+
+    private Long idDispositivo;
+
+    private Long propietarioId;
+
+    private String ubicacion;
+
+    private EstadoDispositivo estado;
+}
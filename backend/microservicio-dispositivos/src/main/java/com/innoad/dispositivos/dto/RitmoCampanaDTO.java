@@ -0,0 +1,30 @@
+package com.innoad.dispositivos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO con el estado del control de ritmo de gasto de una campaña
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RitmoCampanaDTO {
+
+    private Long idCampana;
+
+    private BigDecimal presupuesto;
+
+    private BigDecimal gastado;
+
+    // Gasto por hora que agotaría el presupuesto justo en fecha_fin
+    private BigDecimal tasaObjetivoPorHora;
+
+    // Probabilidad con la que se permite programar sus contenidos (0 a 1)
+    private double factorEntrega;
+
+    private boolean agotada;
+}
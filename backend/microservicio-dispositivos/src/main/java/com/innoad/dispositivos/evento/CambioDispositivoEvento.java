@@ -0,0 +1,63 @@
+package com.innoad.dispositivos.evento;
+
+import com.innoad.dispositivos.modelo.DispositivoRaspberry;
+import com.innoad.dispositivos.modelo.EstadoDispositivo;
+import java.time.LocalDateTime;
+
+/**
+ * Evento publicado cada vez que se persiste un cambio en un dispositivo.
+ *
+ * Es una foto inmutable de los campos que usan el tablero en vivo y los
+ * índices y contadores en memoria, tomada en el momento del guardado, para
+ * que los consumidores no tengan que volver a leer la entidad (ni tocar la
+ * sesión de Hibernate).
+ */
+public record CambioDispositivoEvento(
+        Long idDispositivo,
+        String macAddress,
+        Long propietarioId,
+        String ubicacion,
+        Double latitud,
+        Double longitud,
+        EstadoDispositivo estado,
+        LocalDateTime ultimoHeartbeat,
+        Long contenidoActualId,
+        boolean activo
+) {
+
+    /**
+     * Construye el evento a partir del estado actual de la entidad
+     */
+    public static CambioDispositivoEvento desde(DispositivoRaspberry dispositivo) {
+        return new CambioDispositivoEvento(
+                dispositivo.getIdDispositivo(),
+                dispositivo.getMacAddress(),
+                dispositivo.getPropietarioId(),
+                dispositivo.getUbicacion(),
+                dispositivo.getLatitud(),
+                dispositivo.getLongitud(),
+                dispositivo.getEstado(),
+                dispositivo.getUltimoHeartbeat(),
+                dispositivo.getContenidoActualId(),
+                Boolean.TRUE.equals(dispositivo.getActivo())
+        );
+    }
+
+    /**
+     * Construye el evento para un dispositivo borrado físicamente
+     */
+    public static CambioDispositivoEvento eliminado(DispositivoRaspberry dispositivo) {
+        return new CambioDispositivoEvento(
+                dispositivo.getIdDispositivo(),
+                dispositivo.getMacAddress(),
+                dispositivo.getPropietarioId(),
+                dispositivo.getUbicacion(),
+                dispositivo.getLatitud(),
+                dispositivo.getLongitud(),
+                dispositivo.getEstado(),
+                dispositivo.getUltimoHeartbeat(),
+                dispositivo.getContenidoActualId(),
+                false
+        );
+    }
+}
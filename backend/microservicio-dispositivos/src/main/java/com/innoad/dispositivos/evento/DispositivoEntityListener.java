@@ -0,0 +1,36 @@
+package com.innoad.dispositivos.evento;
+
+import com.innoad.dispositivos.modelo.DispositivoRaspberry;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA que convierte cada alta o modificación de un dispositivo
+ * en un {@link CambioDispositivoEvento} de Spring.
+ *
+ * Hibernate instancia este listener a través del contenedor de Spring,
+ * por eso puede recibir dependencias por constructor. Así cualquier parte
+ * del servicio que guarde un dispositivo (heartbeat, comandos, REST)
+ * alimenta el tablero en vivo sin tener que acordarse de notificarlo.
+ */
+@Component
+@RequiredArgsConstructor
+public class DispositivoEntityListener {
+
+    private final ApplicationEventPublisher publicador;
+
+    @PostPersist
+    @PostUpdate
+    public void publicarCambio(DispositivoRaspberry dispositivo) {
+        publicador.publishEvent(CambioDispositivoEvento.desde(dispositivo));
+    }
+
+    @PostRemove
+    public void publicarEliminacion(DispositivoRaspberry dispositivo) {
+        publicador.publishEvent(CambioDispositivoEvento.eliminado(dispositivo));
+    }
+}
@@ -0,0 +1,19 @@
+package com.innoad.dispositivos.evento;
+
+import java.util.Map;
+
+/**
+ * Evento publicado al procesar el heartbeat de un dispositivo conectado.
+ *
+ * Lleva la versión de software, las métricas y la configuración de pantalla
+ * aplicada tal como las reporta el cliente, para los procesos que necesitan
+ * reaccionar a cada heartbeat aunque no cambie nada persistido del dispositivo.
+ * La configuración es null si el cliente no la reporta (versiones anteriores).
+ */
+public record HeartbeatRecibidoEvento(
+        Long idDispositivo,
+        String versionSoftware,
+        Map<String, Object> metricas,
+        Map<String, Object> configuracion
+) {
+}
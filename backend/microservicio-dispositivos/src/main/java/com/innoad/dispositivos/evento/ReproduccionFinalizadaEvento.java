@@ -0,0 +1,22 @@
+package com.innoad.dispositivos.evento;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento publicado cuando un dispositivo informa que terminó de reproducir
+ * un contenido, sea porque lo completó, lo detuvo o falló.
+ *
+ * El cliente no repite el contenido_id al terminar, así que el contenido es
+ * el que el dispositivo tenía en pantalla según el servidor.
+ */
+public record ReproduccionFinalizadaEvento(
+        Long idDispositivo,
+        Long contenidoId,
+        String resultado,   // COMPLETADO, DETENIDO o ERROR
+        LocalDateTime fin
+) {
+
+    public boolean completada() {
+        return "COMPLETADO".equals(resultado);
+    }
+}
@@ -0,0 +1,14 @@
+package com.innoad.dispositivos.evento;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento publicado cuando un dispositivo empieza a reproducir un contenido
+ * distinto del que tenía en pantalla.
+ */
+public record ReproduccionIniciadaEvento(
+        Long idDispositivo,
+        Long contenidoId,
+        LocalDateTime inicio
+) {
+}
@@ -0,0 +1,12 @@
+package com.innoad.dispositivos.evento;
+
+/**
+ * Evento publicado cuando el ciclo de vida cambia por fecha el estado de una
+ * campaña o de uno de sus anuncios.
+ */
+public record TransicionCampanaEvento(
+        Long idCampana,
+        Long idAnuncio,     // null si la transición es de la campaña
+        String estado
+) {
+}
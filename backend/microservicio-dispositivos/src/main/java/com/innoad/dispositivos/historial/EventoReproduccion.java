@@ -0,0 +1,69 @@
+package com.innoad.dispositivos.historial;
+
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.zip.CRC32C;
+
+/**
+ * Una reproducción en el registro de disco, con tiempos en milisegundos epoch
+ *
+ * En disco ocupa {@link #TAMANO} bytes fijos:
+ * dispositivo(8) contenido(8) inicio(8) fin(8) resultado(1) relleno(3) crc32c(4).
+ * El CRC cubre los primeros 33 bytes y permite distinguir, tras una caída, un
+ * registro completo de uno escrito a medias.
+ */
+public record EventoReproduccion(
+        long idDispositivo,
+        long contenidoId,
+        long inicioMs,
+        long finMs,
+        ResultadoReproduccion resultado
+) {
+
+    public static final int TAMANO = 40;
+    private static final int BYTES_CON_CRC = 33;
+
+    /** Orden dentro de un segmento sellado: por dispositivo y luego por inicio */
+    static final Comparator<EventoReproduccion> POR_DISPOSITIVO_E_INICIO =
+            Comparator.comparingLong(EventoReproduccion::idDispositivo)
+                    .thenComparingLong(EventoReproduccion::inicioMs);
+
+    /**
+     * Indica si la reproducción se solapa con el intervalo [desdeMs, hastaMs]
+     */
+    public boolean solapa(long desdeMs, long hastaMs) {
+        return inicioMs <= hastaMs && finMs >= desdeMs;
+    }
+
+    void escribir(ByteBuffer destino, int posicion) {
+        destino.putLong(posicion, idDispositivo);
+        destino.putLong(posicion + 8, contenidoId);
+        destino.putLong(posicion + 16, inicioMs);
+        destino.putLong(posicion + 24, finMs);
+        destino.putInt(posicion + 32, 0);
+        destino.putInt(posicion + 36, 0);
+        // El resultado va antes del CRC pero se marca al final: hasta entonces el registro lee como libre
+        CRC32C crc = new CRC32C();
+        crc.update(destino.slice(posicion, 32));
+        crc.update(resultado.codigo());
+        destino.putInt(posicion + 36, (int) crc.getValue());
+        destino.put(posicion + 32, resultado.codigo());
+    }
+
+    /**
+     * Lee el registro en la posición dada; null si está libre o incompleto
+     */
+    static EventoReproduccion leer(ByteBuffer origen, int posicion) {
+        ResultadoReproduccion resultado = ResultadoReproduccion.deCodigo(origen.get(posicion + 32));
+        if (resultado == null) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(origen.slice(posicion, BYTES_CON_CRC));
+        if ((int) crc.getValue() != origen.getInt(posicion + 36)) {
+            return null;
+        }
+        return new EventoReproduccion(origen.getLong(posicion), origen.getLong(posicion + 8),
+                origen.getLong(posicion + 16), origen.getLong(posicion + 24), resultado);
+    }
+}
@@ -0,0 +1,364 @@
+package com.innoad.dispositivos.historial;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Registro de reproducciones en disco, solo de agregado, en segmentos mapeados en memoria
+ *
+ * El segmento abierto es un archivo preasignado de registrosPorSegmento
+ * registros de tamaño fijo ({@link EventoReproduccion#TAMANO} bytes) mapeado
+ * con mmap: agregar es escribir 40 bytes en memoria, sin llamadas al sistema.
+ * Lo escrito sobrevive a una caída del proceso; {@link #sincronizar()} lo
+ * baja a disco para sobrevivir también a un corte de energía.
+ *
+ * Cuando el segmento se llena o supera la duración máxima, se rota y un hilo
+ * aparte lo sella ({@link SegmentoSellado}: ordenado, comprimido e indexado)
+ * y borra el archivo crudo. Mientras tanto sigue consultable desde memoria.
+ * Al arrancar, los segmentos crudos que quedaron de una caída se recuperan
+ * hasta el último registro con CRC válido y se sellan.
+ *
+ * Un solo escritor a la vez (agregar es synchronized, a la tasa esperada de
+ * decenas de eventos por segundo no hay contención); las consultas leen
+ * fuera del candado porque los registros ya escritos no cambian.
+ */
+@Slf4j
+public class RegistroReproducciones implements Closeable {
+
+    private static final String PREFIJO = "reproducciones-";
+    private static final String EXTENSION_CRUDO = ".log";
+
+    private final Path directorio;
+    private final int registrosPorSegmento;
+    private final int registrosPorBloque;
+    private final long duracionMaximaMs;
+    private final ExecutorService sellador = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "sellado-reproducciones");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private final List<SegmentoSellado> sellados = new ArrayList<>();
+    private final List<SegmentoAbierto> porSellar = new ArrayList<>();
+    private SegmentoAbierto activo;
+    private long siguienteSecuencia;
+
+    public RegistroReproducciones(Path directorio, int registrosPorSegmento, int registrosPorBloque,
+                                  long duracionMaximaMs) {
+        this.directorio = directorio;
+        this.registrosPorSegmento = registrosPorSegmento;
+        this.registrosPorBloque = registrosPorBloque;
+        this.duracionMaximaMs = duracionMaximaMs;
+    }
+
+    /**
+     * Carga los segmentos existentes, recupera los crudos pendientes y abre uno nuevo
+     */
+    public synchronized void abrir() throws IOException {
+        Files.createDirectories(directorio);
+        long maxSecuencia = 0;
+        List<Path> crudos = new ArrayList<>();
+        // Sellados primero, indexados por secuencia: decide qué crudos ya no hacen falta
+        Map<Long, SegmentoSellado> porSecuencia = new TreeMap<>();
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            for (Path archivo : archivos.sorted().toList()) {
+                String nombre = archivo.getFileName().toString();
+                if (nombre.endsWith(".tmp")) {
+                    // Sellado interrumpido: el crudo sigue ahí y se vuelve a sellar
+                    Files.deleteIfExists(archivo);
+                    continue;
+                }
+                long secuencia = secuencia(nombre);
+                if (secuencia < 0) {
+                    continue;
+                }
+                maxSecuencia = Math.max(maxSecuencia, secuencia);
+                if (!nombre.endsWith(SegmentoSellado.EXTENSION)) {
+                    crudos.add(archivo);
+                    continue;
+                }
+                try {
+                    porSecuencia.put(secuencia, SegmentoSellado.abrir(archivo, secuencia));
+                } catch (IOException e) {
+                    log.error("Segmento de reproducciones ilegible, se ignora: {}", e.getMessage());
+                }
+            }
+        }
+        sellados.addAll(porSecuencia.values());
+        for (Path archivo : crudos) {
+            String nombre = archivo.getFileName().toString();
+            long secuencia = secuencia(nombre);
+            if (porSecuencia.containsKey(secuencia)) {
+                // Caída entre el rename del sellado y el borrado del crudo: ya está sellado
+                Files.deleteIfExists(archivo);
+                continue;
+            }
+            SegmentoAbierto recuperado = SegmentoAbierto.recuperar(archivo, secuencia);
+            log.info("Recuperados {} registros de reproducción de {}", recuperado.registros, nombre);
+            porSellar.add(recuperado);
+            sellador.execute(() -> sellar(recuperado));
+        }
+        siguienteSecuencia = maxSecuencia + 1;
+        activo = nuevoSegmento();
+    }
+
+    /**
+     * Agrega una reproducción al segmento abierto, rotándolo si hace falta
+     */
+    public synchronized void agregar(EventoReproduccion evento) throws IOException {
+        if (activo.registros == activo.capacidad || vencido(activo)) {
+            rotar();
+        }
+        evento.escribir(activo.buffer, activo.registros * EventoReproduccion.TAMANO);
+        activo.registros++;
+    }
+
+    /**
+     * Rota el segmento abierto si superó la duración máxima aunque no esté lleno
+     */
+    public synchronized void rotarSiVencido() throws IOException {
+        if (vencido(activo)) {
+            rotar();
+        }
+    }
+
+    /**
+     * Baja a disco lo escrito en el segmento abierto
+     */
+    public void sincronizar() {
+        SegmentoAbierto segmento;
+        synchronized (this) {
+            segmento = activo;
+        }
+        if (segmento != null) {
+            segmento.buffer.force();
+        }
+    }
+
+    /**
+     * Reproducciones del dispositivo que se solapan con [desdeMs, hastaMs], ordenadas por inicio
+     */
+    public List<EventoReproduccion> consultar(long idDispositivo, long desdeMs, long hastaMs) throws IOException {
+        List<SegmentoSellado> selladosActuales;
+        List<SegmentoAbierto> abiertos;
+        List<Integer> escritos = new ArrayList<>();
+        synchronized (this) {
+            selladosActuales = new ArrayList<>(sellados);
+            abiertos = new ArrayList<>(porSellar);
+            abiertos.add(activo);
+            for (SegmentoAbierto segmento : abiertos) {
+                escritos.add(segmento.registros);
+            }
+        }
+
+        List<EventoReproduccion> resultado = new ArrayList<>();
+        for (SegmentoSellado segmento : selladosActuales) {
+            segmento.consultar(idDispositivo, desdeMs, hastaMs, resultado);
+        }
+        for (int i = 0; i < abiertos.size(); i++) {
+            abiertos.get(i).consultar(escritos.get(i), idDispositivo, desdeMs, hastaMs, resultado);
+        }
+        resultado.sort(Comparator.comparingLong(EventoReproduccion::inicioMs));
+        return resultado;
+    }
+
+    /**
+     * Borra los segmentos sellados cuya última reproducción terminó antes de limiteMs
+     *
+     * @return cantidad de segmentos borrados
+     */
+    public int purgarAnterioresA(long limiteMs) {
+        List<SegmentoSellado> vencidos;
+        synchronized (this) {
+            vencidos = sellados.stream().filter(s -> s.maxFinMs() < limiteMs).toList();
+            sellados.removeAll(vencidos);
+        }
+        for (SegmentoSellado segmento : vencidos) {
+            try {
+                Files.deleteIfExists(segmento.archivo());
+            } catch (IOException e) {
+                log.warn("No se pudo borrar el segmento {}: {}", segmento.archivo(), e.getMessage());
+            }
+        }
+        return vencidos.size();
+    }
+
+    /**
+     * Cantidad de segmentos sellados y pendientes de sellar
+     */
+    public synchronized int segmentos() {
+        return sellados.size() + porSellar.size() + 1;
+    }
+
+    /**
+     * Deja el segmento abierto en disco tal cual: se recupera y sella al volver a arrancar
+     */
+    @Override
+    public void close() throws IOException {
+        sellador.shutdown();
+        try {
+            if (!sellador.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("El sellado de segmentos de reproducciones no terminó a tiempo");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (activo != null) {
+                activo.buffer.force();
+                activo.canal.close();
+            }
+        }
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private boolean vencido(SegmentoAbierto segmento) {
+        return segmento.registros > 0 && System.currentTimeMillis() - segmento.abiertoEnMs >= duracionMaximaMs;
+    }
+
+    private void rotar() throws IOException {
+        SegmentoAbierto lleno = activo;
+        lleno.buffer.force();
+        activo = nuevoSegmento();
+        porSellar.add(lleno);
+        sellador.execute(() -> sellar(lleno));
+    }
+
+    private SegmentoAbierto nuevoSegmento() throws IOException {
+        long secuencia = siguienteSecuencia++;
+        Path archivo = directorio.resolve(nombre(secuencia, EXTENSION_CRUDO));
+        return SegmentoAbierto.crear(archivo, secuencia, registrosPorSegmento);
+    }
+
+    private void sellar(SegmentoAbierto segmento) {
+        try {
+            SegmentoSellado sellado = null;
+            if (segmento.registros > 0) {
+                sellado = SegmentoSellado.escribir(directorio.resolve(nombre(segmento.secuencia, SegmentoSellado.EXTENSION)),
+                        segmento.secuencia, segmento.leer(segmento.registros), registrosPorBloque);
+            }
+            synchronized (this) {
+                porSellar.remove(segmento);
+                if (sellado != null) {
+                    long secuencia = sellado.secuencia();
+                    sellados.removeIf(s -> s.secuencia() == secuencia);
+                    sellados.add(sellado);
+                    sellados.sort(Comparator.comparingLong(SegmentoSellado::secuencia));
+                }
+            }
+            segmento.canal.close();
+            Files.deleteIfExists(segmento.archivo);
+            if (sellado != null) {
+                log.debug("Sellado segmento {} con {} reproducciones", segmento.secuencia, sellado.registros());
+            }
+        } catch (IOException e) {
+            // Sigue consultable desde memoria y el crudo queda en disco para el próximo arranque
+            log.error("No se pudo sellar el segmento de reproducciones {}: {}", segmento.archivo, e.getMessage());
+        }
+    }
+
+    private static String nombre(long secuencia, String extension) {
+        return PREFIJO + String.format("%012d", secuencia) + extension;
+    }
+
+    private static long secuencia(String nombre) {
+        if (!nombre.startsWith(PREFIJO)) {
+            return -1;
+        }
+        int punto = nombre.indexOf('.', PREFIJO.length());
+        if (punto < 0) {
+            return -1;
+        }
+        String extension = nombre.substring(punto);
+        if (!extension.equals(EXTENSION_CRUDO) && !extension.equals(SegmentoSellado.EXTENSION)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(nombre.substring(PREFIJO.length(), punto));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Segmento crudo mapeado en memoria; registros solo lo modifica el escritor
+     * bajo el candado del registro
+     */
+    private static final class SegmentoAbierto {
+
+        final Path archivo;
+        final long secuencia;
+        final FileChannel canal;
+        final MappedByteBuffer buffer;
+        final int capacidad;
+        final long abiertoEnMs = System.currentTimeMillis();
+        int registros;
+
+        private SegmentoAbierto(Path archivo, long secuencia, FileChannel canal, MappedByteBuffer buffer) {
+            this.archivo = archivo;
+            this.secuencia = secuencia;
+            this.canal = canal;
+            this.buffer = buffer;
+            this.capacidad = buffer.capacity() / EventoReproduccion.TAMANO;
+        }
+
+        static SegmentoAbierto crear(Path archivo, long secuencia, int capacidad) throws IOException {
+            FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long tamano = (long) capacidad * EventoReproduccion.TAMANO;
+            return new SegmentoAbierto(archivo, secuencia, canal, canal.map(FileChannel.MapMode.READ_WRITE, 0, tamano));
+        }
+
+        static SegmentoAbierto recuperar(Path archivo, long secuencia) throws IOException {
+            FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long tamano = canal.size() - canal.size() % EventoReproduccion.TAMANO;
+            SegmentoAbierto segmento = new SegmentoAbierto(archivo, secuencia, canal,
+                    canal.map(FileChannel.MapMode.READ_WRITE, 0, tamano));
+            // El escritor es secuencial: el primer registro libre o con CRC inválido marca el final
+            while (segmento.registros < segmento.capacidad
+                    && EventoReproduccion.leer(segmento.buffer, segmento.registros * EventoReproduccion.TAMANO) != null) {
+                segmento.registros++;
+            }
+            return segmento;
+        }
+
+        List<EventoReproduccion> leer(int hasta) {
+            List<EventoReproduccion> eventos = new ArrayList<>(hasta);
+            for (int i = 0; i < hasta; i++) {
+                eventos.add(EventoReproduccion.leer(buffer, i * EventoReproduccion.TAMANO));
+            }
+            return eventos;
+        }
+
+        void consultar(int hasta, long idDispositivo, long desdeMs, long hastaMs, List<EventoReproduccion> resultado) {
+            for (int i = 0; i < hasta; i++) {
+                int posicion = i * EventoReproduccion.TAMANO;
+                // Filtrar por dispositivo antes de decodificar el registro completo
+                if (buffer.getLong(posicion) != idDispositivo) {
+                    continue;
+                }
+                EventoReproduccion evento = EventoReproduccion.leer(buffer, posicion);
+                if (evento != null && evento.solapa(desdeMs, hastaMs)) {
+                    resultado.add(evento);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.innoad.dispositivos.historial;
+
+/**
+ * Cómo terminó una reproducción; el código se guarda en un byte del registro
+ * en disco y 0 queda reservado para "registro sin escribir".
+ */
+public enum ResultadoReproduccion {
+    COMPLETADO,
+    DETENIDO,
+    ERROR;
+
+    byte codigo() {
+        return (byte) (ordinal() + 1);
+    }
+
+    static ResultadoReproduccion deCodigo(byte codigo) {
+        ResultadoReproduccion[] valores = values();
+        return codigo >= 1 && codigo <= valores.length ? valores[codigo - 1] : null;
+    }
+
+    /**
+     * Traduce el estado informado por el cliente; lo desconocido cuenta como detenido
+     */
+    public static ResultadoReproduccion deEstado(String estado) {
+        if ("COMPLETADO".equals(estado)) {
+            return COMPLETADO;
+        }
+        if ("ERROR".equals(estado)) {
+            return ERROR;
+        }
+        return DETENIDO;
+    }
+}
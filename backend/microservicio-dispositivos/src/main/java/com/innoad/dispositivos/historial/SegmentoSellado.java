@@ -0,0 +1,301 @@
+package com.innoad.dispositivos.historial;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Segmento cerrado del registro de reproducciones, comprimido e indexado
+ *
+ * Al sellar, los registros se ordenan por (dispositivo, inicio) y se guardan
+ * en bloques comprimidos con Deflate. Al final del archivo va el índice con
+ * la primera clave de cada bloque y un pie fijo con los extremos de tiempo
+ * del segmento. Una consulta por dispositivo e intervalo descarta el
+ * segmento por sus extremos, busca en el índice los bloques de ese
+ * dispositivo y solo descomprime esos.
+ *
+ * Es inmutable: el índice se carga una vez y los bloques se leen con lecturas
+ * posicionales, así que admite consultas concurrentes.
+ */
+class SegmentoSellado {
+
+    static final String EXTENSION = ".seg";
+
+    private static final long MAGICO = 0x494E5231L; // "INR1"
+    private static final int TAMANO_ENTRADA_INDICE = 32;
+    private static final int TAMANO_PIE = 40;
+
+    private final Path archivo;
+    private final long secuencia;
+    private final long minInicioMs;
+    private final long maxFinMs;
+    private final long maxDuracionMs;
+    private final int registros;
+    private final long[] primerDispositivo;
+    private final long[] primerInicio;
+    private final long[] desplazamiento;
+    private final int[] longitud;
+    private final int[] cantidad;
+
+    private SegmentoSellado(Path archivo, long secuencia, long minInicioMs, long maxFinMs, long maxDuracionMs,
+                            int registros, long[] primerDispositivo, long[] primerInicio,
+                            long[] desplazamiento, int[] longitud, int[] cantidad) {
+        this.archivo = archivo;
+        this.secuencia = secuencia;
+        this.minInicioMs = minInicioMs;
+        this.maxFinMs = maxFinMs;
+        this.maxDuracionMs = maxDuracionMs;
+        this.registros = registros;
+        this.primerDispositivo = primerDispositivo;
+        this.primerInicio = primerInicio;
+        this.desplazamiento = desplazamiento;
+        this.longitud = longitud;
+        this.cantidad = cantidad;
+    }
+
+    /**
+     * Escribe los eventos como segmento sellado; el archivo solo aparece con
+     * su nombre final cuando está completo y sincronizado
+     */
+    static SegmentoSellado escribir(Path archivo, long secuencia, List<EventoReproduccion> eventos,
+                                    int registrosPorBloque) throws IOException {
+        List<EventoReproduccion> ordenados = new ArrayList<>(eventos);
+        ordenados.sort(EventoReproduccion.POR_DISPOSITIVO_E_INICIO);
+
+        int bloques = (ordenados.size() + registrosPorBloque - 1) / registrosPorBloque;
+        long[] primerDispositivo = new long[bloques];
+        long[] primerInicio = new long[bloques];
+        long[] desplazamiento = new long[bloques];
+        int[] longitud = new int[bloques];
+        int[] cantidad = new int[bloques];
+        long minInicio = Long.MAX_VALUE;
+        long maxFin = Long.MIN_VALUE;
+        long maxDuracion = 0;
+
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        ByteBuffer crudo = ByteBuffer.allocate(registrosPorBloque * EventoReproduccion.TAMANO);
+        byte[] comprimido = new byte[crudo.capacity() + 64];
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long posicion = 0;
+            for (int b = 0; b < bloques; b++) {
+                int desde = b * registrosPorBloque;
+                int hasta = Math.min(desde + registrosPorBloque, ordenados.size());
+                crudo.clear();
+                for (int i = desde; i < hasta; i++) {
+                    EventoReproduccion evento = ordenados.get(i);
+                    evento.escribir(crudo, (i - desde) * EventoReproduccion.TAMANO);
+                    minInicio = Math.min(minInicio, evento.inicioMs());
+                    maxFin = Math.max(maxFin, evento.finMs());
+                    maxDuracion = Math.max(maxDuracion, evento.finMs() - evento.inicioMs());
+                }
+
+                deflater.reset();
+                deflater.setInput(crudo.array(), 0, (hasta - desde) * EventoReproduccion.TAMANO);
+                deflater.finish();
+                int bytes = 0;
+                while (!deflater.finished()) {
+                    if (bytes == comprimido.length) {
+                        comprimido = Arrays.copyOf(comprimido, comprimido.length * 2);
+                    }
+                    bytes += deflater.deflate(comprimido, bytes, comprimido.length - bytes);
+                }
+                escribirTodo(canal, ByteBuffer.wrap(comprimido, 0, bytes), posicion);
+
+                primerDispositivo[b] = ordenados.get(desde).idDispositivo();
+                primerInicio[b] = ordenados.get(desde).inicioMs();
+                desplazamiento[b] = posicion;
+                longitud[b] = bytes;
+                cantidad[b] = hasta - desde;
+                posicion += bytes;
+            }
+
+            ByteBuffer indice = ByteBuffer.allocate(bloques * TAMANO_ENTRADA_INDICE + TAMANO_PIE);
+            for (int b = 0; b < bloques; b++) {
+                indice.putLong(primerDispositivo[b]).putLong(primerInicio[b])
+                        .putLong(desplazamiento[b]).putInt(longitud[b]).putInt(cantidad[b]);
+            }
+            indice.putLong(minInicio).putLong(maxFin).putLong(maxDuracion)
+                    .putInt(ordenados.size()).putInt(bloques).putLong(MAGICO);
+            indice.flip();
+            escribirTodo(canal, indice, posicion);
+            canal.force(true);
+        } finally {
+            deflater.end();
+        }
+        Files.move(temporal, archivo, StandardCopyOption.ATOMIC_MOVE);
+
+        return new SegmentoSellado(archivo, secuencia, minInicio, maxFin, maxDuracion, ordenados.size(),
+                primerDispositivo, primerInicio, desplazamiento, longitud, cantidad);
+    }
+
+    /**
+     * Carga el índice de un segmento sellado existente
+     */
+    static SegmentoSellado abrir(Path archivo, long secuencia) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            if (tamano < TAMANO_PIE) {
+                throw new IOException("Segmento truncado: " + archivo);
+            }
+            ByteBuffer pie = ByteBuffer.allocate(TAMANO_PIE);
+            leerTodo(canal, pie, tamano - TAMANO_PIE);
+            pie.flip();
+            long minInicio = pie.getLong();
+            long maxFin = pie.getLong();
+            long maxDuracion = pie.getLong();
+            int registros = pie.getInt();
+            int bloques = pie.getInt();
+            if (pie.getLong() != MAGICO || bloques < 0
+                    || (long) bloques * TAMANO_ENTRADA_INDICE + TAMANO_PIE > tamano) {
+                throw new IOException("Pie de segmento inválido: " + archivo);
+            }
+
+            ByteBuffer indice = ByteBuffer.allocate(bloques * TAMANO_ENTRADA_INDICE);
+            leerTodo(canal, indice, tamano - TAMANO_PIE - indice.capacity());
+            indice.flip();
+            long[] primerDispositivo = new long[bloques];
+            long[] primerInicio = new long[bloques];
+            long[] desplazamiento = new long[bloques];
+            int[] longitud = new int[bloques];
+            int[] cantidad = new int[bloques];
+            for (int b = 0; b < bloques; b++) {
+                primerDispositivo[b] = indice.getLong();
+                primerInicio[b] = indice.getLong();
+                desplazamiento[b] = indice.getLong();
+                longitud[b] = indice.getInt();
+                cantidad[b] = indice.getInt();
+            }
+            return new SegmentoSellado(archivo, secuencia, minInicio, maxFin, maxDuracion, registros,
+                    primerDispositivo, primerInicio, desplazamiento, longitud, cantidad);
+        }
+    }
+
+    /**
+     * Agrega a resultado las reproducciones del dispositivo que se solapan con [desdeMs, hastaMs]
+     */
+    void consultar(long idDispositivo, long desdeMs, long hastaMs, List<EventoReproduccion> resultado)
+            throws IOException {
+        if (registros == 0 || maxFinMs < desdeMs || minInicioMs > hastaMs) {
+            return;
+        }
+        // Una reproducción que empezó hasta maxDuracion antes de desde todavía puede solaparse
+        long inicioMinimo = desdeMs - maxDuracionMs;
+        int bloque = ultimoBloqueMenorQue(idDispositivo, inicioMinimo);
+
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            Inflater inflater = new Inflater();
+            try {
+                for (; bloque < cantidad.length; bloque++) {
+                    if (compararClave(primerDispositivo[bloque], primerInicio[bloque], idDispositivo, hastaMs) > 0) {
+                        break;
+                    }
+                    ByteBuffer crudo = descomprimir(canal, bloque, inflater);
+                    for (int i = 0; i < cantidad[bloque]; i++) {
+                        EventoReproduccion evento = EventoReproduccion.leer(crudo, i * EventoReproduccion.TAMANO);
+                        if (evento != null && evento.idDispositivo() == idDispositivo
+                                && evento.solapa(desdeMs, hastaMs)) {
+                            resultado.add(evento);
+                        }
+                    }
+                }
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    Path archivo() {
+        return archivo;
+    }
+
+    long secuencia() {
+        return secuencia;
+    }
+
+    long maxFinMs() {
+        return maxFinMs;
+    }
+
+    int registros() {
+        return registros;
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    /**
+     * Primer bloque que puede contener la clave: el último cuya primera clave
+     * es estrictamente menor (claves iguales pueden empezar en el bloque anterior)
+     */
+    private int ultimoBloqueMenorQue(long idDispositivo, long inicioMs) {
+        int bajo = 0;
+        int alto = cantidad.length - 1;
+        int encontrado = 0;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (compararClave(primerDispositivo[medio], primerInicio[medio], idDispositivo, inicioMs) < 0) {
+                encontrado = medio;
+                bajo = medio + 1;
+            } else {
+                alto = medio - 1;
+            }
+        }
+        return encontrado;
+    }
+
+    private static int compararClave(long dispositivoA, long inicioA, long dispositivoB, long inicioB) {
+        int porDispositivo = Long.compare(dispositivoA, dispositivoB);
+        return porDispositivo != 0 ? porDispositivo : Long.compare(inicioA, inicioB);
+    }
+
+    private ByteBuffer descomprimir(FileChannel canal, int bloque, Inflater inflater) throws IOException {
+        ByteBuffer comprimido = ByteBuffer.allocate(longitud[bloque]);
+        leerTodo(canal, comprimido, desplazamiento[bloque]);
+        byte[] crudo = new byte[cantidad[bloque] * EventoReproduccion.TAMANO];
+        inflater.reset();
+        inflater.setInput(comprimido.array());
+        try {
+            int leidos = 0;
+            while (leidos < crudo.length && !inflater.finished()) {
+                int n = inflater.inflate(crudo, leidos, crudo.length - leidos);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                leidos += n;
+            }
+            if (leidos != crudo.length) {
+                throw new IOException("Bloque " + bloque + " incompleto en " + archivo);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Bloque " + bloque + " corrupto en " + archivo, e);
+        }
+        return ByteBuffer.wrap(crudo);
+    }
+
+    private static void escribirTodo(FileChannel canal, ByteBuffer origen, long posicion) throws IOException {
+        while (origen.hasRemaining()) {
+            posicion += canal.write(origen, posicion);
+        }
+    }
+
+    private static void leerTodo(FileChannel canal, ByteBuffer destino, long posicion) throws IOException {
+        while (destino.hasRemaining()) {
+            int n = canal.read(destino, posicion);
+            if (n < 0) {
+                throw new IOException("Fin de archivo inesperado en " + canal);
+            }
+            posicion += n;
+        }
+    }
+}
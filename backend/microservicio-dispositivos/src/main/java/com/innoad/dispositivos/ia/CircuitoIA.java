@@ -0,0 +1,69 @@
+package com.innoad.dispositivos.ia;
+
+/**
+ * Cortacircuitos del cliente de IA
+ *
+ * CERRADO deja pasar todo y cuenta fallos seguidos; al llegar al umbral pasa
+ * a ABIERTO y rechaza sin llamar durante la espera configurada. Vencida la
+ * espera deja pasar un único lote de prueba (SEMIABIERTO): si responde bien
+ * vuelve a CERRADO, si falla vuelve a ABIERTO otra espera completa.
+ */
+class CircuitoIA {
+
+    enum Estado { CERRADO, ABIERTO, SEMIABIERTO }
+
+    private final int umbralFallos;
+    private final long esperaNanos;
+
+    private Estado estado = Estado.CERRADO;
+    private int fallosSeguidos;
+    private long abiertoHasta;
+
+    CircuitoIA(int umbralFallos, long esperaNanos) {
+        this.umbralFallos = umbralFallos;
+        this.esperaNanos = esperaNanos;
+    }
+
+    /**
+     * Indica si se puede enviar una llamada ahora; en SEMIABIERTO solo la primera
+     */
+    synchronized boolean permitir() {
+        switch (estado) {
+            case CERRADO:
+                return true;
+            case ABIERTO:
+                if (System.nanoTime() - abiertoHasta >= 0) {
+                    estado = Estado.SEMIABIERTO;
+                    return true;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Indica si las llamadas se rechazan sin intentar (abierto y sin vencer la espera)
+     */
+    synchronized boolean rechazando() {
+        return estado == Estado.SEMIABIERTO
+                || (estado == Estado.ABIERTO && System.nanoTime() - abiertoHasta < 0);
+    }
+
+    synchronized void exito() {
+        estado = Estado.CERRADO;
+        fallosSeguidos = 0;
+    }
+
+    synchronized void fallo() {
+        fallosSeguidos++;
+        if (estado == Estado.SEMIABIERTO || fallosSeguidos >= umbralFallos) {
+            estado = Estado.ABIERTO;
+            abiertoHasta = System.nanoTime() + esperaNanos;
+        }
+    }
+
+    synchronized Estado estado() {
+        return estado;
+    }
+}
@@ -0,0 +1,332 @@
+package com.innoad.dispositivos.ia;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cliente del servicio de IA (python-ia) con lotes, caché y cortacircuitos
+ *
+ * Las predicciones se piden con {@link #predecir} y se responden con un
+ * CompletableFuture. En el camino:
+ *
+ * - Caché por hash de características: las características se serializan
+ *   con las claves ordenadas y su SHA-256 (junto al tipo) es la clave. Una
+ *   respuesta vale ttl-cache; las pantallas de una misma campaña piden lo
+ *   mismo una y otra vez, así que casi todo sale de aquí.
+ * - Peticiones idénticas simultáneas comparten la misma llamada.
+ * - Lo que no está en caché entra en una cola; un hilo junta lo que llega
+ *   durante ventana-lote (o hasta max-lote) y lo manda en una sola llamada a
+ *   /api/ia/predecir-lote por tipo, sin bloquearse esperando la respuesta.
+ * - Timeouts de conexión y de petición, y un {@link CircuitoIA}: con el
+ *   servicio caído las predicciones fallan de inmediato en lugar de sumar
+ *   segundos de espera a cada pantalla.
+ *
+ * La URL base es configurable, así que se puede probar contra el servidor
+ * simulado de backend/simulador-dispositivos en lugar del proceso Python.
+ */
+@Slf4j
+public class ClienteIA implements Closeable {
+
+    private static final String RUTA_LOTE = "/api/ia/predecir-lote";
+
+    private final ConfiguracionClienteIA configuracion;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper canonico;
+    private final HttpClient httpClient;
+    private final URI uriLote;
+    private final CircuitoIA circuito;
+
+    private final Map<String, EntradaCache> cache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<JsonNode>> enCurso = new ConcurrentHashMap<>();
+    private final BlockingQueue<Pendiente> cola;
+    private final AtomicBoolean limpiandoCache = new AtomicBoolean();
+    private final Thread agrupador;
+    private volatile boolean activo = true;
+
+    private final AtomicLong aciertosCache = new AtomicLong();
+    private final AtomicLong fallosCache = new AtomicLong();
+    private final AtomicLong compartidas = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong itemsEnviados = new AtomicLong();
+    private final AtomicLong errores = new AtomicLong();
+    private final AtomicLong rechazadas = new AtomicLong();
+
+    public ClienteIA(ConfiguracionClienteIA configuracion, ObjectMapper objectMapper) {
+        this.configuracion = configuracion;
+        this.objectMapper = objectMapper;
+        this.canonico = JsonMapper.builder()
+                .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                .build();
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(configuracion.timeoutConexion())
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        this.uriLote = configuracion.url().resolve(RUTA_LOTE);
+        this.circuito = new CircuitoIA(configuracion.umbralFallos(), configuracion.esperaCircuito().toNanos());
+        this.cola = new LinkedBlockingQueue<>(configuracion.capacidadCola());
+
+        this.agrupador = new Thread(this::agrupar, "cliente-ia-lotes");
+        this.agrupador.setDaemon(true);
+        this.agrupador.start();
+    }
+
+    /**
+     * Pide una predicción; se completa con el resultado del item (el mismo JSON
+     * que devuelve el endpoint individual) o falla con:
+     * IllegalArgumentException si el servicio rechazó las características,
+     * IllegalStateException si no está disponible (circuito abierto, cola
+     * llena o error de red) y TimeoutException si no respondió a tiempo.
+     */
+    public CompletableFuture<JsonNode> predecir(TipoPrediccion tipo, Map<String, ?> caracteristicas) {
+        JsonNode item = objectMapper.valueToTree(caracteristicas);
+        String clave = clave(tipo, item);
+
+        EntradaCache entrada = cache.get(clave);
+        if (entrada != null) {
+            if (System.nanoTime() - entrada.expira() < 0) {
+                aciertosCache.incrementAndGet();
+                return CompletableFuture.completedFuture(entrada.valor());
+            }
+            cache.remove(clave, entrada);
+        }
+        fallosCache.incrementAndGet();
+
+        CompletableFuture<JsonNode> nuevo = new CompletableFuture<>();
+        CompletableFuture<JsonNode> existente = enCurso.putIfAbsent(clave, nuevo);
+        if (existente != null) {
+            compartidas.incrementAndGet();
+            return conTimeout(existente);
+        }
+        nuevo.whenComplete((valor, error) -> enCurso.remove(clave, nuevo));
+
+        if (circuito.rechazando()) {
+            rechazadas.incrementAndGet();
+            nuevo.completeExceptionally(new IllegalStateException("Servicio de IA no disponible (circuito abierto)"));
+        } else if (!activo || !cola.offer(new Pendiente(tipo, clave, item, nuevo))) {
+            rechazadas.incrementAndGet();
+            nuevo.completeExceptionally(new IllegalStateException("Cola del cliente de IA llena"));
+        }
+        return conTimeout(nuevo);
+    }
+
+    public EstadisticasClienteIA estadisticas() {
+        return new EstadisticasClienteIA(circuito.estado().name(), aciertosCache.get(), fallosCache.get(),
+                compartidas.get(), lotes.get(), itemsEnviados.get(), errores.get(), rechazadas.get(), cache.size());
+    }
+
+    /**
+     * Vacía la caché (por ejemplo después de reentrenar los modelos)
+     */
+    public void invalidarCache() {
+        cache.clear();
+    }
+
+    @Override
+    public void close() {
+        activo = false;
+        agrupador.interrupt();
+        try {
+            agrupador.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Pendiente pendiente;
+        while ((pendiente = cola.poll()) != null) {
+            pendiente.futuro().completeExceptionally(new IllegalStateException("Cliente de IA detenido"));
+        }
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private CompletableFuture<JsonNode> conTimeout(CompletableFuture<JsonNode> compartido) {
+        // Copia: quien llama no puede completar ni cancelar la llamada compartida
+        long limite = configuracion.ventanaLote().toMillis() + configuracion.timeoutPeticion().toMillis();
+        return compartido.copy().orTimeout(limite, TimeUnit.MILLISECONDS);
+    }
+
+    private String clave(TipoPrediccion tipo, JsonNode item) {
+        try {
+            // valueToTree no ordena los ObjectNode: se pasa por Object para que el mapper canónico lo haga
+            byte[] json = canonico.writeValueAsBytes(canonico.treeToValue(item, Object.class));
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return tipo.codigo() + ':' + HexFormat.of().formatHex(sha.digest(json), 0, 16);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Características no serializables: " + e.getMessage(), e);
+        }
+    }
+
+    private void agrupar() {
+        long ventanaNanos = configuracion.ventanaLote().toNanos();
+        while (activo) {
+            List<Pendiente> lote = new ArrayList<>();
+            try {
+                Pendiente primero = cola.poll(1, TimeUnit.SECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                long limite = System.nanoTime() + ventanaNanos;
+                while (lote.size() < configuracion.maxLote()) {
+                    long resta = limite - System.nanoTime();
+                    Pendiente siguiente = resta > 0 ? cola.poll(resta, TimeUnit.NANOSECONDS) : cola.poll();
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                }
+            } catch (InterruptedException e) {
+                lote.forEach(p -> p.futuro().completeExceptionally(new IllegalStateException("Cliente de IA detenido")));
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            Map<TipoPrediccion, List<Pendiente>> porTipo = new EnumMap<>(TipoPrediccion.class);
+            for (Pendiente pendiente : lote) {
+                porTipo.computeIfAbsent(pendiente.tipo(), t -> new ArrayList<>()).add(pendiente);
+            }
+            porTipo.forEach(this::enviar);
+        }
+    }
+
+    private void enviar(TipoPrediccion tipo, List<Pendiente> lote) {
+        if (!circuito.permitir()) {
+            rechazadas.addAndGet(lote.size());
+            fallarTodos(lote, new IllegalStateException("Servicio de IA no disponible (circuito abierto)"));
+            return;
+        }
+
+        ObjectNode cuerpo = objectMapper.createObjectNode();
+        cuerpo.put("tipo", tipo.codigo());
+        ArrayNode items = cuerpo.putArray("items");
+        lote.forEach(p -> items.add(p.item()));
+
+        HttpRequest peticion;
+        try {
+            peticion = HttpRequest.newBuilder(uriLote)
+                    .timeout(configuracion.timeoutPeticion())
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(cuerpo)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            fallarTodos(lote, new IllegalArgumentException("No se pudo serializar el lote", e));
+            return;
+        }
+
+        lotes.incrementAndGet();
+        itemsEnviados.addAndGet(lote.size());
+        httpClient.sendAsync(peticion, HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((respuesta, error) -> {
+                    if (error != null) {
+                        registrarFallo(lote, "Error llamando al servicio de IA: " + error.getMessage());
+                    } else {
+                        procesarRespuesta(lote, respuesta);
+                    }
+                });
+    }
+
+    private void procesarRespuesta(List<Pendiente> lote, HttpResponse<byte[]> respuesta) {
+        int estado = respuesta.statusCode();
+        if (estado >= 500) {
+            registrarFallo(lote, "El servicio de IA respondió " + estado);
+            return;
+        }
+
+        JsonNode resultados;
+        try {
+            resultados = objectMapper.readTree(respuesta.body()).path("resultados");
+        } catch (IOException e) {
+            registrarFallo(lote, "Respuesta ilegible del servicio de IA: " + e.getMessage());
+            return;
+        }
+        if (estado != 200 || !resultados.isArray() || resultados.size() != lote.size()) {
+            // El servicio está vivo; el problema es el lote
+            circuito.exito();
+            errores.addAndGet(lote.size());
+            fallarTodos(lote, new IllegalArgumentException("El servicio de IA rechazó el lote (HTTP " + estado + ")"));
+            return;
+        }
+
+        circuito.exito();
+        long expira = System.nanoTime() + configuracion.ttlCache().toNanos();
+        for (int i = 0; i < lote.size(); i++) {
+            Pendiente pendiente = lote.get(i);
+            JsonNode resultado = resultados.get(i);
+            if ("success".equals(resultado.path("status").asText())) {
+                cache.put(pendiente.clave(), new EntradaCache(resultado, expira));
+                pendiente.futuro().complete(resultado);
+            } else {
+                errores.incrementAndGet();
+                pendiente.futuro().completeExceptionally(
+                        new IllegalArgumentException(resultado.path("error").asText("Predicción rechazada")));
+            }
+        }
+        limpiarCacheSiHaceFalta();
+    }
+
+    private void registrarFallo(List<Pendiente> lote, String mensaje) {
+        circuito.fallo();
+        errores.addAndGet(lote.size());
+        log.warn("{} ({} predicciones, circuito {})", mensaje, lote.size(), circuito.estado());
+        fallarTodos(lote, new IllegalStateException(mensaje));
+    }
+
+    private static void fallarTodos(List<Pendiente> lote, RuntimeException error) {
+        lote.forEach(p -> p.futuro().completeExceptionally(error));
+    }
+
+    private void limpiarCacheSiHaceFalta() {
+        int maximo = configuracion.maxEntradasCache();
+        if (cache.size() <= maximo || !limpiandoCache.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long ahora = System.nanoTime();
+            cache.values().removeIf(e -> ahora - e.expira() >= 0);
+            // Si todo sigue vigente se descarta un 10% cualquiera; es una caché, no un registro
+            Iterator<String> claves = cache.keySet().iterator();
+            int objetivo = maximo - maximo / 10;
+            while (cache.size() > objetivo && claves.hasNext()) {
+                claves.next();
+                claves.remove();
+            }
+        } finally {
+            limpiandoCache.set(false);
+        }
+    }
+
+    private record Pendiente(TipoPrediccion tipo, String clave, JsonNode item, CompletableFuture<JsonNode> futuro) {
+    }
+
+    private record EntradaCache(JsonNode valor, long expira) {
+    }
+}
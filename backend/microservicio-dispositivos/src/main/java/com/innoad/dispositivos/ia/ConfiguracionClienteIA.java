@@ -0,0 +1,30 @@
+package com.innoad.dispositivos.ia;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Parámetros del cliente del servicio de IA (sección servicio-ia de application.yml)
+ */
+public record ConfiguracionClienteIA(
+        URI url,
+        Duration timeoutConexion,
+        Duration timeoutPeticion,
+        Duration ventanaLote,
+        int maxLote,
+        int capacidadCola,
+        Duration ttlCache,
+        int maxEntradasCache,
+        int umbralFallos,
+        Duration esperaCircuito
+) {
+
+    public ConfiguracionClienteIA {
+        if (maxLote < 1 || capacidadCola < 1 || maxEntradasCache < 1 || umbralFallos < 1) {
+            throw new IllegalArgumentException("Los tamaños del cliente de IA deben ser positivos");
+        }
+        if (ventanaLote.isNegative() || timeoutPeticion.isZero() || timeoutPeticion.isNegative()) {
+            throw new IllegalArgumentException("Tiempos del cliente de IA inválidos");
+        }
+    }
+}
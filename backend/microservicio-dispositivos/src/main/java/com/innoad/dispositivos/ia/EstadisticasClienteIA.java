@@ -0,0 +1,17 @@
+package com.innoad.dispositivos.ia;
+
+/**
+ * Contadores del cliente de IA desde el arranque
+ */
+public record EstadisticasClienteIA(
+        String circuito,
+        long aciertosCache,
+        long fallosCache,
+        long compartidas,      // Peticiones que se sumaron a una idéntica ya en curso
+        long lotes,
+        long itemsEnviados,
+        long errores,
+        long rechazadas,       // Por circuito abierto o cola llena
+        int entradasCache
+) {
+}
@@ -0,0 +1,31 @@
+package com.innoad.dispositivos.ia;
+
+/**
+ * Predicciones que ofrece el servicio de IA; el código es el "tipo" que
+ * espera /api/ia/predecir-lote.
+ */
+public enum TipoPrediccion {
+    CTR("ctr"),
+    ROI("roi"),
+    CONVERSIONES("conversiones"),
+    OPTIMIZACION("optimizacion");
+
+    private final String codigo;
+
+    TipoPrediccion(String codigo) {
+        this.codigo = codigo;
+    }
+
+    public String codigo() {
+        return codigo;
+    }
+
+    public static TipoPrediccion desdeCodigo(String codigo) {
+        for (TipoPrediccion tipo : values()) {
+            if (tipo.codigo.equalsIgnoreCase(codigo)) {
+                return tipo;
+            }
+        }
+        throw new IllegalArgumentException("Tipo de predicción no soportado: " + codigo);
+    }
+}
@@ -0,0 +1,67 @@
+package com.innoad.dispositivos.indice;
+
+/**
+ * Utilidades para normalizar direcciones MAC
+ *
+ * Una MAC tiene 48 bits, así que cabe en un long. Usar ese long como clave
+ * evita depender del formato en que llegue el texto (mayúsculas, ':' o '-')
+ * y permite indexar sin calcular hashes de String.
+ */
+public final class DireccionMac {
+
+    private DireccionMac() {
+    }
+
+    /**
+     * Convierte una MAC en texto ("aa:bb:cc:dd:ee:ff", "AA-BB-CC-DD-EE-FF",
+     * "aabbccddeeff") a su valor de 48 bits
+     *
+     * @throws IllegalArgumentException si el formato no es válido
+     */
+    public static long aLong(String mac) {
+        if (mac == null) {
+            throw new IllegalArgumentException("La dirección MAC es obligatoria");
+        }
+
+        long valor = 0;
+        int digitos = 0;
+        for (int i = 0; i < mac.length(); i++) {
+            char c = mac.charAt(i);
+            if (c == ':' || c == '-') {
+                continue;
+            }
+            int nibble = Character.digit(c, 16);
+            if (nibble < 0 || ++digitos > 12) {
+                throw new IllegalArgumentException("Formato de MAC address inválido: " + mac);
+            }
+            valor = (valor << 4) | nibble;
+        }
+        if (digitos != 12) {
+            throw new IllegalArgumentException("Formato de MAC address inválido: " + mac);
+        }
+        return valor;
+    }
+
+    /**
+     * Formato canónico con que se guarda la MAC: mayúsculas separadas por ':'
+     */
+    public static String formatear(long valor) {
+        char[] texto = new char[17];
+        for (int byteIdx = 0; byteIdx < 6; byteIdx++) {
+            int b = (int) (valor >>> (40 - 8 * byteIdx)) & 0xFF;
+            texto[byteIdx * 3] = Character.toUpperCase(Character.forDigit(b >>> 4, 16));
+            texto[byteIdx * 3 + 1] = Character.toUpperCase(Character.forDigit(b & 0xF, 16));
+            if (byteIdx < 5) {
+                texto[byteIdx * 3 + 2] = ':';
+            }
+        }
+        return new String(texto);
+    }
+
+    /**
+     * Normaliza una MAC en texto a su formato canónico
+     */
+    public static String normalizar(String mac) {
+        return formatear(aLong(mac));
+    }
+}
@@ -0,0 +1,236 @@
+package com.innoad.dispositivos.indice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice espacial en memoria para búsquedas de dispositivos por cercanía
+ *
+ * Divide el mapa en una rejilla de celdas de tamaño fijo en grados (equivalente
+ * a un geohash de precisión fija) y guarda en cada celda un arreglo inmutable
+ * de puntos. Una búsqueda por radio solo recorre las celdas que tocan el
+ * rectángulo que envuelve al círculo, en lugar de toda la tabla.
+ *
+ * Las escrituras (registro o cambio de coordenadas) son poco frecuentes y
+ * reemplazan el arreglo de la celda completo (copy-on-write), de modo que
+ * las lecturas no necesitan bloqueo.
+ *
+ * Limitación conocida: no maneja rectángulos que crucen el antimeridiano
+ * (longitud ±180), que no aplica a las ubicaciones del proyecto.
+ */
+public class IndiceEspacial {
+
+    private static final double METROS_POR_GRADO = 111_320.0;
+    private static final double RADIO_TIERRA_METROS = 6_371_000.0;
+
+    private final double tamanoCeldaGrados;
+
+    // Clave de celda -> puntos contenidos (arreglo inmutable)
+    private final Map<Long, Punto[]> celdas = new ConcurrentHashMap<>();
+
+    // Posición actual de cada dispositivo, para poder sacarlo de su celda anterior
+    private final Map<Long, Punto> puntos = new ConcurrentHashMap<>();
+
+    public IndiceEspacial(double tamanoCeldaGrados) {
+        if (tamanoCeldaGrados <= 0) {
+            throw new IllegalArgumentException("El tamaño de celda debe ser positivo");
+        }
+        this.tamanoCeldaGrados = tamanoCeldaGrados;
+    }
+
+    /**
+     * Dispositivo ubicado en el índice
+     */
+    public record Punto(long id, Long propietarioId, double latitud, double longitud) {
+    }
+
+    /**
+     * Resultado de una búsqueda por radio
+     */
+    public record Resultado(Punto punto, double distanciaMetros) {
+    }
+
+    /**
+     * Inserta o mueve un dispositivo
+     */
+    public synchronized void actualizar(long id, Long propietarioId, double latitud, double longitud) {
+        Punto nuevo = new Punto(id, propietarioId, latitud, longitud);
+        Punto anterior = puntos.put(id, nuevo);
+        if (anterior != null) {
+            if (anterior.equals(nuevo)) {
+                return;
+            }
+            quitarDeCelda(anterior);
+        }
+        agregarACelda(nuevo);
+    }
+
+    /**
+     * Elimina un dispositivo del índice si estaba presente
+     */
+    public synchronized void eliminar(long id) {
+        Punto anterior = puntos.remove(id);
+        if (anterior != null) {
+            quitarDeCelda(anterior);
+        }
+    }
+
+    public synchronized void limpiar() {
+        puntos.clear();
+        celdas.clear();
+    }
+
+    public int tamano() {
+        return puntos.size();
+    }
+
+    /**
+     * Busca los dispositivos a menos de radioMetros del punto dado, ordenados por distancia
+     *
+     * @param propietarioId si no es null, solo devuelve dispositivos de ese propietario
+     */
+    public List<Resultado> buscarEnRadio(double latitud, double longitud, double radioMetros, Long propietarioId) {
+        double deltaLat = radioMetros / METROS_POR_GRADO;
+        double cosLat = Math.cos(Math.toRadians(latitud));
+        double deltaLon = cosLat < 1e-9 ? 180.0 : radioMetros / (METROS_POR_GRADO * cosLat);
+
+        double latMin = latitud - deltaLat;
+        double latMax = latitud + deltaLat;
+        double lonMin = longitud - deltaLon;
+        double lonMax = longitud + deltaLon;
+
+        List<Resultado> resultados = new ArrayList<>();
+        recorrer(latMin, lonMin, latMax, lonMax, propietarioId, punto -> {
+            double distancia = distanciaMetros(latitud, longitud, punto.latitud(), punto.longitud());
+            if (distancia <= radioMetros) {
+                resultados.add(new Resultado(punto, distancia));
+            }
+        });
+        resultados.sort(Comparator.comparingDouble(Resultado::distanciaMetros));
+        return resultados;
+    }
+
+    /**
+     * Busca los dispositivos dentro de un rectángulo de coordenadas
+     *
+     * @param propietarioId si no es null, solo devuelve dispositivos de ese propietario
+     */
+    public List<Punto> buscarEnRectangulo(double latMin, double lonMin, double latMax, double lonMax,
+                                          Long propietarioId) {
+        List<Punto> resultados = new ArrayList<>();
+        recorrer(latMin, lonMin, latMax, lonMax, propietarioId, resultados::add);
+        return resultados;
+    }
+
+    /**
+     * Distancia de círculo máximo (haversine) entre dos coordenadas, en metros
+     */
+    public static double distanciaMetros(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RADIO_TIERRA_METROS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    // ==========================================
+    // MÉTODOS PRIVADOS DE UTILIDAD
+    // ==========================================
+
+    private interface Visitante {
+        void visitar(Punto punto);
+    }
+
+    /**
+     * Visita los puntos dentro del rectángulo. Si el rectángulo abarca más celdas
+     * de las que existen ocupadas, recorre solo las ocupadas.
+     */
+    private void recorrer(double latMin, double lonMin, double latMax, double lonMax,
+                          Long propietarioId, Visitante visitante) {
+        latMin = Math.max(-90.0, latMin);
+        latMax = Math.min(90.0, latMax);
+        lonMin = Math.max(-180.0, lonMin);
+        lonMax = Math.min(180.0, lonMax);
+        if (latMin > latMax || lonMin > lonMax) {
+            return;
+        }
+
+        int filaMin = fila(latMin);
+        int filaMax = fila(latMax);
+        int columnaMin = columna(lonMin);
+        int columnaMax = columna(lonMax);
+        long celdasRectangulo = (long) (filaMax - filaMin + 1) * (columnaMax - columnaMin + 1);
+
+        if (celdasRectangulo > celdas.size()) {
+            for (Map.Entry<Long, Punto[]> entrada : celdas.entrySet()) {
+                int fila = (int) (entrada.getKey() >> 32);
+                int columna = (int) (long) entrada.getKey();
+                if (fila >= filaMin && fila <= filaMax && columna >= columnaMin && columna <= columnaMax) {
+                    filtrar(entrada.getValue(), latMin, lonMin, latMax, lonMax, propietarioId, visitante);
+                }
+            }
+            return;
+        }
+
+        for (int fila = filaMin; fila <= filaMax; fila++) {
+            for (int columna = columnaMin; columna <= columnaMax; columna++) {
+                Punto[] contenido = celdas.get(clave(fila, columna));
+                if (contenido != null) {
+                    filtrar(contenido, latMin, lonMin, latMax, lonMax, propietarioId, visitante);
+                }
+            }
+        }
+    }
+
+    private static void filtrar(Punto[] contenido, double latMin, double lonMin, double latMax, double lonMax,
+                                Long propietarioId, Visitante visitante) {
+        for (Punto punto : contenido) {
+            if (punto.latitud() < latMin || punto.latitud() > latMax
+                    || punto.longitud() < lonMin || punto.longitud() > lonMax) {
+                continue;
+            }
+            if (propietarioId != null && !propietarioId.equals(punto.propietarioId())) {
+                continue;
+            }
+            visitante.visitar(punto);
+        }
+    }
+
+    private void agregarACelda(Punto punto) {
+        celdas.merge(claveDe(punto), new Punto[]{punto}, (actual, nuevo) -> {
+            Punto[] ampliado = Arrays.copyOf(actual, actual.length + 1);
+            ampliado[actual.length] = nuevo[0];
+            return ampliado;
+        });
+    }
+
+    private void quitarDeCelda(Punto punto) {
+        celdas.computeIfPresent(claveDe(punto), (clave, actual) -> {
+            Punto[] reducido = Arrays.stream(actual)
+                    .filter(p -> p.id() != punto.id())
+                    .toArray(Punto[]::new);
+            return reducido.length == 0 ? null : reducido;
+        });
+    }
+
+    private long claveDe(Punto punto) {
+        return clave(fila(punto.latitud()), columna(punto.longitud()));
+    }
+
+    private int fila(double latitud) {
+        return (int) Math.floor((latitud + 90.0) / tamanoCeldaGrados);
+    }
+
+    private int columna(double longitud) {
+        return (int) Math.floor((longitud + 180.0) / tamanoCeldaGrados);
+    }
+
+    private static long clave(int fila, int columna) {
+        return ((long) fila << 32) | (columna & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,166 @@
+package com.innoad.dispositivos.indice;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Mapa de long a long con direccionamiento abierto sobre arreglos primitivos
+ *
+ * Pensado para resolver MAC -> ID de dispositivo en el handshake: no crea
+ * objetos por entrada, no calcula hashCode de String y las lecturas no toman
+ * bloqueos. Las escrituras (registro o baja de dispositivos) son poco
+ * frecuentes y se serializan con el monitor del mapa.
+ *
+ * Para que un lector concurrente nunca vea una clave sin su valor, el valor se
+ * escribe antes que la clave con semántica release y la clave se lee con
+ * acquire. La tabla se reemplaza completa al crecer.
+ *
+ * Restricciones: las claves deben ser positivas (una MAC de 48 bits lo es);
+ * 0 marca celda vacía y -1 celda borrada.
+ */
+public class MapaLongLong {
+
+    public static final long SIN_VALOR = Long.MIN_VALUE;
+
+    private static final long VACIA = 0L;
+    private static final long BORRADA = -1L;
+    private static final VarHandle ELEMENTOS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private volatile Tabla tabla;
+    private int ocupadas;   // claves vivas + borradas, solo con el monitor tomado
+    private int tamano;
+
+    public MapaLongLong(int capacidadInicial) {
+        this.tabla = new Tabla(potenciaDeDos(Math.max(16, capacidadInicial * 2)));
+    }
+
+    /**
+     * Obtiene el valor asociado a la clave, o {@link #SIN_VALOR} si no existe
+     */
+    public long get(long clave) {
+        if (clave <= 0) {
+            return SIN_VALOR;
+        }
+        Tabla t = tabla;
+        int mascara = t.claves.length - 1;
+        for (int i = indice(clave, mascara); ; i = (i + 1) & mascara) {
+            long actual = (long) ELEMENTOS.getAcquire(t.claves, i);
+            if (actual == clave) {
+                return t.valores[i];
+            }
+            if (actual == VACIA) {
+                return SIN_VALOR;
+            }
+        }
+    }
+
+    public synchronized void put(long clave, long valor) {
+        validarClave(clave);
+        if ((ocupadas + 1) * 4L > tabla.claves.length * 3L) {
+            redimensionar();
+        }
+
+        Tabla t = tabla;
+        int mascara = t.claves.length - 1;
+        int libre = -1;
+        for (int i = indice(clave, mascara); ; i = (i + 1) & mascara) {
+            long actual = t.claves[i];
+            if (actual == clave) {
+                ELEMENTOS.setRelease(t.valores, i, valor);
+                return;
+            }
+            if (actual == BORRADA && libre < 0) {
+                libre = i;
+            } else if (actual == VACIA) {
+                if (libre < 0) {
+                    libre = i;
+                    ocupadas++;
+                }
+                t.valores[libre] = valor;
+                ELEMENTOS.setRelease(t.claves, libre, clave);
+                tamano++;
+                return;
+            }
+        }
+    }
+
+    public synchronized void remove(long clave) {
+        validarClave(clave);
+        Tabla t = tabla;
+        int mascara = t.claves.length - 1;
+        for (int i = indice(clave, mascara); ; i = (i + 1) & mascara) {
+            long actual = t.claves[i];
+            if (actual == clave) {
+                ELEMENTOS.setRelease(t.claves, i, BORRADA);
+                tamano--;
+                return;
+            }
+            if (actual == VACIA) {
+                return;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        tabla = new Tabla(tabla.claves.length);
+        ocupadas = 0;
+        tamano = 0;
+    }
+
+    public synchronized int size() {
+        return tamano;
+    }
+
+    // ==========================================
+    // MÉTODOS PRIVADOS DE UTILIDAD
+    // ==========================================
+
+    private void redimensionar() {
+        Tabla vieja = tabla;
+        int capacidad = tamano * 4 > vieja.claves.length ? vieja.claves.length * 2 : vieja.claves.length;
+        Tabla nueva = new Tabla(capacidad);
+        int mascara = capacidad - 1;
+        for (int j = 0; j < vieja.claves.length; j++) {
+            long clave = vieja.claves[j];
+            if (clave != VACIA && clave != BORRADA) {
+                int i = indice(clave, mascara);
+                while (nueva.claves[i] != VACIA) {
+                    i = (i + 1) & mascara;
+                }
+                nueva.claves[i] = clave;
+                nueva.valores[i] = vieja.valores[j];
+            }
+        }
+        ocupadas = tamano;
+        tabla = nueva;
+    }
+
+    private static int indice(long clave, int mascara) {
+        // Mezcla de bits (finalizador de MurmurHash3) para repartir MACs del mismo fabricante
+        long h = clave;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mascara;
+    }
+
+    private static void validarClave(long clave) {
+        if (clave <= 0) {
+            throw new IllegalArgumentException("La clave debe ser positiva");
+        }
+    }
+
+    private static int potenciaDeDos(int n) {
+        return Integer.highestOneBit(n - 1) << 1;
+    }
+
+    private static final class Tabla {
+        final long[] claves;
+        final long[] valores;
+
+        Tabla(int capacidad) {
+            this.claves = new long[capacidad];
+            this.valores = new long[capacidad];
+        }
+    }
+}
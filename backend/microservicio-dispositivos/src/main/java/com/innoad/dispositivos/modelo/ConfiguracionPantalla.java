@@ -0,0 +1,84 @@
+package com.innoad.dispositivos.modelo;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Configuración de pantalla de un dispositivo: la deseada (columnas de
+ * dispositivos_raspberry) o la que el cliente reporta haber aplicado
+ *
+ * Un campo null significa "sin valor": en la deseada no se exige nada, en la
+ * reportada el cliente todavía no lo aplicó, y en un cambio masivo el campo no
+ * se toca. Las claves de {@link #diferenciasCon} son las que entiende
+ * aplicar_configuracion en raspberry-cliente/main.py.
+ */
+public record ConfiguracionPantalla(
+        Integer volumenAudio,
+        Integer brilloPantalla,
+        OrientacionPantalla orientacion,
+        String resolucionPantalla
+) {
+
+    public static final ConfiguracionPantalla VACIA = new ConfiguracionPantalla(null, null, null, null);
+
+    /**
+     * Campos de esta configuración (la deseada) que la reportada no tiene
+     * aplicados, listos para enviar en ACTUALIZAR_CONFIGURACION
+     */
+    public Map<String, Object> diferenciasCon(ConfiguracionPantalla reportada) {
+        ConfiguracionPantalla actual = reportada != null ? reportada : VACIA;
+        Map<String, Object> cambios = new LinkedHashMap<>();
+        if (volumenAudio != null && !volumenAudio.equals(actual.volumenAudio)) {
+            cambios.put("volumen", volumenAudio);
+        }
+        if (brilloPantalla != null && !brilloPantalla.equals(actual.brilloPantalla)) {
+            cambios.put("brillo", brilloPantalla);
+        }
+        if (orientacion != null && orientacion != actual.orientacion) {
+            cambios.put("orientacion", orientacion.name().toLowerCase(Locale.ROOT));
+        }
+        if (resolucionPantalla != null && !resolucionPantalla.equalsIgnoreCase(Objects.toString(actual.resolucionPantalla, ""))) {
+            cambios.put("resolucion", resolucionPantalla);
+        }
+        return cambios;
+    }
+
+    public boolean estaVacia() {
+        return volumenAudio == null && brilloPantalla == null && orientacion == null && resolucionPantalla == null;
+    }
+
+    /**
+     * Lee la configuración que el cliente incluye en el heartbeat
+     * ({"volumen": 70, "brillo": 80, "orientacion": "horizontal", "resolucion": "1920x1080"});
+     * los valores que no se entienden quedan como no aplicados
+     */
+    public static ConfiguracionPantalla desdeReporte(Map<String, Object> reporte) {
+        return new ConfiguracionPantalla(
+                entero(reporte.get("volumen")),
+                entero(reporte.get("brillo")),
+                orientacion(reporte.get("orientacion")),
+                reporte.get("resolucion") instanceof String resolucion && !resolucion.isBlank() ? resolucion : null);
+    }
+
+    /**
+     * Lee el valor de la columna ENUM orientacion, en minúscula en init.sql
+     */
+    public static OrientacionPantalla orientacion(Object valor) {
+        if (!(valor instanceof String texto) || texto.isBlank()) {
+            return null;
+        }
+        try {
+            return OrientacionPantalla.valueOf(texto.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private static Integer entero(Object valor) {
+        return valor instanceof Number numero ? Integer.valueOf(numero.intValue()) : null;
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 
 /**
@@ -19,10 +20,15 @@ import java.time.LocalDateTime;
  * 4. Agregar sistema de versionado de contenido
  * 5. Crear preview automatico para contenido web
  * 6. Implementar un sistema de checksums para verificar integridad
+ *
+ * El catálogo se lee mucho más de lo que se edita, así que va en la caché de
+ * segundo nivel (región "contenidos", ver application.conf).
  */
 
 @Entity
 @Table(name = "contenido_publicidad")
+@Cacheable
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "contenidos")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
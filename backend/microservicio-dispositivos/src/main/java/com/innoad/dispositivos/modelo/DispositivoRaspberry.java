@@ -1,5 +1,6 @@
 package com.innoad.dispositivos.modelo;
 
+import com.innoad.dispositivos.evento.DispositivoEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
@@ -21,6 +22,7 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "dispositivos_raspberry")
+@EntityListeners(DispositivoEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -56,13 +58,26 @@ public class DispositivoRaspberry {
     @Column(length = 500)
     private String descripcion;
 
-    @Enumerated(EnumType.STRING)
+    @DecimalMin(value = "-90.0", message = "La latitud debe estar entre -90 y 90")
+    @DecimalMax(value = "90.0", message = "La latitud debe estar entre -90 y 90")
+    @Column(name = "latitud")
+    private Double latitud;
+
+    @DecimalMin(value = "-180.0", message = "La longitud debe estar entre -180 y 180")
+    @DecimalMax(value = "180.0", message = "La longitud debe estar entre -180 y 180")
+    @Column(name = "longitud")
+    private Double longitud;
+
+    @Convert(converter = EstadoDispositivoConverter.class)
     @Column(nullable = false)
     private EstadoDispositivo estado = EstadoDispositivo.DESCONECTADO;
 
     @Column(name = "ultimo_heartbeat")
     private LocalDateTime ultimoHeartbeat;
 
+    @Column(name = "contenido_actual_id")
+    private Long contenidoActualId;
+
     @Column(name = "fecha_registro", nullable = false)
     private LocalDateTime fechaRegistro = LocalDateTime.now();
 
@@ -74,7 +89,7 @@ public class DispositivoRaspberry {
     @Column(name = "resolucion_pantalla", length = 20)
     private String resolucionPantalla;
 
-    @Enumerated(EnumType.STRING)
+    @Convert(converter = OrientacionPantallaConverter.class)
     @Column(nullable = false)
     private OrientacionPantalla orientacion = OrientacionPantalla.HORIZONTAL;
 
@@ -101,6 +116,11 @@ public class DispositivoRaspberry {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    // Control de concurrencia optimista; también es el ETag de GET /api/dispositivos/{id}
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     // Metodos de utilidad para el negocio
 
     /**
@@ -128,6 +148,7 @@ public class DispositivoRaspberry {
      */
     public void marcarDesconectado() {
         this.estado = EstadoDispositivo.DESCONECTADO;
+        this.contenidoActualId = null;
         this.updatedAt = LocalDateTime.now();
     }
 
@@ -139,6 +160,21 @@ public class DispositivoRaspberry {
         this.updatedAt = LocalDateTime.now();
     }
 
+    /**
+     * Cambia el estado a reproduciendo y registra el contenido en pantalla
+     */
+    public void marcarReproduciendo(Long contenidoId) {
+        marcarReproduciendo();
+        this.contenidoActualId = contenidoId;
+    }
+
+    /**
+     * Verifica si el dispositivo tiene coordenadas registradas
+     */
+    public boolean tieneCoordenadas() {
+        return latitud != null && longitud != null;
+    }
+
     /**
      * Obtiene el tiempo transcurrido desde el ultimo heartbeat
      */
@@ -0,0 +1,11 @@
+package com.innoad.dispositivos.modelo;
+
+/**
+ * Estado de un despliegue escalonado de software en la flota
+ */
+public enum EstadoDespliegue {
+    EN_CURSO,
+    PAUSADO,
+    COMPLETADO,
+    CANCELADO
+}
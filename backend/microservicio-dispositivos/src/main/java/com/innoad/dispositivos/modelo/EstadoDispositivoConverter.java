@@ -0,0 +1,27 @@
+package com.innoad.dispositivos.modelo;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Convierte {@link EstadoDispositivo} al valor de la columna ENUM de MySQL.
+ *
+ * El script init.sql define la columna con valores en minúscula
+ * ('conectado', 'desconectado', ...), mientras que EnumType.STRING escribe y
+ * espera el nombre de la constante en mayúscula. Este converter escribe en
+ * minúscula y lee sin distinguir mayúsculas, para que funcione tanto con el
+ * esquema oficial como con bases creadas por ddl-auto en desarrollo.
+ */
+@Converter
+public class EstadoDispositivoConverter implements AttributeConverter<EstadoDispositivo, String> {
+
+    @Override
+    public String convertToDatabaseColumn(EstadoDispositivo estado) {
+        return estado != null ? estado.name().toLowerCase() : null;
+    }
+
+    @Override
+    public EstadoDispositivo convertToEntityAttribute(String valor) {
+        return valor != null ? EstadoDispositivo.valueOf(valor.toUpperCase()) : null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.innoad.dispositivos.modelo;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Convierte {@link OrientacionPantalla} al valor de la columna ENUM de MySQL.
+ *
+ * Igual que {@link EstadoDispositivoConverter}: init.sql define la columna
+ * como ENUM('horizontal','vertical'), así que se escribe en minúscula y se lee
+ * sin distinguir mayúsculas.
+ */
+@Converter
+public class OrientacionPantallaConverter implements AttributeConverter<OrientacionPantalla, String> {
+
+    @Override
+    public String convertToDatabaseColumn(OrientacionPantalla orientacion) {
+        return orientacion != null ? orientacion.name().toLowerCase() : null;
+    }
+
+    @Override
+    public OrientacionPantalla convertToEntityAttribute(String valor) {
+        return valor != null ? OrientacionPantalla.valueOf(valor.toUpperCase()) : null;
+    }
+}
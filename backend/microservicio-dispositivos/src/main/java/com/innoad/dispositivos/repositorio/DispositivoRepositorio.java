@@ -1,5 +1,8 @@
 package com.innoad.dispositivos.repositorio;
 
+import com.innoad.dispositivos.dto.ConteoEstadoDTO;
+import com.innoad.dispositivos.dto.PosicionDispositivoDTO;
+import com.innoad.dispositivos.dto.ResumenDispositivoDTO;
 import com.innoad.dispositivos.modelo.DispositivoRaspberry;
 import com.innoad.dispositivos.modelo.EstadoDispositivo;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -7,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +35,12 @@ public interface DispositivoRepositorio extends JpaRepository<DispositivoRaspber
      */
     Optional<DispositivoRaspberry> findByMacAddress(String macAddress);
 
+    /**
+     * Solo la versión del dispositivo, para responder If-None-Match sin cargar la entidad
+     */
+    @Query("SELECT d.version FROM DispositivoRaspberry d WHERE d.idDispositivo = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
     /**
      * Busca dispositivos activos por propietario
      */
@@ -56,9 +66,20 @@ public interface DispositivoRepositorio extends JpaRepository<DispositivoRaspber
     /**
      * Busca dispositivos online (con heartbeat reciente)
      */
+    default List<DispositivoRaspberry> findDispositivosOnline(LocalDateTime fechaLimite) {
+        return findDispositivosPorEstadoConHeartbeatDesde(EstadoDispositivo.CONECTADO, fechaLimite);
+    }
+
+    /**
+     * Busca dispositivos en un estado con heartbeat posterior a la fecha dada.
+     * El estado va como parámetro para que pase por el converter de la columna.
+     */
     @Query("SELECT d FROM DispositivoRaspberry d WHERE d.activo = true AND " +
-           "d.estado = 'CONECTADO' AND d.ultimoHeartbeat > :fechaLimite")
-    List<DispositivoRaspberry> findDispositivosOnline(@Param("fechaLimite") LocalDateTime fechaLimite);
+           "d.estado = :estado AND d.ultimoHeartbeat > :fechaLimite")
+    List<DispositivoRaspberry> findDispositivosPorEstadoConHeartbeatDesde(
+        @Param("estado") EstadoDispositivo estado,
+        @Param("fechaLimite") LocalDateTime fechaLimite
+    );
 
     /**
      * Cuenta dispositivos por estado
@@ -95,6 +116,27 @@ public interface DispositivoRepositorio extends JpaRepository<DispositivoRaspber
      */
     boolean existsByMacAddress(String macAddress);
 
+    /**
+     * Devuelve, de las MAC dadas, las que ya están registradas. Permite validar
+     * un lote completo con una sola consulta sobre el índice único de mac_address:
+     * la columna se compara sin transformar, así que el llamador debe incluir
+     * cada MAC en todas las grafías que puedan estar guardadas (':' y '-'; las
+     * minúsculas ya las iguala la collation _ci de la base).
+     */
+    @Query("SELECT d.macAddress FROM DispositivoRaspberry d WHERE d.macAddress IN :macs")
+    List<String> findMacAddressExistentes(@Param("macs") Collection<String> macs);
+
+    /**
+     * Busca los dispositivos con las MAC dadas
+     */
+    List<DispositivoRaspberry> findByMacAddressIn(Collection<String> macs);
+
+    /**
+     * Obtiene ID y MAC de los dispositivos activos para cargar el índice de MAC
+     */
+    @Query("SELECT d.idDispositivo, d.macAddress FROM DispositivoRaspberry d WHERE d.activo = true")
+    List<Object[]> findMacsDispositivosActivos();
+
     /**
      * Busca dispositivos con versión de software específica
      */
@@ -108,19 +150,37 @@ public interface DispositivoRepositorio extends JpaRepository<DispositivoRaspber
     List<DispositivoRaspberry> findDispositivosParaActualizar(@Param("versionActual") String versionActual);
 
     /**
-     * Obtiene estadísticas básicas de dispositivos
+     * Cuenta los dispositivos activos agrupados por propietario, ubicación y estado.
+     * Cubre todos los valores de EstadoDispositivo; los estados sin dispositivos no aparecen.
+     * La usa EstadisticasFlotaServicio para verificar sus contadores en memoria.
      */
-    @Query("SELECT " +
-           "COUNT(*) as total, " +
-           "SUM(CASE WHEN d.estado = 'CONECTADO' THEN 1 ELSE 0 END) as conectados, " +
-           "SUM(CASE WHEN d.estado = 'DESCONECTADO' THEN 1 ELSE 0 END) as desconectados, " +
-           "SUM(CASE WHEN d.estado = 'ERROR' THEN 1 ELSE 0 END) as conError " +
+    @Query("SELECT new com.innoad.dispositivos.dto.ConteoEstadoDTO(" +
+           "d.propietarioId, d.ubicacion, d.estado, COUNT(d)) " +
+           "FROM DispositivoRaspberry d WHERE d.activo = true " +
+           "GROUP BY d.propietarioId, d.ubicacion, d.estado")
+    List<ConteoEstadoDTO> contarActivosPorPropietarioUbicacionYEstado();
+
+    /**
+     * Obtiene la proyección mínima de todos los dispositivos activos
+     */
+    @Query("SELECT new com.innoad.dispositivos.dto.ResumenDispositivoDTO(" +
+           "d.idDispositivo, d.propietarioId, d.ubicacion, d.estado) " +
            "FROM DispositivoRaspberry d WHERE d.activo = true")
-    Object[] getEstadisticasDispositivos();
+    List<ResumenDispositivoDTO> findResumenDispositivosActivos();
+
+    /**
+     * Obtiene las coordenadas de los dispositivos activos geolocalizados.
+     * Con esta consulta se carga el índice espacial al arrancar; las búsquedas
+     * por cercanía (antes findDispositivosCercanos) las resuelve ProximidadServicio.
+     */
+    @Query("SELECT new com.innoad.dispositivos.dto.PosicionDispositivoDTO(" +
+           "d.idDispositivo, d.propietarioId, d.latitud, d.longitud) " +
+           "FROM DispositivoRaspberry d WHERE d.activo = true AND " +
+           "d.latitud IS NOT NULL AND d.longitud IS NOT NULL")
+    List<PosicionDispositivoDTO> findPosicionesDispositivosActivos();
 
     
        // Metodos adicionales pueden incluir:
-    // - findDispositivosCercanos(latitud, longitud, radio)
     // - findDispositivosConMayorUso()
     // - findDispositivosPorRendimiento()
     // - etc.
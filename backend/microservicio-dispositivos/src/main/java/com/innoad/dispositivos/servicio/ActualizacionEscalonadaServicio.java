@@ -0,0 +1,427 @@
+package com.innoad.dispositivos.servicio;
+
+import com.innoad.comun.auditoria.AuditoriaServicio;
+import com.innoad.comun.util.Reintentos;
+import com.innoad.dispositivos.dto.EstadisticasFlotaDTO;
+import com.innoad.dispositivos.dto.EstadoActualizacionDTO;
+import com.innoad.dispositivos.dto.PlanActualizacionDTO;
+import com.innoad.dispositivos.evento.HeartbeatRecibidoEvento;
+import com.innoad.dispositivos.modelo.DispositivoRaspberry;
+import com.innoad.dispositivos.modelo.EstadoDespliegue;
+import com.innoad.dispositivos.modelo.EstadoDispositivo;
+import com.innoad.dispositivos.repositorio.DispositivoRepositorio;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Orquestador de actualizaciones de software escalonadas
+ *
+ * Un despliegue reparte los dispositivos desactualizados en oleadas: primero un
+ * canario (porcentaje pequeño de la flota) y luego lotes de tamaño fijo. Dentro de
+ * cada oleada se envía ACTUALIZAR_SOFTWARE respetando dos límites:
+ * - un máximo global de dispositivos actualizando a la vez, para no saturar el
+ *   servidor de contenido con descargas simultáneas;
+ * - un máximo por ubicación, para que una tienda nunca quede sin pantallas.
+ *
+ * Un dispositivo cuenta como exitoso cuando su heartbeat reporta la versión
+ * objetivo, y como fallido si informa un ERROR de instalación o no reporta la
+ * versión antes del timeout. Si la tasa de fallos de la oleada supera el
+ * umbral, el despliegue se pausa solo. Los que fallan o quedan en curso al
+ * cancelar vuelven al estado que tenían antes de ACTUALIZANDO.
+ *
+ * El estado vive en memoria: un reinicio del servicio cancela el despliegue en
+ * curso, y basta con lanzarlo de nuevo porque solo toma los dispositivos que
+ * aún no tienen la versión objetivo.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActualizacionEscalonadaServicio {
+
+    private static final String TABLA_AUDITORIA = "dispositivos_raspberry";
+
+    private final DispositivoRepositorio dispositivoRepositorio;
+    private final DispositivoServicio dispositivoServicio;
+    private final SesionesDispositivosServicio sesionesDispositivosServicio;
+    private final EstadisticasFlotaServicio estadisticasFlotaServicio;
+    private final AuditoriaServicio auditoriaServicio;
+
+    @Value("${dispositivos.updates.current-version}")
+    private String versionActual;
+
+    private volatile Despliegue despliegue;
+
+    /**
+     * Inicia un despliegue escalonado. Solo puede haber uno activo a la vez.
+     */
+    public synchronized EstadoActualizacionDTO iniciar(PlanActualizacionDTO plan) {
+        if (despliegue != null && despliegue.activo()) {
+            throw new RuntimeException("Ya hay un despliegue en curso hacia la versión " + despliegue.version);
+        }
+
+        String version = plan.getVersionObjetivo() != null ? plan.getVersionObjetivo() : versionActual;
+        List<DispositivoRaspberry> candidatos = dispositivoRepositorio.findDispositivosParaActualizar(version);
+        if (candidatos.isEmpty()) {
+            throw new RuntimeException("Todos los dispositivos activos ya tienen la versión " + version);
+        }
+
+        Despliegue nuevo = new Despliegue(version, plan);
+        List<Objetivo> ordenados = intercalarPorUbicacion(candidatos);
+        int tamanoCanario = Math.max(1, (int) Math.ceil(ordenados.size() * plan.getPorcentajeCanario() / 100.0));
+        nuevo.agregarOleada(ordenados.subList(0, Math.min(tamanoCanario, ordenados.size())));
+        for (int i = tamanoCanario; i < ordenados.size(); i += plan.getTamanoOleada()) {
+            nuevo.agregarOleada(ordenados.subList(i, Math.min(i + plan.getTamanoOleada(), ordenados.size())));
+        }
+
+        Map<String, EstadisticasFlotaDTO> porUbicacion = estadisticasFlotaServicio.obtenerEstadisticasPorUbicacion(null);
+        for (Objetivo objetivo : ordenados) {
+            long total = Optional.ofNullable(porUbicacion.get(objetivo.ubicacion))
+                    .map(EstadisticasFlotaDTO::getTotal).orElse(1L);
+            nuevo.limitePorUbicacion.computeIfAbsent(objetivo.ubicacion,
+                    k -> limiteUbicacion(total, plan.getMaxPorcentajePorUbicacion()));
+        }
+
+        despliegue = nuevo;
+        log.info("Despliegue hacia versión {} iniciado: {} dispositivos en {} oleadas (canario: {})",
+                version, ordenados.size(), nuevo.oleadas.size(), tamanoCanario);
+        auditoriaServicio.registrar(TABLA_AUDITORIA, "INICIAR_ACTUALIZACION", null, Map.of(
+                "version", version, "dispositivos", ordenados.size(), "oleadas", nuevo.oleadas.size()), null);
+
+        avanzar();
+        return obtenerEstado().orElseThrow();
+    }
+
+    public synchronized void pausar(String motivo) {
+        Despliegue actual = requerirActivo();
+        actual.estado = EstadoDespliegue.PAUSADO;
+        actual.motivoPausa = motivo;
+        log.info("Despliegue hacia versión {} pausado: {}", actual.version, motivo);
+        auditoriaServicio.registrar(TABLA_AUDITORIA, "PAUSAR_ACTUALIZACION", null,
+                Map.of("version", actual.version, "motivo", String.valueOf(motivo)), null);
+    }
+
+    /**
+     * Reanuda un despliegue pausado. Los fallidos de la oleada actual vuelven a intentarse.
+     */
+    public synchronized void reanudar() {
+        Despliegue actual = requerirActivo();
+        if (actual.estado != EstadoDespliegue.PAUSADO) {
+            throw new RuntimeException("El despliegue no está pausado");
+        }
+        for (Objetivo objetivo : actual.oleadas.get(actual.oleadaActual)) {
+            if (objetivo.resultado == Resultado.FALLIDO) {
+                objetivo.resultado = Resultado.PENDIENTE;
+            }
+        }
+        actual.estado = EstadoDespliegue.EN_CURSO;
+        actual.motivoPausa = null;
+        log.info("Despliegue hacia versión {} reanudado", actual.version);
+        auditoriaServicio.registrar(TABLA_AUDITORIA, "REANUDAR_ACTUALIZACION", null,
+                Map.of("version", actual.version), null);
+        avanzar();
+    }
+
+    public synchronized void cancelar() {
+        Despliegue actual = requerirActivo();
+        actual.estado = EstadoDespliegue.CANCELADO;
+        for (Objetivo objetivo : actual.porDispositivo.values()) {
+            if (objetivo.resultado == Resultado.EN_CURSO) {
+                finalizar(actual, objetivo, Resultado.OMITIDO);
+            }
+        }
+        log.info("Despliegue hacia versión {} cancelado", actual.version);
+        auditoriaServicio.registrar(TABLA_AUDITORIA, "CANCELAR_ACTUALIZACION", null,
+                Map.of("version", actual.version), null);
+    }
+
+    /**
+     * Foto del progreso del último despliegue
+     */
+    public synchronized Optional<EstadoActualizacionDTO> obtenerEstado() {
+        Despliegue actual = despliegue;
+        if (actual == null) {
+            return Optional.empty();
+        }
+
+        List<EstadoActualizacionDTO.OleadaDTO> oleadas = new ArrayList<>();
+        for (int i = 0; i < actual.oleadas.size(); i++) {
+            int[] conteo = new int[Resultado.values().length];
+            actual.oleadas.get(i).forEach(o -> conteo[o.resultado.ordinal()]++);
+            oleadas.add(new EstadoActualizacionDTO.OleadaDTO(i, actual.oleadas.get(i).size(),
+                    conteo[Resultado.PENDIENTE.ordinal()], conteo[Resultado.EN_CURSO.ordinal()],
+                    conteo[Resultado.EXITOSO.ordinal()], conteo[Resultado.FALLIDO.ordinal()],
+                    conteo[Resultado.OMITIDO.ordinal()]));
+        }
+        return Optional.of(new EstadoActualizacionDTO(actual.version, actual.estado, actual.motivoPausa,
+                actual.iniciado, actual.oleadaActual, oleadas));
+    }
+
+    /**
+     * Marca como exitoso al dispositivo que reporta la versión objetivo.
+     * Se ejecuta después del commit del heartbeat para no retener el bloqueo de la
+     * fila mientras espera el monitor; el cambio de estado en base de datos lo
+     * aplica la siguiente revisión.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void registrarHeartbeat(HeartbeatRecibidoEvento evento) {
+        Despliegue actual = despliegue;
+        if (actual == null || !actual.activo() || !actual.version.equals(evento.versionSoftware())) {
+            return;
+        }
+
+        synchronized (this) {
+            Objetivo objetivo = actual.porDispositivo.get(evento.idDispositivo());
+            if (objetivo != null && objetivo.resultado == Resultado.EN_CURSO) {
+                finalizar(actual, objetivo, Resultado.EXITOSO);
+                actual.actualizados.add(objetivo.idDispositivo);
+            }
+        }
+    }
+
+    /**
+     * Cuenta como fallido al dispositivo que informa un error instalando la
+     * versión objetivo, sin esperar al timeout
+     */
+    public synchronized void registrarFallo(Long idDispositivo, String version, String motivo) {
+        Despliegue actual = despliegue;
+        if (actual == null || !actual.activo() || (version != null && !actual.version.equals(version))) {
+            return;
+        }
+
+        Objetivo objetivo = actual.porDispositivo.get(idDispositivo);
+        if (objetivo != null && objetivo.resultado == Resultado.EN_CURSO) {
+            log.warn("Dispositivo {} no pudo instalar la versión {}: {}", idDispositivo, actual.version, motivo);
+            finalizar(actual, objetivo, Resultado.FALLIDO);
+        }
+    }
+
+    /**
+     * Revisa timeouts, evalúa la oleada y envía más actualizaciones si hay cupo
+     */
+    @Scheduled(fixedDelayString = "${dispositivos.updates.revision-ms:5000}")
+    public synchronized void avanzar() {
+        Despliegue actual = despliegue;
+        if (actual == null) {
+            return;
+        }
+
+        // Los dispositivos que ya reportaron la versión vuelven a CONECTADO
+        for (Long idDispositivo : actual.actualizados) {
+            cambiarEstado(idDispositivo, EstadoDispositivo.CONECTADO);
+        }
+        actual.actualizados.clear();
+
+        // Los timeouts corren también en pausa: los ya enviados no quedan en ACTUALIZANDO hasta reanudar
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(actual.plan.getTimeoutMinutos());
+        for (Objetivo objetivo : actual.porDispositivo.values()) {
+            if (objetivo.resultado == Resultado.EN_CURSO && objetivo.enviado.isBefore(limite)) {
+                log.warn("Dispositivo {} no reportó la versión {} a tiempo", objetivo.idDispositivo, actual.version);
+                finalizar(actual, objetivo, Resultado.FALLIDO);
+            }
+        }
+
+        if (actual.estado != EstadoDespliegue.EN_CURSO) {
+            return;
+        }
+
+        List<Objetivo> oleada = actual.oleadas.get(actual.oleadaActual);
+        long fallidos = oleada.stream().filter(o -> o.resultado == Resultado.FALLIDO).count();
+        double tasaFallos = 100.0 * fallidos / oleada.size();
+        if (tasaFallos > actual.plan.getUmbralFallosPorcentaje()) {
+            actual.estado = EstadoDespliegue.PAUSADO;
+            actual.motivoPausa = String.format("Tasa de fallos de %.1f%% en la oleada %d supera el umbral de %d%%",
+                    tasaFallos, actual.oleadaActual, actual.plan.getUmbralFallosPorcentaje());
+            log.warn("Despliegue hacia versión {} pausado automáticamente: {}", actual.version, actual.motivoPausa);
+            return;
+        }
+
+        boolean oleadaTerminada = oleada.stream()
+                .noneMatch(o -> o.resultado == Resultado.PENDIENTE || o.resultado == Resultado.EN_CURSO);
+        if (oleadaTerminada) {
+            if (actual.oleadaActual == actual.oleadas.size() - 1) {
+                actual.estado = EstadoDespliegue.COMPLETADO;
+                log.info("Despliegue hacia versión {} completado", actual.version);
+                return;
+            }
+            actual.oleadaActual++;
+            oleada = actual.oleadas.get(actual.oleadaActual);
+            log.info("Despliegue hacia versión {}: iniciando oleada {} ({} dispositivos)",
+                    actual.version, actual.oleadaActual, oleada.size());
+        }
+
+        for (Objetivo objetivo : oleada) {
+            if (actual.enCurso >= actual.plan.getMaxConcurrentes()) {
+                break;
+            }
+            if (objetivo.resultado != Resultado.PENDIENTE
+                    || actual.enCursoPorUbicacion.getOrDefault(objetivo.ubicacion, 0)
+                        >= actual.limitePorUbicacion.getOrDefault(objetivo.ubicacion, 1)) {
+                continue;
+            }
+            enviarActualizacion(actual, objetivo);
+        }
+    }
+
+    // ==========================================
+    // MÉTODOS PRIVADOS DE UTILIDAD
+    // ==========================================
+
+    private void cambiarEstado(Long idDispositivo, EstadoDispositivo estado) {
+        Reintentos.conReintento(() -> dispositivoServicio.cambiarEstado(idDispositivo, estado));
+    }
+
+    private void enviarActualizacion(Despliegue actual, Objetivo objetivo) {
+        if (!sesionesDispositivosServicio.estaConectado(objetivo.idDispositivo)) {
+            objetivo.resultado = Resultado.OMITIDO;
+            return;
+        }
+
+        Map<String, Object> comando = new HashMap<>();
+        comando.put("comando", "ACTUALIZAR_SOFTWARE");
+        comando.put("version", actual.version);
+        if (actual.plan.getUrlPaquete() != null) {
+            comando.put("url", actual.plan.getUrlPaquete());
+        }
+
+        if (!sesionesDispositivosServicio.enviarComando(objetivo.idDispositivo, comando)) {
+            objetivo.resultado = Resultado.OMITIDO;
+            return;
+        }
+
+        objetivo.resultado = Resultado.EN_CURSO;
+        objetivo.enviado = LocalDateTime.now();
+        actual.enCurso++;
+        actual.enCursoPorUbicacion.merge(objetivo.ubicacion, 1, Integer::sum);
+        cambiarEstado(objetivo.idDispositivo, EstadoDispositivo.ACTUALIZANDO);
+    }
+
+    /**
+     * Cierra un envío en curso. Los exitosos vuelven a CONECTADO en la
+     * siguiente revisión; el resto recupera ya el estado previo.
+     */
+    private void finalizar(Despliegue actual, Objetivo objetivo, Resultado resultado) {
+        objetivo.resultado = resultado;
+        actual.enCurso--;
+        actual.enCursoPorUbicacion.merge(objetivo.ubicacion, -1, Integer::sum);
+        if (resultado != Resultado.EXITOSO) {
+            cambiarEstado(objetivo.idDispositivo, estadoPrevio(objetivo));
+        }
+    }
+
+    /**
+     * Estado anterior a ACTUALIZANDO, o DESCONECTADO si ya no tiene sesión
+     */
+    private EstadoDispositivo estadoPrevio(Objetivo objetivo) {
+        if (!sesionesDispositivosServicio.estaConectado(objetivo.idDispositivo)) {
+            return EstadoDispositivo.DESCONECTADO;
+        }
+        return objetivo.estadoPrevio == EstadoDispositivo.REPRODUCIENDO
+                ? EstadoDispositivo.REPRODUCIENDO
+                : EstadoDispositivo.CONECTADO;
+    }
+
+    private Despliegue requerirActivo() {
+        if (despliegue == null || !despliegue.activo()) {
+            throw new RuntimeException("No hay un despliegue activo");
+        }
+        return despliegue;
+    }
+
+    /**
+     * Ordena los candidatos tomando uno de cada ubicación por turno, para que
+     * cada oleada quede repartida entre ubicaciones en lugar de concentrada
+     */
+    private static List<Objetivo> intercalarPorUbicacion(List<DispositivoRaspberry> candidatos) {
+        Map<String, Deque<DispositivoRaspberry>> porUbicacion = new LinkedHashMap<>();
+        for (DispositivoRaspberry d : candidatos) {
+            porUbicacion.computeIfAbsent(d.getUbicacion(), k -> new ArrayDeque<>()).add(d);
+        }
+
+        List<Objetivo> ordenados = new ArrayList<>(candidatos.size());
+        while (!porUbicacion.isEmpty()) {
+            porUbicacion.values().removeIf(cola -> {
+                DispositivoRaspberry d = cola.poll();
+                ordenados.add(new Objetivo(d.getIdDispositivo(), d.getUbicacion(), d.getEstado()));
+                return cola.isEmpty();
+            });
+        }
+        return ordenados;
+    }
+
+    /**
+     * Cuántas pantallas de una ubicación pueden actualizar a la vez: el porcentaje
+     * configurado, al menos una y, si hay más de una, nunca todas
+     */
+    private static int limiteUbicacion(long totalUbicacion, int porcentaje) {
+        if (totalUbicacion <= 1) {
+            return 1;
+        }
+        int limite = (int) (totalUbicacion * porcentaje / 100);
+        return (int) Math.max(1, Math.min(limite, totalUbicacion - 1));
+    }
+
+    private enum Resultado {
+        PENDIENTE,
+        EN_CURSO,
+        EXITOSO,
+        FALLIDO,
+        OMITIDO     // Sin sesión abierta al momento del envío, o en curso al cancelar
+    }
+
+    private static class Objetivo {
+        final Long idDispositivo;
+        final String ubicacion;
+        final EstadoDispositivo estadoPrevio;
+        Resultado resultado = Resultado.PENDIENTE;
+        LocalDateTime enviado;
+
+        Objetivo(Long idDispositivo, String ubicacion, EstadoDispositivo estadoPrevio) {
+            this.idDispositivo = idDispositivo;
+            this.ubicacion = ubicacion;
+            this.estadoPrevio = estadoPrevio;
+        }
+    }
+
+    private static class Despliegue {
+        final String version;
+        final PlanActualizacionDTO plan;
+        final LocalDateTime iniciado = LocalDateTime.now();
+        final List<List<Objetivo>> oleadas = new ArrayList<>();
+        final Map<Long, Objetivo> porDispositivo = new HashMap<>();
+        final Map<String, Integer> limitePorUbicacion = new HashMap<>();
+        final Map<String, Integer> enCursoPorUbicacion = new HashMap<>();
+        final List<Long> actualizados = new ArrayList<>();
+        EstadoDespliegue estado = EstadoDespliegue.EN_CURSO;
+        String motivoPausa;
+        int oleadaActual = 0;
+        int enCurso = 0;
+
+        Despliegue(String version, PlanActualizacionDTO plan) {
+            this.version = version;
+            this.plan = plan;
+        }
+
+        void agregarOleada(List<Objetivo> objetivos) {
+            oleadas.add(new ArrayList<>(objetivos));
+            objetivos.forEach(o -> porDispositivo.put(o.idDispositivo, o));
+        }
+
+        boolean activo() {
+            return estado == EstadoDespliegue.EN_CURSO || estado == EstadoDespliegue.PAUSADO;
+        }
+    }
+}
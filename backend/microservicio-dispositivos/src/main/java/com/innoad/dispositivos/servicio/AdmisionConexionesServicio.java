@@ -0,0 +1,158 @@
+package com.innoad.dispositivos.servicio;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Control de admisión de handshakes WebSocket de los dispositivos
+ *
+ * Tras un reinicio del servidor todos los Raspberry Pi reconectan a la vez. Para
+ * que la flota vuelva de forma pareja, las sesiones nuevas pasan por una cubeta
+ * de tokens (tasa-por-segundo con ráfaga máxima). Parte de la cubeta se reserva
+ * para los dispositivos que tienen una programación en curso o estaban
+ * reproduciendo: esos pueden usar todos los tokens, el resto solo los que
+ * quedan por encima de la reserva.
+ *
+ * A los rechazados se les sugiere un Retry-After aleatorio repartido sobre el
+ * tiempo que tardaría en admitirse la demanda reciente, así los reintentos no
+ * vuelven a llegar todos en el mismo segundo.
+ */
+@Service
+@Slf4j
+public class AdmisionConexionesServicio {
+
+    private static final String SQL_PRIORITARIOS =
+            "SELECT DISTINCT p.dispositivo_id FROM programacion_contenido p " +
+            "WHERE p.activo = TRUE AND NOW() BETWEEN p.fecha_inicio AND p.fecha_fin " +
+            "AND (p.hora_inicio IS NULL OR p.hora_fin IS NULL OR CURTIME() BETWEEN p.hora_inicio AND p.hora_fin) " +
+            "UNION " +
+            "SELECT d.id_dispositivo FROM dispositivos_raspberry d " +
+            "WHERE d.activo = TRUE AND d.contenido_actual_id IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final double tasaPorSegundo;
+    private final double capacidad;
+    private final double reserva;
+    private final int retryAfterMinimo;
+    private final int retryAfterMaximo;
+
+    // Estado de la cubeta, protegido por el monitor de this
+    private double tokens;
+    private long ultimaRecarga = System.nanoTime();
+
+    // Rechazos recientes, con decaimiento por segundo, para estimar la demanda pendiente
+    private double rechazosRecientes;
+    private long ultimoDecaimiento = System.nanoTime();
+
+    private volatile Set<Long> prioritarios = Set.of();
+    private final AtomicLong admitidos = new AtomicLong();
+    private final AtomicLong rechazados = new AtomicLong();
+
+    public AdmisionConexionesServicio(JdbcTemplate jdbcTemplate,
+                                      @Value("${dispositivos.admision.tasa-por-segundo:50}") double tasaPorSegundo,
+                                      @Value("${dispositivos.admision.rafaga:100}") int rafaga,
+                                      @Value("${dispositivos.admision.reserva-prioridad:0.2}") double reservaPrioridad,
+                                      @Value("${dispositivos.admision.retry-after-min-s:1}") int retryAfterMinimo,
+                                      @Value("${dispositivos.admision.retry-after-max-s:60}") int retryAfterMaximo) {
+        if (tasaPorSegundo <= 0 || rafaga < 1) {
+            throw new IllegalArgumentException("La tasa y la ráfaga de admisión deben ser positivas");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.tasaPorSegundo = tasaPorSegundo;
+        this.capacidad = rafaga;
+        this.reserva = rafaga * Math.max(0, Math.min(1, reservaPrioridad));
+        this.retryAfterMinimo = retryAfterMinimo;
+        this.retryAfterMaximo = Math.max(retryAfterMinimo, retryAfterMaximo);
+        this.tokens = rafaga;
+    }
+
+    /**
+     * Carga los dispositivos prioritarios antes de que empiecen las reconexiones
+     * y cada refresco-prioridad-ms mientras el servicio está arriba
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${dispositivos.admision.refresco-prioridad-ms:60000}",
+               initialDelayString = "${dispositivos.admision.refresco-prioridad-ms:60000}")
+    public void actualizarPrioritarios() {
+        try {
+            Set<Long> ids = new HashSet<>(jdbcTemplate.queryForList(SQL_PRIORITARIOS, Long.class));
+            prioritarios = ids;
+            log.debug("{} dispositivos con prioridad de admisión", ids.size());
+        } catch (DataAccessException e) {
+            log.warn("No se pudo actualizar la lista de dispositivos prioritarios: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Intenta admitir una sesión nueva
+     *
+     * @return 0 si se admite; si no, los segundos sugeridos para reintentar
+     */
+    public int admitir(Long idDispositivo) {
+        boolean prioritario = prioritarios.contains(idDispositivo);
+        synchronized (this) {
+            long ahora = System.nanoTime();
+            recargar(ahora);
+            double minimo = prioritario ? 0 : reserva;
+            if (tokens - minimo >= 1) {
+                tokens--;
+                admitidos.incrementAndGet();
+                return 0;
+            }
+            decaerRechazos(ahora);
+            rechazosRecientes++;
+            rechazados.incrementAndGet();
+            return retryAfter(prioritario);
+        }
+    }
+
+    public long getAdmitidos() {
+        return admitidos.get();
+    }
+
+    public long getRechazados() {
+        return rechazados.get();
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private void recargar(long ahora) {
+        double segundos = (ahora - ultimaRecarga) / (double) TimeUnit.SECONDS.toNanos(1);
+        tokens = Math.min(capacidad, tokens + segundos * tasaPorSegundo);
+        ultimaRecarga = ahora;
+    }
+
+    private void decaerRechazos(long ahora) {
+        double segundos = (ahora - ultimoDecaimiento) / (double) TimeUnit.SECONDS.toNanos(1);
+        if (segundos >= 1) {
+            // Cada dispositivo rechazado vuelve en promedio dentro de la ventana sugerida,
+            // así que la demanda pendiente se reduce a la tasa de admisión
+            rechazosRecientes = Math.max(0, rechazosRecientes - segundos * tasaPorSegundo);
+            ultimoDecaimiento = ahora;
+        }
+    }
+
+    /**
+     * Reparte el reintento de forma uniforme en el tiempo que tomaría admitir la
+     * demanda pendiente; los prioritarios reciben la mitad de la ventana
+     */
+    private int retryAfter(boolean prioritario) {
+        double ventana = Math.max(1, rechazosRecientes / tasaPorSegundo);
+        if (prioritario) {
+            ventana /= 2;
+        }
+        double espera = retryAfterMinimo + ThreadLocalRandom.current().nextDouble(ventana);
+        return (int) Math.min(retryAfterMaximo, Math.ceil(espera));
+    }
+}
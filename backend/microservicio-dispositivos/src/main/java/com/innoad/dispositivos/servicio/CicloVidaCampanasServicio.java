@@ -0,0 +1,296 @@
+package com.innoad.dispositivos.servicio;
+
+import com.innoad.comun.auditoria.AuditoriaServicio;
+import com.innoad.dispositivos.evento.TransicionCampanaEvento;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cambios de estado por fecha de campañas y anuncios
+ *
+ * - Una campaña activa o pausada pasa a finalizada al terminar su fecha_fin.
+ * - Un anuncio programado pasa a publicado en su fecha_publicacion.
+ *
+ * En lugar de revisar todas las campañas cada minuto, las transiciones de las
+ * próximas horizonte-horas se cargan en una DelayQueue ordenada por momento y
+ * un hilo dedicado las toma exactamente cuando vencen. Cada una se persiste
+ * con un único UPDATE que vuelve a comprobar estado y fecha en la base de
+ * datos, así una entrada vieja de la cola (fecha editada después) no cambia
+ * nada. Al arrancar, lo vencido mientras el servicio estaba caído se aplica
+ * con un UPDATE por tabla y solo se encola lo que cae dentro del horizonte.
+ *
+ * Las ediciones se siguen por updated_at: cada cambios-ms se leen las filas
+ * modificadas desde la última marca y se reprograman sus transiciones.
+ */
+@Service
+@Slf4j
+public class CicloVidaCampanasServicio {
+
+    private static final String SQL_FINALIZAR_VENCIDAS =
+            "UPDATE campanas SET estado = 'finalizada' " +
+            "WHERE estado IN ('activa', 'pausada') AND fecha_fin < CURDATE()";
+    private static final String SQL_PUBLICAR_VENCIDOS =
+            "UPDATE anuncios SET estado = 'publicado' " +
+            "WHERE estado = 'programado' AND fecha_publicacion <= NOW()";
+    private static final String SQL_FINALIZAR =
+            "UPDATE campanas SET estado = 'finalizada' " +
+            "WHERE id_campana = ? AND estado IN ('activa', 'pausada') AND fecha_fin < ?";
+    private static final String SQL_PUBLICAR =
+            "UPDATE anuncios SET estado = 'publicado' " +
+            "WHERE id_anuncio = ? AND estado = 'programado' AND fecha_publicacion <= ?";
+
+    private static final String SQL_CAMPANAS_PROXIMAS =
+            "SELECT id_campana, fecha_fin FROM campanas " +
+            "WHERE estado IN ('activa', 'pausada') AND fecha_fin >= ? AND fecha_fin < ?";
+    private static final String SQL_ANUNCIOS_PROXIMOS =
+            "SELECT id_anuncio, id_campana, fecha_publicacion FROM anuncios " +
+            "WHERE estado = 'programado' AND fecha_publicacion > ? AND fecha_publicacion <= ?";
+    private static final String SQL_CAMPANAS_MODIFICADAS =
+            "SELECT id_campana, estado, fecha_fin FROM campanas WHERE updated_at >= ?";
+    private static final String SQL_ANUNCIOS_MODIFICADOS =
+            "SELECT id_anuncio, id_campana, estado, fecha_publicacion FROM anuncios WHERE updated_at >= ?";
+
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditoriaServicio auditoriaServicio;
+    private final ApplicationEventPublisher publicador;
+    private final long horizonteMs;
+
+    private final DelayQueue<Transicion> cola = new DelayQueue<>();
+    // Momento vigente de cada transición; las entradas de la cola con otro momento están obsoletas
+    private final Map<Clave, Long> vigentes = new ConcurrentHashMap<>();
+    private volatile long cargadoHastaMs;
+    private volatile LocalDateTime ultimaMarca;
+    private volatile Thread ejecutor;
+
+    public CicloVidaCampanasServicio(JdbcTemplate jdbcTemplate,
+                                     AuditoriaServicio auditoriaServicio,
+                                     ApplicationEventPublisher publicador,
+                                     @Value("${dispositivos.ciclo-vida-campanas.horizonte-horas:48}") long horizonteHoras) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditoriaServicio = auditoriaServicio;
+        this.publicador = publicador;
+        this.horizonteMs = TimeUnit.HOURS.toMillis(horizonteHoras);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        try {
+            ultimaMarca = ahoraEnBaseDeDatos();
+            int finalizadas = jdbcTemplate.update(SQL_FINALIZAR_VENCIDAS);
+            int publicados = jdbcTemplate.update(SQL_PUBLICAR_VENCIDOS);
+            if (finalizadas > 0 || publicados > 0) {
+                log.info("Ciclo de vida al arrancar: {} campañas finalizadas y {} anuncios publicados atrasados",
+                        finalizadas, publicados);
+                publicador.publishEvent(new TransicionCampanaEvento(null, null, "recuperacion"));
+            }
+            cargarHasta(System.currentTimeMillis() + horizonteMs);
+        } catch (DataAccessException e) {
+            log.error("No se pudo cargar el ciclo de vida de campañas: {}", e.getMessage());
+        }
+
+        ejecutor = new Thread(this::ejecutar, "ciclo-vida-campanas");
+        ejecutor.setDaemon(true);
+        ejecutor.start();
+    }
+
+    @PreDestroy
+    public void detener() {
+        Thread hilo = ejecutor;
+        if (hilo != null) {
+            hilo.interrupt();
+        }
+    }
+
+    /**
+     * Extiende la ventana cargada para que siempre cubra horizonte-horas
+     */
+    @Scheduled(fixedDelayString = "${dispositivos.ciclo-vida-campanas.extension-ms:3600000}",
+            initialDelayString = "${dispositivos.ciclo-vida-campanas.extension-ms:3600000}")
+    public void extenderHorizonte() {
+        try {
+            cargarHasta(System.currentTimeMillis() + horizonteMs);
+        } catch (DataAccessException e) {
+            log.warn("No se pudo extender el horizonte del ciclo de vida: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reprograma las transiciones de las campañas y anuncios editados desde la última revisión
+     */
+    @Scheduled(fixedDelayString = "${dispositivos.ciclo-vida-campanas.cambios-ms:30000}",
+            initialDelayString = "${dispositivos.ciclo-vida-campanas.cambios-ms:30000}")
+    public void revisarCambios() {
+        LocalDateTime desde = ultimaMarca;
+        if (desde == null) {
+            return;
+        }
+        try {
+            // La marca sale del reloj de la base de datos; updated_at tiene resolución de segundos,
+            // así que se relee el último segundo y lo repetido se descarta por momento vigente
+            LocalDateTime marca = ahoraEnBaseDeDatos();
+            Timestamp limite = Timestamp.valueOf(desde.minusSeconds(1));
+            jdbcTemplate.query(SQL_CAMPANAS_MODIFICADAS, (RowCallbackHandler) rs -> {
+                Clave clave = new Clave(Tipo.CAMPANA, rs.getLong("id_campana"));
+                String estado = rs.getString("estado");
+                if ("activa".equals(estado) || "pausada".equals(estado)) {
+                    programar(clave, clave.id(), finDeCampana(rs.getDate("fecha_fin").toLocalDate()));
+                } else {
+                    vigentes.remove(clave);
+                }
+            }, limite);
+            jdbcTemplate.query(SQL_ANUNCIOS_MODIFICADOS, (RowCallbackHandler) rs -> {
+                Clave clave = new Clave(Tipo.ANUNCIO, rs.getLong("id_anuncio"));
+                Timestamp publicacion = rs.getTimestamp("fecha_publicacion");
+                if ("programado".equals(rs.getString("estado")) && publicacion != null) {
+                    programar(clave, rs.getLong("id_campana"), publicacion.getTime());
+                } else {
+                    vigentes.remove(clave);
+                }
+            }, limite);
+            ultimaMarca = marca;
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron revisar los cambios de campañas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Transiciones pendientes en la cola
+     */
+    public int pendientes() {
+        return vigentes.size();
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private void cargarHasta(long hastaMs) {
+        long desdeMs = Math.max(cargadoHastaMs, System.currentTimeMillis());
+        if (hastaMs <= desdeMs) {
+            return;
+        }
+        // fecha_fin es DATE: la campaña termina al empezar el día siguiente
+        LocalDate finDesde = LocalDate.ofInstant(Instant.ofEpochMilli(desdeMs), ZONA).minusDays(1);
+        LocalDate finHasta = LocalDate.ofInstant(Instant.ofEpochMilli(hastaMs), ZONA);
+        jdbcTemplate.query(SQL_CAMPANAS_PROXIMAS, (RowCallbackHandler) rs -> {
+            long id = rs.getLong("id_campana");
+            programar(new Clave(Tipo.CAMPANA, id), id, finDeCampana(rs.getDate("fecha_fin").toLocalDate()));
+        }, Date.valueOf(finDesde), Date.valueOf(finHasta));
+        jdbcTemplate.query(SQL_ANUNCIOS_PROXIMOS, (RowCallbackHandler) rs ->
+                programar(new Clave(Tipo.ANUNCIO, rs.getLong("id_anuncio")), rs.getLong("id_campana"),
+                        rs.getTimestamp("fecha_publicacion").getTime()),
+                new Timestamp(desdeMs), new Timestamp(hastaMs));
+        cargadoHastaMs = hastaMs;
+        log.debug("Ciclo de vida cargado hasta {} ({} transiciones pendientes)",
+                new Timestamp(hastaMs), vigentes.size());
+    }
+
+    private void programar(Clave clave, long idCampana, long momentoMs) {
+        // Lo que cae más allá del horizonte lo carga la próxima extensión
+        if (momentoMs > Math.max(cargadoHastaMs, System.currentTimeMillis() + horizonteMs)) {
+            vigentes.remove(clave);
+            return;
+        }
+        Long anterior = vigentes.put(clave, momentoMs);
+        if (anterior == null || anterior != momentoMs) {
+            cola.put(new Transicion(clave, idCampana, momentoMs));
+        }
+    }
+
+    private void ejecutar() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Transicion transicion;
+            try {
+                transicion = cola.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!vigentes.remove(transicion.clave(), transicion.momentoMs())) {
+                continue;
+            }
+            try {
+                aplicar(transicion);
+            } catch (DataAccessException e) {
+                // Se reintenta en un minuto con el mismo momento; el UPDATE sigue siendo condicional
+                log.warn("No se pudo aplicar la transición {}: {}", transicion.clave(), e.getMessage());
+                Transicion reintento = new Transicion(transicion.clave(), transicion.idCampana(),
+                        System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1));
+                if (vigentes.putIfAbsent(reintento.clave(), reintento.momentoMs()) == null) {
+                    cola.put(reintento);
+                }
+            } catch (RuntimeException e) {
+                // Lo que no es de base de datos (auditoría, un oyente del evento) no se reintenta,
+                // pero una excepción no puede terminar el hilo y dejar la cola sin atender
+                log.error("Error inesperado al aplicar la transición {}", transicion.clave(), e);
+            }
+        }
+    }
+
+    private void aplicar(Transicion transicion) {
+        Clave clave = transicion.clave();
+        boolean campana = clave.tipo() == Tipo.CAMPANA;
+        // La condición usa el mismo reloj que la cola, no el de la base de datos
+        int filas = campana
+                ? jdbcTemplate.update(SQL_FINALIZAR, clave.id(), Date.valueOf(LocalDate.now(ZONA)))
+                : jdbcTemplate.update(SQL_PUBLICAR, clave.id(), Timestamp.valueOf(LocalDateTime.now(ZONA)));
+        if (filas == 0) {
+            return;
+        }
+        String estado = campana ? "finalizada" : "publicado";
+        log.info("{} {} pasó a {}", campana ? "Campaña" : "Anuncio", clave.id(), estado);
+        auditoriaServicio.registrar(campana ? "campanas" : "anuncios", "CAMBIAR_ESTADO", clave.id(),
+                Map.of("estado", estado, "origen", "ciclo-vida"), null);
+        publicador.publishEvent(new TransicionCampanaEvento(transicion.idCampana(),
+                campana ? null : clave.id(), estado));
+    }
+
+    private LocalDateTime ahoraEnBaseDeDatos() {
+        return jdbcTemplate.queryForObject("SELECT NOW()", LocalDateTime.class);
+    }
+
+    private static long finDeCampana(LocalDate fechaFin) {
+        return fechaFin.plusDays(1).atStartOfDay(ZONA).toInstant().toEpochMilli();
+    }
+
+    private enum Tipo { CAMPANA, ANUNCIO }
+
+    private record Clave(Tipo tipo, long id) {
+    }
+
+    private record Transicion(Clave clave, long idCampana, long momentoMs) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unidad) {
+            return unidad.convert(momentoMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed otro) {
+            return otro instanceof Transicion t
+                    ? Long.compare(momentoMs, t.momentoMs)
+                    : Long.compare(getDelay(TimeUnit.MILLISECONDS), otro.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.innoad.dispositivos.servicio;
+
+import com.innoad.dispositivos.evento.ReproduccionFinalizadaEvento;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de impresiones (reproducciones completadas) por anuncio
+ *
+ * Cada reproducción completada suma en un LongAdder del anuncio al que
+ * {@link RitmoCampanasServicio} cobra ese contenido, el mismo cuyo gasto
+ * controla el ritmo; un contenido que no es de una campaña activa no tiene a
+ * quién imputarse y no se cuenta. El LongAdder reparte los incrementos
+ * concurrentes en celdas separadas, así mil pantallas terminando el mismo
+ * anuncio no compiten por una fila ni por un contador. Cada intervalo se
+ * vuelcan las diferencias acumuladas con un único batch de UPDATE
+ * impresiones = impresiones + n por id_anuncio, que también suma
+ * n * costo_impresion al costo_total del anuncio.
+ *
+ * Para no contar dos veces tras un fallo, cada volcado lleva un id de lote que
+ * se inserta en impresiones_lotes dentro de la misma transacción que los
+ * UPDATE. Si el volcado falla se reintenta con el mismo lote y el mismo id;
+ * si en realidad ya se había confirmado, el INSERT choca con la clave primaria
+ * y el lote se descarta sin aplicarlo otra vez. Lo que quede en memoria al
+ * caer el proceso se pierde (se cuenta de menos, nunca de más); el registro de
+ * reproducciones en disco es la fuente para conciliar.
+ */
+@Service
+@Slf4j
+public class ContadorImpresionesServicio {
+
+    private static final String SQL_REGISTRAR_LOTE =
+            "INSERT INTO impresiones_lotes (id_lote, contenidos, impresiones, fecha) VALUES (?, ?, ?, ?)";
+    private static final String SQL_SUMAR =
+            "UPDATE anuncios SET impresiones = impresiones + ?, costo_total = costo_total + ? * costo_impresion " +
+            "WHERE id_anuncio = ?";
+    private static final String SQL_PURGAR_LOTES =
+            "DELETE FROM impresiones_lotes WHERE fecha < ? LIMIT 1000";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RitmoCampanasServicio ritmoCampanasServicio;
+    private final TransactionTemplate transaccion;
+    private final int retencionLotesDias;
+
+    private final Map<Long, LongAdder> contadores = new ConcurrentHashMap<>();
+
+    // Lote armado que todavía no se confirmó; solo lo toca el hilo del volcado
+    private LotePendiente pendiente;
+
+    public ContadorImpresionesServicio(JdbcTemplate jdbcTemplate,
+                                       RitmoCampanasServicio ritmoCampanasServicio,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${dispositivos.impresiones.retencion-lotes-dias:7}") int retencionLotesDias) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ritmoCampanasServicio = ritmoCampanasServicio;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.retencionLotesDias = retencionLotesDias;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alFinalizarReproduccion(ReproduccionFinalizadaEvento evento) {
+        if (evento.completada()) {
+            ritmoCampanasServicio.anuncioFacturado(evento.contenidoId()).ifPresent(this::registrar);
+        }
+    }
+
+    /**
+     * Suma una impresión al anuncio; no bloquea ni toca la base de datos
+     */
+    public void registrar(Long idAnuncio) {
+        contadores.computeIfAbsent(idAnuncio, id -> new LongAdder()).increment();
+    }
+
+    /**
+     * Impresiones acumuladas en memoria que aún no se volcaron
+     */
+    public long pendientes() {
+        long total = contadores.values().stream().mapToLong(LongAdder::sum).sum();
+        synchronized (this) {
+            return total + (pendiente == null ? 0 : pendiente.total());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dispositivos.impresiones.intervalo-volcado-ms:10000}")
+    public synchronized void volcar() {
+        // Un lote fallido se reintenta tal cual antes de armar otro
+        if (pendiente == null) {
+            pendiente = armarLote();
+            if (pendiente == null) {
+                return;
+            }
+        }
+
+        try {
+            transaccion.executeWithoutResult(estado -> aplicar(pendiente));
+            log.debug("Volcadas {} impresiones de {} anuncios (lote {})",
+                    pendiente.total(), pendiente.anuncios().size(), pendiente.idLote());
+            pendiente = null;
+        } catch (DuplicateKeyException e) {
+            log.info("El lote de impresiones {} ya estaba aplicado; se descarta", pendiente.idLote());
+            pendiente = null;
+        } catch (DataAccessException e) {
+            log.warn("No se pudo volcar el lote de impresiones {}, se reintentará: {}",
+                    pendiente.idLote(), e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${dispositivos.impresiones.purga-lotes-cron:0 40 4 * * *}")
+    public void purgarLotes() {
+        Timestamp limite = Timestamp.valueOf(LocalDateTime.now().minusDays(retencionLotesDias));
+        int borrados;
+        do {
+            borrados = jdbcTemplate.update(SQL_PURGAR_LOTES, limite);
+        } while (borrados == 1000);
+    }
+
+    @PreDestroy
+    public void volcarAlDetener() {
+        volcar();
+        volcar();
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private LotePendiente armarLote() {
+        List<Long> anuncios = new ArrayList<>();
+        List<Long> cantidades = new ArrayList<>();
+        contadores.forEach((idAnuncio, contador) -> {
+            // sumThenReset vacía celda por celda con getAndSet: un incremento
+            // concurrente entra en este lote o queda para el siguiente, no se pierde
+            long cantidad = contador.sumThenReset();
+            if (cantidad > 0) {
+                anuncios.add(idAnuncio);
+                cantidades.add(cantidad);
+            }
+        });
+        if (anuncios.isEmpty()) {
+            return null;
+        }
+        return new LotePendiente(UUID.randomUUID().toString(), anuncios, cantidades);
+    }
+
+    private void aplicar(LotePendiente lote) {
+        // Primero el registro del lote: si ya existe, falla aquí y no se suma nada
+        jdbcTemplate.update(SQL_REGISTRAR_LOTE, lote.idLote(), lote.anuncios().size(), lote.total(),
+                Timestamp.valueOf(LocalDateTime.now()));
+
+        List<Object[]> filas = new ArrayList<>(lote.anuncios().size());
+        for (int i = 0; i < lote.anuncios().size(); i++) {
+            filas.add(new Object[]{lote.cantidades().get(i), lote.cantidades().get(i), lote.anuncios().get(i)});
+        }
+        jdbcTemplate.batchUpdate(SQL_SUMAR, filas);
+    }
+
+    private record LotePendiente(String idLote, List<Long> anuncios, List<Long> cantidades) {
+
+        long total() {
+            return cantidades.stream().mapToLong(Long::longValue).sum();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.innoad.dispositivos.servicio;
+
+import com.innoad.dispositivos.dto.MensajeDispositivoDTO;
+import com.innoad.dispositivos.evento.HeartbeatRecibidoEvento;
+import com.innoad.dispositivos.evento.ReproduccionFinalizadaEvento;
+import com.innoad.dispositivos.evento.ReproduccionIniciadaEvento;
+import com.innoad.dispositivos.modelo.DispositivoRaspberry;
+import com.innoad.dispositivos.modelo.EstadoDispositivo;
+import com.innoad.dispositivos.repositorio.DispositivoRepositorio;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Servicio con la lógica de negocio del ciclo de vida de los dispositivos
+ *
+ * Aplica sobre la entidad lo que reporta el gateway WebSocket (conexión,
+ * heartbeat, estado de reproducción, desconexión). Cada guardado dispara
+ * un CambioDispositivoEvento a través del listener de la entidad.
+ *
+ * TAREAS PARA EL EQUIPO DE DESARROLLO:
+ * 1. Guardar las métricas del heartbeat en metricas_dispositivos
+ * 2. Generar alertas cuando las métricas superen los umbrales configurados
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DispositivoServicio {
+
+    private final DispositivoRepositorio dispositivoRepositorio;
+    private final ApplicationEventPublisher publicador;
+
+    public Optional<DispositivoRaspberry> obtenerDispositivo(Long idDispositivo) {
+        return dispositivoRepositorio.findById(idDispositivo);
+    }
+
+    /**
+     * Versión actual del dispositivo sin cargar la entidad (If-None-Match)
+     */
+    public Optional<Long> obtenerVersion(Long idDispositivo) {
+        return dispositivoRepositorio.findVersionById(idDispositivo);
+    }
+
+    /**
+     * Marca el dispositivo como conectado al abrir la sesión WebSocket
+     */
+    @Transactional
+    public void marcarConectado(Long idDispositivo, String ipAddress) {
+        dispositivoRepositorio.findById(idDispositivo).ifPresent(dispositivo -> {
+            dispositivo.actualizarHeartbeat();
+            if (dispositivo.getEstado() != EstadoDispositivo.REPRODUCIENDO) {
+                dispositivo.setEstado(EstadoDispositivo.CONECTADO);
+            }
+            if (ipAddress != null) {
+                dispositivo.setIpAddress(ipAddress);
+            }
+            dispositivoRepositorio.save(dispositivo);
+        });
+    }
+
+    /**
+     * Aplica un heartbeat: actualiza fecha, IP y versión de software reportada
+     */
+    @Transactional
+    public void procesarHeartbeat(Long idDispositivo, MensajeDispositivoDTO heartbeat) {
+        DispositivoRaspberry dispositivo = dispositivoRepositorio.findById(idDispositivo)
+            .orElseThrow(() -> new RuntimeException("Dispositivo no encontrado: " + idDispositivo));
+
+        dispositivo.actualizarHeartbeat();
+        if (heartbeat.getIpAddress() != null) {
+            dispositivo.setIpAddress(heartbeat.getIpAddress());
+        }
+        if (heartbeat.getVersionSoftware() != null) {
+            dispositivo.setVersionSoftware(heartbeat.getVersionSoftware());
+        }
+        dispositivoRepositorio.save(dispositivo);
+
+        publicador.publishEvent(new HeartbeatRecibidoEvento(
+                idDispositivo, heartbeat.getVersionSoftware(), heartbeat.getMetricas(), heartbeat.getConfiguracion()));
+    }
+
+    /**
+     * Aplica el estado de reproducción reportado por el cliente
+     * (REPRODUCIENDO, DETENIDO, COMPLETADO o ERROR)
+     */
+    @Transactional
+    public void procesarEstadoReproduccion(Long idDispositivo, MensajeDispositivoDTO mensaje) {
+        dispositivoRepositorio.findById(idDispositivo).ifPresent(dispositivo -> {
+            String estado = String.valueOf(mensaje.getEstado());
+            Long contenidoEnPantalla = dispositivo.getContenidoActualId();
+            boolean reproduciendo = "REPRODUCIENDO".equals(estado);
+            // Empezar otro contenido sin avisar el fin del anterior cuenta como detenido
+            if (contenidoEnPantalla != null
+                    && (!reproduciendo || !contenidoEnPantalla.equals(mensaje.getContenidoId()))) {
+                publicador.publishEvent(new ReproduccionFinalizadaEvento(idDispositivo, contenidoEnPantalla,
+                        reproduciendo ? "DETENIDO" : estado, LocalDateTime.now()));
+            }
+            if (reproduciendo && mensaje.getContenidoId() != null
+                    && !mensaje.getContenidoId().equals(contenidoEnPantalla)) {
+                publicador.publishEvent(new ReproduccionIniciadaEvento(
+                        idDispositivo, mensaje.getContenidoId(), LocalDateTime.now()));
+            }
+
+            switch (estado) {
+                case "REPRODUCIENDO" -> dispositivo.marcarReproduciendo(mensaje.getContenidoId());
+                case "ERROR" -> {
+                    dispositivo.setEstado(EstadoDispositivo.ERROR);
+                    dispositivo.setContenidoActualId(null);
+                }
+                default -> {
+                    dispositivo.setEstado(EstadoDispositivo.CONECTADO);
+                    dispositivo.setContenidoActualId(null);
+                }
+            }
+            dispositivoRepositorio.save(dispositivo);
+        });
+    }
+
+    /**
+     * Cambia el estado de un dispositivo (p. ej. ACTUALIZANDO durante un despliegue)
+     */
+    @Transactional
+    public void cambiarEstado(Long idDispositivo, EstadoDispositivo estado) {
+        dispositivoRepositorio.findById(idDispositivo).ifPresent(dispositivo -> {
+            if (dispositivo.getEstado() != estado) {
+                dispositivo.setEstado(estado);
+                dispositivoRepositorio.save(dispositivo);
+            }
+        });
+    }
+
+    /**
+     * Marca el dispositivo como desconectado al cerrarse su sesión
+     */
+    @Transactional
+    public void marcarDesconectado(Long idDispositivo) {
+        dispositivoRepositorio.findById(idDispositivo).ifPresent(dispositivo -> {
+            dispositivo.marcarDesconectado();
+            dispositivoRepositorio.save(dispositivo);
+        });
+    }
+}
@@ -0,0 +1,207 @@
+package com.innoad.dispositivos.servicio;
+
+import com.innoad.dispositivos.dto.ConteoEstadoDTO;
+import com.innoad.dispositivos.dto.EstadisticasFlotaDTO;
+import com.innoad.dispositivos.dto.ResumenDispositivoDTO;
+import com.innoad.dispositivos.evento.CambioDispositivoEvento;
+import com.innoad.dispositivos.modelo.EstadoDispositivo;
+import com.innoad.dispositivos.repositorio.DispositivoRepositorio;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Servicio de estadísticas de la flota basado en contadores en memoria
+ *
+ * Los contadores se agrupan por (propietario, ubicación) y llevan una posición
+ * por cada valor de {@link EstadoDispositivo}. Se actualizan de forma incremental
+ * con cada {@link CambioDispositivoEvento}: el servicio recuerda el último
+ * (propietario, ubicación, estado) conocido de cada dispositivo, resta en el
+ * grupo anterior y suma en el nuevo. Así las consultas del tablero no tocan
+ * la base de datos.
+ *
+ * Una tarea periódica ejecuta la consulta agregada real y, si encuentra alguna
+ * diferencia (por ejemplo, un UPDATE hecho fuera de JPA), reconstruye todo.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EstadisticasFlotaServicio {
+
+    private static final int NUM_ESTADOS = EstadoDispositivo.values().length;
+
+    private final DispositivoRepositorio dispositivoRepositorio;
+
+    // (propietario, ubicación) -> contador por ordinal de estado; lectura sin bloqueo
+    private final Map<ClaveGrupo, AtomicLongArray> contadores = new ConcurrentHashMap<>();
+
+    // Último grupo y estado conocido de cada dispositivo activo; solo se modifica con el monitor tomado
+    private final Map<Long, Registro> registros = new HashMap<>();
+
+    private volatile boolean inicializado = false;
+
+    /**
+     * Carga los contadores iniciales al arrancar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        reconstruir();
+    }
+
+    /**
+     * Aplica la transición de un dispositivo a los contadores
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void registrarCambio(CambioDispositivoEvento evento) {
+        if (!inicializado || evento.idDispositivo() == null) {
+            return;
+        }
+
+        Registro anterior = registros.get(evento.idDispositivo());
+        Registro nuevo = evento.activo()
+                ? new Registro(new ClaveGrupo(evento.propietarioId(), evento.ubicacion()), evento.estado())
+                : null;
+
+        if (Objects.equals(anterior, nuevo)) {
+            return;
+        }
+        if (anterior != null) {
+            contadores.get(anterior.grupo()).decrementAndGet(anterior.estado().ordinal());
+        }
+        if (nuevo != null) {
+            contadores.computeIfAbsent(nuevo.grupo(), k -> new AtomicLongArray(NUM_ESTADOS))
+                    .incrementAndGet(nuevo.estado().ordinal());
+            registros.put(evento.idDispositivo(), nuevo);
+        } else {
+            registros.remove(evento.idDispositivo());
+        }
+    }
+
+    /**
+     * Estadísticas globales de la flota
+     */
+    public EstadisticasFlotaDTO obtenerEstadisticas() {
+        long[] total = new long[NUM_ESTADOS];
+        contadores.values().forEach(grupo -> sumar(total, grupo));
+        return EstadisticasFlotaDTO.desdeContadores(total);
+    }
+
+    /**
+     * Estadísticas de los dispositivos de un propietario
+     */
+    public EstadisticasFlotaDTO obtenerEstadisticasPorPropietario(Long propietarioId) {
+        long[] total = new long[NUM_ESTADOS];
+        contadores.forEach((clave, grupo) -> {
+            if (Objects.equals(clave.propietarioId(), propietarioId)) {
+                sumar(total, grupo);
+            }
+        });
+        return EstadisticasFlotaDTO.desdeContadores(total);
+    }
+
+    /**
+     * Estadísticas por ubicación, opcionalmente filtradas por propietario
+     */
+    public Map<String, EstadisticasFlotaDTO> obtenerEstadisticasPorUbicacion(Long propietarioId) {
+        Map<String, long[]> porUbicacion = new TreeMap<>();
+        contadores.forEach((clave, grupo) -> {
+            if (propietarioId == null || Objects.equals(clave.propietarioId(), propietarioId)) {
+                sumar(porUbicacion.computeIfAbsent(clave.ubicacion(), k -> new long[NUM_ESTADOS]), grupo);
+            }
+        });
+
+        Map<String, EstadisticasFlotaDTO> resultado = new TreeMap<>();
+        porUbicacion.forEach((ubicacion, total) ->
+                resultado.put(ubicacion, EstadisticasFlotaDTO.desdeContadores(total)));
+        return resultado;
+    }
+
+    /**
+     * Compara los contadores con la consulta agregada y reconstruye si no coinciden
+     */
+    @Scheduled(fixedDelayString = "${dispositivos.estadisticas.verificacion-ms:300000}",
+               initialDelayString = "${dispositivos.estadisticas.verificacion-ms:300000}")
+    public void verificarContadores() {
+        if (!inicializado) {
+            reconstruir();
+            return;
+        }
+
+        Map<ClaveGrupo, long[]> reales = new HashMap<>();
+        for (ConteoEstadoDTO conteo : dispositivoRepositorio.contarActivosPorPropietarioUbicacionYEstado()) {
+            reales.computeIfAbsent(new ClaveGrupo(conteo.getPropietarioId(), conteo.getUbicacion()),
+                    k -> new long[NUM_ESTADOS])[conteo.getEstado().ordinal()] = conteo.getCantidad();
+        }
+
+        if (!coinciden(reales)) {
+            log.warn("Los contadores de la flota no coinciden con la base de datos, reconstruyendo");
+            reconstruir();
+        }
+    }
+
+    // ==========================================
+    // MÉTODOS PRIVADOS DE UTILIDAD
+    // ==========================================
+
+    /**
+     * Recarga registros y contadores desde la base de datos.
+     * Se ejecuta con el monitor tomado para que ninguna transición se aplique a medias.
+     */
+    private synchronized void reconstruir() {
+        List<ResumenDispositivoDTO> activos = dispositivoRepositorio.findResumenDispositivosActivos();
+
+        registros.clear();
+        contadores.clear();
+        for (ResumenDispositivoDTO resumen : activos) {
+            ClaveGrupo grupo = new ClaveGrupo(resumen.getPropietarioId(), resumen.getUbicacion());
+            registros.put(resumen.getIdDispositivo(), new Registro(grupo, resumen.getEstado()));
+            contadores.computeIfAbsent(grupo, k -> new AtomicLongArray(NUM_ESTADOS))
+                    .incrementAndGet(resumen.getEstado().ordinal());
+        }
+        inicializado = true;
+
+        log.info("Contadores de la flota reconstruidos: {} dispositivos en {} grupos",
+                activos.size(), contadores.size());
+    }
+
+    private boolean coinciden(Map<ClaveGrupo, long[]> reales) {
+        for (Map.Entry<ClaveGrupo, AtomicLongArray> entrada : contadores.entrySet()) {
+            long[] real = reales.getOrDefault(entrada.getKey(), new long[NUM_ESTADOS]);
+            for (int i = 0; i < NUM_ESTADOS; i++) {
+                if (entrada.getValue().get(i) != real[i]) {
+                    return false;
+                }
+            }
+        }
+        for (ClaveGrupo clave : reales.keySet()) {
+            if (!contadores.containsKey(clave)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void sumar(long[] total, AtomicLongArray grupo) {
+        for (int i = 0; i < NUM_ESTADOS; i++) {
+            total[i] += grupo.get(i);
+        }
+    }
+
+    private record ClaveGrupo(Long propietarioId, String ubicacion) {
+    }
+
+    private record Registro(ClaveGrupo grupo, EstadoDispositivo estado) {
+    }
+}
@@ -0,0 +1,175 @@
+package com.innoad.dispositivos.servicio;
+
+import com.innoad.dispositivos.dto.DeltaDispositivoDTO;
+import com.innoad.dispositivos.evento.CambioDispositivoEvento;
+import com.innoad.dispositivos.repositorio.DispositivoRepositorio;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio que alimenta el tablero en vivo de la flota mediante Server-Sent Events
+ *
+ * En lugar de que el frontend consulte por REST cada pocos segundos, cada tablero
+ * abre un stream filtrado por propietario. Los cambios de los dispositivos se
+ * acumulan por propietario durante una ventana corta y se envían como un único
+ * frame: si en esa ventana llegan 1000 heartbeats, el suscriptor recibe un solo
+ * mensaje con el último estado de cada dispositivo que cambió.
+ *
+ * TAREAS PENDIENTES:
+ * 1. Validar con JWT que el propietario solicitado es el usuario autenticado
+ * 2. Soportar reanudación con Last-Event-ID tras una reconexión
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FlotaEnVivoServicio {
+
+    private final DispositivoRepositorio dispositivoRepositorio;
+
+    @Value("${dispositivos.flota-en-vivo.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${dispositivos.flota-en-vivo.max-suscriptores:500}")
+    private int maxSuscriptores;
+
+    // Tableros abiertos por propietario
+    private final Map<Long, Set<SseEmitter>> suscriptores = new ConcurrentHashMap<>();
+
+    // Cambios acumulados en la ventana actual: propietario -> (dispositivo -> último cambio).
+    // El mapa interno solo se modifica dentro de compute(), que es atómico respecto a remove().
+    private final Map<Long, Map<Long, DeltaDispositivoDTO>> pendientes = new ConcurrentHashMap<>();
+
+    private final AtomicInteger totalSuscriptores = new AtomicInteger();
+
+    /**
+     * Registra un nuevo tablero para el propietario y le envía el estado inicial
+     */
+    public SseEmitter suscribir(Long propietarioId) {
+        if (totalSuscriptores.incrementAndGet() > maxSuscriptores) {
+            totalSuscriptores.decrementAndGet();
+            throw new IllegalStateException("Se alcanzó el máximo de tableros en vivo conectados");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        suscriptores.computeIfAbsent(propietarioId, k -> new CopyOnWriteArraySet<>()).add(emitter);
+
+        Runnable limpiar = () -> eliminarSuscriptor(propietarioId, emitter);
+        emitter.onCompletion(limpiar);
+        emitter.onTimeout(limpiar);
+        emitter.onError(e -> limpiar.run());
+
+        List<DeltaDispositivoDTO> estadoInicial = dispositivoRepositorio
+                .findByPropietarioIdAndActivoTrue(propietarioId).stream()
+                .map(DeltaDispositivoDTO::desde)
+                .collect(Collectors.toList());
+        enviar(propietarioId, emitter, "snapshot", estadoInicial);
+
+        log.info("Tablero en vivo suscrito para propietario {} ({} tableros abiertos)",
+                propietarioId, totalSuscriptores.get());
+        return emitter;
+    }
+
+    /**
+     * Acumula el cambio de un dispositivo para la próxima ventana de envío.
+     * Solo se registran cambios ya confirmados en base de datos.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void registrarCambio(CambioDispositivoEvento evento) {
+        Long propietarioId = evento.propietarioId();
+        if (propietarioId == null || evento.idDispositivo() == null
+                || !suscriptores.containsKey(propietarioId)) {
+            return;
+        }
+
+        DeltaDispositivoDTO delta = DeltaDispositivoDTO.desde(evento);
+        pendientes.compute(propietarioId, (k, cambios) -> {
+            Map<Long, DeltaDispositivoDTO> acumulados = cambios != null ? cambios : new HashMap<>();
+            acumulados.put(delta.getId(), delta);
+            return acumulados;
+        });
+    }
+
+    /**
+     * Envía a cada tablero un único frame con los cambios acumulados en la ventana
+     */
+    @Scheduled(fixedDelayString = "${dispositivos.flota-en-vivo.ventana-ms:1000}")
+    public void enviarCambiosAcumulados() {
+        for (Long propietarioId : pendientes.keySet()) {
+            Map<Long, DeltaDispositivoDTO> cambios = pendientes.remove(propietarioId);
+            Set<SseEmitter> tableros = suscriptores.get(propietarioId);
+            if (cambios == null || cambios.isEmpty() || tableros == null || tableros.isEmpty()) {
+                continue;
+            }
+
+            List<DeltaDispositivoDTO> frame = new ArrayList<>(cambios.values());
+            for (SseEmitter emitter : tableros) {
+                enviar(propietarioId, emitter, "delta", frame);
+            }
+        }
+    }
+
+    /**
+     * Comentario periódico para mantener viva la conexión y detectar tableros cerrados
+     */
+    @Scheduled(fixedDelayString = "${dispositivos.flota-en-vivo.keepalive-ms:25000}")
+    public void mantenerConexiones() {
+        suscriptores.forEach((propietarioId, tableros) -> {
+            for (SseEmitter emitter : tableros) {
+                try {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(e);
+                    eliminarSuscriptor(propietarioId, emitter);
+                }
+            }
+        });
+    }
+
+    public int getTotalSuscriptores() {
+        return totalSuscriptores.get();
+    }
+
+    // ==========================================
+    // MÉTODOS PRIVADOS DE UTILIDAD
+    // ==========================================
+
+    private void enviar(Long propietarioId, SseEmitter emitter, String nombreEvento, Object datos) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(nombreEvento)
+                    .data(datos, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Tablero del propietario {} desconectado: {}", propietarioId, e.getMessage());
+            emitter.completeWithError(e);
+            eliminarSuscriptor(propietarioId, emitter);
+        }
+    }
+
+    private void eliminarSuscriptor(Long propietarioId, SseEmitter emitter) {
+        Set<SseEmitter> tableros = suscriptores.get(propietarioId);
+        if (tableros != null && tableros.remove(emitter)) {
+            totalSuscriptores.decrementAndGet();
+            if (tableros.isEmpty()) {
+                suscriptores.remove(propietarioId, tableros);
+                pendientes.remove(propietarioId);
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.innoad.dispositivos.servicio;
+
+import com.innoad.dispositivos.dto.ReproduccionDTO;
+import com.innoad.dispositivos.evento.ReproduccionFinalizadaEvento;
+import com.innoad.dispositivos.evento.ReproduccionIniciadaEvento;
+import com.innoad.dispositivos.historial.EventoReproduccion;
+import com.innoad.dispositivos.historial.RegistroReproducciones;
+import com.innoad.dispositivos.historial.ResultadoReproduccion;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Historial completo de reproducciones por pantalla, para resolver reclamos de facturación
+ *
+ * Cada reproducción terminada (dispositivo, contenido, inicio, fin y
+ * resultado) se agrega al {@link RegistroReproducciones} en disco local, no a
+ * MySQL: a 1000 pantallas con un anuncio cada 30 s son casi 3 millones de
+ * filas por día. Las consultas "qué reprodujo la pantalla X entre T1 y T2"
+ * se responden desde los índices de los segmentos.
+ *
+ * El inicio se toma del evento de inicio que se guarda en memoria por
+ * dispositivo; si el servicio se reinició durante la reproducción no se
+ * conoce y se registra igual al fin.
+ */
+@Service
+@Slf4j
+public class HistorialReproduccionesServicio {
+
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+
+    private final RegistroReproducciones registro;
+    private final int retencionDias;
+    private final long maxRangoConsultaMs;
+
+    private final Map<Long, InicioReproduccion> enCurso = new ConcurrentHashMap<>();
+    private final AtomicLong perdidos = new AtomicLong();
+    private volatile boolean disponible;
+
+    public HistorialReproduccionesServicio(
+            @Value("${dispositivos.historial.directorio:data/historial-reproducciones}") String directorio,
+            @Value("${dispositivos.historial.registros-por-segmento:262144}") int registrosPorSegmento,
+            @Value("${dispositivos.historial.registros-por-bloque:4096}") int registrosPorBloque,
+            @Value("${dispositivos.historial.duracion-maxima-segmento-minutos:60}") long duracionMaximaMinutos,
+            @Value("${dispositivos.historial.retencion-dias:400}") int retencionDias,
+            @Value("${dispositivos.historial.max-rango-consulta-dias:31}") int maxRangoConsultaDias) {
+        this.registro = new RegistroReproducciones(Path.of(directorio), registrosPorSegmento, registrosPorBloque,
+                TimeUnit.MINUTES.toMillis(duracionMaximaMinutos));
+        this.retencionDias = retencionDias;
+        this.maxRangoConsultaMs = TimeUnit.DAYS.toMillis(maxRangoConsultaDias);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        try {
+            registro.abrir();
+            disponible = true;
+            log.info("Historial de reproducciones abierto con {} segmentos", registro.segmentos());
+        } catch (IOException e) {
+            // El resto del servicio sigue funcionando; solo se pierde el historial
+            log.error("No se pudo abrir el historial de reproducciones: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alIniciarReproduccion(ReproduccionIniciadaEvento evento) {
+        enCurso.put(evento.idDispositivo(), new InicioReproduccion(evento.contenidoId(), aMilis(evento.inicio())));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alFinalizarReproduccion(ReproduccionFinalizadaEvento evento) {
+        long finMs = aMilis(evento.fin());
+        InicioReproduccion inicio = enCurso.remove(evento.idDispositivo());
+        long inicioMs = inicio != null && inicio.contenidoId().equals(evento.contenidoId())
+                ? Math.min(inicio.inicioMs(), finMs)
+                : finMs;
+        registrar(new EventoReproduccion(evento.idDispositivo(), evento.contenidoId(), inicioMs, finMs,
+                ResultadoReproduccion.deEstado(evento.resultado())));
+    }
+
+    /**
+     * Agrega la reproducción al registro en disco
+     */
+    public void registrar(EventoReproduccion evento) {
+        if (!disponible) {
+            perdidos.incrementAndGet();
+            return;
+        }
+        try {
+            registro.agregar(evento);
+        } catch (IOException e) {
+            perdidos.incrementAndGet();
+            log.warn("No se pudo registrar la reproducción del dispositivo {}: {}",
+                    evento.idDispositivo(), e.getMessage());
+        }
+    }
+
+    /**
+     * Reproducciones de la pantalla que se solapan con [desde, hasta], por orden de inicio
+     */
+    public List<ReproduccionDTO> consultar(Long idDispositivo, LocalDateTime desde, LocalDateTime hasta) {
+        if (idDispositivo == null || desde == null || hasta == null) {
+            throw new IllegalArgumentException("Dispositivo, desde y hasta son obligatorios");
+        }
+        long desdeMs = aMilis(desde);
+        long hastaMs = aMilis(hasta);
+        if (hastaMs < desdeMs) {
+            throw new IllegalArgumentException("La fecha hasta no puede ser anterior a desde");
+        }
+        if (hastaMs - desdeMs > maxRangoConsultaMs) {
+            throw new IllegalArgumentException("El rango no puede superar "
+                    + Duration.ofMillis(maxRangoConsultaMs).toDays() + " días");
+        }
+        if (!disponible) {
+            throw new IllegalStateException("El historial de reproducciones no está disponible");
+        }
+
+        try {
+            return registro.consultar(idDispositivo, desdeMs, hastaMs).stream()
+                    .map(e -> new ReproduccionDTO(e.idDispositivo(), e.contenidoId(), aFecha(e.inicioMs()),
+                            aFecha(e.finMs()), e.resultado().name()))
+                    .toList();
+        } catch (IOException e) {
+            log.error("Error leyendo el historial de reproducciones: {}", e.getMessage());
+            throw new IllegalStateException("No se pudo leer el historial de reproducciones", e);
+        }
+    }
+
+    /**
+     * Reproducciones que no se pudieron registrar desde el arranque
+     */
+    public long perdidos() {
+        return perdidos.get();
+    }
+
+    @Scheduled(fixedDelayString = "${dispositivos.historial.sincronizar-ms:1000}")
+    public void sincronizar() {
+        if (!disponible) {
+            return;
+        }
+        try {
+            registro.rotarSiVencido();
+            registro.sincronizar();
+        } catch (IOException e) {
+            log.warn("No se pudo sincronizar el historial de reproducciones: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${dispositivos.historial.purga-cron:0 20 4 * * *}")
+    public void purgar() {
+        long limite = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retencionDias);
+        int borrados = registro.purgarAnterioresA(limite);
+        if (borrados > 0) {
+            log.info("Purgados {} segmentos del historial de reproducciones", borrados);
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        disponible = false;
+        try {
+            registro.close();
+        } catch (IOException e) {
+            log.warn("Error cerrando el historial de reproducciones: {}", e.getMessage());
+        }
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private static long aMilis(LocalDateTime fecha) {
+        return fecha.atZone(ZONA).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime aFecha(long milis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(milis), ZONA);
+    }
+
+    private record InicioReproduccion(Long contenidoId, long inicioMs) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.innoad.dispositivos.servicio;
+
+import com.innoad.dispositivos.evento.CambioDispositivoEvento;
+import com.innoad.dispositivos.indice.DireccionMac;
+import com.innoad.dispositivos.indice.MapaLongLong;
+import com.innoad.dispositivos.repositorio.DispositivoRepositorio;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.Optional;
+
+/**
+ * Índice en memoria de MAC -> ID de los dispositivos activos
+ *
+ * Lo usa el handshake WebSocket para identificar al dispositivo sin consultar
+ * la base de datos: la MAC se convierte a su valor de 48 bits y se busca en un
+ * {@link MapaLongLong}. Se carga al arrancar y se mantiene con los eventos de
+ * cambio de dispositivo; un dispositivo desactivado sale del índice.
+ */
+@Service
+@Slf4j
+public class IndiceMacServicio {
+
+    private final DispositivoRepositorio dispositivoRepositorio;
+    private final MapaLongLong indice;
+
+    public IndiceMacServicio(DispositivoRepositorio dispositivoRepositorio,
+                             @Value("${websocket.raspberry.max-sessions:1000}") int capacidadInicial) {
+        this.dispositivoRepositorio = dispositivoRepositorio;
+        this.indice = new MapaLongLong(capacidadInicial);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarIndice() {
+        indice.clear();
+        int invalidas = 0;
+        for (Object[] fila : dispositivoRepositorio.findMacsDispositivosActivos()) {
+            try {
+                indice.put(DireccionMac.aLong((String) fila[1]), (Long) fila[0]);
+            } catch (IllegalArgumentException e) {
+                invalidas++;
+            }
+        }
+        if (invalidas > 0) {
+            log.warn("{} dispositivos con MAC inválida quedaron fuera del índice", invalidas);
+        }
+        log.info("Índice de MAC cargado con {} dispositivos", indice.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void registrarCambio(CambioDispositivoEvento evento) {
+        if (evento.idDispositivo() == null || evento.macAddress() == null) {
+            return;
+        }
+        try {
+            long mac = DireccionMac.aLong(evento.macAddress());
+            if (evento.activo()) {
+                indice.put(mac, evento.idDispositivo());
+            } else {
+                indice.remove(mac);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Dispositivo {} con MAC inválida: {}", evento.idDispositivo(), evento.macAddress());
+        }
+    }
+
+    /**
+     * Resuelve el ID del dispositivo activo con la MAC dada
+     */
+    public Optional<Long> resolver(String macAddress) {
+        long id;
+        try {
+            id = indice.get(DireccionMac.aLong(macAddress));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        return id == MapaLongLong.SIN_VALOR ? Optional.empty() : Optional.of(id);
+    }
+}
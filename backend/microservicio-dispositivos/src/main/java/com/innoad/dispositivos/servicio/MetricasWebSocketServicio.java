@@ -0,0 +1,78 @@
+package com.innoad.dispositivos.servicio;
+
+import com.innoad.dispositivos.dto.LatenciaMensajesDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide en el servidor cuánto tarda el procesamiento de cada mensaje WebSocket
+ *
+ * Registra un Timer de Micrometer por tipo de mensaje (y uno para el
+ * establecimiento de la conexión) con percentiles p50/p99 precalculados, así
+ * se pueden leer desde el endpoint de estadísticas o desde /actuator/metrics
+ * durante una prueba de carga.
+ */
+@Service
+@RequiredArgsConstructor
+public class MetricasWebSocketServicio {
+
+    public static final String METRICA = "dispositivos.websocket.mensajes";
+    public static final String TIPO_CONEXION = "CONEXION";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Registra la duración de un mensaje procesado
+     */
+    public void registrar(String tipo, long inicioNanos) {
+        timer(tipo).record(System.nanoTime() - inicioNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Latencias por tipo de mensaje, ordenadas por tipo
+     */
+    public List<LatenciaMensajesDTO> obtenerLatencias() {
+        return timers.entrySet().stream()
+                .map(e -> aDTO(e.getKey(), e.getValue().takeSnapshot()))
+                .sorted(Comparator.comparing(LatenciaMensajesDTO::getTipo))
+                .toList();
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private Timer timer(String tipo) {
+        Timer existente = tipo != null ? timers.get(tipo) : null;
+        if (existente != null) {
+            return existente;
+        }
+        // Los tipos desconocidos comparten una serie para no crear métricas sin límite
+        String clave = tipo != null && tipo.length() <= 40 && tipo.matches("[A-Z_]+") ? tipo : "OTRO";
+        return timers.computeIfAbsent(clave, t -> Timer.builder(METRICA)
+                .tag("tipo", t)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry));
+    }
+
+    private LatenciaMensajesDTO aDTO(String tipo, HistogramSnapshot snapshot) {
+        double p50 = 0;
+        double p99 = 0;
+        for (ValueAtPercentile percentil : snapshot.percentileValues()) {
+            if (percentil.percentile() == 0.5) {
+                p50 = percentil.value(TimeUnit.MILLISECONDS);
+            } else if (percentil.percentile() == 0.99) {
+                p99 = percentil.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return new LatenciaMensajesDTO(tipo, snapshot.count(), p50, p99, snapshot.max(TimeUnit.MILLISECONDS));
+    }
+}
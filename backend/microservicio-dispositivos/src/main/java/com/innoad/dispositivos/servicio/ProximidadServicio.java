@@ -0,0 +1,102 @@
+package com.innoad.dispositivos.servicio;
+
+import com.innoad.dispositivos.dto.PosicionDispositivoDTO;
+import com.innoad.dispositivos.evento.CambioDispositivoEvento;
+import com.innoad.dispositivos.indice.IndiceEspacial;
+import com.innoad.dispositivos.repositorio.DispositivoRepositorio;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de búsqueda de dispositivos por cercanía geográfica
+ *
+ * Responde consultas como "todas las pantallas a menos de 2 km de esta tienda"
+ * desde un {@link IndiceEspacial} en memoria. El índice se carga al arrancar y
+ * se mantiene sincronizado con los eventos de cambio de dispositivo, así que
+ * un registro o un cambio de coordenadas queda visible en cuanto se confirma.
+ */
+@Service
+@Slf4j
+public class ProximidadServicio {
+
+    private final DispositivoRepositorio dispositivoRepositorio;
+    private final IndiceEspacial indice;
+
+    public ProximidadServicio(DispositivoRepositorio dispositivoRepositorio,
+                              @Value("${dispositivos.proximidad.tamano-celda-grados:0.01}") double tamanoCelda) {
+        this.dispositivoRepositorio = dispositivoRepositorio;
+        this.indice = new IndiceEspacial(tamanoCelda);
+    }
+
+    /**
+     * Carga las coordenadas de los dispositivos activos en el índice
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarIndice() {
+        List<PosicionDispositivoDTO> posiciones = dispositivoRepositorio.findPosicionesDispositivosActivos();
+        indice.limpiar();
+        for (PosicionDispositivoDTO posicion : posiciones) {
+            indice.actualizar(posicion.getIdDispositivo(), posicion.getPropietarioId(),
+                    posicion.getLatitud(), posicion.getLongitud());
+        }
+        log.info("Índice espacial cargado con {} dispositivos", indice.tamano());
+    }
+
+    /**
+     * Mantiene el índice sincronizado con altas, bajas y cambios de coordenadas
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void registrarCambio(CambioDispositivoEvento evento) {
+        if (evento.idDispositivo() == null) {
+            return;
+        }
+        if (evento.activo() && evento.latitud() != null && evento.longitud() != null) {
+            indice.actualizar(evento.idDispositivo(), evento.propietarioId(),
+                    evento.latitud(), evento.longitud());
+        } else {
+            indice.eliminar(evento.idDispositivo());
+        }
+    }
+
+    /**
+     * Busca dispositivos dentro de un radio, ordenados del más cercano al más lejano
+     */
+    public List<PosicionDispositivoDTO> buscarCercanos(double latitud, double longitud,
+                                                        double radioMetros, Long propietarioId) {
+        validarCoordenadas(latitud, longitud);
+        if (radioMetros <= 0) {
+            throw new IllegalArgumentException("El radio debe ser mayor que cero");
+        }
+
+        return indice.buscarEnRadio(latitud, longitud, radioMetros, propietarioId).stream()
+                .map(r -> new PosicionDispositivoDTO(r.punto().id(), r.punto().propietarioId(),
+                        r.punto().latitud(), r.punto().longitud(), r.distanciaMetros()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Busca dispositivos dentro de un rectángulo de coordenadas
+     */
+    public List<PosicionDispositivoDTO> buscarEnArea(double latMin, double lonMin,
+                                                      double latMax, double lonMax, Long propietarioId) {
+        validarCoordenadas(latMin, lonMin);
+        validarCoordenadas(latMax, lonMax);
+
+        return indice.buscarEnRectangulo(latMin, lonMin, latMax, lonMax, propietarioId).stream()
+                .map(p -> new PosicionDispositivoDTO(p.id(), p.propietarioId(), p.latitud(), p.longitud()))
+                .collect(Collectors.toList());
+    }
+
+    private void validarCoordenadas(double latitud, double longitud) {
+        if (latitud < -90 || latitud > 90 || longitud < -180 || longitud > 180) {
+            throw new IllegalArgumentException("Coordenadas fuera de rango");
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.innoad.dispositivos.servicio;
+
+import com.innoad.comun.auditoria.AuditoriaServicio;
+import com.innoad.dispositivos.dto.EstadoConfiguracionDTO;
+import com.innoad.dispositivos.evento.CambioDispositivoEvento;
+import com.innoad.dispositivos.evento.HeartbeatRecibidoEvento;
+import com.innoad.dispositivos.modelo.ConfiguracionPantalla;
+import com.innoad.dispositivos.modelo.OrientacionPantallaConverter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reconciliador de la configuración de pantalla (volumen, brillo, orientación
+ * y resolución) entre lo deseado y lo que cada dispositivo tiene aplicado
+ *
+ * La configuración deseada son las columnas de dispositivos_raspberry; la
+ * reportada llega en cada heartbeat y se guarda en dispositivos_config_reportada
+ * solo cuando cambia. Ambas se mantienen en memoria, y a cada dispositivo se le
+ * envía ACTUALIZAR_CONFIGURACION únicamente con los campos que difieren.
+ *
+ * Un cambio masivo es un UPDATE por conjunto de ids (COALESCE conserva los
+ * campos no enviados). Después del commit los dispositivos quedan marcados como
+ * pendientes y un ciclo periódico envía un solo comando por dispositivo, así
+ * varias ediciones seguidas se agrupan en un único envío con el diff final.
+ *
+ * La deriva se detecta en el heartbeat: si lo reportado no coincide con lo
+ * deseado y ya pasó el margen desde el último envío (el cliente tuvo tiempo de
+ * aplicarlo), el dispositivo vuelve a pendientes. Un cliente que no reporta
+ * configuración solo recibe los envíos de los cambios.
+ */
+@Service
+@Slf4j
+public class ReconciliacionConfiguracionServicio {
+
+    private static final String TABLA_AUDITORIA = "dispositivos_raspberry";
+    private static final int MAX_IDS_POR_SENTENCIA = 1000;
+    private static final OrientacionPantallaConverter CONVERSOR_ORIENTACION = new OrientacionPantallaConverter();
+
+    private static final String SQL_DESEADAS =
+            "SELECT id_dispositivo, volumen_audio, brillo_pantalla, orientacion, resolucion_pantalla " +
+            "FROM dispositivos_raspberry WHERE activo = TRUE";
+    private static final String SQL_REPORTADAS =
+            "SELECT id_dispositivo, volumen_audio, brillo_pantalla, orientacion, resolucion_pantalla, reportada_en " +
+            "FROM dispositivos_config_reportada";
+    private static final String SQL_ACTUALIZAR =
+            "UPDATE dispositivos_raspberry SET volumen_audio = COALESCE(?, volumen_audio), " +
+            "brillo_pantalla = COALESCE(?, brillo_pantalla), orientacion = COALESCE(?, orientacion), " +
+            "resolucion_pantalla = COALESCE(?, resolucion_pantalla), updated_at = ?, version = version + 1 " +
+            "WHERE activo = TRUE AND id_dispositivo IN ";
+    private static final String SQL_GUARDAR_REPORTADA =
+            "INSERT INTO dispositivos_config_reportada " +
+            "(id_dispositivo, volumen_audio, brillo_pantalla, orientacion, resolucion_pantalla, reportada_en) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE volumen_audio = VALUES(volumen_audio), " +
+            "brillo_pantalla = VALUES(brillo_pantalla), orientacion = VALUES(orientacion), " +
+            "resolucion_pantalla = VALUES(resolucion_pantalla), reportada_en = VALUES(reportada_en)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final SesionesDispositivosServicio sesionesDispositivosServicio;
+    private final AuditoriaServicio auditoriaServicio;
+    private final long margenDerivaNanos;
+    private final int maxEnviosPorCiclo;
+
+    private final Map<Long, ConfiguracionPantalla> deseadas = new ConcurrentHashMap<>();
+    private final Map<Long, Reporte> reportadas = new ConcurrentHashMap<>();
+    private final Map<Long, Long> ultimoEnvio = new ConcurrentHashMap<>();
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong enviados = new AtomicLong();
+    private final AtomicLong derivas = new AtomicLong();
+
+    private record Reporte(ConfiguracionPantalla configuracion, LocalDateTime en) {
+    }
+
+    public ReconciliacionConfiguracionServicio(JdbcTemplate jdbcTemplate,
+                                               PlatformTransactionManager transactionManager,
+                                               SesionesDispositivosServicio sesionesDispositivosServicio,
+                                               AuditoriaServicio auditoriaServicio,
+                                               @Value("${dispositivos.configuracion.margen-deriva-ms:90000}") long margenDerivaMs,
+                                               @Value("${dispositivos.configuracion.max-envios-por-ciclo:500}") int maxEnviosPorCiclo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.sesionesDispositivosServicio = sesionesDispositivosServicio;
+        this.auditoriaServicio = auditoriaServicio;
+        this.margenDerivaNanos = margenDerivaMs * 1_000_000L;
+        this.maxEnviosPorCiclo = maxEnviosPorCiclo;
+    }
+
+    /**
+     * Carga la configuración deseada de los dispositivos activos y la última reportada
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        jdbcTemplate.query(SQL_DESEADAS, (RowCallbackHandler) rs ->
+                deseadas.put(rs.getLong("id_dispositivo"), leerConfiguracion(rs)));
+        jdbcTemplate.query(SQL_REPORTADAS, (RowCallbackHandler) rs ->
+                reportadas.put(rs.getLong("id_dispositivo"), new Reporte(leerConfiguracion(rs),
+                        rs.getTimestamp("reportada_en").toLocalDateTime())));
+        log.info("Reconciliación de configuración: {} dispositivos, {} con configuración reportada",
+                deseadas.size(), reportadas.size());
+    }
+
+    /**
+     * Aplica el cambio a todos los dispositivos activos indicados con un UPDATE
+     * por conjunto y deja programado el envío del diff a cada uno
+     *
+     * @return dispositivos actualizados
+     */
+    public int aplicar(Collection<Long> idsDispositivos, ConfiguracionPantalla cambio, Long usuarioId) {
+        if (idsDispositivos == null || idsDispositivos.isEmpty()) {
+            throw new IllegalArgumentException("Se requiere al menos un dispositivo");
+        }
+        if (cambio.estaVacia()) {
+            throw new IllegalArgumentException("El cambio no incluye ningún campo de configuración");
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(idsDispositivos));
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        String orientacion = CONVERSOR_ORIENTACION.convertToDatabaseColumn(cambio.orientacion());
+
+        Map<Long, ConfiguracionPantalla> actualizadas = transaccion.execute(estado -> {
+            for (List<Long> tramo : tramos(ids)) {
+                List<Object> parametros = new ArrayList<>();
+                parametros.add(cambio.volumenAudio());
+                parametros.add(cambio.brilloPantalla());
+                parametros.add(orientacion);
+                parametros.add(cambio.resolucionPantalla());
+                parametros.add(ahora);
+                parametros.addAll(tramo);
+                jdbcTemplate.update(SQL_ACTUALIZAR + marcadores(tramo.size()), parametros.toArray());
+            }
+            // Releer dentro de la transacción: lo guardado es la verdad, incluidos los campos no tocados
+            return leerDeseadas(ids);
+        });
+
+        deseadas.putAll(actualizadas);
+        pendientes.addAll(actualizadas.keySet());
+        auditoriaServicio.registrar(TABLA_AUDITORIA, "ACTUALIZAR_CONFIGURACION",
+                actualizadas.size() == 1 ? actualizadas.keySet().iterator().next() : null,
+                Map.of("dispositivos", actualizadas.size(), "cambios", cambio.diferenciasCon(null)), usuarioId);
+        log.info("Configuración actualizada en {} de {} dispositivos pedidos: {}",
+                actualizadas.size(), ids.size(), cambio.diferenciasCon(null));
+        return actualizadas.size();
+    }
+
+    /**
+     * Envía a cada dispositivo pendiente y conectado solo los campos que le
+     * faltan. Los desconectados salen de pendientes: al volver, su heartbeat
+     * muestra la deriva y se reenvía.
+     */
+    @Scheduled(fixedDelayString = "${dispositivos.configuracion.intervalo-envio-ms:1000}")
+    public void enviarPendientes() {
+        int envios = 0;
+        Iterator<Long> iterador = pendientes.iterator();
+        while (iterador.hasNext() && envios < maxEnviosPorCiclo) {
+            Long idDispositivo = iterador.next();
+            iterador.remove();
+            ConfiguracionPantalla deseada = deseadas.get(idDispositivo);
+            if (deseada == null || !sesionesDispositivosServicio.estaConectado(idDispositivo)) {
+                continue;
+            }
+            Reporte reporte = reportadas.get(idDispositivo);
+            Map<String, Object> diferencias = deseada.diferenciasCon(reporte != null ? reporte.configuracion() : null);
+            if (diferencias.isEmpty()) {
+                continue;
+            }
+            Map<String, Object> comando = new HashMap<>();
+            comando.put("comando", "ACTUALIZAR_CONFIGURACION");
+            comando.put("configuracion", diferencias);
+            if (sesionesDispositivosServicio.enviarComando(idDispositivo, comando)) {
+                ultimoEnvio.put(idDispositivo, System.nanoTime());
+                enviados.incrementAndGet();
+                envios++;
+            }
+        }
+        if (envios > 0) {
+            log.debug("Configuración enviada a {} dispositivos ({} pendientes)", envios, pendientes.size());
+        }
+    }
+
+    /**
+     * Registra la configuración reportada y detecta la deriva respecto a la deseada
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void registrarHeartbeat(HeartbeatRecibidoEvento evento) {
+        if (evento.configuracion() == null) {
+            return;
+        }
+        Long idDispositivo = evento.idDispositivo();
+        ConfiguracionPantalla reportada = ConfiguracionPantalla.desdeReporte(evento.configuracion());
+        Reporte anterior = reportadas.get(idDispositivo);
+        if (anterior == null || !anterior.configuracion().equals(reportada)) {
+            LocalDateTime ahora = LocalDateTime.now();
+            guardarReportada(idDispositivo, reportada, ahora);
+            reportadas.put(idDispositivo, new Reporte(reportada, ahora));
+        }
+
+        ConfiguracionPantalla deseada = deseadas.computeIfAbsent(idDispositivo,
+                id -> leerDeseadas(List.of(id)).get(id));
+        if (deseada == null || deseada.diferenciasCon(reportada).isEmpty()) {
+            return;
+        }
+        Long enviado = ultimoEnvio.get(idDispositivo);
+        if (enviado == null || System.nanoTime() - enviado > margenDerivaNanos) {
+            derivas.incrementAndGet();
+            log.info("Dispositivo {} con configuración desviada: faltan {}", idDispositivo, deseada.diferenciasCon(reportada));
+            pendientes.add(idDispositivo);
+        }
+    }
+
+    /**
+     * Un dispositivo desactivado o borrado deja de reconciliarse
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void registrarCambio(CambioDispositivoEvento evento) {
+        if (!evento.activo()) {
+            deseadas.remove(evento.idDispositivo());
+            pendientes.remove(evento.idDispositivo());
+            ultimoEnvio.remove(evento.idDispositivo());
+        }
+    }
+
+    public Optional<EstadoConfiguracionDTO> obtenerEstado(Long idDispositivo) {
+        ConfiguracionPantalla deseada = deseadas.get(idDispositivo);
+        if (deseada == null) {
+            return Optional.empty();
+        }
+        return Optional.of(estado(idDispositivo, deseada));
+    }
+
+    /**
+     * Estado de todos los dispositivos activos
+     */
+    public List<EstadoConfiguracionDTO> obtenerEstados() {
+        List<EstadoConfiguracionDTO> estados = new ArrayList<>(deseadas.size());
+        deseadas.forEach((idDispositivo, deseada) -> estados.add(estado(idDispositivo, deseada)));
+        return estados;
+    }
+
+    /**
+     * Dispositivos cuya configuración reportada no coincide con la deseada
+     */
+    public List<EstadoConfiguracionDTO> obtenerDesviados() {
+        List<EstadoConfiguracionDTO> desviados = new ArrayList<>();
+        deseadas.forEach((idDispositivo, deseada) -> {
+            Reporte reporte = reportadas.get(idDispositivo);
+            if (reporte != null && !deseada.diferenciasCon(reporte.configuracion()).isEmpty()) {
+                desviados.add(estado(idDispositivo, deseada));
+            }
+        });
+        desviados.sort((a, b) -> Long.compare(a.getIdDispositivo(), b.getIdDispositivo()));
+        return desviados;
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("dispositivos", deseadas.size());
+        estadisticas.put("conConfiguracionReportada", reportadas.size());
+        estadisticas.put("pendientesDeEnvio", pendientes.size());
+        estadisticas.put("enviados", enviados.get());
+        estadisticas.put("derivasDetectadas", derivas.get());
+        return estadisticas;
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private EstadoConfiguracionDTO estado(Long idDispositivo, ConfiguracionPantalla deseada) {
+        Reporte reporte = reportadas.get(idDispositivo);
+        ConfiguracionPantalla reportada = reporte != null ? reporte.configuracion() : null;
+        return new EstadoConfiguracionDTO(idDispositivo, deseada, reportada,
+                reporte != null ? reporte.en() : null, deseada.diferenciasCon(reportada),
+                sesionesDispositivosServicio.estaConectado(idDispositivo));
+    }
+
+    private Map<Long, ConfiguracionPantalla> leerDeseadas(List<Long> ids) {
+        Map<Long, ConfiguracionPantalla> leidas = new HashMap<>();
+        for (List<Long> tramo : tramos(ids)) {
+            jdbcTemplate.query(SQL_DESEADAS + " AND id_dispositivo IN " + marcadores(tramo.size()),
+                    (RowCallbackHandler) rs -> leidas.put(rs.getLong("id_dispositivo"), leerConfiguracion(rs)),
+                    tramo.toArray());
+        }
+        return leidas;
+    }
+
+    private void guardarReportada(Long idDispositivo, ConfiguracionPantalla reportada, LocalDateTime en) {
+        jdbcTemplate.update(SQL_GUARDAR_REPORTADA, ps -> {
+            ps.setLong(1, idDispositivo);
+            ps.setObject(2, reportada.volumenAudio(), Types.INTEGER);
+            ps.setObject(3, reportada.brilloPantalla(), Types.INTEGER);
+            ps.setString(4, CONVERSOR_ORIENTACION.convertToDatabaseColumn(reportada.orientacion()));
+            ps.setString(5, reportada.resolucionPantalla());
+            ps.setTimestamp(6, Timestamp.valueOf(en));
+        });
+    }
+
+    private static ConfiguracionPantalla leerConfiguracion(ResultSet rs) throws SQLException {
+        return new ConfiguracionPantalla(
+                rs.getObject("volumen_audio", Integer.class),
+                rs.getObject("brillo_pantalla", Integer.class),
+                ConfiguracionPantalla.orientacion(rs.getString("orientacion")),
+                rs.getString("resolucion_pantalla"));
+    }
+
+    private static List<List<Long>> tramos(List<Long> ids) {
+        List<List<Long>> tramos = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += MAX_IDS_POR_SENTENCIA) {
+            tramos.add(ids.subList(i, Math.min(i + MAX_IDS_POR_SENTENCIA, ids.size())));
+        }
+        return tramos;
+    }
+
+    private static String marcadores(int cantidad) {
+        return "(" + String.join(", ", Collections.nCopies(cantidad, "?")) + ")";
+    }
+}
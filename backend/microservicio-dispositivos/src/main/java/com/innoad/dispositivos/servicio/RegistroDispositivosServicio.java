@@ -0,0 +1,185 @@
+package com.innoad.dispositivos.servicio;
+
+import com.innoad.comun.auditoria.AuditoriaServicio;
+import com.innoad.dispositivos.dto.RegistroDispositivoDTO;
+import com.innoad.dispositivos.dto.ResultadoRegistroLoteDTO;
+import com.innoad.dispositivos.dto.ResultadoRegistroLoteDTO.RechazoDTO;
+import com.innoad.dispositivos.dto.ResumenDispositivoDTO;
+import com.innoad.dispositivos.evento.CambioDispositivoEvento;
+import com.innoad.dispositivos.indice.DireccionMac;
+import com.innoad.dispositivos.modelo.DispositivoRaspberry;
+import com.innoad.dispositivos.modelo.EstadoDispositivo;
+import com.innoad.dispositivos.modelo.EstadoDispositivoConverter;
+import com.innoad.dispositivos.modelo.OrientacionPantalla;
+import com.innoad.dispositivos.modelo.OrientacionPantallaConverter;
+import com.innoad.dispositivos.repositorio.DispositivoRepositorio;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Servicio de registro masivo de dispositivos
+ *
+ * Pensado para la puesta en marcha de un sitio nuevo con cientos de pantallas:
+ * en lugar de un existsByMacAddress y un save por dispositivo, el lote se valida
+ * en memoria, los duplicados contra la base de datos se detectan con una sola
+ * consulta IN y las filas nuevas se insertan con JDBC batch.
+ *
+ * Las MAC se guardan en formato canónico (AA:BB:CC:DD:EE:FF). Las filas
+ * inválidas o duplicadas se rechazan individualmente sin abortar el lote.
+ */
+@Service
+@Slf4j
+public class RegistroDispositivosServicio {
+
+    private static final String SQL_INSERTAR =
+            "INSERT INTO dispositivos_raspberry (nombre, mac_address, ubicacion, descripcion, latitud, longitud, " +
+            "estado, orientacion, activo, propietario_id, fecha_registro, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final DispositivoRepositorio dispositivoRepositorio;
+    private final JdbcTemplate jdbcTemplate;
+    private final Validator validator;
+    private final ApplicationEventPublisher publicador;
+    private final AuditoriaServicio auditoriaServicio;
+    private final int maxDispositivos;
+    private final int tamanoBatch;
+
+    public RegistroDispositivosServicio(DispositivoRepositorio dispositivoRepositorio,
+                                        JdbcTemplate jdbcTemplate,
+                                        Validator validator,
+                                        ApplicationEventPublisher publicador,
+                                        AuditoriaServicio auditoriaServicio,
+                                        @Value("${dispositivos.registro-lote.max-dispositivos:1000}") int maxDispositivos,
+                                        @Value("${dispositivos.registro-lote.tamano-batch:200}") int tamanoBatch) {
+        this.dispositivoRepositorio = dispositivoRepositorio;
+        this.jdbcTemplate = jdbcTemplate;
+        this.validator = validator;
+        this.publicador = publicador;
+        this.auditoriaServicio = auditoriaServicio;
+        this.maxDispositivos = maxDispositivos;
+        this.tamanoBatch = tamanoBatch;
+    }
+
+    /**
+     * Registra un lote de dispositivos
+     */
+    @Transactional
+    public ResultadoRegistroLoteDTO registrarLote(List<RegistroDispositivoDTO> lote) {
+        if (lote == null || lote.isEmpty()) {
+            throw new IllegalArgumentException("El lote no contiene dispositivos");
+        }
+        if (lote.size() > maxDispositivos) {
+            throw new IllegalArgumentException("El lote supera el máximo de " + maxDispositivos + " dispositivos");
+        }
+
+        ResultadoRegistroLoteDTO resultado = new ResultadoRegistroLoteDTO();
+
+        // 1. Validación y normalización en memoria, descartando MAC repetidas dentro del lote.
+        //    candidatos: MAC canónica -> posición en el lote
+        Map<String, Integer> candidatos = new LinkedHashMap<>();
+        for (int i = 0; i < lote.size(); i++) {
+            RegistroDispositivoDTO registro = lote.get(i);
+            String error = validar(registro);
+            if (error != null) {
+                resultado.getRechazados().add(new RechazoDTO(i, registro != null ? registro.getMacAddress() : null, error));
+                continue;
+            }
+            String mac = DireccionMac.normalizar(registro.getMacAddress());
+            if (candidatos.putIfAbsent(mac, i) != null) {
+                resultado.getRechazados().add(new RechazoDTO(i, mac, "MAC repetida dentro del lote"));
+            }
+        }
+
+        // 2. Una sola consulta para detectar las MAC ya registradas. Las filas cargadas fuera
+        //    del registro por lote pueden tener la MAC con guiones: se busca en ambas grafías
+        if (!candidatos.isEmpty()) {
+            List<String> grafias = new ArrayList<>(candidatos.size() * 2);
+            for (String mac : candidatos.keySet()) {
+                grafias.add(mac);
+                grafias.add(mac.replace(':', '-'));
+            }
+            for (String existente : dispositivoRepositorio.findMacAddressExistentes(grafias)) {
+                String mac = DireccionMac.normalizar(existente);
+                Integer posicion = candidatos.remove(mac);
+                if (posicion != null) {
+                    resultado.getRechazados().add(new RechazoDTO(posicion, mac, "La MAC ya está registrada"));
+                }
+            }
+        }
+
+        if (candidatos.isEmpty()) {
+            return resultado;
+        }
+
+        // 3. Inserción en lotes JDBC
+        List<Map.Entry<String, RegistroDispositivoDTO>> filas = new ArrayList<>(candidatos.size());
+        candidatos.forEach((mac, posicion) -> filas.add(Map.entry(mac, lote.get(posicion))));
+        insertar(filas);
+
+        // 4. Releer los dispositivos creados para conocer sus IDs y notificar a índices y contadores
+        List<DispositivoRaspberry> creados = dispositivoRepositorio.findByMacAddressIn(candidatos.keySet());
+        for (DispositivoRaspberry dispositivo : creados) {
+            publicador.publishEvent(CambioDispositivoEvento.desde(dispositivo));
+            auditoriaServicio.registrar("dispositivos_raspberry", "CREAR", dispositivo.getIdDispositivo(),
+                    Map.of("macAddress", dispositivo.getMacAddress(), "ubicacion", dispositivo.getUbicacion(),
+                            "origen", "lote"), null);
+            resultado.getRegistrados().add(new ResumenDispositivoDTO(dispositivo.getIdDispositivo(),
+                    dispositivo.getPropietarioId(), dispositivo.getUbicacion(), dispositivo.getEstado()));
+        }
+
+        log.info("Registro masivo: {} dispositivos creados, {} rechazados",
+                resultado.getRegistrados().size(), resultado.getRechazados().size());
+        return resultado;
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private String validar(RegistroDispositivoDTO registro) {
+        if (registro == null) {
+            return "Fila vacía";
+        }
+        Set<ConstraintViolation<RegistroDispositivoDTO>> violaciones = validator.validate(registro);
+        if (!violaciones.isEmpty()) {
+            return violaciones.iterator().next().getMessage();
+        }
+        try {
+            DireccionMac.aLong(registro.getMacAddress());
+        } catch (IllegalArgumentException e) {
+            return "Formato de MAC address inválido";
+        }
+        return null;
+    }
+
+    private void insertar(List<Map.Entry<String, RegistroDispositivoDTO>> filas) {
+        String estado = new EstadoDispositivoConverter().convertToDatabaseColumn(EstadoDispositivo.DESCONECTADO);
+        String orientacion = new OrientacionPantallaConverter().convertToDatabaseColumn(OrientacionPantalla.HORIZONTAL);
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate(SQL_INSERTAR, filas, tamanoBatch, (ps, fila) -> {
+            RegistroDispositivoDTO registro = fila.getValue();
+            ps.setString(1, registro.getNombre());
+            ps.setString(2, fila.getKey());
+            ps.setString(3, registro.getUbicacion());
+            ps.setString(4, registro.getDescripcion());
+            ps.setObject(5, registro.getLatitud(), Types.DOUBLE);
+            ps.setObject(6, registro.getLongitud(), Types.DOUBLE);
+            ps.setString(7, estado);
+            ps.setString(8, orientacion);
+            ps.setBoolean(9, true);
+            ps.setLong(10, registro.getPropietarioId());
+            ps.setTimestamp(11, ahora);
+            ps.setTimestamp(12, ahora);
+            ps.setTimestamp(13, ahora);
+        });
+    }
+}
@@ -0,0 +1,330 @@
+package com.innoad.dispositivos.servicio;
+
+import com.innoad.dispositivos.dto.RitmoCampanaDTO;
+import com.innoad.dispositivos.evento.ReproduccionFinalizadaEvento;
+import com.innoad.dispositivos.evento.ReproduccionIniciadaEvento;
+import com.innoad.dispositivos.evento.TransicionCampanaEvento;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Control de ritmo de gasto de las campañas activas
+ *
+ * Cada reproducción completada de un anuncio suma su costo_impresion al gasto
+ * en memoria de la campaña (un AtomicLong en diezmilésimas). Si el gasto
+ * alcanza el presupuesto la campaña queda agotada en ese mismo momento, sin
+ * esperar a ningún proceso por lotes, y las pantallas que empiecen uno de sus
+ * contenidos reciben DETENER_REPRODUCCION.
+ *
+ * Cada ritmo-ms se recalcula un factor de entrega por campaña: el gasto que
+ * queda repartido sobre el tiempo que falta hasta fecha_fin da la tasa
+ * objetivo, la tasa observada dividida por el factor vigente estima la
+ * demanda sin freno, y el nuevo factor es su cociente (máximo 1). En el
+ * último margen-cierre del presupuesto el factor baja además en forma lineal
+ * para no pasarse por las reproducciones que ya están en curso. Quien programa
+ * contenido en las pantallas consulta {@link #permitirEntrega(Long)}.
+ *
+ * Un contenido usado por varios anuncios se cobra al primero (menor id) de
+ * una campaña activa, y {@link #anuncioFacturado(Long)} lo expone para que
+ * {@link ContadorImpresionesServicio} sume las impresiones y el
+ * anuncios.costo_total persistido en ese mismo anuncio.
+ */
+@Service
+@Slf4j
+public class RitmoCampanasServicio {
+
+    private static final String SQL_CAMPANAS =
+            "SELECT c.id_campana, c.presupuesto, c.fecha_inicio, c.fecha_fin, " +
+            "COALESCE(SUM(a.costo_total), 0) AS gastado " +
+            "FROM campanas c LEFT JOIN anuncios a ON a.id_campana = c.id_campana " +
+            "WHERE c.estado = 'activa' AND c.presupuesto > 0 AND c.fecha_fin >= CURDATE() " +
+            "GROUP BY c.id_campana, c.presupuesto, c.fecha_inicio, c.fecha_fin";
+    private static final String SQL_TARIFAS =
+            "SELECT a.id_anuncio, a.contenido_id, a.id_campana, a.costo_impresion " +
+            "FROM anuncios a JOIN campanas c ON c.id_campana = a.id_campana " +
+            "WHERE c.estado = 'activa' AND c.presupuesto > 0 AND c.fecha_fin >= CURDATE() " +
+            "AND a.contenido_id IS NOT NULL AND a.estado <> 'pausado' " +
+            "ORDER BY a.id_anuncio";
+
+    // Importes en diezmilésimas de la moneda, la escala de costo_impresion
+    private static final int ESCALA = 4;
+    private static final double FACTOR_MINIMO = 0.01;
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SesionesDispositivosServicio sesionesDispositivosServicio;
+    private final double margenCierre;
+    private final double suavizado;
+
+    private volatile Map<Long, Campana> campanas = Map.of();
+    private volatile Map<Long, Tarifa> tarifas = Map.of();
+
+    public RitmoCampanasServicio(JdbcTemplate jdbcTemplate,
+                                 SesionesDispositivosServicio sesionesDispositivosServicio,
+                                 @Value("${dispositivos.ritmo-campanas.margen-cierre:0.05}") double margenCierre,
+                                 @Value("${dispositivos.ritmo-campanas.suavizado:0.3}") double suavizado) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sesionesDispositivosServicio = sesionesDispositivosServicio;
+        this.margenCierre = Math.max(0, Math.min(1, margenCierre));
+        this.suavizado = Math.max(0.01, Math.min(1, suavizado));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        recargar();
+    }
+
+    /**
+     * Vuelve a leer las campañas activas y sus tarifas; conserva el gasto en
+     * memoria de las que ya se seguían (nunca lo baja por debajo de lo persistido)
+     */
+    @Scheduled(fixedDelayString = "${dispositivos.ritmo-campanas.recarga-ms:60000}",
+            initialDelayString = "${dispositivos.ritmo-campanas.recarga-ms:60000}")
+    public void recargar() {
+        try {
+            Map<Long, Campana> anteriores = campanas;
+            Map<Long, Campana> nuevas = new HashMap<>();
+            jdbcTemplate.query(SQL_CAMPANAS, (RowCallbackHandler) rs -> {
+                long id = rs.getLong("id_campana");
+                Campana campana = anteriores.getOrDefault(id, new Campana(id));
+                campana.actualizar(aUnidades(rs.getBigDecimal("presupuesto")),
+                        inicioDelDia(rs.getDate("fecha_inicio").toLocalDate()),
+                        inicioDelDia(rs.getDate("fecha_fin").toLocalDate().plusDays(1)),
+                        aUnidades(rs.getBigDecimal("gastado")));
+                nuevas.put(id, campana);
+            });
+
+            Map<Long, Tarifa> nuevasTarifas = new HashMap<>();
+            jdbcTemplate.query(SQL_TARIFAS, (RowCallbackHandler) rs -> {
+                long idCampana = rs.getLong("id_campana");
+                BigDecimal costo = rs.getBigDecimal("costo_impresion");
+                nuevasTarifas.putIfAbsent(rs.getLong("contenido_id"),
+                        new Tarifa(rs.getLong("id_anuncio"), idCampana, costo != null ? aUnidades(costo) : 0));
+            });
+
+            campanas = nuevas;
+            tarifas = nuevasTarifas;
+            log.debug("Ritmo de campañas: {} campañas activas, {} contenidos con tarifa",
+                    nuevas.size(), nuevasTarifas.size());
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron recargar las campañas activas: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void alCambiarEstadoCampana(TransicionCampanaEvento evento) {
+        recargar();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alFinalizarReproduccion(ReproduccionFinalizadaEvento evento) {
+        if (evento.completada()) {
+            registrarGasto(evento.contenidoId());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alIniciarReproduccion(ReproduccionIniciadaEvento evento) {
+        Campana campana = campanaDe(evento.contenidoId());
+        if (campana != null && campana.agotada) {
+            log.info("Dispositivo {} empezó contenido {} de la campaña agotada {}; se detiene",
+                    evento.idDispositivo(), evento.contenidoId(), campana.id);
+            sesionesDispositivosServicio.enviarComando(evento.idDispositivo(),
+                    Map.of("comando", "DETENER_REPRODUCCION"));
+        }
+    }
+
+    /**
+     * Suma al gasto de la campaña el costo de una impresión del contenido
+     */
+    public void registrarGasto(Long contenidoId) {
+        Tarifa tarifa = contenidoId != null ? tarifas.get(contenidoId) : null;
+        if (tarifa == null || tarifa.costo() <= 0) {
+            return;
+        }
+        Campana campana = campanas.get(tarifa.idCampana());
+        if (campana == null) {
+            return;
+        }
+        long gastado = campana.gastado.addAndGet(tarifa.costo());
+        if (gastado >= campana.presupuesto && !campana.agotada) {
+            campana.agotada = true;
+            campana.factor = 0;
+            log.info("La campaña {} agotó su presupuesto ({} de {})",
+                    campana.id, aImporte(gastado), aImporte(campana.presupuesto));
+        }
+    }
+
+    /**
+     * Decide si se puede programar ahora una reproducción del contenido
+     *
+     * Los contenidos que no son de una campaña con presupuesto siempre pasan;
+     * los de campañas agotadas o fuera de fechas nunca; el resto pasa con
+     * probabilidad igual al factor de entrega vigente.
+     */
+    public boolean permitirEntrega(Long contenidoId) {
+        Tarifa tarifa = contenidoId != null ? tarifas.get(contenidoId) : null;
+        if (tarifa == null) {
+            return true;
+        }
+        Campana campana = campanas.get(tarifa.idCampana());
+        if (campana == null) {
+            return true;
+        }
+        double factor = campana.factor;
+        return !campana.agotada && (factor >= 1 || ThreadLocalRandom.current().nextDouble() < factor);
+    }
+
+    /**
+     * Anuncio al que se cobra una reproducción del contenido, si pertenece a
+     * una campaña activa
+     */
+    public Optional<Long> anuncioFacturado(Long contenidoId) {
+        Tarifa tarifa = contenidoId != null ? tarifas.get(contenidoId) : null;
+        return tarifa != null ? Optional.of(tarifa.idAnuncio()) : Optional.empty();
+    }
+
+    /**
+     * Recalcula el factor de entrega de cada campaña con la tasa de gasto observada
+     */
+    @Scheduled(fixedRateString = "${dispositivos.ritmo-campanas.ritmo-ms:5000}")
+    public void recalcular() {
+        long ahora = System.currentTimeMillis();
+        for (Campana campana : campanas.values()) {
+            campana.recalcular(ahora, margenCierre, suavizado);
+        }
+    }
+
+    public List<RitmoCampanaDTO> obtenerRitmos() {
+        return campanas.values().stream()
+                .sorted(Comparator.comparingLong(c -> c.id))
+                .map(this::aDTO)
+                .toList();
+    }
+
+    public Optional<RitmoCampanaDTO> obtenerRitmo(Long idCampana) {
+        return Optional.ofNullable(campanas.get(idCampana)).map(this::aDTO);
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private Campana campanaDe(Long contenidoId) {
+        Tarifa tarifa = contenidoId != null ? tarifas.get(contenidoId) : null;
+        return tarifa != null ? campanas.get(tarifa.idCampana()) : null;
+    }
+
+    private RitmoCampanaDTO aDTO(Campana campana) {
+        return new RitmoCampanaDTO(campana.id, aImporte(campana.presupuesto), aImporte(campana.gastado.get()),
+                aImporte((long) (campana.tasaObjetivo * 3600)).setScale(2, RoundingMode.HALF_UP),
+                campana.factor, campana.agotada);
+    }
+
+    private static long aUnidades(BigDecimal importe) {
+        return importe.setScale(ESCALA, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal aImporte(long unidades) {
+        return BigDecimal.valueOf(unidades, ESCALA);
+    }
+
+    private static long inicioDelDia(LocalDate fecha) {
+        return fecha.atStartOfDay(ZONA).toInstant().toEpochMilli();
+    }
+
+    private record Tarifa(long idAnuncio, long idCampana, long costo) {
+    }
+
+    /**
+     * Estado de una campaña; gastado se actualiza desde los hilos de eventos y
+     * el resto solo desde la recarga y el recálculo programados
+     */
+    private static final class Campana {
+
+        final long id;
+        final AtomicLong gastado = new AtomicLong();
+        volatile long presupuesto;
+        volatile long inicioMs;
+        volatile long finMs;
+        volatile boolean agotada;
+        volatile double factor = 1;
+        volatile double tasaObjetivo;
+
+        // Solo los usa recalcular
+        long gastoAnterior = -1;
+        long calculoAnteriorMs;
+        double tasaObservada;
+
+        Campana(long id) {
+            this.id = id;
+        }
+
+        synchronized void actualizar(long presupuesto, long inicioMs, long finMs, long gastadoPersistido) {
+            this.presupuesto = presupuesto;
+            this.inicioMs = inicioMs;
+            this.finMs = finMs;
+            gastado.accumulateAndGet(gastadoPersistido, Math::max);
+            // Un aumento de presupuesto reactiva la campaña
+            if (agotada && gastado.get() < presupuesto) {
+                agotada = false;
+                factor = FACTOR_MINIMO;
+            } else if (gastado.get() >= presupuesto) {
+                agotada = true;
+                factor = 0;
+            }
+        }
+
+        synchronized void recalcular(long ahora, double margenCierre, double suavizado) {
+            long gastoActual = gastado.get();
+            if (gastoAnterior >= 0 && ahora > calculoAnteriorMs) {
+                double tasa = (gastoActual - gastoAnterior) * 1000.0 / (ahora - calculoAnteriorMs);
+                tasaObservada = suavizado * tasa + (1 - suavizado) * tasaObservada;
+            }
+            gastoAnterior = gastoActual;
+            calculoAnteriorMs = ahora;
+
+            long restante = presupuesto - gastoActual;
+            if (restante <= 0) {
+                agotada = true;
+                factor = 0;
+                tasaObjetivo = 0;
+                return;
+            }
+            if (ahora < inicioMs || ahora >= finMs) {
+                factor = 0;
+                tasaObjetivo = 0;
+                return;
+            }
+
+            tasaObjetivo = restante * 1000.0 / (finMs - ahora);
+            // Lo observado pasó por el factor vigente: la demanda sin freno es mayor
+            double demanda = tasaObservada / Math.max(factor, FACTOR_MINIMO);
+            double nuevo = demanda <= 0 ? 1 : Math.min(1, tasaObjetivo / demanda);
+            double margen = presupuesto * margenCierre;
+            if (restante < margen) {
+                nuevo *= restante / margen;
+            }
+            factor = Math.max(FACTOR_MINIMO, nuevo);
+        }
+    }
+}
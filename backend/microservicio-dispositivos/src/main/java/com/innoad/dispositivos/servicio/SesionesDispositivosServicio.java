@@ -0,0 +1,110 @@
+package com.innoad.dispositivos.servicio;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de las sesiones WebSocket abiertas con los dispositivos
+ *
+ * Permite enviar comandos a un dispositivo por su ID desde cualquier servicio.
+ * Cada sesión se envuelve en un {@link ConcurrentWebSocketSessionDecorator}
+ * para que varios hilos puedan enviar sin bloquearse entre sí ni mezclar frames.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SesionesDispositivosServicio {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${websocket.raspberry.send-time-limit-ms:10000}")
+    private int limiteTiempoEnvioMs;
+
+    @Value("${websocket.raspberry.send-buffer-size-limit:524288}")
+    private int limiteBufferEnvio;
+
+    private final Map<Long, WebSocketSession> sesiones = new ConcurrentHashMap<>();
+
+    /**
+     * Registra la sesión de un dispositivo. Si ya tenía una abierta, la cierra.
+     */
+    public void registrar(Long idDispositivo, WebSocketSession session) {
+        WebSocketSession decorada = new ConcurrentWebSocketSessionDecorator(
+                session, limiteTiempoEnvioMs, limiteBufferEnvio);
+        WebSocketSession anterior = sesiones.put(idDispositivo, decorada);
+        if (anterior != null && anterior.isOpen()) {
+            log.info("Dispositivo {} abrió una nueva sesión, cerrando la anterior", idDispositivo);
+            cerrarSilenciosamente(anterior);
+        }
+    }
+
+    /**
+     * Elimina la sesión solo si sigue siendo la registrada para el dispositivo
+     *
+     * @return true si la sesión era la vigente
+     */
+    public boolean eliminar(Long idDispositivo, WebSocketSession session) {
+        WebSocketSession actual = sesiones.get(idDispositivo);
+        if (actual != null && actual.getId().equals(session.getId())) {
+            return sesiones.remove(idDispositivo, actual);
+        }
+        return false;
+    }
+
+    public boolean estaConectado(Long idDispositivo) {
+        WebSocketSession session = sesiones.get(idDispositivo);
+        return session != null && session.isOpen();
+    }
+
+    public Set<Long> getDispositivosConectados() {
+        return sesiones.keySet();
+    }
+
+    public int getTotalSesiones() {
+        return sesiones.size();
+    }
+
+    /**
+     * Envía un comando JSON a un dispositivo conectado
+     *
+     * @return true si el mensaje se entregó al socket
+     */
+    public boolean enviarComando(Long idDispositivo, Map<String, Object> comando) {
+        WebSocketSession session = sesiones.get(idDispositivo);
+        if (session == null || !session.isOpen()) {
+            log.debug("Dispositivo {} sin sesión abierta, comando descartado", idDispositivo);
+            return false;
+        }
+
+        try {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(comando)));
+            return true;
+        } catch (JsonProcessingException e) {
+            log.error("Error serializando comando para dispositivo {}: {}", idDispositivo, e.getMessage());
+            return false;
+        } catch (IOException | IllegalStateException e) {
+            log.warn("Error enviando comando a dispositivo {}: {}", idDispositivo, e.getMessage());
+            return false;
+        }
+    }
+
+    private void cerrarSilenciosamente(WebSocketSession session) {
+        try {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Sesión reemplazada"));
+        } catch (IOException e) {
+            log.debug("Error cerrando sesión {}: {}", session.getId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.innoad.dispositivos.servicio;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Sincronización por diferencias del contenido guardado en cada dispositivo
+ *
+ * Al conectarse, el cliente manda un MANIFIESTO_CONTENIDO con los checksums
+ * de los archivos que ya tiene. Se compara con el contenido que el
+ * dispositivo va a reproducir en las próximas horas (programación vigente más
+ * el contenido en pantalla) y se responde con un SINCRONIZAR_CONTENIDO que
+ * lista solo lo que falta descargar y los checksums que puede borrar.
+ *
+ * Ambos lados se ordenan por checksum y se recorren juntos una sola vez, así
+ * el costo es lineal aunque el dispositivo guarde miles de archivos. El
+ * contenido sin checksum no se puede comparar y siempre se lista como
+ * faltante; el cliente lo descarta si ya tiene el archivo de ese id.
+ */
+@Service
+@Slf4j
+public class SincronizacionContenidoServicio {
+
+    private static final String SQL_PROGRAMADOS =
+            "SELECT c.id_contenido, c.tipo, c.url_archivo, c.checksum, c.tamano_archivo " +
+            "FROM contenido_publicidad c " +
+            "WHERE c.activo = TRUE AND c.url_archivo IS NOT NULL AND c.tipo IN ('imagen','video') " +
+            "AND c.id_contenido IN (" +
+            "  SELECT p.contenido_id FROM programacion_contenido p " +
+            "  WHERE p.dispositivo_id = ? AND p.activo = TRUE AND p.fecha_fin >= NOW() AND p.fecha_inicio <= ? " +
+            "  UNION " +
+            "  SELECT d.contenido_actual_id FROM dispositivos_raspberry d " +
+            "  WHERE d.id_dispositivo = ? AND d.contenido_actual_id IS NOT NULL)";
+
+    private static final Pattern CHECKSUM = Pattern.compile("[0-9a-f]{16,64}");
+
+    /** Contenido programado para el dispositivo */
+    record Programado(Long idContenido, String tipo, String urlArchivo, String checksum, Long tamanoArchivo) {
+    }
+
+    /** Resultado de comparar el manifiesto con lo programado */
+    record Diferencia(List<Programado> faltantes, List<String> desalojables, int vigentes) {
+    }
+
+    private static final Comparator<Programado> POR_CHECKSUM = Comparator.comparing(Programado::checksum);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SesionesDispositivosServicio sesionesDispositivosServicio;
+    private final long horizonteHoras;
+    private final int maxManifiesto;
+    private final String urlBaseContenidos;
+
+    private final AtomicLong manifiestos = new AtomicLong();
+    private final AtomicLong vigentes = new AtomicLong();
+    private final AtomicLong faltantes = new AtomicLong();
+    private final AtomicLong desalojables = new AtomicLong();
+
+    public SincronizacionContenidoServicio(JdbcTemplate jdbcTemplate,
+                                           SesionesDispositivosServicio sesionesDispositivosServicio,
+                                           @Value("${dispositivos.sincronizacion.horizonte-horas:24}") long horizonteHoras,
+                                           @Value("${dispositivos.sincronizacion.max-manifiesto:20000}") int maxManifiesto,
+                                           @Value("${dispositivos.sincronizacion.url-base-contenidos:}") String urlBaseContenidos) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sesionesDispositivosServicio = sesionesDispositivosServicio;
+        this.horizonteHoras = horizonteHoras;
+        this.maxManifiesto = maxManifiesto;
+        this.urlBaseContenidos = urlBaseContenidos.endsWith("/")
+                ? urlBaseContenidos.substring(0, urlBaseContenidos.length() - 1)
+                : urlBaseContenidos;
+    }
+
+    /**
+     * Compara el manifiesto del dispositivo con su contenido programado y le
+     * envía lo que falta y lo que puede desalojar
+     */
+    public void sincronizar(Long idDispositivo, Collection<String> checksumsLocales) {
+        if (checksumsLocales != null && checksumsLocales.size() > maxManifiesto) {
+            log.warn("Manifiesto del dispositivo {} con {} entradas, máximo {}: se ignora",
+                    idDispositivo, checksumsLocales.size(), maxManifiesto);
+            return;
+        }
+
+        LocalDateTime hasta = LocalDateTime.now().plusHours(horizonteHoras);
+        List<Programado> programados = jdbcTemplate.query(SQL_PROGRAMADOS, (rs, fila) -> new Programado(
+                rs.getLong("id_contenido"), rs.getString("tipo"), rs.getString("url_archivo"),
+                normalizar(rs.getString("checksum")), rs.getObject("tamano_archivo", Long.class)),
+                idDispositivo, Timestamp.valueOf(hasta), idDispositivo);
+
+        Diferencia diferencia = comparar(programados, ordenarLocales(checksumsLocales));
+        manifiestos.incrementAndGet();
+        vigentes.addAndGet(diferencia.vigentes());
+        faltantes.addAndGet(diferencia.faltantes().size());
+        desalojables.addAndGet(diferencia.desalojables().size());
+
+        List<Map<String, Object>> descargas = new ArrayList<>(diferencia.faltantes().size());
+        for (Programado programado : diferencia.faltantes()) {
+            descargas.add(aDescarga(idDispositivo, programado));
+        }
+        Map<String, Object> comando = new HashMap<>();
+        comando.put("comando", "SINCRONIZAR_CONTENIDO");
+        comando.put("faltantes", descargas);
+        comando.put("desalojar", diferencia.desalojables());
+        sesionesDispositivosServicio.enviarComando(idDispositivo, comando);
+
+        log.info("Dispositivo {} sincronizado: {} vigentes, {} faltantes, {} para desalojar",
+                idDispositivo, diferencia.vigentes(), diferencia.faltantes().size(), diferencia.desalojables().size());
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        long totalVigentes = vigentes.get();
+        long totalFaltantes = faltantes.get();
+        long comparados = totalVigentes + totalFaltantes;
+
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("manifiestos", manifiestos.get());
+        estadisticas.put("vigentes", totalVigentes);
+        estadisticas.put("faltantes", totalFaltantes);
+        estadisticas.put("desalojables", desalojables.get());
+        estadisticas.put("porcentajeVigente", comparados == 0 ? 100.0 : Math.round(totalVigentes * 1000.0 / comparados) / 10.0);
+        return estadisticas;
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    /**
+     * Recorrido conjunto de ambas listas ordenadas por checksum
+     *
+     * @param locales checksums del dispositivo, ordenados y sin repetidos
+     */
+    static Diferencia comparar(List<Programado> programados, String[] locales) {
+        List<Programado> faltantes = new ArrayList<>();
+        List<Programado> conChecksum = new ArrayList<>(programados.size());
+        for (Programado programado : programados) {
+            if (programado.checksum() == null) {
+                faltantes.add(programado);
+            } else {
+                conChecksum.add(programado);
+            }
+        }
+        conChecksum.sort(POR_CHECKSUM);
+
+        List<String> desalojables = new ArrayList<>();
+        int vigentes = 0;
+        int i = 0;
+        int j = 0;
+        while (i < conChecksum.size() && j < locales.length) {
+            Programado programado = conChecksum.get(i);
+            int comparacion = programado.checksum().compareTo(locales[j]);
+            if (comparacion < 0) {
+                faltantes.add(programado);
+                i++;
+            } else if (comparacion > 0) {
+                desalojables.add(locales[j++]);
+            } else {
+                // El mismo archivo puede estar en varios contenidos; cualquiera de ellos lo reutiliza
+                while (i < conChecksum.size() && conChecksum.get(i).checksum().equals(locales[j])) {
+                    vigentes++;
+                    i++;
+                }
+                j++;
+            }
+        }
+        while (i < conChecksum.size()) {
+            faltantes.add(conChecksum.get(i++));
+        }
+        while (j < locales.length) {
+            desalojables.add(locales[j++]);
+        }
+        return new Diferencia(faltantes, desalojables, vigentes);
+    }
+
+    private static String[] ordenarLocales(Collection<String> checksumsLocales) {
+        if (checksumsLocales == null) {
+            return new String[0];
+        }
+        return checksumsLocales.stream()
+                .map(SincronizacionContenidoServicio::normalizar)
+                .filter(Objects::nonNull)
+                .sorted()
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    private static String normalizar(String checksum) {
+        if (checksum == null) {
+            return null;
+        }
+        String normalizado = checksum.trim().toLowerCase(Locale.ROOT);
+        return CHECKSUM.matcher(normalizado).matches() ? normalizado : null;
+    }
+
+    private Map<String, Object> aDescarga(Long idDispositivo, Programado programado) {
+        Map<String, Object> descarga = new HashMap<>();
+        descarga.put("id", programado.idContenido());
+        descarga.put("tipo", programado.tipo());
+        descarga.put("url", programado.urlArchivo());
+        descarga.put("checksum", programado.checksum());
+        descarga.put("tamano_archivo", programado.tamanoArchivo());
+        if (!urlBaseContenidos.isEmpty() && "imagen".equals(programado.tipo())) {
+            descarga.put("url_variante", urlBaseContenidos + "/api/contenidos/" + programado.idContenido()
+                    + "/archivo?dispositivo=" + idDispositivo);
+        }
+        return descarga;
+    }
+}
@@ -0,0 +1,418 @@
+package com.innoad.dispositivos.servicio;
+
+import com.innoad.dispositivos.dto.EstadoConfiguracionDTO;
+import com.innoad.dispositivos.variantes.CacheVariantes;
+import com.innoad.dispositivos.variantes.GeneradorVariantes;
+import com.innoad.dispositivos.variantes.PerfilVariante;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Variantes de imágenes ajustadas a la pantalla de cada dispositivo
+ *
+ * Un dispositivo que pide una imagen recibe la variante reducida (y girada si
+ * su pantalla es vertical y el cliente no gira la salida) para su resolución,
+ * en lugar del original: menos bytes por la red y menos trabajo de
+ * decodificación en la Raspberry. Las variantes se guardan en una
+ * {@link CacheVariantes} por checksum del origen y tamaño objetivo, así todas
+ * las pantallas con el mismo perfil comparten el mismo archivo.
+ *
+ * La generación corre en un pool acotado de hilos con cola acotada: decodificar
+ * imágenes grandes es caro en CPU y memoria y no debe competir sin límite con
+ * el gateway WebSocket. Si la variante no está lista en espera-ms, o la cola
+ * está llena, se entrega el original y la variante queda para la siguiente
+ * descarga. Los pedidos simultáneos de la misma variante comparten una sola
+ * generación.
+ */
+@Service
+@Slf4j
+public class VariantesImagenServicio {
+
+    private static final String SQL_CONTENIDO =
+            "SELECT tipo, url_archivo, checksum, resolucion, fecha_modificacion " +
+            "FROM contenido_publicidad WHERE id_contenido = ? AND activo = TRUE";
+
+    /** Lo que se entrega a un dispositivo: la variante o, si no hay, el original */
+    public record Entrega(CacheVariantes.Variante variante, String urlOriginal) {
+
+        public boolean esVariante() {
+            return variante != null;
+        }
+    }
+
+    private record Contenido(Long idContenido, String tipo, String urlArchivo, String checksum,
+                             String resolucion, Timestamp fechaModificacion) {
+
+        boolean esImagen() {
+            return "imagen".equalsIgnoreCase(tipo) && urlArchivo != null && !urlArchivo.isBlank();
+        }
+
+        /**
+         * Dirección del origen: su checksum, o id y fecha de modificación si no lo tiene
+         */
+        String direccion() {
+            if (checksum != null && checksum.matches("[0-9a-fA-F]{16,64}")) {
+                return checksum.toLowerCase();
+            }
+            return "c" + idContenido + "-" + (fechaModificacion != null ? fechaModificacion.getTime() : 0);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReconciliacionConfiguracionServicio reconciliacionConfiguracionServicio;
+    private final CacheVariantes cache;
+    private final GeneradorVariantes generador;
+    private final ThreadPoolExecutor pool;
+    private final HttpClient http;
+    private final long esperaMs;
+    private final long maxBytesOrigen;
+    private final Duration timeoutDescarga;
+    private final long reintentoFalloMs;
+
+    private final Map<String, CompletableFuture<Optional<CacheVariantes.Variante>>> enCurso = new ConcurrentHashMap<>();
+    // Variantes que no ahorran nada: el original ya cabe en la pantalla
+    private final Set<String> sinVariante = ConcurrentHashMap.newKeySet();
+    // Variantes cuyo origen no se pudo procesar, con el instante (ms) desde el que se vuelven a intentar
+    private final Map<String, Long> fallidasHasta = new ConcurrentHashMap<>();
+
+    private final AtomicLong entregadasVariante = new AtomicLong();
+    private final AtomicLong entregadasOriginal = new AtomicLong();
+    private final AtomicLong generadas = new AtomicLong();
+    private final AtomicLong rechazadasPorCola = new AtomicLong();
+    private final AtomicLong bytesAhorrados = new AtomicLong();
+
+    public VariantesImagenServicio(JdbcTemplate jdbcTemplate,
+                                   ReconciliacionConfiguracionServicio reconciliacionConfiguracionServicio,
+                                   @Value("${dispositivos.variantes.directorio:data/variantes}") String directorio,
+                                   @Value("${dispositivos.variantes.max-mb-cache:2048}") long maxMbCache,
+                                   @Value("${dispositivos.variantes.hilos:2}") int hilos,
+                                   @Value("${dispositivos.variantes.capacidad-cola:200}") int capacidadCola,
+                                   @Value("${dispositivos.variantes.espera-ms:1500}") long esperaMs,
+                                   @Value("${dispositivos.variantes.max-mb-origen:64}") long maxMbOrigen,
+                                   @Value("${dispositivos.variantes.timeout-descarga-ms:20000}") long timeoutDescargaMs,
+                                   @Value("${dispositivos.variantes.calidad-jpeg:0.85}") float calidadJpeg,
+                                   @Value("${dispositivos.variantes.reintento-fallo-ms:600000}") long reintentoFalloMs) throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reconciliacionConfiguracionServicio = reconciliacionConfiguracionServicio;
+        this.cache = new CacheVariantes(Path.of(directorio), maxMbCache * 1024 * 1024);
+        this.generador = new GeneradorVariantes(calidadJpeg);
+        this.esperaMs = esperaMs;
+        this.maxBytesOrigen = maxMbOrigen * 1024 * 1024;
+        this.timeoutDescarga = Duration.ofMillis(timeoutDescargaMs);
+        this.reintentoFalloMs = reintentoFalloMs;
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+
+        AtomicInteger numero = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), r -> {
+                    Thread hilo = new Thread(r, "variantes-imagen-" + numero.incrementAndGet());
+                    hilo.setDaemon(true);
+                    hilo.setPriority(Thread.NORM_PRIORITY - 1);
+                    return hilo;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Elige qué entregar a un dispositivo para un contenido
+     *
+     * @return vacío si el contenido no existe o no está activo
+     */
+    public Optional<Entrega> entregar(Long idDispositivo, Long idContenido) {
+        Optional<Contenido> buscado = buscarContenido(idContenido);
+        if (buscado.isEmpty()) {
+            return Optional.empty();
+        }
+        Contenido contenido = buscado.get();
+        Optional<PerfilVariante> perfil = perfilDe(idDispositivo);
+        if (!contenido.esImagen() || perfil.isEmpty() || aprovechaOriginal(contenido, perfil.get())) {
+            return Optional.of(original(contenido));
+        }
+
+        String clave = perfil.get().clave(contenido.direccion());
+        Optional<CacheVariantes.Variante> enCache = cache.buscar(clave);
+        if (enCache.isPresent()) {
+            return Optional.of(variante(enCache.get(), contenido));
+        }
+        if (sinVariante.contains(clave) || falloReciente(clave)) {
+            return Optional.of(original(contenido));
+        }
+
+        CompletableFuture<Optional<CacheVariantes.Variante>> futuro = programar(contenido, List.of(perfil.get())).get(clave);
+        try {
+            Optional<CacheVariantes.Variante> lista = futuro.get(esperaMs, TimeUnit.MILLISECONDS);
+            return Optional.of(lista.map(v -> variante(v, contenido)).orElseGet(() -> original(contenido)));
+        } catch (TimeoutException e) {
+            log.debug("Variante {} no lista a tiempo, se entrega el original", clave);
+        } catch (ExecutionException e) {
+            log.debug("Variante {} falló: {}", clave, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Optional.of(original(contenido));
+    }
+
+    /**
+     * Programa las variantes de una imagen para todos los perfiles de pantalla
+     * de la flota, antes de que los dispositivos la pidan
+     *
+     * @return variantes programadas (las que ya existen o no ahorran nada no cuentan)
+     */
+    public int pregenerar(Long idContenido) {
+        Contenido contenido = buscarContenido(idContenido)
+                .orElseThrow(() -> new IllegalArgumentException("Contenido no encontrado: " + idContenido));
+        if (!contenido.esImagen()) {
+            throw new IllegalArgumentException("El contenido " + idContenido + " no es una imagen");
+        }
+        Set<PerfilVariante> perfiles = new LinkedHashSet<>();
+        for (EstadoConfiguracionDTO estado : reconciliacionConfiguracionServicio.obtenerEstados()) {
+            PerfilVariante.para(estado.getDeseada(), estado.getReportada())
+                    .filter(perfil -> !aprovechaOriginal(contenido, perfil))
+                    .filter(perfil -> cache.buscar(perfil.clave(contenido.direccion())).isEmpty())
+                    .filter(perfil -> !sinVariante.contains(perfil.clave(contenido.direccion())))
+                    .filter(perfil -> !falloReciente(perfil.clave(contenido.direccion())))
+                    .ifPresent(perfiles::add);
+        }
+        if (perfiles.isEmpty()) {
+            return 0;
+        }
+        return programar(contenido, new ArrayList<>(perfiles)).size();
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("variantesEnCache", cache.cantidad());
+        estadisticas.put("mbEnCache", cache.totalBytes() / (1024 * 1024));
+        estadisticas.put("enCola", pool.getQueue().size());
+        estadisticas.put("generando", pool.getActiveCount());
+        estadisticas.put("generadas", generadas.get());
+        estadisticas.put("rechazadasPorCola", rechazadasPorCola.get());
+        estadisticas.put("fallidasEnEspera", fallidasHasta.size());
+        estadisticas.put("entregadasVariante", entregadasVariante.get());
+        estadisticas.put("entregadasOriginal", entregadasOriginal.get());
+        estadisticas.put("mbAhorrados", bytesAhorrados.get() / (1024 * 1024));
+        return estadisticas;
+    }
+
+    @PreDestroy
+    public void detener() {
+        pool.shutdownNow();
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    /**
+     * Registra un futuro por variante (o se une al que ya está en curso) y
+     * envía una sola tarea para las nuevas: el origen se descarga y decodifica
+     * una vez para todos sus perfiles
+     */
+    private Map<String, CompletableFuture<Optional<CacheVariantes.Variante>>> programar(Contenido contenido,
+                                                                                      List<PerfilVariante> perfiles) {
+        Map<String, CompletableFuture<Optional<CacheVariantes.Variante>>> futuros = new LinkedHashMap<>();
+        Map<PerfilVariante, CompletableFuture<Optional<CacheVariantes.Variante>>> nuevos = new LinkedHashMap<>();
+        for (PerfilVariante perfil : perfiles) {
+            String clave = perfil.clave(contenido.direccion());
+            CompletableFuture<Optional<CacheVariantes.Variante>> propio = new CompletableFuture<>();
+            CompletableFuture<Optional<CacheVariantes.Variante>> existente = enCurso.putIfAbsent(clave, propio);
+            if (existente == null) {
+                nuevos.put(perfil, propio);
+                futuros.put(clave, propio);
+            } else {
+                futuros.put(clave, existente);
+            }
+        }
+        if (nuevos.isEmpty()) {
+            return futuros;
+        }
+        try {
+            pool.execute(() -> generar(contenido, nuevos));
+        } catch (RejectedExecutionException e) {
+            rechazadasPorCola.incrementAndGet();
+            nuevos.forEach((perfil, futuro) -> terminar(perfil.clave(contenido.direccion()), futuro, Optional.empty()));
+            log.warn("Cola de variantes llena, se entrega el original del contenido {}", contenido.idContenido());
+        }
+        return futuros;
+    }
+
+    private boolean falloReciente(String clave) {
+        Long hasta = fallidasHasta.get(clave);
+        if (hasta == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() < hasta) {
+            return true;
+        }
+        fallidasHasta.remove(clave, hasta);
+        return false;
+    }
+
+    private void generar(Contenido contenido, Map<PerfilVariante, CompletableFuture<Optional<CacheVariantes.Variante>>> pedidos) {
+        String direccion = contenido.direccion();
+        Path origen = null;
+        List<Path> temporales = new ArrayList<>();
+        Map<PerfilVariante, Optional<CacheVariantes.Variante>> resultados = new HashMap<>();
+        try {
+            origen = descargarOrigen(contenido);
+            Map<PerfilVariante, GeneradorVariantes.ImagenGenerada> imagenes = generador.generar(
+                    origen, new ArrayList<>(pedidos.keySet()), perfil -> {
+                        try {
+                            Path temporal = cache.temporal();
+                            temporales.add(temporal);
+                            return temporal;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+            long bytesOrigen = Files.size(origen);
+            for (PerfilVariante perfil : pedidos.keySet()) {
+                GeneradorVariantes.ImagenGenerada imagen = imagenes.get(perfil);
+                String clave = perfil.clave(direccion);
+                if (imagen == null || imagen.bytes() >= bytesOrigen) {
+                    sinVariante.add(clave);
+                    resultados.put(perfil, Optional.empty());
+                } else {
+                    resultados.put(perfil, Optional.of(cache.guardar(clave, imagen)));
+                    generadas.incrementAndGet();
+                }
+            }
+            log.info("Contenido {}: {} variantes generadas para {} perfiles",
+                    contenido.idContenido(), imagenes.size(), pedidos.size());
+        } catch (IOException | UncheckedIOException | RuntimeException e) {
+            log.warn("No se pudieron generar variantes del contenido {}: {}", contenido.idContenido(), e.getMessage());
+            // Un fallo puede ser pasajero (red, disco): se reintenta pasado reintento-fallo-ms
+            long reintentarDesde = System.currentTimeMillis() + reintentoFalloMs;
+            pedidos.keySet().forEach(perfil -> fallidasHasta.put(perfil.clave(direccion), reintentarDesde));
+        } finally {
+            pedidos.forEach((perfil, futuro) ->
+                    terminar(perfil.clave(direccion), futuro, resultados.getOrDefault(perfil, Optional.empty())));
+            temporales.forEach(VariantesImagenServicio::borrarSilenciosamente);
+            if (origen != null) {
+                borrarSilenciosamente(origen);
+            }
+        }
+    }
+
+    /**
+     * Copia el origen a un temporal, cortando si supera max-mb-origen
+     */
+    private Path descargarOrigen(Contenido contenido) throws IOException {
+        Path temporal = cache.temporal();
+        String url = contenido.urlArchivo().trim();
+        try (InputStream entrada = abrir(url); OutputStream salida = Files.newOutputStream(temporal)) {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            int leidos;
+            while ((leidos = entrada.read(buffer)) != -1) {
+                total += leidos;
+                if (total > maxBytesOrigen) {
+                    throw new IOException("El origen supera " + maxBytesOrigen / (1024 * 1024) + " MB");
+                }
+                salida.write(buffer, 0, leidos);
+            }
+        } catch (IOException | RuntimeException e) {
+            borrarSilenciosamente(temporal);
+            throw e;
+        }
+        return temporal;
+    }
+
+    private InputStream abrir(String url) throws IOException {
+        if (!url.startsWith("http://") && !url.startsWith("https://")) {
+            return Files.newInputStream(url.startsWith("file:") ? Path.of(URI.create(url)) : Path.of(url));
+        }
+        HttpRequest peticion = HttpRequest.newBuilder(URI.create(url)).timeout(timeoutDescarga).GET().build();
+        try {
+            HttpResponse<InputStream> respuesta = http.send(peticion, HttpResponse.BodyHandlers.ofInputStream());
+            if (respuesta.statusCode() != 200) {
+                respuesta.body().close();
+                throw new IOException("HTTP " + respuesta.statusCode() + " descargando " + url);
+            }
+            return respuesta.body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Descarga interrumpida", e);
+        }
+    }
+
+    private void terminar(String clave, CompletableFuture<Optional<CacheVariantes.Variante>> futuro,
+                          Optional<CacheVariantes.Variante> resultado) {
+        enCurso.remove(clave, futuro);
+        futuro.complete(resultado);
+    }
+
+    private Optional<Contenido> buscarContenido(Long idContenido) {
+        return jdbcTemplate.query(SQL_CONTENIDO, (rs, fila) -> new Contenido(idContenido, rs.getString("tipo"),
+                rs.getString("url_archivo"), rs.getString("checksum"), rs.getString("resolucion"),
+                rs.getTimestamp("fecha_modificacion")), idContenido).stream().findFirst();
+    }
+
+    private Optional<PerfilVariante> perfilDe(Long idDispositivo) {
+        return reconciliacionConfiguracionServicio.obtenerEstado(idDispositivo)
+                .flatMap(estado -> PerfilVariante.para(estado.getDeseada(), estado.getReportada()));
+    }
+
+    /**
+     * Con la resolución del contenido registrada se evita descargar el
+     * origen solo para descubrir que ya cabe
+     */
+    private static boolean aprovechaOriginal(Contenido contenido, PerfilVariante perfil) {
+        return PerfilVariante.leerResolucion(contenido.resolucion())
+                .map(tamano -> perfil.aprovechaOriginal(tamano[0], tamano[1]))
+                .orElse(false);
+    }
+
+    private Entrega variante(CacheVariantes.Variante variante, Contenido contenido) {
+        entregadasVariante.incrementAndGet();
+        return new Entrega(variante, contenido.urlArchivo());
+    }
+
+    private Entrega original(Contenido contenido) {
+        entregadasOriginal.incrementAndGet();
+        return new Entrega(null, contenido.urlArchivo());
+    }
+
+    private static void borrarSilenciosamente(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar el temporal {}: {}", archivo, e.getMessage());
+        }
+    }
+}
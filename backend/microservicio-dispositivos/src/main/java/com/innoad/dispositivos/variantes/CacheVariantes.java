@@ -0,0 +1,166 @@
+package com.innoad.dispositivos.variantes;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Caché en disco de variantes de imagen, direccionada por contenido
+ *
+ * Cada archivo se llama {clave}_{md5}.{extensión}, donde la clave es el
+ * checksum del origen más el tamaño objetivo ({@link PerfilVariante#clave}):
+ * un origen editado tiene otro checksum y nunca reutiliza variantes viejas, y
+ * el md5 en el nombre evita releer el archivo para responder al cliente.
+ *
+ * El total se limita a maxBytes descartando las variantes usadas hace más
+ * tiempo (LRU en memoria, reconstruido al arrancar por fecha de modificación).
+ * Los archivos se escriben a un temporal y se mueven de forma atómica, así
+ * nunca se entrega una variante a medio escribir.
+ */
+@Slf4j
+public class CacheVariantes {
+
+    private static final String SUFIJO_TEMPORAL = ".tmp";
+
+    /** Variante guardada */
+    public record Variante(Path archivo, String md5, long bytes) {
+
+        public String tipoMime() {
+            return archivo.getFileName().toString().endsWith(".png") ? "image/png" : "image/jpeg";
+        }
+    }
+
+    private final Path directorio;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Variante> variantes = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    public CacheVariantes(Path directorio, long maxBytes) throws IOException {
+        this.directorio = directorio;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directorio);
+        cargar();
+    }
+
+    public synchronized Optional<Variante> buscar(String clave) {
+        Variante variante = variantes.get(clave);
+        if (variante != null && !Files.exists(variante.archivo())) {
+            variantes.remove(clave);
+            totalBytes -= variante.bytes();
+            return Optional.empty();
+        }
+        return Optional.ofNullable(variante);
+    }
+
+    /**
+     * Archivo temporal dentro del directorio de la caché (mismo sistema de
+     * archivos, para que el movimiento final sea atómico)
+     */
+    public Path temporal() throws IOException {
+        return Files.createTempFile(directorio, "variante-", SUFIJO_TEMPORAL);
+    }
+
+    /**
+     * Publica una variante generada en un temporal y descarta las menos usadas si se pasa del límite
+     */
+    public synchronized Variante guardar(String clave, GeneradorVariantes.ImagenGenerada generada) throws IOException {
+        Path archivo = directorio.resolve(clave + "_" + generada.md5() + "." + generada.extension());
+        Files.move(generada.archivo(), archivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Variante nueva = new Variante(archivo, generada.md5(), generada.bytes());
+        Variante anterior = variantes.put(clave, nueva);
+        if (anterior != null) {
+            totalBytes -= anterior.bytes();
+            if (!anterior.archivo().equals(archivo)) {
+                Files.deleteIfExists(anterior.archivo());
+            }
+        }
+        totalBytes += nueva.bytes();
+        desalojar(clave);
+        return nueva;
+    }
+
+    public synchronized int cantidad() {
+        return variantes.size();
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private void cargar() throws IOException {
+        List<Path> archivos;
+        try (Stream<Path> listado = Files.list(directorio)) {
+            archivos = listado.filter(Files::isRegularFile).toList();
+        }
+        archivos.stream()
+                .filter(archivo -> archivo.getFileName().toString().endsWith(SUFIJO_TEMPORAL))
+                .forEach(CacheVariantes::borrarSilenciosamente);
+        archivos.stream()
+                .filter(archivo -> !archivo.getFileName().toString().endsWith(SUFIJO_TEMPORAL))
+                .sorted(Comparator.comparing(CacheVariantes::fechaModificacion))
+                .forEach(this::registrarExistente);
+        desalojar(null);
+        log.info("Caché de variantes cargada: {} archivos, {} MB", variantes.size(), totalBytes / (1024 * 1024));
+    }
+
+    private void registrarExistente(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        int punto = nombre.lastIndexOf('.');
+        int separador = nombre.lastIndexOf('_');
+        if (punto < 0 || separador < 0 || separador > punto) {
+            return;
+        }
+        try {
+            Variante variante = new Variante(archivo, nombre.substring(separador + 1, punto), Files.size(archivo));
+            variantes.put(nombre.substring(0, separador), variante);
+            totalBytes += variante.bytes();
+        } catch (IOException e) {
+            log.warn("No se pudo registrar la variante {}: {}", archivo, e.getMessage());
+        }
+    }
+
+    /**
+     * Descarta las variantes menos usadas hasta quedar bajo el límite, sin tocar la recién guardada
+     */
+    private void desalojar(String protegida) {
+        Iterator<Map.Entry<String, Variante>> iterador = variantes.entrySet().iterator();
+        while (totalBytes > maxBytes && iterador.hasNext()) {
+            Map.Entry<String, Variante> entrada = iterador.next();
+            if (entrada.getKey().equals(protegida)) {
+                continue;
+            }
+            iterador.remove();
+            totalBytes -= entrada.getValue().bytes();
+            borrarSilenciosamente(entrada.getValue().archivo());
+        }
+    }
+
+    private static FileTime fechaModificacion(Path archivo) {
+        try {
+            return Files.getLastModifiedTime(archivo);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void borrarSilenciosamente(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar {}: {}", archivo, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.innoad.dispositivos.variantes;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Genera variantes reducidas (y giradas si hace falta) de una imagen
+ *
+ * La imagen de origen se decodifica una sola vez para todos los perfiles
+ * pedidos, y con submuestreo en el lector cuando es mucho más grande que la
+ * mayor caja: un JPEG 4K para pantallas de 720p se lee a la mitad de
+ * resolución, con un cuarto de la memoria. Después se reduce por mitades con
+ * interpolación bilineal hasta el tamaño final, que da buena calidad sin el
+ * costo del área promedio.
+ *
+ * La salida es JPEG, o PNG si el origen tiene transparencia. El MD5 del
+ * archivo generado se calcula al escribirlo: es el checksum que verifica el
+ * cliente Raspberry.
+ */
+public class GeneradorVariantes {
+
+    /** Archivo generado para un perfil */
+    public record ImagenGenerada(Path archivo, String md5, String extension, long bytes) {
+    }
+
+    private final float calidadJpeg;
+
+    public GeneradorVariantes(float calidadJpeg) {
+        this.calidadJpeg = calidadJpeg;
+    }
+
+    /**
+     * Genera una variante por perfil
+     *
+     * @param destino archivo temporal donde escribir cada perfil
+     * @return variantes generadas; un perfil sin entrada no ahorra nada
+     *         respecto al original (ya cabe y no hay que girarlo)
+     */
+    public Map<PerfilVariante, ImagenGenerada> generar(Path origen, List<PerfilVariante> perfiles,
+                                                       Function<PerfilVariante, Path> destino) throws IOException {
+        Map<PerfilVariante, ImagenGenerada> generadas = new LinkedHashMap<>();
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(origen.toFile())) {
+            if (entrada == null) {
+                throw new IOException("No se puede leer " + origen);
+            }
+            Iterator<ImageReader> lectores = ImageIO.getImageReaders(entrada);
+            if (!lectores.hasNext()) {
+                throw new IOException("Formato de imagen no soportado: " + origen.getFileName());
+            }
+            ImageReader lector = lectores.next();
+            try {
+                lector.setInput(entrada, true, true);
+                int anchoOrigen = lector.getWidth(0);
+                int altoOrigen = lector.getHeight(0);
+
+                List<PerfilVariante> utiles = perfiles.stream()
+                        .filter(perfil -> !perfil.aprovechaOriginal(anchoOrigen, altoOrigen))
+                        .toList();
+                if (utiles.isEmpty()) {
+                    return generadas;
+                }
+
+                // Submuestreo para la mayor variante: la imagen leída queda al menos al doble de su tamaño
+                double mayorEscala = utiles.stream()
+                        .mapToDouble(perfil -> escala(anchoOrigen, altoOrigen, perfil))
+                        .max().orElse(1.0);
+                int submuestreo = Math.max(1, (int) Math.floor(1.0 / mayorEscala / 2.0));
+                ImageReadParam parametros = lector.getDefaultReadParam();
+                parametros.setSourceSubsampling(submuestreo, submuestreo, 0, 0);
+                BufferedImage leida = lector.read(0, parametros);
+
+                for (PerfilVariante perfil : utiles) {
+                    double escala = escala(anchoOrigen, altoOrigen, perfil);
+                    int ancho = Math.max(1, (int) Math.round(anchoOrigen * escala));
+                    int alto = Math.max(1, (int) Math.round(altoOrigen * escala));
+                    BufferedImage imagen = reducir(leida, ancho, alto);
+                    if (perfil.rotada()) {
+                        imagen = girar(imagen);
+                    }
+                    generadas.put(perfil, escribir(imagen, destino.apply(perfil)));
+                }
+            } finally {
+                lector.dispose();
+            }
+        }
+        return generadas;
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    /**
+     * Escala para que la imagen quepa en la caja del perfil sin agrandarla
+     */
+    private static double escala(int ancho, int alto, PerfilVariante perfil) {
+        return Math.min(1.0, Math.min((double) perfil.ancho() / ancho, (double) perfil.alto() / alto));
+    }
+
+    private static BufferedImage reducir(BufferedImage imagen, int anchoFinal, int altoFinal) {
+        int tipo = imagen.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage actual = imagen;
+        int ancho = imagen.getWidth();
+        int alto = imagen.getHeight();
+        do {
+            ancho = Math.max(anchoFinal, ancho / 2);
+            alto = Math.max(altoFinal, alto / 2);
+            BufferedImage siguiente = new BufferedImage(ancho, alto, tipo);
+            Graphics2D g = siguiente.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(actual, 0, 0, ancho, alto, null);
+            } finally {
+                g.dispose();
+            }
+            actual = siguiente;
+        } while (ancho != anchoFinal || alto != altoFinal);
+        return actual;
+    }
+
+    /**
+     * Gira 90° en sentido horario
+     */
+    private static BufferedImage girar(BufferedImage imagen) {
+        BufferedImage girada = new BufferedImage(imagen.getHeight(), imagen.getWidth(), imagen.getType());
+        Graphics2D g = girada.createGraphics();
+        try {
+            AffineTransform transformacion = new AffineTransform();
+            transformacion.translate(imagen.getHeight(), 0);
+            transformacion.quadrantRotate(1);
+            g.drawImage(imagen, transformacion, null);
+        } finally {
+            g.dispose();
+        }
+        return girada;
+    }
+
+    private ImagenGenerada escribir(BufferedImage imagen, Path archivo) throws IOException {
+        boolean png = imagen.getColorModel().hasAlpha();
+        String formato = png ? "png" : "jpeg";
+        ImageWriter escritor = ImageIO.getImageWritersByFormatName(formato).next();
+        MessageDigest md5 = md5();
+        try (OutputStream salida = new DigestOutputStream(Files.newOutputStream(archivo), md5);
+             ImageOutputStream imagenSalida = ImageIO.createImageOutputStream(salida)) {
+            escritor.setOutput(imagenSalida);
+            ImageWriteParam parametros = escritor.getDefaultWriteParam();
+            if (!png) {
+                parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                parametros.setCompressionQuality(calidadJpeg);
+                parametros.setProgressiveMode(ImageWriteParam.MODE_DISABLED);
+            }
+            escritor.write(null, new IIOImage(imagen, null, null), parametros);
+        } finally {
+            escritor.dispose();
+        }
+        return new ImagenGenerada(archivo, HexFormat.of().formatHex(md5.digest()), png ? "png" : "jpg",
+                Files.size(archivo));
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 no disponible", e);
+        }
+    }
+}
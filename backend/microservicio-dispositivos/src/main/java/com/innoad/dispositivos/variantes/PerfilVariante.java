@@ -0,0 +1,80 @@
+package com.innoad.dispositivos.variantes;
+
+import com.innoad.dispositivos.modelo.ConfiguracionPantalla;
+import com.innoad.dispositivos.modelo.OrientacionPantalla;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tamaño objetivo de una variante de imagen
+ *
+ * ancho x alto es la caja en la que la imagen se ve en pantalla (vertical si
+ * la pantalla está vertical). rotada indica que el dispositivo no gira la
+ * salida de video por sí mismo, así que la variante se entrega ya girada 90°
+ * para llenar el framebuffer horizontal del panel.
+ */
+public record PerfilVariante(int ancho, int alto, boolean rotada) {
+
+    private static final Pattern RESOLUCION = Pattern.compile("^\\s*(\\d{2,5})\\s*[xX]\\s*(\\d{2,5})\\s*$");
+
+    public PerfilVariante {
+        if (ancho <= 0 || alto <= 0) {
+            throw new IllegalArgumentException("Tamaño de variante inválido: " + ancho + "x" + alto);
+        }
+    }
+
+    /**
+     * Perfil de un dispositivo según su configuración de pantalla
+     *
+     * La resolución es la del panel (la reportada si el cliente la aplicó, si
+     * no la deseada); la orientación deseada decide si la caja es vertical. Se
+     * gira en el servidor cuando la pantalla debe verse vertical pero el
+     * cliente no reporta haber girado la salida.
+     */
+    public static Optional<PerfilVariante> para(ConfiguracionPantalla deseada, ConfiguracionPantalla reportada) {
+        String resolucion = reportada != null && reportada.resolucionPantalla() != null
+                ? reportada.resolucionPantalla() : deseada.resolucionPantalla();
+        Optional<int[]> tamano = leerResolucion(resolucion);
+        if (tamano.isEmpty()) {
+            return Optional.empty();
+        }
+        int mayor = Math.max(tamano.get()[0], tamano.get()[1]);
+        int menor = Math.min(tamano.get()[0], tamano.get()[1]);
+        boolean vertical = deseada.orientacion() == OrientacionPantalla.VERTICAL;
+        boolean giraCliente = reportada != null && reportada.orientacion() == OrientacionPantalla.VERTICAL;
+        return Optional.of(vertical
+                ? new PerfilVariante(menor, mayor, !giraCliente)
+                : new PerfilVariante(mayor, menor, false));
+    }
+
+    /**
+     * Lee "ANCHOxALTO" (columnas resolucion_pantalla y contenido_publicidad.resolucion)
+     */
+    public static Optional<int[]> leerResolucion(String resolucion) {
+        if (resolucion == null) {
+            return Optional.empty();
+        }
+        Matcher matcher = RESOLUCION.matcher(resolucion);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        return Optional.of(new int[]{Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))});
+    }
+
+    /**
+     * Si una imagen de ese tamaño ya cabe en la caja y no hay que girarla,
+     * la variante no ahorraría nada
+     */
+    public boolean aprovechaOriginal(int anchoOrigen, int altoOrigen) {
+        return !rotada && anchoOrigen <= ancho && altoOrigen <= alto;
+    }
+
+    /**
+     * Clave de la variante en la caché: checksum del origen más tamaño objetivo
+     */
+    public String clave(String checksumOrigen) {
+        return checksumOrigen + "-" + ancho + "x" + alto + (rotada ? "-r" : "");
+    }
+}
@@ -0,0 +1,77 @@
+package com.innoad.dispositivos.websocket;
+
+import com.innoad.dispositivos.servicio.AdmisionConexionesServicio;
+import com.innoad.dispositivos.servicio.IndiceMacServicio;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Interceptor del handshake WebSocket de los dispositivos
+ *
+ * El cliente Raspberry Pi se identifica con la cabecera mac_address. Si la MAC
+ * corresponde a un dispositivo activo, su ID queda en los atributos de la sesión;
+ * si no, el handshake se rechaza con 403. La MAC se resuelve contra el índice en
+ * memoria, así que una tormenta de reconexiones no golpea la base de datos.
+ * Los dispositivos conocidos pasan además por el control de admisión; si no hay
+ * cupo se responde 503 con un Retry-After sugerido.
+ *
+ * TAREAS PARA EL EQUIPO DE DESARROLLO:
+ * 1. Autenticar el dispositivo con un token además de la MAC
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HandshakeDispositivoInterceptor implements HandshakeInterceptor {
+
+    public static final String ATRIBUTO_ID_DISPOSITIVO = "idDispositivo";
+    public static final String ATRIBUTO_MAC = "macAddress";
+    public static final String CABECERA_MAC = "mac_address";
+
+    private final IndiceMacServicio indiceMacServicio;
+    private final AdmisionConexionesServicio admisionConexionesServicio;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String macAddress = request.getHeaders().getFirst(CABECERA_MAC);
+        if (macAddress == null || macAddress.isBlank()) {
+            log.warn("Handshake rechazado: falta la cabecera {}", CABECERA_MAC);
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return false;
+        }
+
+        Optional<Long> idDispositivo = indiceMacServicio.resolver(macAddress);
+        if (idDispositivo.isEmpty()) {
+            log.warn("Handshake rechazado: MAC {} no registrada o inactiva", macAddress);
+            response.setStatusCode(HttpStatus.FORBIDDEN);
+            return false;
+        }
+
+        int retryAfter = admisionConexionesServicio.admitir(idDispositivo.get());
+        if (retryAfter > 0) {
+            log.debug("Handshake diferido: dispositivo {} reintenta en {}s", idDispositivo.get(), retryAfter);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return false;
+        }
+
+        attributes.put(ATRIBUTO_ID_DISPOSITIVO, idDispositivo.get());
+        attributes.put(ATRIBUTO_MAC, macAddress);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+        // Nada que hacer después del handshake
+    }
+}
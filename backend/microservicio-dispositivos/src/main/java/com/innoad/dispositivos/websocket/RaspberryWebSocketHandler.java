@@ -0,0 +1,116 @@
+package com.innoad.dispositivos.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.innoad.comun.util.Reintentos;
+import com.innoad.dispositivos.dto.MensajeDispositivoDTO;
+import com.innoad.dispositivos.servicio.ActualizacionEscalonadaServicio;
+import com.innoad.dispositivos.servicio.DispositivoServicio;
+import com.innoad.dispositivos.servicio.MetricasWebSocketServicio;
+import com.innoad.dispositivos.servicio.SesionesDispositivosServicio;
+import com.innoad.dispositivos.servicio.SincronizacionContenidoServicio;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+/**
+ * Manejador de la conexión WebSocket con los clientes Raspberry Pi
+ *
+ * Recibe los mensajes definidos en raspberry-cliente/main.py y los delega
+ * en {@link DispositivoServicio}. El ID del dispositivo lo deja el
+ * {@link HandshakeDispositivoInterceptor} en los atributos de la sesión.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RaspberryWebSocketHandler extends TextWebSocketHandler {
+
+    private final ObjectMapper objectMapper;
+    private final DispositivoServicio dispositivoServicio;
+    private final SesionesDispositivosServicio sesionesDispositivosServicio;
+    private final MetricasWebSocketServicio metricasWebSocketServicio;
+    private final SincronizacionContenidoServicio sincronizacionContenidoServicio;
+    private final ActualizacionEscalonadaServicio actualizacionEscalonadaServicio;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        long inicio = System.nanoTime();
+        Long idDispositivo = idDispositivo(session);
+        sesionesDispositivosServicio.registrar(idDispositivo, session);
+
+        String ip = session.getRemoteAddress() != null
+                ? session.getRemoteAddress().getAddress().getHostAddress()
+                : null;
+        Reintentos.conReintento(() -> dispositivoServicio.marcarConectado(idDispositivo, ip));
+        metricasWebSocketServicio.registrar(MetricasWebSocketServicio.TIPO_CONEXION, inicio);
+
+        log.info("Dispositivo {} conectado ({} sesiones abiertas)",
+                idDispositivo, sesionesDispositivosServicio.getTotalSesiones());
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        long inicio = System.nanoTime();
+        Long idDispositivo = idDispositivo(session);
+
+        MensajeDispositivoDTO mensaje;
+        try {
+            mensaje = objectMapper.readValue(message.getPayload(), MensajeDispositivoDTO.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Mensaje inválido del dispositivo {}: {}", idDispositivo, e.getOriginalMessage());
+            return;
+        }
+
+        try {
+            switch (String.valueOf(mensaje.getTipo())) {
+                case "HEARTBEAT" -> Reintentos.conReintento(() -> dispositivoServicio.procesarHeartbeat(idDispositivo, mensaje));
+                case "ESTADO_REPRODUCCION" -> Reintentos.conReintento(() -> dispositivoServicio.procesarEstadoReproduccion(idDispositivo, mensaje));
+                case "DESCARGA_COMPLETADA" -> log.debug("Dispositivo {} completó descarga de contenido {}",
+                        idDispositivo, mensaje.getContenidoId());
+                case "MANIFIESTO_CONTENIDO" -> sincronizacionContenidoServicio.sincronizar(idDispositivo, mensaje.getChecksums());
+                case "ERROR" -> procesarError(idDispositivo, mensaje);
+                default -> log.warn("Tipo de mensaje no reconocido del dispositivo {}: {}",
+                        idDispositivo, mensaje.getTipo());
+            }
+        } catch (RuntimeException e) {
+            log.error("Error procesando {} del dispositivo {}: {}", mensaje.getTipo(), idDispositivo, e.getMessage());
+        } finally {
+            metricasWebSocketServicio.registrar(mensaje.getTipo(), inicio);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Long idDispositivo = idDispositivo(session);
+
+        // Si la sesión fue reemplazada por una reconexión, el dispositivo sigue conectado
+        if (sesionesDispositivosServicio.eliminar(idDispositivo, session)) {
+            Reintentos.conReintento(() -> dispositivoServicio.marcarDesconectado(idDispositivo));
+            log.info("Dispositivo {} desconectado: {}", idDispositivo, status);
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.warn("Error de transporte con dispositivo {}: {}", idDispositivo(session), exception.getMessage());
+    }
+
+    /**
+     * Un error al instalar software cuenta en el despliegue en curso sin
+     * esperar al timeout de la oleada
+     */
+    private void procesarError(Long idDispositivo, MensajeDispositivoDTO mensaje) {
+        log.warn("Dispositivo {} reporta error: {}", idDispositivo, mensaje.getMensaje());
+        if ("ACTUALIZAR_SOFTWARE".equals(mensaje.getComando())) {
+            actualizacionEscalonadaServicio.registrarFallo(idDispositivo, mensaje.getVersionSoftware(), mensaje.getMensaje());
+        }
+    }
+
+    private Long idDispositivo(WebSocketSession session) {
+        return (Long) session.getAttributes().get(HandshakeDispositivoInterceptor.ATRIBUTO_ID_DISPOSITIVO);
+    }
+}
@@ -0,0 +1,80 @@
+package com.innoad.dispositivos.historial;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+class EventoReproduccionTest {
+
+    @Test
+    void escribirYLeerDevuelveElMismoEvento() {
+        EventoReproduccion evento = new EventoReproduccion(42L, 7L, 1_700_000_000_000L, 1_700_000_030_000L,
+                ResultadoReproduccion.COMPLETADO);
+        ByteBuffer buffer = ByteBuffer.allocate(EventoReproduccion.TAMANO * 3);
+
+        evento.escribir(buffer, EventoReproduccion.TAMANO);
+
+        Assertions.assertEquals(evento, EventoReproduccion.leer(buffer, EventoReproduccion.TAMANO));
+    }
+
+    @Test
+    void todosLosResultadosSobrevivenAlCodificar() {
+        ByteBuffer buffer = ByteBuffer.allocate(EventoReproduccion.TAMANO);
+        for (ResultadoReproduccion resultado : ResultadoReproduccion.values()) {
+            EventoReproduccion evento = new EventoReproduccion(1L, 2L, 3L, 4L, resultado);
+            evento.escribir(buffer, 0);
+            Assertions.assertEquals(evento, EventoReproduccion.leer(buffer, 0));
+        }
+    }
+
+    @Test
+    void registroSinEscribirSeLeeComoLibre() {
+        ByteBuffer buffer = ByteBuffer.allocate(EventoReproduccion.TAMANO);
+
+        Assertions.assertNull(EventoReproduccion.leer(buffer, 0));
+    }
+
+    @Test
+    void cualquierByteAlteradoInvalidaElCrc() {
+        EventoReproduccion evento = new EventoReproduccion(42L, 7L, 1000L, 2000L, ResultadoReproduccion.ERROR);
+        ByteBuffer buffer = ByteBuffer.allocate(EventoReproduccion.TAMANO);
+        evento.escribir(buffer, 0);
+
+        // Los bytes 33 a 35 son relleno fuera del CRC
+        for (int posicion = 0; posicion < EventoReproduccion.TAMANO; posicion++) {
+            if (posicion >= 33 && posicion < 36) {
+                continue;
+            }
+            byte original = buffer.get(posicion);
+            buffer.put(posicion, (byte) (original ^ 0x10));
+            Assertions.assertNull(EventoReproduccion.leer(buffer, 0), "byte " + posicion);
+            buffer.put(posicion, original);
+        }
+        Assertions.assertEquals(evento, EventoReproduccion.leer(buffer, 0));
+    }
+
+    @Test
+    void registroEscritoAMediasSeLeeComoLibre() {
+        EventoReproduccion evento = new EventoReproduccion(42L, 7L, 1000L, 2000L, ResultadoReproduccion.DETENIDO);
+        ByteBuffer completo = ByteBuffer.allocate(EventoReproduccion.TAMANO);
+        evento.escribir(completo, 0);
+
+        // Una caída a mitad del registro deja solo los primeros bytes en disco
+        ByteBuffer cortado = ByteBuffer.allocate(EventoReproduccion.TAMANO);
+        cortado.put(0, completo, 0, 24);
+
+        Assertions.assertNull(EventoReproduccion.leer(cortado, 0));
+    }
+
+    @Test
+    void solapaConIntervaloCerrado() {
+        EventoReproduccion evento = new EventoReproduccion(1L, 1L, 100L, 200L, ResultadoReproduccion.COMPLETADO);
+
+        Assertions.assertTrue(evento.solapa(200L, 300L));
+        Assertions.assertTrue(evento.solapa(0L, 100L));
+        Assertions.assertTrue(evento.solapa(150L, 160L));
+        Assertions.assertFalse(evento.solapa(201L, 300L));
+        Assertions.assertFalse(evento.solapa(0L, 99L));
+    }
+}
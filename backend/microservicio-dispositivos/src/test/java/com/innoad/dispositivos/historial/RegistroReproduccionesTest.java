@@ -0,0 +1,106 @@
+package com.innoad.dispositivos.historial;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+class RegistroReproduccionesTest {
+
+    private static final long DISPOSITIVO = 5L;
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void recuperaHastaElUltimoRegistroCompletoTrasUnaCaida() throws IOException {
+        List<EventoReproduccion> eventos = eventos(5);
+        try (RegistroReproducciones registro = nuevoRegistro()) {
+            for (EventoReproduccion evento : eventos) {
+                registro.agregar(evento);
+            }
+            registro.sincronizar();
+        }
+
+        // Un sexto registro escrito a medias: el resultado llegó a disco pero el CRC no coincide
+        Path crudo = directorio.resolve("reproducciones-000000000001.log");
+        ByteBuffer cortado = ByteBuffer.allocate(EventoReproduccion.TAMANO);
+        new EventoReproduccion(DISPOSITIVO, 9L, 60_000L, 61_000L, ResultadoReproduccion.COMPLETADO).escribir(cortado, 0);
+        cortado.putInt(36, cortado.getInt(36) ^ 1);
+        try (FileChannel canal = FileChannel.open(crudo, StandardOpenOption.WRITE)) {
+            canal.write(cortado, 5L * EventoReproduccion.TAMANO);
+        }
+
+        try (RegistroReproducciones registro = nuevoRegistro()) {
+            Assertions.assertEquals(eventos, registro.consultar(DISPOSITIVO, 0L, Long.MAX_VALUE));
+        }
+        // Ya sellado, vuelve a leerse igual desde el segmento comprimido
+        Assertions.assertFalse(Files.exists(crudo));
+        Assertions.assertTrue(Files.exists(directorio.resolve("reproducciones-000000000001.seg")));
+        try (RegistroReproducciones registro = nuevoRegistro()) {
+            Assertions.assertEquals(eventos, registro.consultar(DISPOSITIVO, 0L, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void descartaElCrudoQueYaQuedoSellado() throws IOException {
+        List<EventoReproduccion> eventos = eventos(3);
+        try (RegistroReproducciones registro = nuevoRegistro()) {
+            for (EventoReproduccion evento : eventos) {
+                registro.agregar(evento);
+            }
+        }
+        Path crudo = directorio.resolve("reproducciones-000000000001.log");
+        byte[] copia = Files.readAllBytes(crudo);
+
+        // Este arranque sella el crudo; al restaurarlo queda como tras una caída
+        // entre el rename del sellado y el borrado del crudo
+        try (RegistroReproducciones registro = nuevoRegistro()) {
+            Assertions.assertEquals(eventos, registro.consultar(DISPOSITIVO, 0L, Long.MAX_VALUE));
+        }
+        Files.write(crudo, copia);
+
+        try (RegistroReproducciones registro = nuevoRegistro()) {
+            Assertions.assertFalse(Files.exists(crudo));
+            Assertions.assertEquals(eventos, registro.consultar(DISPOSITIVO, 0L, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void consultaFiltraPorDispositivoEIntervalo() throws IOException {
+        try (RegistroReproducciones registro = nuevoRegistro()) {
+            EventoReproduccion propio = new EventoReproduccion(DISPOSITIVO, 1L, 1_000L, 2_000L,
+                    ResultadoReproduccion.COMPLETADO);
+            registro.agregar(propio);
+            registro.agregar(new EventoReproduccion(DISPOSITIVO + 1, 1L, 1_000L, 2_000L, ResultadoReproduccion.COMPLETADO));
+            registro.agregar(new EventoReproduccion(DISPOSITIVO, 1L, 9_000L, 9_500L, ResultadoReproduccion.ERROR));
+
+            Assertions.assertEquals(List.of(propio), registro.consultar(DISPOSITIVO, 1_500L, 3_000L));
+        }
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private RegistroReproducciones nuevoRegistro() throws IOException {
+        RegistroReproducciones registro = new RegistroReproducciones(directorio, 64, 8, Long.MAX_VALUE);
+        registro.abrir();
+        return registro;
+    }
+
+    private static List<EventoReproduccion> eventos(int cantidad) {
+        List<EventoReproduccion> eventos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            eventos.add(new EventoReproduccion(DISPOSITIVO, i, i * 10_000L, i * 10_000L + 5_000L,
+                    ResultadoReproduccion.COMPLETADO));
+        }
+        return eventos;
+    }
+}
@@ -0,0 +1,131 @@
+package com.innoad.dispositivos.historial;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+class SegmentoSelladoTest {
+
+    private static final int REGISTROS_POR_BLOQUE = 8;
+
+    // Orden total para comparar resultados sin depender del orden de los bloques
+    private static final Comparator<EventoReproduccion> ORDEN = Comparator.comparingLong(EventoReproduccion::inicioMs)
+            .thenComparingLong(EventoReproduccion::finMs)
+            .thenComparingLong(EventoReproduccion::contenidoId)
+            .thenComparing(EventoReproduccion::resultado);
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void consultaIgualQueRecorrerTodosLosEventos() throws IOException {
+        List<EventoReproduccion> eventos = eventosAleatorios(500, 12, new Random(7));
+        SegmentoSellado escrito = SegmentoSellado.escribir(directorio.resolve("s.seg"), 1, eventos, REGISTROS_POR_BLOQUE);
+        SegmentoSellado leido = SegmentoSellado.abrir(escrito.archivo(), 1);
+
+        Random random = new Random(11);
+        for (int i = 0; i < 200; i++) {
+            long dispositivo = random.nextInt(14);
+            long desde = random.nextInt(100_000);
+            long hasta = desde + random.nextInt(20_000);
+            List<EventoReproduccion> esperado = recorrer(eventos, dispositivo, desde, hasta);
+
+            Assertions.assertEquals(esperado, consultar(escrito, dispositivo, desde, hasta));
+            Assertions.assertEquals(esperado, consultar(leido, dispositivo, desde, hasta));
+        }
+    }
+
+    @Test
+    void encuentraReproduccionLargaQueEmpezoEnUnBloqueAnterior() throws IOException {
+        List<EventoReproduccion> eventos = new ArrayList<>();
+        // Una sola reproducción larga y muchas cortas después, repartidas en varios bloques
+        eventos.add(new EventoReproduccion(3L, 1L, 0L, 50_000L, ResultadoReproduccion.COMPLETADO));
+        for (int i = 1; i <= 40; i++) {
+            eventos.add(new EventoReproduccion(3L, 2L, i * 1_000L, i * 1_000L + 500L, ResultadoReproduccion.COMPLETADO));
+        }
+        SegmentoSellado segmento = SegmentoSellado.escribir(directorio.resolve("s.seg"), 1, eventos, 4);
+
+        List<EventoReproduccion> resultado = consultar(segmento, 3L, 45_000L, 46_000L);
+
+        Assertions.assertEquals(List.of(eventos.get(0)), resultado);
+    }
+
+    @Test
+    void descartaPorExtremosDeTiempo() throws IOException {
+        List<EventoReproduccion> eventos = List.of(
+                new EventoReproduccion(1L, 1L, 1_000L, 2_000L, ResultadoReproduccion.COMPLETADO),
+                new EventoReproduccion(1L, 1L, 5_000L, 6_000L, ResultadoReproduccion.ERROR));
+        SegmentoSellado segmento = SegmentoSellado.escribir(directorio.resolve("s.seg"), 1, eventos, REGISTROS_POR_BLOQUE);
+
+        Assertions.assertEquals(6_000L, segmento.maxFinMs());
+        Assertions.assertEquals(2, segmento.registros());
+        Assertions.assertTrue(consultar(segmento, 1L, 6_001L, 9_000L).isEmpty());
+        Assertions.assertTrue(consultar(segmento, 1L, 0L, 999L).isEmpty());
+        Assertions.assertEquals(2, consultar(segmento, 1L, 2_000L, 5_000L).size());
+        Assertions.assertTrue(consultar(segmento, 2L, 0L, 9_000L).isEmpty());
+    }
+
+    @Test
+    void noDejaArchivoTemporal() throws IOException {
+        Path archivo = directorio.resolve("s.seg");
+        SegmentoSellado.escribir(archivo, 1, eventosAleatorios(20, 3, new Random(1)), REGISTROS_POR_BLOQUE);
+
+        Assertions.assertTrue(Files.exists(archivo));
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            Assertions.assertEquals(1, archivos.count());
+        }
+    }
+
+    @Test
+    void rechazaArchivoTruncado() throws IOException {
+        Path archivo = directorio.resolve("s.seg");
+        SegmentoSellado.escribir(archivo, 1, eventosAleatorios(50, 3, new Random(1)), REGISTROS_POR_BLOQUE);
+        byte[] contenido = Files.readAllBytes(archivo);
+        Files.write(archivo, Arrays.copyOf(contenido, contenido.length - 3));
+
+        Assertions.assertThrows(IOException.class, () -> SegmentoSellado.abrir(archivo, 1));
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private static List<EventoReproduccion> eventosAleatorios(int cantidad, int dispositivos, Random random) {
+        List<EventoReproduccion> eventos = new ArrayList<>(cantidad);
+        ResultadoReproduccion[] resultados = ResultadoReproduccion.values();
+        for (int i = 0; i < cantidad; i++) {
+            long inicio = random.nextInt(100_000);
+            eventos.add(new EventoReproduccion(random.nextInt(dispositivos), random.nextInt(50), inicio,
+                    inicio + random.nextInt(5_000), resultados[random.nextInt(resultados.length)]));
+        }
+        return eventos;
+    }
+
+    private static List<EventoReproduccion> recorrer(List<EventoReproduccion> eventos, long dispositivo,
+                                                     long desde, long hasta) {
+        List<EventoReproduccion> resultado = new ArrayList<>();
+        for (EventoReproduccion evento : eventos) {
+            if (evento.idDispositivo() == dispositivo && evento.solapa(desde, hasta)) {
+                resultado.add(evento);
+            }
+        }
+        resultado.sort(ORDEN);
+        return resultado;
+    }
+
+    private static List<EventoReproduccion> consultar(SegmentoSellado segmento, long dispositivo,
+                                                      long desde, long hasta) throws IOException {
+        List<EventoReproduccion> resultado = new ArrayList<>();
+        segmento.consultar(dispositivo, desde, hasta, resultado);
+        resultado.sort(ORDEN);
+        return resultado;
+    }
+}
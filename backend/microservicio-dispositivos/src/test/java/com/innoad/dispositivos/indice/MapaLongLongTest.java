@@ -0,0 +1,96 @@
+package com.innoad.dispositivos.indice;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+class MapaLongLongTest {
+
+    @Test
+    void getDeClaveAusenteDevuelveSinValor() {
+        MapaLongLong mapa = new MapaLongLong(4);
+
+        Assertions.assertEquals(MapaLongLong.SIN_VALOR, mapa.get(123L));
+        Assertions.assertEquals(MapaLongLong.SIN_VALOR, mapa.get(0L));
+        Assertions.assertEquals(MapaLongLong.SIN_VALOR, mapa.get(-5L));
+    }
+
+    @Test
+    void putReemplazaElValorSinCambiarElTamano() {
+        MapaLongLong mapa = new MapaLongLong(4);
+        mapa.put(0xB827EB123456L, 1L);
+        mapa.put(0xB827EB123456L, 2L);
+
+        Assertions.assertEquals(2L, mapa.get(0xB827EB123456L));
+        Assertions.assertEquals(1, mapa.size());
+    }
+
+    @Test
+    void removeDejaLaClaveAusenteYNoCortaLaSecuenciaDeSondeo() {
+        MapaLongLong mapa = new MapaLongLong(4);
+        for (long clave = 1; clave <= 12; clave++) {
+            mapa.put(clave, clave * 10);
+        }
+        mapa.remove(3L);
+        mapa.remove(3L);
+
+        Assertions.assertEquals(MapaLongLong.SIN_VALOR, mapa.get(3L));
+        Assertions.assertEquals(11, mapa.size());
+        for (long clave = 1; clave <= 12; clave++) {
+            if (clave != 3L) {
+                Assertions.assertEquals(clave * 10, mapa.get(clave));
+            }
+        }
+
+        mapa.put(3L, 99L);
+        Assertions.assertEquals(99L, mapa.get(3L));
+        Assertions.assertEquals(12, mapa.size());
+    }
+
+    @Test
+    void coincideConHashMapEnOperacionesAleatorias() {
+        MapaLongLong mapa = new MapaLongLong(2);
+        Map<Long, Long> esperado = new HashMap<>();
+        Random random = new Random(42);
+        // Claves de un mismo fabricante (OUI fijo) para ejercitar colisiones y crecimiento
+        for (int i = 0; i < 50_000; i++) {
+            long clave = 0xB827EB000000L | random.nextInt(5_000);
+            if (random.nextInt(4) == 0) {
+                mapa.remove(clave);
+                esperado.remove(clave);
+            } else {
+                long valor = random.nextLong();
+                mapa.put(clave, valor);
+                esperado.put(clave, valor);
+            }
+        }
+
+        Assertions.assertEquals(esperado.size(), mapa.size());
+        for (int i = 0; i < 5_000; i++) {
+            long clave = 0xB827EB000000L | i;
+            Assertions.assertEquals(esperado.getOrDefault(clave, MapaLongLong.SIN_VALOR), mapa.get(clave));
+        }
+    }
+
+    @Test
+    void clearVaciaElMapa() {
+        MapaLongLong mapa = new MapaLongLong(4);
+        mapa.put(7L, 70L);
+        mapa.clear();
+
+        Assertions.assertEquals(0, mapa.size());
+        Assertions.assertEquals(MapaLongLong.SIN_VALOR, mapa.get(7L));
+    }
+
+    @Test
+    void rechazaClavesNoPositivas() {
+        MapaLongLong mapa = new MapaLongLong(4);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> mapa.put(0L, 1L));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> mapa.put(-1L, 1L));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> mapa.remove(0L));
+    }
+}
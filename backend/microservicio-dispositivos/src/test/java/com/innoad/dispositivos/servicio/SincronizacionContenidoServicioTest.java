@@ -0,0 +1,78 @@
+package com.innoad.dispositivos.servicio;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class SincronizacionContenidoServicioTest {
+
+    @Test
+    void manifiestoAlDiaNoTieneFaltantesNiDesalojables() {
+        List<SincronizacionContenidoServicio.Programado> programados = List.of(programado(1L, "bbbb"), programado(2L, "aaaa"));
+
+        SincronizacionContenidoServicio.Diferencia diferencia =
+                SincronizacionContenidoServicio.comparar(programados, new String[]{"aaaa", "bbbb"});
+
+        Assertions.assertTrue(diferencia.faltantes().isEmpty());
+        Assertions.assertTrue(diferencia.desalojables().isEmpty());
+        Assertions.assertEquals(2, diferencia.vigentes());
+    }
+
+    @Test
+    void separaFaltantesYDesalojables() {
+        SincronizacionContenidoServicio.Programado nuevo = programado(3L, "cccc");
+        List<SincronizacionContenidoServicio.Programado> programados = List.of(programado(1L, "aaaa"), nuevo);
+
+        SincronizacionContenidoServicio.Diferencia diferencia =
+                SincronizacionContenidoServicio.comparar(programados, new String[]{"aaaa", "bbbb", "dddd"});
+
+        Assertions.assertEquals(List.of(nuevo), diferencia.faltantes());
+        Assertions.assertEquals(List.of("bbbb", "dddd"), diferencia.desalojables());
+        Assertions.assertEquals(1, diferencia.vigentes());
+    }
+
+    @Test
+    void sinChecksumSiempreFalta() {
+        SincronizacionContenidoServicio.Programado sinChecksum = programado(1L, null);
+
+        SincronizacionContenidoServicio.Diferencia diferencia =
+                SincronizacionContenidoServicio.comparar(List.of(sinChecksum), new String[]{"aaaa"});
+
+        Assertions.assertEquals(List.of(sinChecksum), diferencia.faltantes());
+        Assertions.assertEquals(List.of("aaaa"), diferencia.desalojables());
+        Assertions.assertEquals(0, diferencia.vigentes());
+    }
+
+    @Test
+    void unArchivoLocalCubreVariosContenidosConElMismoChecksum() {
+        List<SincronizacionContenidoServicio.Programado> programados =
+                List.of(programado(1L, "aaaa"), programado(2L, "aaaa"), programado(3L, "bbbb"));
+
+        SincronizacionContenidoServicio.Diferencia diferencia =
+                SincronizacionContenidoServicio.comparar(programados, new String[]{"aaaa"});
+
+        Assertions.assertEquals(2, diferencia.vigentes());
+        Assertions.assertEquals(1, diferencia.faltantes().size());
+        Assertions.assertEquals(3L, diferencia.faltantes().get(0).idContenido());
+        Assertions.assertTrue(diferencia.desalojables().isEmpty());
+    }
+
+    @Test
+    void dispositivoVacioDescargaTodo() {
+        List<SincronizacionContenidoServicio.Programado> programados = List.of(programado(1L, "aaaa"), programado(2L, "bbbb"));
+
+        SincronizacionContenidoServicio.Diferencia diferencia =
+                SincronizacionContenidoServicio.comparar(programados, new String[0]);
+
+        Assertions.assertEquals(2, diferencia.faltantes().size());
+        Assertions.assertEquals(0, diferencia.vigentes());
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private static SincronizacionContenidoServicio.Programado programado(Long idContenido, String checksum) {
+        return new SincronizacionContenidoServicio.Programado(idContenido, "imagen",
+                "/contenidos/" + idContenido, checksum, 1024L);
+    }
+}
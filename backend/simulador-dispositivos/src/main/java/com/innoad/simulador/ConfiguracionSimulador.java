@@ -0,0 +1,111 @@
+package com.innoad.simulador;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parámetros de una corrida del simulador, leídos de argumentos --clave=valor
+ *
+ * Los valores por defecto siguen raspberry-cliente/config/client.conf
+ * (heartbeat cada 30 s, reconexión con backoff exponencial hasta 30 s).
+ */
+public record ConfiguracionSimulador(
+        URI servidor,
+        String endpointWebSocket,
+        int dispositivos,
+        Duration duracion,
+        Duration rampa,
+        Duration intervaloHeartbeat,
+        double churnPorcentajeMinuto,
+        Duration tormentaCada,
+        long propietarioId,
+        int ubicaciones,
+        int prefijoMac
+) {
+
+    public static ConfiguracionSimulador desdeArgumentos(String[] args) {
+        Map<String, String> valores = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Argumento inválido: " + arg + " (se espera --clave=valor)");
+            }
+            int separador = arg.indexOf('=');
+            valores.put(arg.substring(2, separador), arg.substring(separador + 1));
+        }
+
+        ConfiguracionSimulador configuracion = new ConfiguracionSimulador(
+                URI.create(valores.getOrDefault("servidor", "http://localhost:8086")),
+                valores.getOrDefault("endpoint", "/websocket/raspberry"),
+                Integer.parseInt(valores.getOrDefault("dispositivos", "100")),
+                Duration.ofSeconds(Long.parseLong(valores.getOrDefault("duracion-s", "300"))),
+                Duration.ofSeconds(Long.parseLong(valores.getOrDefault("rampa-s", "30"))),
+                Duration.ofSeconds(Long.parseLong(valores.getOrDefault("intervalo-heartbeat-s", "30"))),
+                Double.parseDouble(valores.getOrDefault("churn-porcentaje-minuto", "1")),
+                Duration.ofSeconds(Long.parseLong(valores.getOrDefault("tormenta-cada-s", "0"))),
+                Long.parseLong(valores.getOrDefault("propietario", "1")),
+                Integer.parseInt(valores.getOrDefault("ubicaciones", "10")),
+                Integer.parseInt(valores.getOrDefault("prefijo-mac", "0200"), 16));
+        configuracion.validar();
+        return configuracion;
+    }
+
+    /**
+     * URI del endpoint WebSocket (ws:// sobre el mismo host y puerto)
+     */
+    public URI uriWebSocket() {
+        String esquema = "https".equals(servidor.getScheme()) ? "wss" : "ws";
+        return URI.create(esquema + "://" + servidor.getAuthority() + endpointWebSocket);
+    }
+
+    public URI uriApi(String ruta) {
+        return servidor.resolve(ruta);
+    }
+
+    /**
+     * MAC del dispositivo i: prefijo de 16 bits (por defecto 02:00, administrada
+     * localmente) seguido del índice en 32 bits
+     */
+    public String macAddress(int indice) {
+        long valor = ((long) (prefijoMac & 0xFFFF) << 32) | (indice & 0xFFFFFFFFL);
+        StringBuilder mac = new StringBuilder(17);
+        for (int desplazamiento = 40; desplazamiento >= 0; desplazamiento -= 8) {
+            if (mac.length() > 0) {
+                mac.append(':');
+            }
+            mac.append(String.format("%02X", (valor >> desplazamiento) & 0xFF));
+        }
+        return mac.toString();
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private void validar() {
+        if (dispositivos < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un dispositivo");
+        }
+        if (intervaloHeartbeat.isZero() || intervaloHeartbeat.isNegative()) {
+            throw new IllegalArgumentException("El intervalo de heartbeat debe ser positivo");
+        }
+        if (churnPorcentajeMinuto < 0 || churnPorcentajeMinuto > 100) {
+            throw new IllegalArgumentException("El churn debe estar entre 0 y 100 por ciento por minuto");
+        }
+        // La herramienta genera miles de conexiones: nunca contra un servidor remoto
+        String host = servidor.getHost();
+        if (host == null) {
+            throw new IllegalArgumentException("URL de servidor inválida: " + servidor);
+        }
+        try {
+            for (InetAddress direccion : InetAddress.getAllByName(host)) {
+                if (!direccion.isLoopbackAddress()) {
+                    throw new IllegalArgumentException("El simulador solo puede apuntar a localhost, no a " + host);
+                }
+            }
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("No se pudo resolver el host " + host);
+        }
+    }
+}
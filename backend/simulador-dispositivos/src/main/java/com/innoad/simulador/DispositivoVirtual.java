@@ -0,0 +1,357 @@
+package com.innoad.simulador;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.net.http.WebSocketHandshakeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Raspberry Pi simulada, pensada para correr en su propio hilo virtual
+ *
+ * Habla el mismo protocolo que raspberry-cliente/main.py:
+ * - handshake con la cabecera mac_address (y device_type, software_version);
+ * - HEARTBEAT con métricas cada intervalo_heartbeat;
+ * - responde a REPRODUCIR_CONTENIDO con DESCARGA_COMPLETADA y ESTADO_REPRODUCCION,
+ *   a ACTUALIZAR_SOFTWARE reiniciando con la versión nueva y a OBTENER_ESTADO
+ *   con un heartbeat; el resto de comandos se contestan con ERROR;
+ * - si la conexión se cae, reintenta con backoff exponencial hasta 30 s, o
+ *   cuando indique el Retry-After si el servidor rechazó el handshake con 503.
+ *
+ * El coordinador puede cortar la sesión con {@link #desconectar} para simular
+ * cortes de energía (churn) o reconexiones masivas (tormentas).
+ */
+public class DispositivoVirtual implements Runnable {
+
+    private static final long MAX_BACKOFF_SEGUNDOS = 30;
+
+    private final int indice;
+    private final String macAddress;
+    private final ConfiguracionSimulador configuracion;
+    private final HttpClient cliente;
+    private final ObjectMapper objectMapper;
+    private final MetricasSimulador metricas;
+    private final Duration retrasoInicial;
+
+    // ReentrantLock y no synchronized: un hilo virtual bloqueado dentro de synchronized
+    // fija su hilo portador, y con miles de dispositivos se agotan los portadores
+    private final ReentrantLock envio = new ReentrantLock();
+
+    private volatile boolean detenido;
+    private volatile boolean conectado;
+    private volatile CompletableFuture<String> finSesion = new CompletableFuture<>();
+    private volatile WebSocket webSocket;
+    private volatile String versionSoftware = "1.0.0";
+    private volatile Long contenidoActual;
+    private long esperaSugeridaSegundos;
+
+    public DispositivoVirtual(int indice, ConfiguracionSimulador configuracion, HttpClient cliente,
+                              ObjectMapper objectMapper, MetricasSimulador metricas, Duration retrasoInicial) {
+        this.indice = indice;
+        this.macAddress = configuracion.macAddress(indice);
+        this.configuracion = configuracion;
+        this.cliente = cliente;
+        this.objectMapper = objectMapper;
+        this.metricas = metricas;
+        this.retrasoInicial = retrasoInicial;
+    }
+
+    @Override
+    public void run() {
+        dormir(retrasoInicial.toMillis());
+        int intentos = 0;
+        boolean primeraConexion = true;
+
+        while (!detenido) {
+            if (!conectar()) {
+                if (esperaSugeridaSegundos > 0) {
+                    // El servidor está admitiendo de a poco: se respeta su Retry-After
+                    dormir(TimeUnit.SECONDS.toMillis(esperaSugeridaSegundos));
+                } else {
+                    intentos++;
+                    long backoff = TimeUnit.SECONDS.toMillis(Math.min(MAX_BACKOFF_SEGUNDOS, 1L << Math.min(intentos, 5)));
+                    dormir(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+                }
+                continue;
+            }
+            intentos = 0;
+            if (!primeraConexion) {
+                metricas.reconexiones.increment();
+            }
+            primeraConexion = false;
+
+            conectado = true;
+            String motivo = mantenerSesion();
+            conectado = false;
+            metricas.conectados.decrementAndGet();
+
+            switch (motivo) {
+                // Corte de energía: el equipo tarda en volver
+                case "churn" -> dormir(ThreadLocalRandom.current().nextLong(5_000, 60_000));
+                // Reinicio tras actualizar software
+                case "reinicio" -> dormir(ThreadLocalRandom.current().nextLong(2_000, 10_000));
+                case "servidor" -> {
+                    metricas.cierresDelServidor.increment();
+                    dormir(TimeUnit.SECONDS.toMillis(2));
+                }
+                // "tormenta" y "fin": reconexión inmediata o salida del bucle
+                default -> { }
+            }
+        }
+    }
+
+    /**
+     * Corta la sesión actual. El motivo decide cuánto espera antes de reconectar.
+     */
+    public void desconectar(String motivo) {
+        if (conectado && finSesion.complete(motivo)) {
+            metricas.desconexionesProvocadas.increment();
+            WebSocket actual = webSocket;
+            if (actual != null) {
+                // abort simula una caída sin cierre ordenado, como un corte de energía
+                actual.abort();
+            }
+        }
+    }
+
+    public void detener() {
+        detenido = true;
+        WebSocket actual = webSocket;
+        if (finSesion.complete("fin") && actual != null) {
+            try {
+                actual.sendClose(WebSocket.NORMAL_CLOSURE, "fin de la prueba");
+            } catch (IllegalStateException e) {
+                actual.abort();
+            }
+        }
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private boolean conectar() {
+        CompletableFuture<String> fin = new CompletableFuture<>();
+        finSesion = fin;
+        esperaSugeridaSegundos = 0;
+        long inicio = System.nanoTime();
+        try {
+            webSocket = cliente.newWebSocketBuilder()
+                    .header("mac_address", macAddress)
+                    .header("device_type", "raspberry_pi")
+                    .header("software_version", versionSoftware)
+                    .header("device_id", "sim-" + indice)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .buildAsync(configuracion.uriWebSocket(), new Receptor(fin))
+                    .get(15, TimeUnit.SECONDS);
+            metricas.latenciaHandshake.registrar(System.nanoTime() - inicio);
+            metricas.conexiones.increment();
+            metricas.conectados.incrementAndGet();
+            return true;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof WebSocketHandshakeException rechazo) {
+                metricas.registrarRechazo(rechazo.getResponse().statusCode());
+                esperaSugeridaSegundos = rechazo.getResponse().headers()
+                        .firstValueAsLong("Retry-After").orElse(0);
+            } else {
+                metricas.registrarRechazo(0);
+            }
+        } catch (TimeoutException e) {
+            metricas.registrarRechazo(0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            detenido = true;
+        }
+        return false;
+    }
+
+    /**
+     * Envía heartbeats hasta que la sesión termina y devuelve el motivo
+     */
+    private String mantenerSesion() {
+        long intervalo = configuracion.intervaloHeartbeat().toMillis();
+        CompletableFuture<String> fin = finSesion;
+        while (true) {
+            enviar(heartbeat());
+            try {
+                return fin.get(intervalo, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // toca el siguiente heartbeat
+            } catch (ExecutionException e) {
+                return "servidor";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                detenido = true;
+                return "fin";
+            }
+        }
+    }
+
+    private Map<String, Object> heartbeat() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        long memoriaTotal = 1L << 30;
+        long memoriaUsada = (long) (memoriaTotal * aleatorio.nextDouble(0.3, 0.7));
+        long discoTotal = 32L << 30;
+        long discoUsado = (long) (discoTotal * aleatorio.nextDouble(0.2, 0.6));
+
+        Map<String, Object> metricasSistema = new LinkedHashMap<>();
+        metricasSistema.put("cpu_usage", Math.round(aleatorio.nextDouble(5, 60) * 100) / 100.0);
+        metricasSistema.put("memoria_total", memoriaTotal);
+        metricasSistema.put("memoria_usada", memoriaUsada);
+        metricasSistema.put("memoria_porcentaje", Math.round(memoriaUsada * 10000.0 / memoriaTotal) / 100.0);
+        metricasSistema.put("disco_total", discoTotal);
+        metricasSistema.put("disco_usado", discoUsado);
+        metricasSistema.put("disco_porcentaje", Math.round(discoUsado * 10000.0 / discoTotal) / 100.0);
+        metricasSistema.put("temperatura_cpu", Math.round(aleatorio.nextDouble(40, 70) * 10) / 10.0);
+
+        Map<String, Object> reproduccion = new LinkedHashMap<>();
+        reproduccion.put("activa", contenidoActual != null);
+        reproduccion.put("contenido_id", contenidoActual);
+
+        Map<String, Object> mensaje = new LinkedHashMap<>();
+        mensaje.put("tipo", "HEARTBEAT");
+        mensaje.put("timestamp", LocalDateTime.now().toString());
+        mensaje.put("mac_address", macAddress);
+        mensaje.put("ip_address", "127.0.0.1");
+        mensaje.put("version_software", versionSoftware);
+        mensaje.put("estado", "CONECTADO");
+        mensaje.put("metricas", metricasSistema);
+        mensaje.put("reproduccion", reproduccion);
+        return mensaje;
+    }
+
+    private void procesarComando(JsonNode datos) {
+        metricas.comandosRecibidos.increment();
+        String comando = datos.path("comando").asText("UNKNOWN");
+        switch (comando) {
+            case "REPRODUCIR_CONTENIDO" -> reproducirContenido(datos.path("contenido"));
+            case "DETENER_REPRODUCCION" -> contenidoActual = null;
+            case "OBTENER_ESTADO" -> enviar(heartbeat());
+            case "ACTUALIZAR_SOFTWARE" -> {
+                String version = datos.path("version").asText(null);
+                if (version != null) {
+                    versionSoftware = version;
+                }
+                desconectar("reinicio");
+            }
+            default -> enviar(Map.of(
+                    "tipo", "ERROR",
+                    "mensaje", "Comando no soportado: " + comando,
+                    "timestamp", LocalDateTime.now().toString()));
+        }
+    }
+
+    private void reproducirContenido(JsonNode contenido) {
+        Long contenidoId = contenido.hasNonNull("id") ? contenido.get("id").asLong() : null;
+        if (!contenido.hasNonNull("url")) {
+            enviar(Map.of("tipo", "ERROR", "mensaje", "Error descargando contenido",
+                    "timestamp", LocalDateTime.now().toString()));
+            return;
+        }
+        // Simula la descarga antes de empezar a reproducir
+        dormir(ThreadLocalRandom.current().nextLong(200, 2_000));
+
+        Map<String, Object> descarga = new LinkedHashMap<>();
+        descarga.put("tipo", "DESCARGA_COMPLETADA");
+        descarga.put("contenido_id", contenidoId);
+        descarga.put("tamano_archivo", ThreadLocalRandom.current().nextLong(100_000, 50_000_000));
+        descarga.put("timestamp", LocalDateTime.now().toString());
+        enviar(descarga);
+
+        contenidoActual = contenidoId;
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("tipo", "ESTADO_REPRODUCCION");
+        estado.put("estado", "REPRODUCIENDO");
+        estado.put("contenido_id", contenidoId);
+        estado.put("timestamp", LocalDateTime.now().toString());
+        enviar(estado);
+    }
+
+    /**
+     * El WebSocket de java.net.http admite un solo envío pendiente a la vez
+     */
+    private void enviar(Map<String, Object> mensaje) {
+        WebSocket actual = webSocket;
+        if (actual == null || actual.isOutputClosed()) {
+            return;
+        }
+        envio.lock();
+        try {
+            actual.sendText(objectMapper.writeValueAsString(mensaje), true).get(10, TimeUnit.SECONDS);
+            metricas.mensajesEnviados.increment();
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            metricas.erroresEnvio.increment();
+        } finally {
+            envio.unlock();
+        }
+    }
+
+    private void dormir(long milisegundos) {
+        if (milisegundos <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(milisegundos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            detenido = true;
+        }
+    }
+
+    /**
+     * Recibe los comandos del servidor. Las respuestas se procesan en otro hilo
+     * virtual para no frenar la lectura del socket mientras se "descarga" contenido.
+     */
+    private class Receptor implements WebSocket.Listener {
+
+        // Fin de la sesión a la que pertenece este receptor, no de las siguientes
+        private final CompletableFuture<String> fin;
+        private final StringBuilder parcial = new StringBuilder();
+
+        Receptor(CompletableFuture<String> fin) {
+            this.fin = fin;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket ws, CharSequence datos, boolean ultimo) {
+            parcial.append(datos);
+            if (ultimo) {
+                String texto = parcial.toString();
+                parcial.setLength(0);
+                Thread.ofVirtual().start(() -> {
+                    try {
+                        procesarComando(objectMapper.readTree(texto));
+                    } catch (Exception e) {
+                        enviar(Map.of("tipo", "ERROR", "mensaje", "Mensaje inválido",
+                                "timestamp", LocalDateTime.now().toString()));
+                    }
+                });
+            }
+            ws.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket ws, int codigo, String razon) {
+            fin.complete("servidor");
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket ws, Throwable error) {
+            fin.complete("servidor");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.innoad.simulador;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias con resolución de 1 ms hasta 10 s, sin bloqueos
+ *
+ * Cada muestra incrementa un contador atómico de su milisegundo; las que
+ * superan el rango van al último contador. Alcanza para reportar p50/p99 de
+ * miles de dispositivos sin guardar cada muestra.
+ */
+public class HistogramaLatencias {
+
+    private static final int MAX_MS = 10_000;
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(MAX_MS + 1);
+
+    public void registrar(long nanos) {
+        int ms = (int) Math.min(MAX_MS, Math.max(0, nanos / 1_000_000));
+        cubetas.incrementAndGet(ms);
+    }
+
+    public long cantidad() {
+        long total = 0;
+        for (int i = 0; i <= MAX_MS; i++) {
+            total += cubetas.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Percentil en milisegundos (p entre 0 y 1). Devuelve -1 si no hay muestras.
+     */
+    public long percentil(double p) {
+        long total = cantidad();
+        if (total == 0) {
+            return -1;
+        }
+        long objetivo = (long) Math.ceil(total * p);
+        long acumulado = 0;
+        for (int i = 0; i <= MAX_MS; i++) {
+            acumulado += cubetas.get(i);
+            if (acumulado >= objetivo) {
+                return i;
+            }
+        }
+        return MAX_MS;
+    }
+}
@@ -0,0 +1,40 @@
+package com.innoad.simulador;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores del lado del cliente compartidos por todos los dispositivos virtuales
+ */
+public class MetricasSimulador {
+
+    final HistogramaLatencias latenciaHandshake = new HistogramaLatencias();
+    final AtomicInteger conectados = new AtomicInteger();
+    final LongAdder conexiones = new LongAdder();
+    final LongAdder reconexiones = new LongAdder();
+    final LongAdder mensajesEnviados = new LongAdder();
+    final LongAdder comandosRecibidos = new LongAdder();
+    final LongAdder cierresDelServidor = new LongAdder();
+    final LongAdder desconexionesProvocadas = new LongAdder();
+    final LongAdder erroresEnvio = new LongAdder();
+
+    // Handshakes fallidos por código HTTP (0 = error de red o timeout)
+    private final Map<Integer, LongAdder> rechazos = new ConcurrentHashMap<>();
+
+    void registrarRechazo(int codigo) {
+        rechazos.computeIfAbsent(codigo, c -> new LongAdder()).increment();
+    }
+
+    Map<Integer, Long> rechazos() {
+        Map<Integer, Long> copia = new TreeMap<>();
+        rechazos.forEach((codigo, cantidad) -> copia.put(codigo, cantidad.sum()));
+        return copia;
+    }
+
+    long totalRechazos() {
+        return rechazos.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+}
@@ -0,0 +1,163 @@
+package com.innoad.simulador;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor que imita la API de python-ia para probar el cliente de IA del
+ * microservicio de dispositivos sin levantar el proceso Python ni sus modelos
+ *
+ * Responde /health y /api/ia/predecir-lote con predicciones deterministas
+ * (derivadas del hash de cada item, así la caché se puede verificar) y
+ * permite inyectar latencia y un porcentaje de fallos HTTP 500 para ejercitar
+ * timeouts y el cortacircuitos. Cada 10 s imprime cuántos lotes e items recibió.
+ *
+ * Uso:
+ *     java -cp target/simulador-dispositivos.jar com.innoad.simulador.ServidorIASimulado \
+ *          --puerto=5055 --latencia-ms=20 --fallos-porcentaje=0
+ *
+ * Y en el microservicio: IA_URL=http://localhost:5055
+ */
+public class ServidorIASimulado {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final long latenciaMs;
+    private final double fallosPorcentaje;
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong items = new AtomicLong();
+    private final AtomicLong fallosInyectados = new AtomicLong();
+
+    public ServidorIASimulado(long latenciaMs, double fallosPorcentaje) {
+        this.latenciaMs = latenciaMs;
+        this.fallosPorcentaje = fallosPorcentaje;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> valores = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("❌ Argumento inválido: " + arg + " (se espera --clave=valor)");
+                System.exit(2);
+            }
+            int separador = arg.indexOf('=');
+            valores.put(arg.substring(2, separador), arg.substring(separador + 1));
+        }
+        int puerto = Integer.parseInt(valores.getOrDefault("puerto", "5055"));
+        ServidorIASimulado servidor = new ServidorIASimulado(
+                Long.parseLong(valores.getOrDefault("latencia-ms", "20")),
+                Double.parseDouble(valores.getOrDefault("fallos-porcentaje", "0")));
+        servidor.iniciar(puerto);
+        System.out.println("🤖 Servidor de IA simulado en http://localhost:" + puerto);
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.printf("   lotes=%d items=%d fallos-inyectados=%d%n",
+                    servidor.lotes.get(), servidor.items.get(), servidor.fallosInyectados.get());
+        }
+    }
+
+    /**
+     * Levanta el servidor solo en la interfaz de loopback
+     */
+    public HttpServer iniciar(int puerto) throws IOException {
+        HttpServer servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto), 0);
+        servidor.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        servidor.createContext("/health", intercambio -> responder(intercambio, 200,
+                objectMapper.createObjectNode().put("status", "healthy")));
+        servidor.createContext("/api/ia/predecir-lote", this::predecirLote);
+        servidor.start();
+        return servidor;
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private void predecirLote(HttpExchange intercambio) throws IOException {
+        JsonNode cuerpo;
+        try (InputStream entrada = intercambio.getRequestBody()) {
+            cuerpo = objectMapper.readTree(entrada);
+        } catch (IOException e) {
+            responder(intercambio, 400, error("JSON inválido"));
+            return;
+        }
+
+        if (latenciaMs > 0) {
+            try {
+                Thread.sleep(latenciaMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (ThreadLocalRandom.current().nextDouble(100) < fallosPorcentaje) {
+            fallosInyectados.incrementAndGet();
+            responder(intercambio, 500, error("Fallo simulado"));
+            return;
+        }
+
+        String tipo = cuerpo.path("tipo").asText();
+        JsonNode lista = cuerpo.path("items");
+        if (!lista.isArray() || lista.isEmpty()) {
+            responder(intercambio, 400, error("Se requiere una lista de items"));
+            return;
+        }
+        lotes.incrementAndGet();
+        items.addAndGet(lista.size());
+
+        ObjectNode respuesta = objectMapper.createObjectNode();
+        respuesta.put("tipo", tipo);
+        ArrayNode resultados = respuesta.putArray("resultados");
+        for (JsonNode item : lista) {
+            resultados.add(predecir(tipo, item));
+        }
+        respuesta.put("status", "success");
+        responder(intercambio, 200, respuesta);
+    }
+
+    private ObjectNode predecir(String tipo, JsonNode item) {
+        // Valor estable por item: mismo item, misma predicción
+        double base = (item.toString().hashCode() & 0x7FFFFFFF) / (double) Integer.MAX_VALUE;
+        ObjectNode resultado = objectMapper.createObjectNode();
+        switch (tipo) {
+            case "ctr" -> resultado.put("ctr_predicho", 0.005 + base * 0.045);
+            case "conversiones" -> resultado.put("conversiones_predichas", Math.round(base * 500))
+                    .put("tasa_conversion", base * 0.1);
+            case "roi" -> resultado.putObject("prediccion").put("roi", base * 3).put("confianza", 0.85);
+            case "optimizacion" -> {
+                if (!item.hasNonNull("anuncio_id")) {
+                    return error("ID de anuncio requerido");
+                }
+                resultado.put("anuncio_id", item.get("anuncio_id").asLong()).putArray("recomendaciones");
+            }
+            default -> {
+                return error("Tipo de predicción no soportado: " + tipo);
+            }
+        }
+        return resultado.put("status", "success");
+    }
+
+    private ObjectNode error(String mensaje) {
+        return objectMapper.createObjectNode().put("error", mensaje).put("status", "error");
+    }
+
+    private void responder(HttpExchange intercambio, int estado, JsonNode cuerpo) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsString(cuerpo).getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json");
+        intercambio.sendResponseHeaders(estado, bytes.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.innoad.simulador;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generador de carga para el microservicio de dispositivos
+ *
+ * Simula N Raspberry Pi, cada una en su propio hilo virtual, contra un servidor
+ * en localhost:
+ * 1. Registra los dispositivos con POST /api/dispositivos/lote (las MAC ya
+ *    registradas de corridas anteriores se reutilizan).
+ * 2. Los conecta de forma escalonada durante la rampa y los deja enviando heartbeats.
+ * 3. Cada segundo desconecta al azar el porcentaje de churn configurado y, si se
+ *    pidió, cada tormenta-cada-s corta todas las sesiones a la vez para medir la
+ *    reconexión masiva.
+ * 4. Al terminar imprime lo medido en el cliente (handshakes, rechazos, mensajes/s)
+ *    y la latencia de procesamiento en el servidor (p50/p99 por tipo de mensaje)
+ *    desde /api/dispositivos/estadisticas/websocket.
+ */
+public class SimuladorDispositivos {
+
+    private static final int TAMANO_LOTE_REGISTRO = 500;
+
+    public static void main(String[] args) throws Exception {
+        ConfiguracionSimulador configuracion;
+        try {
+            configuracion = ConfiguracionSimulador.desdeArgumentos(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("❌ " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        new SimuladorDispositivos(configuracion).ejecutar();
+    }
+
+    private final ConfiguracionSimulador configuracion;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MetricasSimulador metricas = new MetricasSimulador();
+    private final HttpClient cliente;
+
+    public SimuladorDispositivos(ConfiguracionSimulador configuracion) {
+        this.configuracion = configuracion;
+        this.cliente = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    public void ejecutar() throws Exception {
+        System.out.printf("📺 Simulando %d dispositivos contra %s durante %ds%n",
+                configuracion.dispositivos(), configuracion.uriWebSocket(), configuracion.duracion().toSeconds());
+        registrarDispositivos();
+
+        List<DispositivoVirtual> dispositivos = new ArrayList<>(configuracion.dispositivos());
+        ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor();
+        long rampaMs = configuracion.rampa().toMillis();
+        for (int i = 0; i < configuracion.dispositivos(); i++) {
+            Duration retraso = Duration.ofMillis(rampaMs * i / configuracion.dispositivos());
+            DispositivoVirtual dispositivo =
+                    new DispositivoVirtual(i + 1, configuracion, cliente, objectMapper, metricas, retraso);
+            dispositivos.add(dispositivo);
+            hilos.submit(dispositivo);
+        }
+
+        long inicio = System.nanoTime();
+        coordinar(dispositivos, inicio);
+        long duracion = System.nanoTime() - inicio;
+
+        dispositivos.forEach(DispositivoVirtual::detener);
+        hilos.shutdown();
+        if (!hilos.awaitTermination(5, TimeUnit.SECONDS)) {
+            hilos.shutdownNow();
+            hilos.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        imprimirResumen(duracion);
+        imprimirLatenciasServidor();
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private void coordinar(List<DispositivoVirtual> dispositivos, long inicio) throws InterruptedException {
+        long finNanos = inicio + configuracion.duracion().toNanos();
+        long tormentaMs = configuracion.tormentaCada().toMillis();
+        long proximaTormenta = tormentaMs > 0 ? System.currentTimeMillis() + tormentaMs : Long.MAX_VALUE;
+        double churnPorSegundo = dispositivos.size() * configuracion.churnPorcentajeMinuto() / 100.0 / 60.0;
+        double churnAcumulado = 0;
+        long mensajesAnteriores = 0;
+        int segundos = 0;
+
+        while (System.nanoTime() < finNanos) {
+            Thread.sleep(1000);
+            segundos++;
+
+            churnAcumulado += churnPorSegundo;
+            while (churnAcumulado >= 1) {
+                dispositivos.get(ThreadLocalRandom.current().nextInt(dispositivos.size())).desconectar("churn");
+                churnAcumulado--;
+            }
+
+            if (System.currentTimeMillis() >= proximaTormenta) {
+                System.out.printf("⚡ Tormenta de reconexión: cortando %d sesiones%n", metricas.conectados.get());
+                dispositivos.forEach(d -> d.desconectar("tormenta"));
+                proximaTormenta += tormentaMs;
+            }
+
+            if (segundos % 10 == 0) {
+                long mensajes = metricas.mensajesEnviados.sum();
+                System.out.printf("[%4ds] conectados=%d  mensajes/s=%.1f  handshake p50=%dms p99=%dms  rechazos=%d%n",
+                        segundos, metricas.conectados.get(), (mensajes - mensajesAnteriores) / 10.0,
+                        metricas.latenciaHandshake.percentil(0.5), metricas.latenciaHandshake.percentil(0.99),
+                        metricas.totalRechazos());
+                mensajesAnteriores = mensajes;
+            }
+        }
+    }
+
+    private void registrarDispositivos() throws Exception {
+        int registrados = 0;
+        for (int desde = 1; desde <= configuracion.dispositivos(); desde += TAMANO_LOTE_REGISTRO) {
+            int hasta = Math.min(configuracion.dispositivos(), desde + TAMANO_LOTE_REGISTRO - 1);
+            List<Map<String, Object>> lote = new ArrayList<>(hasta - desde + 1);
+            for (int i = desde; i <= hasta; i++) {
+                Map<String, Object> dispositivo = new LinkedHashMap<>();
+                dispositivo.put("nombre", "Simulado " + i);
+                dispositivo.put("macAddress", configuracion.macAddress(i));
+                dispositivo.put("ubicacion", "Ubicación simulada " + (i % configuracion.ubicaciones() + 1));
+                dispositivo.put("descripcion", "Dispositivo del simulador de carga");
+                dispositivo.put("propietarioId", configuracion.propietarioId());
+                lote.add(dispositivo);
+            }
+
+            HttpRequest request = HttpRequest.newBuilder(configuracion.uriApi("/api/dispositivos/lote"))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(60))
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(lote)))
+                    .build();
+            HttpResponse<String> respuesta = cliente.send(request, HttpResponse.BodyHandlers.ofString());
+            if (respuesta.statusCode() != 200) {
+                throw new IllegalStateException("El registro masivo falló (" + respuesta.statusCode() + "): "
+                        + respuesta.body());
+            }
+            registrados += objectMapper.readTree(respuesta.body()).path("registrados").size();
+        }
+        System.out.printf("✅ %d dispositivos nuevos registrados (el resto ya existía)%n", registrados);
+    }
+
+    private void imprimirResumen(long duracionNanos) {
+        double segundos = duracionNanos / 1e9;
+        HistogramaLatencias handshake = metricas.latenciaHandshake;
+        System.out.println();
+        System.out.println("===== Resumen del cliente =====");
+        System.out.printf("Duración:               %.0fs%n", segundos);
+        System.out.printf("Conexiones:             %d (reconexiones: %d)%n",
+                metricas.conexiones.sum(), metricas.reconexiones.sum());
+        System.out.printf("Handshake:              p50=%dms p99=%dms%n",
+                handshake.percentil(0.5), handshake.percentil(0.99));
+        System.out.printf("Handshakes rechazados:  %s%n", metricas.rechazos());
+        System.out.printf("Desconexiones:          provocadas=%d  cerradas por el servidor=%d%n",
+                metricas.desconexionesProvocadas.sum(), metricas.cierresDelServidor.sum());
+        System.out.printf("Mensajes enviados:      %d (%.1f/s, errores: %d)%n",
+                metricas.mensajesEnviados.sum(), metricas.mensajesEnviados.sum() / segundos,
+                metricas.erroresEnvio.sum());
+        System.out.printf("Comandos recibidos:     %d%n", metricas.comandosRecibidos.sum());
+    }
+
+    private void imprimirLatenciasServidor() {
+        System.out.println();
+        System.out.println("===== Latencia en el servidor (ventana reciente) =====");
+        try {
+            HttpRequest request = HttpRequest.newBuilder(
+                            configuracion.uriApi("/api/dispositivos/estadisticas/websocket"))
+                    .timeout(Duration.ofSeconds(10))
+                    .GET()
+                    .build();
+            HttpResponse<String> respuesta = cliente.send(request, HttpResponse.BodyHandlers.ofString());
+            if (respuesta.statusCode() != 200) {
+                System.out.println("No disponible (" + respuesta.statusCode() + ")");
+                return;
+            }
+            System.out.printf("%-22s %10s %10s %10s %10s%n", "tipo", "cantidad", "p50 ms", "p99 ms", "max ms");
+            for (JsonNode fila : objectMapper.readTree(respuesta.body())) {
+                System.out.printf("%-22s %10d %10.2f %10.2f %10.2f%n",
+                        fila.path("tipo").asText(), fila.path("cantidad").asLong(),
+                        fila.path("p50Ms").asDouble(), fila.path("p99Ms").asDouble(), fila.path("maxMs").asDouble());
+            }
+        } catch (Exception e) {
+            System.out.println("No se pudo consultar el servidor: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.innoad.usuarios.benchmark;
+
+import com.innoad.usuarios.modelo.Permiso;
+import com.innoad.usuarios.modelo.Usuario;
+import com.innoad.usuarios.seguridad.JwtServicio;
+import com.innoad.usuarios.seguridad.ListaRevocacion;
+import com.innoad.usuarios.seguridad.UsuarioAutenticado;
+import com.innoad.usuarios.servicio.PermisosServicio;
+import org.openjdk.jmh.annotations.*;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo por petición de la autenticación JWT
+ *
+ * Mide por separado la verificación del token (firma HMAC y lectura de
+ * claims), la consulta a la lista de revocación con y sin revocaciones para
+ * el usuario, y el camino completo que recorre FiltroAutenticacionJwt. La
+ * lista se llena con revocaciones de otros usuarios para que el filtro de
+ * Bloom trabaje con una ocupación realista.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AutenticacionJwtBenchmark {
+
+    private static final String SECRETO = "innoad-clave-secreta-muy-segura-2024";
+
+    @Param({"0", "10000"})
+    private int revocacionesPrevias;
+
+    private JwtServicio jwtServicio;
+    private ListaRevocacion listaRevocacion;
+    private PermisosServicio permisosServicio;
+    private Usuario usuario;
+    private String tokenAcceso;
+    private UsuarioAutenticado identidad;
+    private UsuarioAutenticado identidadRevocada;
+
+    @Setup
+    public void preparar() {
+        RepositorioUsuariosEnMemoria repositorio = RepositorioUsuariosEnMemoria.conUsuarios(2);
+        usuario = repositorio.usuario(1L);
+        usuario.getRol().getPermisos().add(Permiso.USUARIOS_VER);
+        permisosServicio = new PermisosServicio(repositorio.rolRepositorio());
+        permisosServicio.recompilar();
+
+        jwtServicio = new JwtServicio(SECRETO, 86_400_000L, 604_800_000L);
+        // La lista solo usa JDBC al recargar desde auditoría, que aquí no se llama
+        listaRevocacion = new ListaRevocacion(null, null, 100_000, 604_800_000L);
+        long ahora = Instant.now().getEpochSecond();
+        for (int i = 0; i < revocacionesPrevias; i++) {
+            listaRevocacion.revocar(1_000_000L + i, ahora - i);
+        }
+        listaRevocacion.revocar(2L, ahora);
+
+        tokenAcceso = jwtServicio.emitir(usuario).getTokenAcceso();
+        identidad = jwtServicio.validar(tokenAcceso, JwtServicio.TIPO_ACCESO);
+        identidadRevocada = new UsuarioAutenticado(2L, "usuario1@innoad.com", 1L, ahora);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String emitirTokens() {
+        return jwtServicio.emitir(usuario).getTokenAcceso();
+    }
+
+    @Benchmark
+    public UsuarioAutenticado validarToken() {
+        return jwtServicio.validar(tokenAcceso, JwtServicio.TIPO_ACCESO);
+    }
+
+    @Benchmark
+    public boolean consultarRevocacionUsuarioSinRevocar() {
+        return listaRevocacion.estaRevocado(identidad.idUsuario(), identidad.emitidoEn());
+    }
+
+    @Benchmark
+    public boolean consultarRevocacionUsuarioRevocado() {
+        return listaRevocacion.estaRevocado(identidadRevocada.idUsuario(), identidadRevocada.emitidoEn());
+    }
+
+    /**
+     * Lo que hace el filtro en cada petición autenticada
+     */
+    @Benchmark
+    public long autenticarPeticion() {
+        UsuarioAutenticado autenticado = jwtServicio.validar(tokenAcceso, JwtServicio.TIPO_ACCESO);
+        if (listaRevocacion.estaRevocado(autenticado.idUsuario(), autenticado.emitidoEn())) {
+            return 0L;
+        }
+        return permisosServicio.mascara(autenticado.idRol());
+    }
+}
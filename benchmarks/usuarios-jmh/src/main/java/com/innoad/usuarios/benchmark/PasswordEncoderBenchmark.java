@@ -0,0 +1,45 @@
+package com.innoad.usuarios.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de BCrypt según la fuerza configurada
+ *
+ * Cada punto de fuerza duplica el tiempo de encode/matches; sirve para elegir
+ * un valor que resista fuerza bruta sin volver lento el login.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordEncoderBenchmark {
+
+    private static final String CONTRASENA = "Innoad2024*Segura";
+
+    @Param({"4", "8", "10", "12"})
+    private int fuerza;
+
+    private PasswordEncoder passwordEncoder;
+    private String hash;
+
+    @Setup
+    public void preparar() {
+        passwordEncoder = new BCryptPasswordEncoder(fuerza);
+        hash = passwordEncoder.encode(CONTRASENA);
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode(CONTRASENA);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches(CONTRASENA, hash);
+    }
+}
@@ -0,0 +1,110 @@
+package com.innoad.usuarios.benchmark;
+
+import com.innoad.usuarios.modelo.Rol;
+import com.innoad.usuarios.modelo.Usuario;
+import com.innoad.usuarios.repositorio.RolRepositorio;
+import com.innoad.usuarios.repositorio.UsuarioRepositorio;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Repositorios falsos en memoria para los benchmarks
+ *
+ * Implementan con un proxy solo los métodos que usa {@code UsuarioServicio} en
+ * las rutas medidas (findById, findAll, findByCorreo, existsByCorreo, save...).
+ * Cualquier otro método lanza UnsupportedOperationException, así un benchmark
+ * que empiece a depender de una consulta nueva falla en lugar de medir nada.
+ */
+public final class RepositorioUsuariosEnMemoria {
+
+    private final Map<Long, Usuario> usuarios = new ConcurrentHashMap<>();
+    private final Map<Long, Rol> roles = new ConcurrentHashMap<>();
+    private final AtomicLong secuencia = new AtomicLong();
+
+    /**
+     * Crea un repositorio con un rol y cantidad usuarios de ejemplo
+     */
+    public static RepositorioUsuariosEnMemoria conUsuarios(int cantidad) {
+        RepositorioUsuariosEnMemoria repositorio = new RepositorioUsuariosEnMemoria();
+        Rol rol = new Rol();
+        rol.setIdRol(1L);
+        rol.setNombre("USUARIO");
+        rol.setDescripcion("Usuario estándar");
+        repositorio.roles.put(rol.getIdRol(), rol);
+
+        for (int i = 0; i < cantidad; i++) {
+            Usuario usuario = new Usuario();
+            usuario.setNombre("Usuario Benchmark " + i);
+            usuario.setCorreo("usuario" + i + "@innoad.com");
+            usuario.setContrasena("$2a$10$7EqJtq98hPqEX7fNZaFWoOHiSgS3Z3Rj6Y9X0rZNmQYxU7r4PzF5K");
+            usuario.setRol(rol);
+            usuario.setUltimoAcceso(LocalDateTime.now().minusDays(i % 30));
+            repositorio.guardar(usuario);
+        }
+        return repositorio;
+    }
+
+    public Usuario usuario(long id) {
+        return usuarios.get(id);
+    }
+
+    public UsuarioRepositorio usuarioRepositorio() {
+        return (UsuarioRepositorio) Proxy.newProxyInstance(
+                UsuarioRepositorio.class.getClassLoader(),
+                new Class<?>[]{UsuarioRepositorio.class},
+                (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "findById" -> Optional.ofNullable(usuarios.get((Long) args[0]));
+                    case "findAll" -> new ArrayList<>(usuarios.values());
+                    case "findByCorreo" -> buscarPorCorreo((String) args[0]);
+                    case "existsByCorreo" -> buscarPorCorreo((String) args[0]).isPresent();
+                    case "findUsuariosActivosPorRol" -> activosPorRol((Long) args[0]);
+                    case "save" -> guardar((Usuario) args[0]);
+                    case "count" -> (long) usuarios.size();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "UsuarioRepositorio en memoria";
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+
+    public RolRepositorio rolRepositorio() {
+        return (RolRepositorio) Proxy.newProxyInstance(
+                RolRepositorio.class.getClassLoader(),
+                new Class<?>[]{RolRepositorio.class},
+                (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "findById" -> Optional.ofNullable(roles.get((Long) args[0]));
+                    case "findAll", "findAllConPermisos" -> new ArrayList<>(roles.values());
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "RolRepositorio en memoria";
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private Usuario guardar(Usuario usuario) {
+        if (usuario.getIdUsuario() == null) {
+            usuario.setIdUsuario(secuencia.incrementAndGet());
+        }
+        usuarios.put(usuario.getIdUsuario(), usuario);
+        return usuario;
+    }
+
+    private Optional<Usuario> buscarPorCorreo(String correo) {
+        return usuarios.values().stream().filter(u -> Objects.equals(u.getCorreo(), correo)).findFirst();
+    }
+
+    private List<Usuario> activosPorRol(Long rolId) {
+        return usuarios.values().stream()
+                .filter(u -> Boolean.TRUE.equals(u.getActivo()) && u.getRol().getIdRol().equals(rolId))
+                .toList();
+    }
+}
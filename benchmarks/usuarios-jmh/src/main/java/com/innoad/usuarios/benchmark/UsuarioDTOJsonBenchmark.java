@@ -0,0 +1,63 @@
+package com.innoad.usuarios.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.innoad.usuarios.dto.UsuarioDTO;
+import org.openjdk.jmh.annotations.*;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización y deserialización JSON de UsuarioDTO
+ *
+ * El ObjectMapper se configura como lo hace Spring Boot (módulos registrados,
+ * fechas en ISO-8601) para que los números se parezcan a los del servicio.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UsuarioDTOJsonBenchmark {
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private UsuarioDTO dto;
+    private String json;
+
+    @Setup
+    public void preparar() throws Exception {
+        ObjectMapper objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        writer = objectMapper.writerFor(UsuarioDTO.class);
+        reader = objectMapper.readerFor(UsuarioDTO.class);
+
+        dto = new UsuarioDTO("María José Pérez", "maria.perez@innoad.com", null, 2L);
+        dto.setIdUsuario(42L);
+        dto.setNombreRol("USUARIO");
+        dto.setUltimoAcceso(LocalDateTime.now());
+        dto.setCreatedAt(LocalDateTime.now().minusMonths(3));
+        json = writer.writeValueAsString(dto);
+    }
+
+    @Benchmark
+    public String serializar() throws Exception {
+        return writer.writeValueAsString(dto);
+    }
+
+    @Benchmark
+    public byte[] serializarBytes() throws Exception {
+        return writer.writeValueAsBytes(dto);
+    }
+
+    @Benchmark
+    public UsuarioDTO deserializar() throws Exception {
+        return reader.readValue(json);
+    }
+}
@@ -0,0 +1,64 @@
+package com.innoad.usuarios.benchmark;
+
+import com.innoad.usuarios.dto.UsuarioDTO;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Validación del campo nombre de UsuarioDTO (@NotBlank, @Size y @Pattern)
+ *
+ * Compara la validación completa de Bean Validation con la expresión regular
+ * precompilada sola, para separar el costo del motor de validación del costo
+ * del patrón. Incluye un nombre largo que casi cumple, el peor caso del patrón.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidacionNombreBenchmark {
+
+    // Mismo literal que UsuarioDTO.nombre
+    private static final Pattern PATRON_NOMBRE = Pattern.compile("^[a-zA-ZÀ-ÿ\u00f1\u00d1\s]+$");
+
+    @Param({"María José Pérez", "Nombre Con Numero 3", "Aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa1"})
+    private String nombre;
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private UsuarioDTO dto;
+
+    @Setup
+    public void preparar() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        dto = new UsuarioDTO(nombre, "usuario@innoad.com", "Innoad2024*Segura", 1L);
+    }
+
+    @TearDown
+    public void cerrar() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UsuarioDTO>> validarPropiedadNombre() {
+        return validator.validateProperty(dto, "nombre");
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UsuarioDTO>> validarDTOCompleto() {
+        return validator.validate(dto);
+    }
+
+    @Benchmark
+    public boolean soloExpresionRegular() {
+        return PATRON_NOMBRE.matcher(nombre).matches();
+    }
+}
@@ -0,0 +1,68 @@
+package com.innoad.usuarios.servicio;
+
+import com.innoad.usuarios.benchmark.RepositorioUsuariosEnMemoria;
+import com.innoad.usuarios.dto.UsuarioDTO;
+import com.innoad.usuarios.modelo.Usuario;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de UsuarioServicio contra repositorios en memoria
+ *
+ * Mide la conversión entidad -> DTO (una y en listados) y la validación de la
+ * política de contraseñas, sin base de datos ni contexto de Spring. Está en el
+ * paquete del servicio para llegar a los métodos de utilidad.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UsuarioServicioBenchmark {
+
+    @Param({"100", "1000"})
+    private int cantidadUsuarios;
+
+    private UsuarioServicio servicio;
+    private Usuario usuario;
+
+    @Setup
+    public void preparar() {
+        RepositorioUsuariosEnMemoria repositorio = RepositorioUsuariosEnMemoria.conUsuarios(cantidadUsuarios);
+        // La auditoría, los permisos y la revocación no intervienen en las rutas medidas;
+        // la política es la de application.yml con la lista de contraseñas comunes del jar
+        PoliticaContrasenaServicio politica = new PoliticaContrasenaServicio(8, 72, true, true, true, false, "", "");
+        servicio = new UsuarioServicio(repositorio.usuarioRepositorio(), repositorio.rolRepositorio(),
+                NoOpPasswordEncoder.getInstance(), null, null, null, politica);
+        usuario = repositorio.usuario(1L);
+    }
+
+    @Benchmark
+    public UsuarioDTO convertirADTO() {
+        return servicio.convertirADTO(usuario);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<UsuarioDTO> obtenerTodosLosUsuarios() {
+        return servicio.obtenerTodosLosUsuarios();
+    }
+
+    @Benchmark
+    public void validarPoliticaContrasenaValida() {
+        servicio.validarPoliticaContrasena("Innoad2024*Segura");
+    }
+
+    @Benchmark
+    public void validarPoliticaContrasenaInvalida(Blackhole blackhole) {
+        try {
+            servicio.validarPoliticaContrasena("corta");
+        } catch (RuntimeException e) {
+            blackhole.consume(e);
+        }
+    }
+}
@@ -18,8 +18,18 @@ CREATE TABLE IF NOT EXISTS roles (
   nombre VARCHAR(50) NOT NULL UNIQUE,
   descripcion VARCHAR(255),
   activo BOOLEAN DEFAULT TRUE,
+  id_rol_padre INT UNSIGNED NULL,
   created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
-  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  FOREIGN KEY (id_rol_padre) REFERENCES roles(id_rol)
+) ENGINE=InnoDB;
+
+-- Permisos declarados por rol (los heredados del rol padre no se repiten aquí)
+CREATE TABLE IF NOT EXISTS roles_permisos (
+  id_rol INT UNSIGNED NOT NULL,
+  permiso VARCHAR(50) NOT NULL,
+  PRIMARY KEY (id_rol, permiso),
+  FOREIGN KEY (id_rol) REFERENCES roles(id_rol) ON DELETE CASCADE
 ) ENGINE=InnoDB;
 
 -- Tabla de usuarios del sistema
@@ -33,11 +43,22 @@ CREATE TABLE IF NOT EXISTS usuarios (
   ultimo_acceso DATETIME NULL,
   intentos_login INT DEFAULT 0,
   bloqueado_hasta DATETIME NULL,
+  marcado_inactivo_en DATETIME NULL,
   created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
   updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  version BIGINT NOT NULL DEFAULT 0,  -- Control de concurrencia optimista y ETag de la API
   FOREIGN KEY (id_rol) REFERENCES roles(id_rol)
 ) ENGINE=InnoDB;
 
+-- Avance de los procesos por lotes, para retomarlos tras un reinicio
+CREATE TABLE IF NOT EXISTS procesos_checkpoint (
+  proceso VARCHAR(50) PRIMARY KEY,
+  ultimo_id INT UNSIGNED NOT NULL DEFAULT 0,
+  corte DATETIME NULL,
+  completado BOOLEAN NOT NULL DEFAULT TRUE,
+  actualizado_en DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB;
+
 -- Tokens de recuperación de contraseña
 CREATE TABLE IF NOT EXISTS password_reset_tokens (
   id_token INT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
@@ -49,6 +70,19 @@ CREATE TABLE IF NOT EXISTS password_reset_tokens (
   FOREIGN KEY (usuario_id) REFERENCES usuarios(id_usuario)
 ) ENGINE=InnoDB;
 
+-- Tokens JWT revocados antes de expirar; de aquí se reconstruye la lista en memoria al arrancar.
+-- tipo 'puntual': el par emitido en iat (cierre de sesión, renovación);
+-- tipo 'corte': todos los tokens del usuario emitidos antes de iat (contraseña, rol, desactivación)
+CREATE TABLE IF NOT EXISTS tokens_revocados (
+  usuario_id INT UNSIGNED NOT NULL,
+  tipo ENUM('puntual','corte') NOT NULL,
+  iat BIGINT NOT NULL,              -- Segundos epoch, como el claim iat
+  expira_en DATETIME NOT NULL,      -- Pasado este instante ya no hay token vigente afectado
+  PRIMARY KEY (usuario_id, tipo, iat),
+  INDEX idx_token_revocado_expira (expira_en),
+  FOREIGN KEY (usuario_id) REFERENCES usuarios(id_usuario) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
 -- ================================
 -- MÓDULO DE CAMPAÑAS
 -- ================================
@@ -71,6 +105,9 @@ CREATE TABLE IF NOT EXISTS campanas (
 ) ENGINE=InnoDB;
 
 -- Tabla de anuncios dentro de campañas
+-- contenido_id apunta a contenido_publicidad, que se crea más abajo en el módulo de
+-- dispositivos: sin revisión de claves foráneas MySQL acepta la referencia adelantada
+SET FOREIGN_KEY_CHECKS = 0;
 CREATE TABLE IF NOT EXISTS anuncios (
   id_anuncio INT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
   contenido TEXT NOT NULL,
@@ -80,12 +117,16 @@ CREATE TABLE IF NOT EXISTS anuncios (
   estado ENUM('programado','publicado','pausado') DEFAULT 'programado',
   impresiones INT DEFAULT 0,
   clics INT DEFAULT 0,
-  costo_total DECIMAL(10,2) DEFAULT 0,
+  costo_total DECIMAL(14,4) DEFAULT 0,  -- Misma escala que costo_impresion: los incrementos por impresión no se redondean
   cpc_maximo DECIMAL(6,2) DEFAULT 0,
+  costo_impresion DECIMAL(10,4) DEFAULT 0,
+  contenido_id INT UNSIGNED NULL,      -- Contenido que se reproduce en pantalla (la FK crea el índice para contar impresiones)
   created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
   updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-  FOREIGN KEY (id_campana) REFERENCES campanas(id_campana)
+  FOREIGN KEY (id_campana) REFERENCES campanas(id_campana),
+  CONSTRAINT fk_anuncio_contenido FOREIGN KEY (contenido_id) REFERENCES contenido_publicidad(id_contenido)
 ) ENGINE=InnoDB;
+SET FOREIGN_KEY_CHECKS = 1;
 
 -- ================================
 -- MÓDULO DE REUNIONES
@@ -174,8 +215,11 @@ CREATE TABLE IF NOT EXISTS dispositivos_raspberry (
   ip_address VARCHAR(45),
   ubicacion VARCHAR(200) NOT NULL,
   descripcion TEXT,
-  estado ENUM('conectado','desconectado','error','mantenimiento','reproduciendo') DEFAULT 'desconectado',
+  latitud DOUBLE NULL,
+  longitud DOUBLE NULL,
+  estado ENUM('conectado','desconectado','error','mantenimiento','reproduciendo','actualizando','pendiente') DEFAULT 'desconectado',
   ultimo_heartbeat DATETIME,
+  contenido_actual_id INT UNSIGNED NULL,
   fecha_registro DATETIME DEFAULT CURRENT_TIMESTAMP,
   version_software VARCHAR(50),
   resolucion_pantalla VARCHAR(20),
@@ -186,9 +230,22 @@ CREATE TABLE IF NOT EXISTS dispositivos_raspberry (
   propietario_id INT UNSIGNED NOT NULL,
   created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
   updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  version BIGINT NOT NULL DEFAULT 0,  -- Control de concurrencia optimista y ETag de la API
   FOREIGN KEY (propietario_id) REFERENCES usuarios(id_usuario)
 ) ENGINE=InnoDB;
 
+-- Última configuración de pantalla que reportó cada dispositivo en su heartbeat
+-- (la deseada son las columnas de dispositivos_raspberry)
+CREATE TABLE IF NOT EXISTS dispositivos_config_reportada (
+  id_dispositivo INT UNSIGNED PRIMARY KEY,
+  volumen_audio INT NULL,
+  brillo_pantalla INT NULL,
+  orientacion ENUM('horizontal','vertical') NULL,
+  resolucion_pantalla VARCHAR(20) NULL,
+  reportada_en DATETIME NOT NULL,
+  FOREIGN KEY (id_dispositivo) REFERENCES dispositivos_raspberry(id_dispositivo) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
 -- Tabla de contenido para publicidad en pantallas
 CREATE TABLE IF NOT EXISTS contenido_publicidad (
   id_contenido INT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
@@ -246,6 +303,14 @@ CREATE TABLE IF NOT EXISTS metricas_dispositivos (
   FOREIGN KEY (dispositivo_id) REFERENCES dispositivos_raspberry(id_dispositivo)
 ) ENGINE=InnoDB;
 
+-- Lotes de impresiones ya volcados en anuncios (evita sumarlos dos veces al reintentar)
+CREATE TABLE IF NOT EXISTS impresiones_lotes (
+  id_lote VARCHAR(36) PRIMARY KEY,
+  contenidos INT NOT NULL,
+  impresiones BIGINT NOT NULL,
+  fecha DATETIME NOT NULL
+) ENGINE=InnoDB;
+
 -- ================================
 -- ÍNDICES PARA OPTIMIZACIÓN
 -- ================================
@@ -255,12 +320,22 @@ CREATE INDEX idx_usuario_correo ON usuarios(correo);
 CREATE INDEX idx_usuario_activo ON usuarios(activo);
 CREATE INDEX idx_usuario_rol ON usuarios(id_rol);
 
+-- Purga por lotes de tokens de recuperación
+CREATE INDEX idx_reset_token_expiry ON password_reset_tokens(expiry_date);
+
 -- Índices para campañas
 CREATE INDEX idx_campana_nombre ON campanas(nombre);
 CREATE INDEX idx_campana_estado ON campanas(estado);
 CREATE INDEX idx_campana_usuario ON campanas(id_usuario);
 CREATE INDEX idx_campana_fechas ON campanas(fecha_inicio, fecha_fin);
 
+-- Ciclo de vida de campañas: transiciones por fecha y cambios recientes
+CREATE INDEX idx_campana_estado_fin ON campanas(estado, fecha_fin);
+CREATE INDEX idx_campana_actualizada ON campanas(updated_at);
+CREATE INDEX idx_anuncio_estado_publicacion ON anuncios(estado, fecha_publicacion);
+CREATE INDEX idx_anuncio_actualizado ON anuncios(updated_at);
+CREATE INDEX idx_impresiones_lote_fecha ON impresiones_lotes(fecha);
+
 -- Índices para reuniones
 CREATE INDEX idx_reunion_fecha ON reuniones(fecha);
 CREATE INDEX idx_reunion_estado ON reuniones(estado);
@@ -276,6 +351,7 @@ CREATE INDEX idx_dispositivo_mac ON dispositivos_raspberry(mac_address);
 CREATE INDEX idx_dispositivo_estado ON dispositivos_raspberry(estado);
 CREATE INDEX idx_dispositivo_ubicacion ON dispositivos_raspberry(ubicacion);
 CREATE INDEX idx_dispositivo_ultimo_heartbeat ON dispositivos_raspberry(ultimo_heartbeat);
+CREATE INDEX idx_dispositivo_coordenadas ON dispositivos_raspberry(latitud, longitud);
 
 -- Índices para auditoría
 CREATE INDEX idx_auditoria_tabla ON auditoria(tabla_afectada);
@@ -293,6 +369,30 @@ INSERT INTO roles (nombre, descripcion) VALUES
 ('EDITOR', 'Editor de contenido y campañas'),
 ('VIEWER', 'Solo visualización de información');
 
+-- Jerarquía: VIEWER <- EDITOR <- MANAGER <- ADMIN
+UPDATE roles SET id_rol_padre = (SELECT id_rol FROM (SELECT id_rol FROM roles WHERE nombre = 'VIEWER') v) WHERE nombre = 'EDITOR';
+UPDATE roles SET id_rol_padre = (SELECT id_rol FROM (SELECT id_rol FROM roles WHERE nombre = 'EDITOR') e) WHERE nombre = 'MANAGER';
+UPDATE roles SET id_rol_padre = (SELECT id_rol FROM (SELECT id_rol FROM roles WHERE nombre = 'MANAGER') m) WHERE nombre = 'ADMIN';
+
+INSERT INTO roles_permisos (id_rol, permiso)
+SELECT r.id_rol, p.permiso FROM roles r JOIN (
+  SELECT 'VIEWER' AS rol, 'CAMPANAS_VER' AS permiso UNION ALL
+  SELECT 'VIEWER', 'CONTENIDO_VER' UNION ALL
+  SELECT 'VIEWER', 'DISPOSITIVOS_VER' UNION ALL
+  SELECT 'VIEWER', 'REPORTES_VER' UNION ALL
+  SELECT 'EDITOR', 'CAMPANAS_CREAR' UNION ALL
+  SELECT 'EDITOR', 'CAMPANAS_EDITAR' UNION ALL
+  SELECT 'EDITOR', 'CONTENIDO_GESTIONAR' UNION ALL
+  SELECT 'MANAGER', 'CAMPANAS_APROBAR' UNION ALL
+  SELECT 'MANAGER', 'USUARIOS_VER' UNION ALL
+  SELECT 'MANAGER', 'USUARIOS_GESTIONAR' UNION ALL
+  SELECT 'MANAGER', 'DISPOSITIVOS_GESTIONAR' UNION ALL
+  SELECT 'MANAGER', 'REUNIONES_GESTIONAR' UNION ALL
+  SELECT 'ADMIN', 'ROLES_GESTIONAR' UNION ALL
+  SELECT 'ADMIN', 'AUDITORIA_VER' UNION ALL
+  SELECT 'ADMIN', 'SISTEMA_ADMINISTRAR'
+) p ON p.rol = r.nombre;
+
 -- Usuario administrador inicial (contraseña: admin123)
 INSERT INTO usuarios (nombre, correo, contrasena, id_rol) VALUES 
 ('Administrador', 'admin@innoad.com', '$2a$10$8K1p/a1Zy4K19.oYkVwYk.sRwDf9hVx9qZk5.GjEp2QbHN5.3ZJ.', 1);
@@ -154,7 +154,7 @@ def info_servicios():
             },
             'prediccion_rendimiento': {
                 'descripcion': 'Predicción de CTR, CPC y conversiones',
-                'endpoints': ['/api/ia/predecir-ctr', '/api/ia/predecir-conversiones'],
+                'endpoints': ['/api/ia/predecir-ctr', '/api/ia/predecir-conversiones', '/api/ia/predecir-lote'],
                 'version': '1.0.0'
             },
             'optimizacion_anuncios': {
@@ -436,6 +436,93 @@ def analisis_audiencia():
             'status': 'error'
         }), 500
 
+# ========================================
+# PREDICCIONES POR LOTE
+# ========================================
+
+MAX_ITEMS_LOTE = 500
+CAMPOS_REQUERIDOS_ROI = ['presupuesto', 'duracion_dias', 'plataforma', 'tipo_objetivo']
+
+def _predecir_item(tipo, datos):
+    """
+    Calcula una predicción con el mismo formato que el endpoint individual
+    """
+    if tipo == 'ctr':
+        prediccion = predictor_rendimiento.predecir_ctr(datos)
+        return {
+            'ctr_predicho': prediccion['ctr'],
+            'rango_confianza': prediccion.get('rango', {}),
+            'factores_clave': prediccion.get('factores', [])
+        }
+    if tipo == 'conversiones':
+        prediccion = predictor_rendimiento.predecir_conversiones(datos)
+        return {
+            'conversiones_predichas': prediccion['conversiones'],
+            'tasa_conversion': prediccion.get('tasa', 0),
+            'valor_estimado': prediccion.get('valor', 0)
+        }
+    if tipo == 'roi':
+        faltantes = [campo for campo in CAMPOS_REQUERIDOS_ROI if campo not in datos]
+        if faltantes:
+            raise ValueError(f'Campos requeridos faltantes: {", ".join(faltantes)}')
+        prediccion = analizador_campanas.predecir_roi(datos)
+        return {
+            'prediccion': prediccion,
+            'confianza': prediccion.get('confianza', 0.85),
+            'recomendaciones': prediccion.get('recomendaciones', [])
+        }
+    if tipo == 'optimizacion':
+        anuncio_id = datos.get('anuncio_id')
+        if not anuncio_id:
+            raise ValueError('ID de anuncio requerido')
+        return {
+            'anuncio_id': anuncio_id,
+            'recomendaciones': optimizador_anuncios.optimizar_anuncio(anuncio_id)
+        }
+    raise ValueError(f'Tipo de predicción no soportado: {tipo}')
+
+@app.route('/api/ia/predecir-lote', methods=['POST'])
+def predecir_lote():
+    """
+    Calcula varias predicciones del mismo tipo en una sola llamada
+
+    Cuerpo: {"tipo": "ctr" | "roi" | "conversiones" | "optimizacion", "items": [{...}, ...]}
+    Cada resultado va en la misma posición que su item; un item inválido
+    devuelve status error sin hacer fallar al resto del lote.
+    """
+    try:
+        datos = request.get_json()
+        tipo = datos.get('tipo')
+        items = datos.get('items')
+
+        if not isinstance(items, list) or not items:
+            return jsonify({'error': 'Se requiere una lista de items'}), 400
+        if len(items) > MAX_ITEMS_LOTE:
+            return jsonify({'error': f'Máximo {MAX_ITEMS_LOTE} items por lote'}), 400
+
+        resultados = []
+        for item in items:
+            try:
+                resultado = _predecir_item(tipo, item or {})
+                resultado['status'] = 'success'
+            except Exception as e:
+                resultado = {'error': str(e), 'status': 'error'}
+            resultados.append(resultado)
+
+        return jsonify({
+            'tipo': tipo,
+            'resultados': resultados,
+            'timestamp': datetime.now().isoformat(),
+            'status': 'success'
+        })
+
+    except Exception as e:
+        logger.error(f"Error en predicción por lote: {e}")
+        return jsonify({
+            'error': str(e),
+            'status': 'error'
+        }), 500
+
 # ========================================
 # MANEJO DE ERRORES GLOBAL
 # ========================================
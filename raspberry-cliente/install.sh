@@ -72,6 +72,7 @@ mkdir -p $INSTALL_DIR/config
 # Copiar archivos del cliente
 log_info "Copiando archivos del cliente..."
 cp main.py $INSTALL_DIR/
+cp VERSION $INSTALL_DIR/
 cp requirements.txt $INSTALL_DIR/
 cp config/client.conf $INSTALL_DIR/config/
 cp innoad-cliente.service /etc/systemd/system/
@@ -31,8 +31,13 @@ import psutil
 import requests
 import hashlib
 import os
+import py_compile
+import random
+import shutil
 import signal
 import sys
+import tarfile
+import tempfile
 from datetime import datetime
 from pathlib import Path
 from threading import Thread
@@ -47,6 +52,9 @@ SERVIDOR_INNOAD = os.getenv('INNOAD_SERVER', 'ws://localhost:8086/websocket/rasp
 DIRECTORIO_CONTENIDO = Path(os.getenv('CONTENT_DIR', '/opt/innoad/content'))
 DIRECTORIO_LOGS = Path(os.getenv('LOGS_DIR', '/opt/innoad/logs'))
 DIRECTORIO_CONFIG = Path(os.getenv('CONFIG_DIR', '/opt/innoad/config'))
+ARCHIVO_MANIFIESTO = DIRECTORIO_CONTENIDO / 'manifiesto.json'  # checksum -> archivo local
+DIRECTORIO_INSTALACION = Path(__file__).resolve().parent
+ARCHIVO_VERSION = DIRECTORIO_INSTALACION / 'VERSION'  # versión instalada del cliente
 
 # Obtener MAC address del dispositivo
 try:
@@ -57,6 +65,16 @@ except:
 
 DEVICE_ID = MAC_ADDRESS.replace(':', '')
 
+
+def leer_version_instalada():
+    """
+    Versión del cliente según el archivo VERSION junto a main.py
+    """
+    try:
+        return ARCHIVO_VERSION.read_text().strip() or '0.0.0'
+    except OSError:
+        return '0.0.0'
+
 # Crear directorios necesarios
 for directorio in [DIRECTORIO_CONTENIDO, DIRECTORIO_LOGS, DIRECTORIO_CONFIG]:
     directorio.mkdir(parents=True, exist_ok=True)
@@ -94,6 +112,9 @@ class ClienteInnoAdRaspberry:
         self.contenido_actual = None
         self.proceso_reproduccion = None
         self.intervalo_heartbeat = 30  # segundos
+        self.configuracion_aplicada = {}  # Configuración de pantalla vigente, se reporta en el heartbeat
+        self.manifiesto = self.cargar_manifiesto()
+        self.tarea_sincronizacion = None
         self.intentos_reconexion = 0
         self.max_intentos_reconexion = 10
 
@@ -112,42 +133,61 @@ class ClienteInnoAdRaspberry:
         """
         Establece conexión WebSocket con el servidor InnoAd
 
+        Los reintentos se hacen en este mismo bucle y no por recursión, así un
+        servidor que responde 503 durante horas no hace crecer la pila.
+
         TODO: Implementar autenticación robusta del dispositivo
         TODO: Agregar soporte para certificados SSL/TLS
         """
-        try:
-            headers = {
-                'mac_address': MAC_ADDRESS,
-                'device_type': 'raspberry_pi',
-                'software_version': '1.0.0',
-                'device_id': DEVICE_ID
-            }
+        while True:
+            espera_sugerida = None
+            try:
+                headers = {
+                    'mac_address': MAC_ADDRESS,
+                    'device_type': 'raspberry_pi',
+                    'software_version': leer_version_instalada(),
+                    'device_id': DEVICE_ID
+                }
 
-            logger.info(f"Conectando a servidor InnoAd: {SERVIDOR_INNOAD}")
+                logger.info(f"Conectando a servidor InnoAd: {SERVIDOR_INNOAD}")
 
-            self.websocket = await websockets.connect(
-                SERVIDOR_INNOAD,
-                extra_headers=headers,
-                ping_interval=20,
-                ping_timeout=10,
-                max_size=1024*1024,  # 1MB max message size
-                max_queue=32
-            )
+                self.websocket = await websockets.connect(
+                    SERVIDOR_INNOAD,
+                    extra_headers=headers,
+                    ping_interval=20,
+                    ping_timeout=10,
+                    max_size=1024*1024,  # 1MB max message size
+                    max_queue=32
+                )
 
-            logger.info("✅ Conexión WebSocket establecida exitosamente")
-            self.ejecutando = True
-            self.intentos_reconexion = 0
+                logger.info("✅ Conexión WebSocket establecida exitosamente")
+                self.ejecutando = True
+                self.intentos_reconexion = 0
 
-            # Iniciar tareas concurrentes
-            await asyncio.gather(
-                self.bucle_heartbeat(),
-                self.escuchar_mensajes(),
-                return_exceptions=True
-            )
+                # El servidor responde con lo que falta descargar y lo que se puede borrar
+                await self.enviar_manifiesto()
 
-        except Exception as e:
-            logger.error(f"❌ Error conectando al servidor: {e}")
-            await self.manejar_reconexion()
+                # Iniciar tareas concurrentes
+                await asyncio.gather(
+                    self.bucle_heartbeat(),
+                    self.escuchar_mensajes(),
+                    return_exceptions=True
+                )
+                return
+
+            except websockets.exceptions.InvalidStatusCode as e:
+                # 503: el servidor está admitiendo conexiones de a poco y sugiere cuándo volver
+                espera_sugerida = self.obtener_retry_after(e)
+                if e.status_code == 503 and espera_sugerida:
+                    logger.info(f"⏳ Servidor ocupado, reintento sugerido en {espera_sugerida}s")
+                else:
+                    logger.error(f"❌ Conexión rechazada por el servidor: HTTP {e.status_code}")
+
+            except Exception as e:
+                logger.error(f"❌ Error conectando al servidor: {e}")
+
+            if not await self.manejar_reconexion(espera_sugerida):
+                return
 
     async def escuchar_mensajes(self):
         """
@@ -199,7 +239,14 @@ class ClienteInnoAdRaspberry:
                 await self.reiniciar_dispositivo()
 
             elif comando == 'ACTUALIZAR_SOFTWARE':
-                await self.actualizar_software()
+                await self.actualizar_software(datos)
+
+            elif comando == 'SINCRONIZAR_CONTENIDO':
+                if self.tarea_sincronizacion is None or self.tarea_sincronizacion.done():
+                    self.tarea_sincronizacion = asyncio.create_task(self.sincronizar_contenido(
+                        datos.get('faltantes', []),
+                        datos.get('desalojar', [])
+                    ))
 
             elif comando == 'OBTENER_ESTADO':
                 await self.enviar_estado_completo()
@@ -234,8 +281,8 @@ class ClienteInnoAdRaspberry:
                 await self.enviar_respuesta_error("Error descargando contenido")
                 return
 
-            # Aplicar configuración del dispositivo
-            await self.aplicar_configuracion(configuracion)
+            # Aplicar configuración del dispositivo y registrarla para el heartbeat
+            await self.actualizar_configuracion(configuracion)
 
             # Iniciar reproducción según tipo
             if tipo_contenido in ['imagen', 'jpg', 'png']:
@@ -280,6 +327,21 @@ class ClienteInnoAdRaspberry:
                 logger.error("❌ URL de contenido no proporcionada")
                 return None
 
+            # El mismo archivo pudo llegar antes con otro contenido o en una sincronización
+            archivo_conocido = self.buscar_en_manifiesto(checksum_esperado)
+            if archivo_conocido:
+                logger.info(f"✅ Contenido ya descargado: {archivo_conocido}")
+                return archivo_conocido
+
+            # Imágenes: preferir la variante ajustada a esta pantalla
+            url_variante = info_contenido.get('url_variante')
+            if url_variante and info_contenido.get('tipo') == 'imagen':
+                archivo_variante = self.descargar_variante(contenido_id, url_variante, checksum_esperado)
+                if archivo_variante:
+                    self.registrar_en_manifiesto(checksum_esperado, archivo_variante)
+                    return archivo_variante
+                logger.info("🔄 Variante no disponible, se usa el original")
+
             # Generar nombre de archivo local
             extension = self.obtener_extension_archivo(url, info_contenido.get('tipo'))
             archivo_local = DIRECTORIO_CONTENIDO / f"contenido_{contenido_id}.{extension}"
@@ -288,6 +350,7 @@ class ClienteInnoAdRaspberry:
             if archivo_local.exists():
                 if self.verificar_checksum(archivo_local, checksum_esperado):
                     logger.info(f"✅ Contenido ya existe y es válido: {archivo_local}")
+                    self.registrar_en_manifiesto(checksum_esperado, archivo_local)
                     return archivo_local
                 else:
                     logger.info("🔄 Contenido existe pero checksum no coincide, descargando nuevamente")
@@ -309,6 +372,7 @@ class ClienteInnoAdRaspberry:
                 raise Exception("Checksum del archivo no coincide")
 
             logger.info(f"✅ Contenido descargado exitosamente: {archivo_local}")
+            self.registrar_en_manifiesto(checksum_esperado, archivo_local)
 
             # Notificar descarga completada
             await self.enviar_mensaje({
@@ -324,6 +388,114 @@ class ClienteInnoAdRaspberry:
             logger.error(f"❌ Error descargando contenido: {e}")
             return None
 
+    async def sincronizar_contenido(self, faltantes, desalojar):
+        """
+        Aplica la diferencia que calculó el servidor a partir del manifiesto:
+        borra lo que ya no está programado y descarga solo lo que falta
+        """
+        try:
+            checksum_actual = (self.contenido_actual or {}).get('checksum')
+            borrados = 0
+            for checksum in desalojar:
+                if checksum == checksum_actual:
+                    continue
+                nombre = self.manifiesto.pop(checksum, None)
+                if nombre:
+                    (DIRECTORIO_CONTENIDO / nombre).unlink(missing_ok=True)
+                    borrados += 1
+            if desalojar:
+                self.guardar_manifiesto()
+
+            logger.info(f"🔄 Sincronización: {len(faltantes)} por descargar, {borrados} archivos borrados")
+            for info_contenido in faltantes:
+                await self.descargar_contenido(info_contenido)
+
+        except Exception as e:
+            logger.error(f"❌ Error sincronizando contenido: {e}")
+
+    async def enviar_manifiesto(self):
+        """
+        Envía los checksums del contenido guardado en el dispositivo
+        """
+        await self.enviar_mensaje({
+            'tipo': 'MANIFIESTO_CONTENIDO',
+            'checksums': sorted(self.manifiesto.keys()),
+            'timestamp': datetime.now().isoformat()
+        })
+
+    def cargar_manifiesto(self):
+        """
+        Lee el manifiesto descartando las entradas cuyo archivo ya no existe
+        """
+        try:
+            with open(ARCHIVO_MANIFIESTO) as f:
+                manifiesto = json.load(f)
+            return {checksum: nombre for checksum, nombre in manifiesto.items()
+                    if (DIRECTORIO_CONTENIDO / nombre).exists()}
+        except FileNotFoundError:
+            return {}
+        except Exception as e:
+            logger.warning(f"⚠️ Manifiesto ilegible, se reconstruye: {e}")
+            return {}
+
+    def guardar_manifiesto(self):
+        temporal = ARCHIVO_MANIFIESTO.with_suffix('.tmp')
+        with open(temporal, 'w') as f:
+            json.dump(self.manifiesto, f)
+        temporal.replace(ARCHIVO_MANIFIESTO)
+
+    def buscar_en_manifiesto(self, checksum):
+        nombre = self.manifiesto.get(checksum) if checksum else None
+        if nombre and (DIRECTORIO_CONTENIDO / nombre).exists():
+            return DIRECTORIO_CONTENIDO / nombre
+        return None
+
+    def registrar_en_manifiesto(self, checksum, archivo):
+        if checksum and self.manifiesto.get(checksum) != archivo.name:
+            # Si el archivo se sobrescribió, su checksum anterior ya no vale
+            self.manifiesto = {c: n for c, n in self.manifiesto.items() if n != archivo.name}
+            self.manifiesto[checksum] = archivo.name
+            self.guardar_manifiesto()
+
+    def descargar_variante(self, contenido_id, url_variante, checksum_original):
+        """
+        Descarga la variante de la imagen ajustada a esta pantalla
+
+        El servidor responde 304 si la copia local sigue vigente, la variante
+        con su md5 en X-Checksum, o redirige al original si aún no la generó
+        """
+        archivo_local = DIRECTORIO_CONTENIDO / f"contenido_{contenido_id}_variante"
+        temporal = archivo_local.with_suffix('.tmp')
+        try:
+            cabeceras = {}
+            if archivo_local.exists():
+                cabeceras['If-None-Match'] = f'"{self.calcular_md5(archivo_local)}"'
+
+            with requests.get(url_variante, headers=cabeceras, stream=True, timeout=30) as response:
+                if response.status_code == 304:
+                    logger.info(f"✅ Variante local vigente: {archivo_local}")
+                    return archivo_local
+                response.raise_for_status()
+
+                with open(temporal, 'wb') as f:
+                    for chunk in response.iter_content(chunk_size=8192):
+                        f.write(chunk)
+
+                # Sin X-Checksum es el original tras la redirección
+                checksum_esperado = response.headers.get('X-Checksum') or checksum_original
+
+            if checksum_esperado and not self.verificar_checksum(temporal, checksum_esperado):
+                raise Exception("Checksum de la variante no coincide")
+
+            temporal.replace(archivo_local)
+            logger.info(f"✅ Variante descargada: {archivo_local} ({archivo_local.stat().st_size} bytes)")
+            return archivo_local
+
+        except Exception as e:
+            logger.warning(f"⚠️ Error descargando variante: {e}")
+            temporal.unlink(missing_ok=True)
+            return None
+
     def obtener_extension_archivo(self, url, tipo_contenido):
         """
         Obtiene la extensión correcta del archivo basada en URL y tipo
@@ -353,16 +525,18 @@ class ClienteInnoAdRaspberry:
             return True
 
         try:
-            hash_md5 = hashlib.md5()
-            with open(archivo, "rb") as f:
-                for chunk in iter(lambda: f.read(4096), b""):
-                    hash_md5.update(chunk)
-
-            return hash_md5.hexdigest() == checksum_esperado
+            return self.calcular_md5(archivo) == checksum_esperado
         except Exception as e:
             logger.error(f"❌ Error verificando checksum: {e}")
             return False
 
+    def calcular_md5(self, archivo):
+        hash_md5 = hashlib.md5()
+        with open(archivo, "rb") as f:
+            for chunk in iter(lambda: f.read(65536), b""):
+                hash_md5.update(chunk)
+        return hash_md5.hexdigest()
+
     async def mostrar_imagen(self, archivo_imagen, duracion_segundos):
         """
         Muestra imagen en pantalla completa usando feh
@@ -508,19 +682,33 @@ class ClienteInnoAdRaspberry:
             except Exception as e:
                 logger.error(f"❌ Error deteniendo reproducción: {e}")
 
+    async def actualizar_configuracion(self, configuracion):
+        """
+        Aplica la configuración de pantalla enviada por el servidor
+
+        El servidor manda solo los campos que cambiaron; lo aplicado se guarda
+        y viaja en cada heartbeat para que el servidor detecte diferencias.
+        """
+        aplicada = await self.aplicar_configuracion(configuracion)
+        self.configuracion_aplicada.update(aplicada)
+
     async def aplicar_configuracion(self, configuracion):
         """
-        Aplica configuración del dispositivo (volumen, brillo, etc.)
+        Aplica configuración del dispositivo (volumen, brillo, orientación y resolución)
+
+        Devuelve los campos que se aplicaron correctamente.
 
-        TODO: Implementar más opciones de configuración
         TODO: Persistir configuración entre reinicios
         """
+        aplicada = {}
         try:
             # Configurar volumen
             if 'volumen' in configuracion:
                 volumen = configuracion['volumen']
-                subprocess.run(['amixer', 'set', 'Master', f'{volumen}%'], 
-                              check=False, capture_output=True)
+                resultado = subprocess.run(['amixer', 'set', 'Master', f'{volumen}%'],
+                                           check=False, capture_output=True)
+                if resultado.returncode == 0:
+                    aplicada['volumen'] = volumen
                 logger.info(f"🔊 Volumen configurado: {volumen}%")
 
             # Configurar brillo de pantalla
@@ -532,13 +720,114 @@ class ClienteInnoAdRaspberry:
                     try:
                         with open(brillo_path, 'w') as f:
                             f.write(str(int(255 * brillo / 100)))
+                        aplicada['brillo'] = brillo
                         logger.info(f"💡 Brillo configurado: {brillo}%")
                     except PermissionError:
                         logger.warning("⚠️ Sin permisos para cambiar brillo de pantalla")
 
+            # Configurar orientación de pantalla
+            if 'orientacion' in configuracion:
+                orientacion = configuracion['orientacion']
+                rotacion = 'left' if orientacion == 'vertical' else 'normal'
+                resultado = subprocess.run(['xrandr', '-o', rotacion], check=False, capture_output=True)
+                if resultado.returncode == 0:
+                    aplicada['orientacion'] = orientacion
+                    logger.info(f"🔄 Orientación configurada: {orientacion}")
+
+            # Configurar resolución de pantalla
+            if 'resolucion' in configuracion:
+                resolucion = configuracion['resolucion']
+                resultado = subprocess.run(['xrandr', '-s', resolucion], check=False, capture_output=True)
+                if resultado.returncode == 0:
+                    aplicada['resolucion'] = resolucion
+                    logger.info(f"🖥️ Resolución configurada: {resolucion}")
+
         except Exception as e:
             logger.error(f"❌ Error aplicando configuración: {e}")
 
+        return aplicada
+
+    async def actualizar_software(self, datos):
+        """
+        Instala la versión del cliente indicada por el servidor y se reinicia
+
+        El paquete es un .tar.gz con main.py en la raíz (y opcionalmente
+        requirements.txt). Si la instalación falla se responde ERROR con el
+        comando y la versión, para que el despliegue cuente el fallo sin
+        esperar al timeout; si funciona, el heartbeat tras reiniciar
+        reporta la versión nueva.
+        """
+        version = datos.get('version')
+        url = datos.get('url')
+        if not version or not url:
+            await self.enviar_error_actualizacion(version, "Comando sin versión o URL del paquete")
+            return
+
+        if version == leer_version_instalada():
+            logger.info(f"ℹ️ La versión {version} ya está instalada")
+            await self.enviar_heartbeat()
+            return
+
+        logger.info(f"⬆️ Actualizando cliente a la versión {version}")
+        try:
+            await asyncio.to_thread(self.instalar_paquete, url, version)
+        except Exception as e:
+            logger.error(f"❌ Error instalando la versión {version}: {e}")
+            await self.enviar_error_actualizacion(version, f"Error instalando la versión {version}: {e}")
+            return
+
+        logger.info(f"✅ Versión {version} instalada, reiniciando cliente")
+        if self.websocket and not self.websocket.closed:
+            await self.websocket.close()
+        os.execv(sys.executable, [sys.executable] + sys.argv)
+
+    def instalar_paquete(self, url, version):
+        """
+        Descarga, valida y copia el paquete sobre la instalación actual
+
+        Todo se prepara en un directorio temporal; los archivos instalados
+        solo se reemplazan cuando el paquete ya pasó las validaciones.
+        """
+        with tempfile.TemporaryDirectory() as temporal:
+            paquete = Path(temporal) / 'paquete.tar.gz'
+            with requests.get(url, stream=True, timeout=60) as respuesta:
+                respuesta.raise_for_status()
+                with open(paquete, 'wb') as f:
+                    for bloque in respuesta.iter_content(chunk_size=8192):
+                        f.write(bloque)
+
+            destino = Path(temporal) / 'paquete'
+            destino.mkdir()
+            with tarfile.open(paquete, 'r:gz') as tar:
+                archivos = [m for m in tar.getmembers() if m.isfile()]
+                for miembro in archivos:
+                    # Solo archivos sueltos en la raíz del paquete, nada de rutas
+                    partes = [p for p in Path(miembro.name).parts if p != '.']
+                    if len(partes) != 1 or partes[0] in ('..', '/'):
+                        raise ValueError(f"Ruta no permitida en el paquete: {miembro.name}")
+                    with tar.extractfile(miembro) as origen, open(destino / partes[0], 'wb') as f:
+                        shutil.copyfileobj(origen, f)
+
+            nuevo_main = destino / 'main.py'
+            if not nuevo_main.exists():
+                raise ValueError("El paquete no contiene main.py")
+            py_compile.compile(str(nuevo_main), cfile=str(Path(temporal) / 'main.pyc'), doraise=True)
+
+            requisitos = destino / 'requirements.txt'
+            if requisitos.exists():
+                subprocess.run([sys.executable, '-m', 'pip', 'install', '-q', '-r', str(requisitos)],
+                               check=True, timeout=600)
+
+            for archivo in destino.iterdir():
+                # Copia y renombrado: un corte de luz no deja un main.py a medias
+                temporal_destino = DIRECTORIO_INSTALACION / f".{archivo.name}.nuevo"
+                shutil.copy2(archivo, temporal_destino)
+                os.replace(temporal_destino, DIRECTORIO_INSTALACION / archivo.name)
+
+            temporal_version = DIRECTORIO_INSTALACION / '.VERSION.nuevo'
+            temporal_version.write_text(f"{version}\n")
+            os.replace(temporal_version, ARCHIVO_VERSION)
+
     async def monitorear_reproduccion(self):
         """
         Monitorea el estado del proceso de reproducción actual
@@ -589,7 +878,7 @@ class ClienteInnoAdRaspberry:
                 'timestamp': datetime.now().isoformat(),
                 'mac_address': MAC_ADDRESS,
                 'ip_address': ip_local,
-                'version_software': '1.0.0',
+                'version_software': leer_version_instalada(),
                 'estado': 'CONECTADO',
                 'metricas': {
                     'cpu_usage': round(cpu_percent, 2),
@@ -604,7 +893,8 @@ class ClienteInnoAdRaspberry:
                 'reproduccion': {
                     'activa': self.proceso_reproduccion is not None,
                     'contenido_id': self.contenido_actual.get('id') if self.contenido_actual else None
-                }
+                },
+                'configuracion': self.configuracion_aplicada
             }
 
             await self.enviar_mensaje(datos_heartbeat)
@@ -669,23 +959,53 @@ class ClienteInnoAdRaspberry:
             'timestamp': datetime.now().isoformat()
         })
 
-    async def manejar_reconexion(self):
+    async def enviar_error_actualizacion(self, version, mensaje_error):
+        """
+        Informa al servidor que no se pudo instalar una versión
+        """
+        await self.enviar_mensaje({
+            'tipo': 'ERROR',
+            'comando': 'ACTUALIZAR_SOFTWARE',
+            'version_software': version,
+            'mensaje': mensaje_error,
+            'timestamp': datetime.now().isoformat()
+        })
+
+    def obtener_retry_after(self, error):
         """
-        Maneja la reconexión automática al servidor
+        Lee la cabecera Retry-After (en segundos) de un handshake rechazado
         """
+        try:
+            valor = error.headers.get('Retry-After') if error.headers else None
+            return max(1, int(valor)) if valor else None
+        except (AttributeError, ValueError):
+            return None
+
+    async def manejar_reconexion(self, espera_sugerida=None):
+        """
+        Espera antes de reintentar la conexión; devuelve False si hay que rendirse
+
+        Si el servidor sugirió una espera (Retry-After) se respeta y no cuenta
+        como intento fallido; si no, backoff exponencial con jitter para que
+        los dispositivos no reconecten todos en el mismo segundo.
+        """
+        if espera_sugerida:
+            logger.info(f"🔄 Reintento de conexión en {espera_sugerida}s (sugerido por el servidor)")
+            await asyncio.sleep(espera_sugerida)
+            return True
+
         if self.intentos_reconexion >= self.max_intentos_reconexion:
             logger.error("❌ Máximo número de intentos de reconexión alcanzado")
-            return
+            return False
 
         self.intentos_reconexion += 1
         tiempo_espera = min(30, 2 ** self.intentos_reconexion)  # Backoff exponencial
+        tiempo_espera = random.uniform(tiempo_espera / 2, tiempo_espera)
 
-        logger.info(f"🔄 Reintento de conexión {self.intentos_reconexion}/{self.max_intentos_reconexion} en {tiempo_espera}s")
+        logger.info(f"🔄 Reintento de conexión {self.intentos_reconexion}/{self.max_intentos_reconexion} en {tiempo_espera:.1f}s")
 
         await asyncio.sleep(tiempo_espera)
-
-        # Reintentar conexión
-        await self.conectar_servidor()
+        return True
 
 # ========================================
 # FUNCIÓN PRINCIPAL
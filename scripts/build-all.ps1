@@ -45,6 +45,12 @@ $root = Split-Path -Parent $MyInvocation.MyCommand.Definition
 # Adjust if script invoked from scripts/
 $repoRoot = Resolve-Path (Join-Path $root '..')
 
+# Los microservicios dependen de backend\comun: se instala primero en el repositorio local
+Write-Host "\nInstalling module: backend\comun"
+Push-Location (Join-Path $repoRoot 'backend\comun')
+mvn $buildArg clean install
+Pop-Location
+
 Run-BuildModule (Join-Path $repoRoot 'backend\microservicio-dispositivos')
 Run-BuildModule (Join-Path $repoRoot 'backend\microservicio-usuarios')
 
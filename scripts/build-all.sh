@@ -25,6 +25,10 @@ build_module() {
   fi
 }
 
+# Los microservicios dependen de backend/comun: se instala primero en el repositorio local
+echo "\nInstalling $ROOT_DIR/backend/comun"
+(cd "$ROOT_DIR/backend/comun" && mvn $SKIPTESTS clean install)
+
 build_module "$ROOT_DIR/backend/microservicio-dispositivos"
 build_module "$ROOT_DIR/backend/microservicio-usuarios"
 
@@ -15,6 +15,18 @@ echo "🧹 Limpiando builds anteriores..."
 rm -rf $BUILD_DIR
 mkdir -p $BUILD_DIR
 
+# Instalar el módulo común (auditoría, reintentos) del que dependen ambos microservicios
+echo "📦 Instalando Backend - Común..."
+cd backend/comun
+mvn clean install -DskipTests
+if [ $? -eq 0 ]; then
+    echo "✅ Backend Común instalado"
+else
+    echo "❌ Error instalando Backend Común"
+    exit 1
+fi
+cd ../..
+
 # Construir Backend - Microservicio Usuarios
 echo "🔧 Construyendo Backend - Usuarios..."
 cd backend/microservicio-usuarios
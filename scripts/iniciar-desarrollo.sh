@@ -49,6 +49,10 @@ echo "📁 Directorios creados"
 # Iniciar servicios en paralelo
 echo "🔄 Iniciando servicios..."
 
+# Módulo común del que dependen ambos microservicios
+echo "📦 Instalando Backend - Común..."
+(cd backend/comun && mvn -q clean install -DskipTests)
+
 # Backend - Microservicio Usuarios
 echo "🔧 Iniciando Backend - Usuarios (Puerto 8081)..."
 cd backend/microservicio-usuarios
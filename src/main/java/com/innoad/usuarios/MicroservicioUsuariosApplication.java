@@ -2,6 +2,8 @@ package com.innoad.usuarios;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Clase principal del microservicio de usuarios InnoAd
@@ -13,16 +15,18 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * - Recuperación de contraseñas
  * 
  * TAREAS PARA EL EQUIPO DE DESARROLLO:
- * 1. Completar la configuración de seguridad JWT
- * 2. Implementar validaciones de negocio en los servicios
- * 3. Agregar logs de auditoría
- * 4. Implementar envío de emails para recuperación de contraseña
- * 5. Crear tests unitarios e integración
+ * 1. Implementar validaciones de negocio en los servicios
+ * 2. Agregar logs de auditoría
+ * 3. Implementar envío de emails para recuperación de contraseña
+ * 4. Crear tests unitarios e integración
  * 
  * @author Equipo SENA ADSO
  * @version 1.0.0
  */
-@SpringBootApplication
+@SpringBootApplication(
+        scanBasePackages = {"com.innoad.usuarios", "com.innoad.comun"}, // Auditoría compartida (backend/comun)
+        exclude = UserDetailsServiceAutoConfiguration.class) // Autenticación propia con JWT
+@EnableScheduling
 public class MicroservicioUsuariosApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,222 @@
+package com.innoad.usuarios.agenda;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Árbol de intervalos semiabiertos [inicio, fin) de un usuario
+ *
+ * Treap ordenado por (inicio, idReunion) donde cada nodo guarda además el
+ * mayor fin de su subárbol. Con ese máximo, buscar lo que se solapa con
+ * [desde, hasta) descarta subárboles completos: a la izquierda solo se baja
+ * si su máximo fin pasa de desde, y a la derecha solo si el nodo empieza
+ * antes de hasta. Insertar, borrar y preguntar si hay solapamiento son
+ * O(log n) esperado; listar los solapados es O(log n + k).
+ *
+ * No es seguro para hilos; {@link IndiceAgenda} lo protege.
+ */
+class ArbolIntervalos {
+
+    record Intervalo(long inicio, long fin, long idReunion) {
+    }
+
+    private static final class Nodo {
+        final Intervalo intervalo;
+        final int prioridad = ThreadLocalRandom.current().nextInt();
+        Nodo izquierdo;
+        Nodo derecho;
+        long maxFin;
+
+        Nodo(Intervalo intervalo) {
+            this.intervalo = intervalo;
+            this.maxFin = intervalo.fin();
+        }
+    }
+
+    private Nodo raiz;
+    private int tamano;
+
+    void insertar(Intervalo intervalo) {
+        raiz = insertar(raiz, new Nodo(intervalo));
+        tamano++;
+    }
+
+    /**
+     * Borra el intervalo con ese inicio y esa reunión, si está
+     */
+    boolean eliminar(long inicio, long idReunion) {
+        int antes = tamano;
+        raiz = eliminar(raiz, inicio, idReunion);
+        return tamano < antes;
+    }
+
+    /**
+     * Agrega a resultado los intervalos que se solapan con [desde, hasta)
+     */
+    void solapados(long desde, long hasta, List<Intervalo> resultado) {
+        solapados(raiz, desde, hasta, resultado);
+    }
+
+    /**
+     * Mayor fin entre los intervalos que se solapan con [desde, hasta), o
+     * Long.MIN_VALUE si no hay ninguno; es hasta dónde hay que saltar para
+     * dejar atrás todo lo que choca
+     */
+    long maxFinSolapado(long desde, long hasta) {
+        return maxFinSolapado(raiz, desde, hasta);
+    }
+
+    /**
+     * Borra los intervalos que terminaron en o antes de limite
+     *
+     * @return cantidad de intervalos borrados
+     */
+    int eliminarTerminadosAntesDe(long limite) {
+        List<Intervalo> terminados = new ArrayList<>();
+        recolectarTerminados(raiz, limite, terminados);
+        for (Intervalo intervalo : terminados) {
+            eliminar(intervalo.inicio(), intervalo.idReunion());
+        }
+        return terminados.size();
+    }
+
+    int tamano() {
+        return tamano;
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private static int comparar(long inicioA, long reunionA, long inicioB, long reunionB) {
+        int porInicio = Long.compare(inicioA, inicioB);
+        return porInicio != 0 ? porInicio : Long.compare(reunionA, reunionB);
+    }
+
+    private static long maxFin(Nodo nodo) {
+        return nodo == null ? Long.MIN_VALUE : nodo.maxFin;
+    }
+
+    private static void recalcular(Nodo nodo) {
+        nodo.maxFin = Math.max(nodo.intervalo.fin(), Math.max(maxFin(nodo.izquierdo), maxFin(nodo.derecho)));
+    }
+
+    private static Nodo rotarDerecha(Nodo nodo) {
+        Nodo nuevaRaiz = nodo.izquierdo;
+        nodo.izquierdo = nuevaRaiz.derecho;
+        nuevaRaiz.derecho = nodo;
+        recalcular(nodo);
+        recalcular(nuevaRaiz);
+        return nuevaRaiz;
+    }
+
+    private static Nodo rotarIzquierda(Nodo nodo) {
+        Nodo nuevaRaiz = nodo.derecho;
+        nodo.derecho = nuevaRaiz.izquierdo;
+        nuevaRaiz.izquierdo = nodo;
+        recalcular(nodo);
+        recalcular(nuevaRaiz);
+        return nuevaRaiz;
+    }
+
+    private static Nodo insertar(Nodo nodo, Nodo nuevo) {
+        if (nodo == null) {
+            return nuevo;
+        }
+        Intervalo a = nuevo.intervalo;
+        Intervalo b = nodo.intervalo;
+        if (comparar(a.inicio(), a.idReunion(), b.inicio(), b.idReunion()) < 0) {
+            nodo.izquierdo = insertar(nodo.izquierdo, nuevo);
+            if (nodo.izquierdo.prioridad > nodo.prioridad) {
+                return rotarDerecha(nodo);
+            }
+        } else {
+            nodo.derecho = insertar(nodo.derecho, nuevo);
+            if (nodo.derecho.prioridad > nodo.prioridad) {
+                return rotarIzquierda(nodo);
+            }
+        }
+        recalcular(nodo);
+        return nodo;
+    }
+
+    private Nodo eliminar(Nodo nodo, long inicio, long idReunion) {
+        if (nodo == null) {
+            return null;
+        }
+        int comparacion = comparar(inicio, idReunion, nodo.intervalo.inicio(), nodo.intervalo.idReunion());
+        if (comparacion < 0) {
+            nodo.izquierdo = eliminar(nodo.izquierdo, inicio, idReunion);
+        } else if (comparacion > 0) {
+            nodo.derecho = eliminar(nodo.derecho, inicio, idReunion);
+        } else {
+            tamano--;
+            return unir(nodo.izquierdo, nodo.derecho);
+        }
+        recalcular(nodo);
+        return nodo;
+    }
+
+    /**
+     * Une dos treaps donde todo izquierdo es menor que todo derecho
+     */
+    private static Nodo unir(Nodo izquierdo, Nodo derecho) {
+        if (izquierdo == null) {
+            return derecho;
+        }
+        if (derecho == null) {
+            return izquierdo;
+        }
+        if (izquierdo.prioridad > derecho.prioridad) {
+            izquierdo.derecho = unir(izquierdo.derecho, derecho);
+            recalcular(izquierdo);
+            return izquierdo;
+        }
+        derecho.izquierdo = unir(izquierdo, derecho.izquierdo);
+        recalcular(derecho);
+        return derecho;
+    }
+
+    private static void solapados(Nodo nodo, long desde, long hasta, List<Intervalo> resultado) {
+        if (nodo == null || nodo.maxFin <= desde) {
+            return;
+        }
+        solapados(nodo.izquierdo, desde, hasta, resultado);
+        Intervalo intervalo = nodo.intervalo;
+        if (intervalo.inicio() < hasta && intervalo.fin() > desde) {
+            resultado.add(intervalo);
+        }
+        // A la derecha todo empieza en o después de este nodo
+        if (intervalo.inicio() < hasta) {
+            solapados(nodo.derecho, desde, hasta, resultado);
+        }
+    }
+
+    private static long maxFinSolapado(Nodo nodo, long desde, long hasta) {
+        if (nodo == null || nodo.maxFin <= desde) {
+            return Long.MIN_VALUE;
+        }
+        long maximo = maxFinSolapado(nodo.izquierdo, desde, hasta);
+        Intervalo intervalo = nodo.intervalo;
+        if (intervalo.inicio() < hasta) {
+            if (intervalo.fin() > desde) {
+                maximo = Math.max(maximo, intervalo.fin());
+            }
+            maximo = Math.max(maximo, maxFinSolapado(nodo.derecho, desde, hasta));
+        }
+        return maximo;
+    }
+
+    private static void recolectarTerminados(Nodo nodo, long limite, List<Intervalo> resultado) {
+        if (nodo == null) {
+            return;
+        }
+        recolectarTerminados(nodo.izquierdo, limite, resultado);
+        if (nodo.intervalo.fin() <= limite) {
+            resultado.add(nodo.intervalo);
+        }
+        // Lo que empieza después del límite no pudo haber terminado antes
+        if (nodo.intervalo.inicio() < limite) {
+            recolectarTerminados(nodo.derecho, limite, resultado);
+        }
+    }
+}
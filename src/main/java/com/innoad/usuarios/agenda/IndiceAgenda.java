@@ -0,0 +1,259 @@
+package com.innoad.usuarios.agenda;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice en memoria de los horarios ocupados por usuario
+ *
+ * Cada usuario tiene un {@link ArbolIntervalos} con las reuniones a las que
+ * asiste (organizador incluido, invitaciones rechazadas excluidas). Además se
+ * recuerda dónde quedó colocada cada reunión, así moverla o cancelarla
+ * actualiza solo los árboles de sus asistentes sin consultar la base de datos.
+ *
+ * Los tiempos se manejan en minutos sobre la línea de tiempo local
+ * (fecha.toEpochDay() * 1440 + minuto del día), igual que las columnas
+ * fecha/hora de reuniones, que no guardan zona.
+ *
+ * Lecturas concurrentes y escrituras exclusivas con un ReadWriteLock: una
+ * verificación de N asistentes ve un estado consistente de todos los árboles.
+ */
+public class IndiceAgenda {
+
+    public static final int MINUTOS_DIA = 1440;
+
+    /** Reunión que choca con el horario pedido para un usuario */
+    public record Conflicto(long idUsuario, long idReunion, LocalDateTime inicio, LocalDateTime fin) {
+    }
+
+    private record Colocacion(long inicio, long fin, Set<Long> usuarios) {
+    }
+
+    private final Map<Long, ArbolIntervalos> arboles = new HashMap<>();
+    private final Map<Long, Colocacion> reuniones = new HashMap<>();
+    private final ReadWriteLock candado = new ReentrantReadWriteLock();
+
+    /**
+     * Coloca la reunión en la agenda de sus asistentes, reemplazando la
+     * colocación anterior si ya estaba (mover, cambiar asistentes)
+     */
+    public void colocar(long idReunion, LocalDateTime inicio, LocalDateTime fin, Collection<Long> usuarios) {
+        long desde = aMinutos(inicio);
+        long hasta = aMinutos(fin);
+        candado.writeLock().lock();
+        try {
+            quitarSinCandado(idReunion);
+            Set<Long> asistentes = new LinkedHashSet<>(usuarios);
+            for (Long usuario : asistentes) {
+                arboles.computeIfAbsent(usuario, u -> new ArbolIntervalos())
+                        .insertar(new ArbolIntervalos.Intervalo(desde, hasta, idReunion));
+            }
+            reuniones.put(idReunion, new Colocacion(desde, hasta, asistentes));
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Saca la reunión de todas las agendas (cancelada o finalizada)
+     */
+    public void quitar(long idReunion) {
+        candado.writeLock().lock();
+        try {
+            quitarSinCandado(idReunion);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega o saca a un asistente de una reunión ya colocada
+     */
+    public void cambiarAsistencia(long idReunion, long idUsuario, boolean asiste) {
+        candado.writeLock().lock();
+        try {
+            Colocacion colocacion = reuniones.get(idReunion);
+            if (colocacion == null) {
+                return;
+            }
+            if (asiste && colocacion.usuarios().add(idUsuario)) {
+                arboles.computeIfAbsent(idUsuario, u -> new ArbolIntervalos())
+                        .insertar(new ArbolIntervalos.Intervalo(colocacion.inicio(), colocacion.fin(), idReunion));
+            } else if (!asiste && colocacion.usuarios().remove(idUsuario)) {
+                quitarDeArbol(idUsuario, colocacion.inicio(), idReunion);
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Conflictos de todos los usuarios con [inicio, fin) en una sola pasada
+     *
+     * @param excluirReunion reunión que se está moviendo (no choca consigo misma), o null
+     */
+    public List<Conflicto> conflictos(Collection<Long> usuarios, LocalDateTime inicio, LocalDateTime fin,
+                                      Long excluirReunion) {
+        long desde = aMinutos(inicio);
+        long hasta = aMinutos(fin);
+        List<Conflicto> conflictos = new ArrayList<>();
+        List<ArbolIntervalos.Intervalo> solapados = new ArrayList<>();
+        candado.readLock().lock();
+        try {
+            for (Long usuario : new LinkedHashSet<>(usuarios)) {
+                ArbolIntervalos arbol = arboles.get(usuario);
+                if (arbol == null) {
+                    continue;
+                }
+                solapados.clear();
+                arbol.solapados(desde, hasta, solapados);
+                for (ArbolIntervalos.Intervalo intervalo : solapados) {
+                    if (excluirReunion == null || intervalo.idReunion() != excluirReunion) {
+                        conflictos.add(new Conflicto(usuario, intervalo.idReunion(),
+                                aFecha(intervalo.inicio()), aFecha(intervalo.fin())));
+                    }
+                }
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+        return conflictos;
+    }
+
+    /**
+     * Primer horario de duracionMinutos libre para todos los usuarios entre
+     * desde y hasta, dentro de la jornada diaria [inicioJornada, finJornada)
+     *
+     * Empieza en desde y, mientras algún usuario tenga algo que choque, salta
+     * al mayor fin de lo que choca; si el horario se sale de la jornada pasa
+     * al inicio de la jornada siguiente. Cada salto deja atrás al menos una
+     * reunión o un día, así que termina.
+     */
+    public Optional<LocalDateTime> primerHuecoComun(Collection<Long> usuarios, int duracionMinutos,
+                                                   LocalDateTime desde, LocalDateTime hasta,
+                                                   LocalTime inicioJornada, LocalTime finJornada) {
+        int aperturaDia = inicioJornada.toSecondOfDay() / 60;
+        int cierreDia = finJornada.equals(LocalTime.MIDNIGHT) ? MINUTOS_DIA : finJornada.toSecondOfDay() / 60;
+        if (duracionMinutos <= 0 || cierreDia - aperturaDia < duracionMinutos) {
+            return Optional.empty();
+        }
+        long limite = aMinutos(hasta);
+        long candidato = aMinutos(desde);
+        List<ArbolIntervalos> agendas = new ArrayList<>();
+
+        candado.readLock().lock();
+        try {
+            for (Long usuario : new LinkedHashSet<>(usuarios)) {
+                ArbolIntervalos arbol = arboles.get(usuario);
+                if (arbol != null) {
+                    agendas.add(arbol);
+                }
+            }
+
+            while (true) {
+                candidato = ajustarAJornada(candidato, duracionMinutos, aperturaDia, cierreDia);
+                if (candidato + duracionMinutos > limite) {
+                    return Optional.empty();
+                }
+                long salto = Long.MIN_VALUE;
+                for (ArbolIntervalos arbol : agendas) {
+                    salto = Math.max(salto, arbol.maxFinSolapado(candidato, candidato + duracionMinutos));
+                }
+                if (salto == Long.MIN_VALUE) {
+                    return Optional.of(aFecha(candidato));
+                }
+                candidato = salto;
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Olvida las reuniones que terminaron antes del instante dado
+     *
+     * @return reuniones quitadas
+     */
+    public int purgarAnterioresA(LocalDateTime instante) {
+        long limite = aMinutos(instante);
+        candado.writeLock().lock();
+        try {
+            List<Long> terminadas = reuniones.entrySet().stream()
+                    .filter(e -> e.getValue().fin() <= limite)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            terminadas.forEach(reuniones::remove);
+            arboles.values().forEach(arbol -> arbol.eliminarTerminadosAntesDe(limite));
+            arboles.values().removeIf(arbol -> arbol.tamano() == 0);
+            return terminadas.size();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    public int reuniones() {
+        candado.readLock().lock();
+        try {
+            return reuniones.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public static long aMinutos(LocalDateTime fecha) {
+        return fecha.toLocalDate().toEpochDay() * MINUTOS_DIA + fecha.toLocalTime().toSecondOfDay() / 60;
+    }
+
+    public static LocalDateTime aFecha(long minutos) {
+        return LocalDateTime.of(LocalDate.ofEpochDay(Math.floorDiv(minutos, MINUTOS_DIA)),
+                LocalTime.ofSecondOfDay(Math.floorMod(minutos, MINUTOS_DIA) * 60L));
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private void quitarSinCandado(long idReunion) {
+        Colocacion anterior = reuniones.remove(idReunion);
+        if (anterior != null) {
+            for (Long usuario : anterior.usuarios()) {
+                quitarDeArbol(usuario, anterior.inicio(), idReunion);
+            }
+        }
+    }
+
+    private void quitarDeArbol(long idUsuario, long inicio, long idReunion) {
+        ArbolIntervalos arbol = arboles.get(idUsuario);
+        if (arbol != null) {
+            arbol.eliminar(inicio, idReunion);
+            if (arbol.tamano() == 0) {
+                arboles.remove(idUsuario);
+            }
+        }
+    }
+
+    /**
+     * Mueve el candidato dentro de la jornada: al inicio si es temprano, al día
+     * siguiente si la duración ya no cabe antes del cierre
+     */
+    private static long ajustarAJornada(long candidato, int duracion, int apertura, int cierre) {
+        long dia = Math.floorDiv(candidato, MINUTOS_DIA);
+        long minuto = Math.floorMod(candidato, MINUTOS_DIA);
+        if (minuto < apertura) {
+            return dia * MINUTOS_DIA + apertura;
+        }
+        if (minuto + duracion > cierre) {
+            return (dia + 1) * MINUTOS_DIA + apertura;
+        }
+        return candidato;
+    }
+}
@@ -0,0 +1,73 @@
+package com.innoad.usuarios.configuracion;
+
+import com.innoad.usuarios.seguridad.FiltroAutenticacionJwt;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+/**
+ * Configuración de seguridad del microservicio de usuarios
+ *
+ * Autenticación sin estado con JWT: no hay sesión HTTP ni CSRF, cada petición
+ * trae su token de acceso y FiltroAutenticacionJwt la autentica. Solo el
+ * inicio de sesión, la renovación de tokens, la recuperación de contraseña y
+ * los health checks son públicos; lo demás responde 401 sin token válido.
+ *
+ * Los permisos del rol llegan como autoridades (una por {@code Permiso}) y
+ * cada endpoint exige los suyos con @PreAuthorize; sin ellos responde 403.
+ */
+@Configuration
+@EnableMethodSecurity
+@RequiredArgsConstructor
+public class SeguridadConfig {
+
+    private final FiltroAutenticacionJwt filtroAutenticacionJwt;
+
+    @Bean
+    public SecurityFilterChain filtroSeguridad(HttpSecurity http) throws Exception {
+        return http
+                .csrf(AbstractHttpConfigurer::disable)
+                .cors(Customizer.withDefaults())
+                .httpBasic(AbstractHttpConfigurer::disable)
+                .formLogin(AbstractHttpConfigurer::disable)
+                .sessionManagement(sesion -> sesion.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(peticiones -> peticiones
+                        .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/auth/login", "/api/auth/refresh",
+                                "/api/auth/recuperar", "/api/auth/restablecer").permitAll()
+                        .requestMatchers("/api/usuarios/health", "/actuator/health", "/actuator/info").permitAll()
+                        .anyRequest().authenticated())
+                .exceptionHandling(errores -> errores.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .addFilterBefore(filtroAutenticacionJwt, UsernamePasswordAuthenticationFilter.class)
+                .build();
+    }
+
+    /**
+     * El filtro JWT es un @Component; sin esto Spring Boot también lo
+     * registraría en la cadena de filtros del servlet, fuera de Spring Security
+     */
+    @Bean
+    public FilterRegistrationBean<FiltroAutenticacionJwt> registroFiltroJwt() {
+        FilterRegistrationBean<FiltroAutenticacionJwt> registro = new FilterRegistrationBean<>(filtroAutenticacionJwt);
+        registro.setEnabled(false);
+        return registro;
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder();
+    }
+}
@@ -0,0 +1,116 @@
+package com.innoad.usuarios.controlador;
+
+import com.innoad.usuarios.dto.LoginDTO;
+import com.innoad.usuarios.dto.TokenDTO;
+import com.innoad.usuarios.seguridad.UsuarioAutenticado;
+import com.innoad.usuarios.servicio.AutenticacionServicio;
+import com.innoad.usuarios.servicio.RecuperacionContrasenaServicio;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Controlador REST de autenticación con JWT
+ *
+ * login, refresh y la recuperación de contraseña son públicos; logout
+ * necesita el token de acceso que se quiere revocar.
+ */
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "${cors.allowed-origins:http://localhost:4200}")
+public class AutenticacionControlador {
+
+    private final AutenticacionServicio autenticacionServicio;
+    private final RecuperacionContrasenaServicio recuperacionContrasenaServicio;
+
+    /**
+     * Inicia sesión y devuelve los tokens de acceso y refresco
+     */
+    @PostMapping("/login")
+    public ResponseEntity<?> iniciarSesion(@Valid @RequestBody LoginDTO login) {
+        log.info("POST /api/auth/login - {}", login.getCorreo());
+
+        try {
+            TokenDTO tokens = autenticacionServicio.iniciarSesion(login.getCorreo(), login.getContrasena());
+            return ResponseEntity.ok(tokens);
+        } catch (RuntimeException e) {
+            log.warn("Inicio de sesión rechazado para {}: {}", login.getCorreo(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Renueva el par de tokens con un token de refresco
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refrescar(@RequestBody Map<String, String> request) {
+        String tokenRefresco = request.get("tokenRefresco");
+        if (tokenRefresco == null || tokenRefresco.isBlank()) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "El token de refresco es requerido"));
+        }
+
+        try {
+            return ResponseEntity.ok(autenticacionServicio.refrescar(tokenRefresco));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Solicita la recuperación de contraseña. Responde igual exista o no
+     * el correo.
+     */
+    @PostMapping("/recuperar")
+    public ResponseEntity<Map<String, String>> solicitarRecuperacion(@RequestBody Map<String, String> request) {
+        String correo = request.get("correo");
+        if (correo == null || correo.isBlank()) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "El correo es requerido"));
+        }
+
+        recuperacionContrasenaServicio.solicitar(correo.trim());
+        return ResponseEntity.ok(Map.of("mensaje",
+            "Si el correo está registrado, recibirás instrucciones para restablecer la contraseña"));
+    }
+
+    /**
+     * Restablece la contraseña con el token recibido por correo
+     */
+    @PostMapping("/restablecer")
+    public ResponseEntity<Map<String, String>> restablecerContrasena(@RequestBody Map<String, String> request) {
+        String token = request.get("token");
+        String nuevaContrasena = request.get("nuevaContrasena");
+        if (token == null || nuevaContrasena == null) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "Token y nueva contraseña son requeridos"));
+        }
+
+        try {
+            recuperacionContrasenaServicio.restablecer(token, nuevaContrasena);
+            return ResponseEntity.ok(Map.of("mensaje", "Contraseña restablecida exitosamente"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Cierra la sesión revocando el token actual
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Map<String, String>> cerrarSesion(@AuthenticationPrincipal UsuarioAutenticado usuario) {
+        autenticacionServicio.cerrarSesion(usuario);
+        return ResponseEntity.ok(Map.of("mensaje", "Sesión cerrada"));
+    }
+}
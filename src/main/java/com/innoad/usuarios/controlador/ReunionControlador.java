@@ -0,0 +1,166 @@
+package com.innoad.usuarios.controlador;
+
+import com.innoad.usuarios.dto.ConflictoAgendaDTO;
+import com.innoad.usuarios.dto.ReunionDTO;
+import com.innoad.usuarios.modelo.Permiso;
+import com.innoad.usuarios.seguridad.UsuarioAutenticado;
+import com.innoad.usuarios.servicio.ReunionServicio;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Controlador REST de reuniones y disponibilidad de agenda
+ *
+ * Las reservas que chocan con la agenda de algún asistente responden 409 con
+ * la lista de conflictos; /conflictos y /hueco-comun permiten consultarla
+ * antes de reservar. Mover y cancelar quedan para el organizador o quien tenga
+ * REUNIONES_GESTIONAR; cada invitado responde solo por sí mismo.
+ */
+@RestController
+@RequestMapping("/api/reuniones")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "${cors.allowed-origins:http://localhost:4200}")
+public class ReunionControlador {
+
+    private final ReunionServicio reunionServicio;
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ReunionDTO> obtenerReunion(@PathVariable Long id) {
+        return reunionServicio.obtenerReunion(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Crea una reunión; el organizador es el usuario autenticado
+     */
+    @PostMapping
+    public ResponseEntity<?> crearReunion(@Valid @RequestBody ReunionDTO reunionDTO,
+                                          @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        Long organizadorId = usuario != null ? usuario.idUsuario() : reunionDTO.getOrganizadorId();
+        if (organizadorId == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "El organizador es obligatorio"));
+        }
+        log.info("POST /api/reuniones - Organizador {} agenda reunión el {}", organizadorId, reunionDTO.getFecha());
+        return ejecutar(() -> ResponseEntity.status(HttpStatus.CREATED)
+                .body(reunionServicio.crearReunion(reunionDTO, organizadorId)));
+    }
+
+    /**
+     * Mueve la reunión a otro horario
+     */
+    @PutMapping("/{id}/horario")
+    public ResponseEntity<?> moverReunion(@PathVariable Long id,
+                                          @RequestBody ReunionDTO horario,
+                                          @AuthenticationPrincipal UsuarioAutenticado usuario,
+                                          Authentication autenticacion) {
+        if (horario.getFecha() == null || horario.getHoraInicio() == null || horario.getHoraFin() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Fecha, hora de inicio y hora de fin son obligatorias"));
+        }
+        log.info("PUT /api/reuniones/{}/horario - {} {}", id, horario.getFecha(), horario.getHoraInicio());
+        return ejecutar(() -> ResponseEntity.ok(reunionServicio.moverReunion(id, horario.getFecha(),
+                horario.getHoraInicio(), horario.getHoraFin(), idUsuario(usuario), puedeGestionar(autenticacion))));
+    }
+
+    @PostMapping("/{id}/cancelar")
+    public ResponseEntity<?> cancelarReunion(@PathVariable Long id,
+                                             @AuthenticationPrincipal UsuarioAutenticado usuario,
+                                             Authentication autenticacion) {
+        log.info("POST /api/reuniones/{}/cancelar", id);
+        return ejecutar(() -> ResponseEntity.ok(reunionServicio.cancelarReunion(id, idUsuario(usuario),
+                puedeGestionar(autenticacion))));
+    }
+
+    /**
+     * Respuesta de un invitado: pendiente, confirmada, rechazada o ausente
+     */
+    @PutMapping("/{id}/asistentes/{idUsuario}")
+    @PreAuthorize("#idUsuario == principal.idUsuario()")
+    public ResponseEntity<?> responderInvitacion(@PathVariable Long id,
+                                                 @PathVariable Long idUsuario,
+                                                 @RequestParam String asistencia) {
+        return ejecutar(() -> {
+            reunionServicio.responderInvitacion(id, idUsuario, asistencia);
+            return ResponseEntity.ok(Map.of("asistencia", asistencia.toLowerCase()));
+        });
+    }
+
+    /**
+     * Conflictos del organizador y los asistentes con un horario; con
+     * idReunion se ignora esa reunión (útil al moverla)
+     */
+    @PostMapping("/conflictos")
+    public ResponseEntity<?> verificarConflictos(@RequestBody ReunionDTO horario) {
+        if (horario.getFecha() == null || horario.getHoraInicio() == null || horario.getHoraFin() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Fecha, hora de inicio y hora de fin son obligatorias"));
+        }
+        Set<Long> usuarios = horario.getAsistentes() != null ? new HashSet<>(horario.getAsistentes()) : new HashSet<>();
+        if (horario.getOrganizadorId() != null) {
+            usuarios.add(horario.getOrganizadorId());
+        }
+        return ejecutar(() -> {
+            List<ConflictoAgendaDTO> conflictos = reunionServicio.verificarConflictos(usuarios,
+                    LocalDateTime.of(horario.getFecha(), horario.getHoraInicio()),
+                    LocalDateTime.of(horario.getFecha(), horario.getHoraFin()),
+                    horario.getIdReunion());
+            return ResponseEntity.ok(conflictos);
+        });
+    }
+
+    /**
+     * Primer horario libre común de la duración indicada
+     */
+    @GetMapping("/hueco-comun")
+    public ResponseEntity<?> buscarHuecoComun(
+            @RequestParam Set<Long> usuarios,
+            @RequestParam int duracionMinutos,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        return ejecutar(() -> reunionServicio.buscarHuecoComun(usuarios, duracionMinutos, desde, hasta)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.noContent().build()));
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private ResponseEntity<?> ejecutar(Supplier<ResponseEntity<?>> accion) {
+        try {
+            return accion.get();
+        } catch (ReunionServicio.ConflictoAgendaException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage(), "conflictos", e.getConflictos()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static Long idUsuario(UsuarioAutenticado usuario) {
+        return usuario != null ? usuario.idUsuario() : null;
+    }
+
+    private static boolean puedeGestionar(Authentication autenticacion) {
+        return autenticacion != null && autenticacion.getAuthorities().stream()
+                .anyMatch(autoridad -> Permiso.REUNIONES_GESTIONAR.name().equals(autoridad.getAuthority()));
+    }
+}
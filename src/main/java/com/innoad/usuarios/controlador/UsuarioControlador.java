@@ -5,11 +5,20 @@ import com.innoad.usuarios.servicio.UsuarioServicio;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * 
@@ -18,13 +27,16 @@ import java.util.Map;
  * Este controlador expone los endpoints para todas las operaciones
  * relacionadas con usuarios: CRUD, búsquedas, cambio de estado, etc.
  * 
+ * Cada endpoint exige el permiso correspondiente (USUARIOS_VER,
+ * USUARIOS_GESTIONAR); consultar y editar los datos propios no lo requiere,
+ * pero cambiar un rol siempre exige ROLES_GESTIONAR.
+ * 
  * TAREAS PARA EL EQUIPO DE DESARROLLO:
- * 1. Implementar validaciones de permisos con @PreAuthorize
- * 2. Agregar documentación Swagger/OpenAPI
- * 3. Implementar paginación en listados
- * 4. Agregar endpoints para reportes y estadísticas
- * 5. Implementar manejo de excepciones personalizado
- * 6. Agregar logs de auditoría en operaciones críticas
+ * 1. Agregar documentación Swagger/OpenAPI
+ * 2. Implementar paginación en listados
+ * 3. Agregar endpoints para reportes y estadísticas
+ * 4. Implementar manejo de excepciones personalizado
+ * 5. Agregar logs de auditoría en operaciones críticas
  * 
  * @author Equipo SENA ADSO
  */
@@ -40,9 +52,9 @@ public class UsuarioControlador {
     /**
      * Obtiene todos los usuarios del sistema
      * TODO: Implementar paginación y filtros
-     * TODO: Agregar @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
      */
     @GetMapping
+    @PreAuthorize("hasAuthority('USUARIOS_VER')")
     public ResponseEntity<List<UsuarioDTO>> obtenerTodosLosUsuarios() {
         log.info("GET /api/usuarios - Obteniendo todos los usuarios");
 
@@ -57,23 +69,40 @@ public class UsuarioControlador {
 
     /**
      * Obtiene un usuario específico por ID
-     * TODO: Validar permisos (solo admin o el mismo usuario)
+     * El ETag es la versión del usuario: con If-None-Match vigente se responde
+     * 304 consultando solo la versión, sin cargar ni serializar el usuario.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<UsuarioDTO> obtenerUsuarioPorId(@PathVariable Long id) {
+    @PreAuthorize("hasAuthority('USUARIOS_VER') or #id == principal.idUsuario()")
+    public ResponseEntity<UsuarioDTO> obtenerUsuarioPorId(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("GET /api/usuarios/{} - Obteniendo usuario por ID", id);
 
+        if (ifNoneMatch != null) {
+            Optional<Long> version = usuarioServicio.obtenerVersion(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (coincide(ifNoneMatch, etag(version.get()))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(version.get())).build();
+            }
+        }
+
         return usuarioServicio.obtenerUsuarioPorId(id)
-                .map(ResponseEntity::ok)
+                .map(usuario -> ResponseEntity.ok()
+                        .eTag(etag(usuario.getVersion()))
+                        .cacheControl(CacheControl.noCache())
+                        .body(usuario))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     /**
      * Crea un nuevo usuario
-     * TODO: Agregar @PreAuthorize("hasRole('ADMIN')")
      * TODO: Validar datos de entrada
      */
     @PostMapping
+    @PreAuthorize("hasAuthority('USUARIOS_GESTIONAR')")
     public ResponseEntity<UsuarioDTO> crearUsuario(@Valid @RequestBody UsuarioDTO usuarioDTO) {
         log.info("POST /api/usuarios - Creando nuevo usuario: {}", usuarioDTO.getCorreo());
 
@@ -91,17 +120,29 @@ public class UsuarioControlador {
 
     /**
      * Actualiza un usuario existente
-     * TODO: Validar permisos y agregar auditoría
+     * Con If-Match (el ETag leído) la edición falla con 412 si otro la cambió
+     * antes; sin él, igual responde 412 ante dos ediciones simultáneas.
+     * Un usuario puede editar sus propios datos, pero no su rol.
      */
     @PutMapping("/{id}")
-    public ResponseEntity<UsuarioDTO> actualizarUsuario(
+    @PreAuthorize("hasAuthority('USUARIOS_GESTIONAR') or #id == principal.idUsuario()")
+    public ResponseEntity<?> actualizarUsuario(
             @PathVariable Long id, 
-            @Valid @RequestBody UsuarioDTO usuarioDTO) {
+            @Valid @RequestBody UsuarioDTO usuarioDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            Authentication autenticacion) {
         log.info("PUT /api/usuarios/{} - Actualizando usuario", id);
 
         try {
-            UsuarioDTO usuarioActualizado = usuarioServicio.actualizarUsuario(id, usuarioDTO);
-            return ResponseEntity.ok(usuarioActualizado);
+            UsuarioDTO usuarioActualizado = usuarioServicio.actualizarUsuario(id, usuarioDTO, versionEsperada(ifMatch),
+                    tieneAutoridad(autenticacion, "ROLES_GESTIONAR"));
+            return ResponseEntity.ok().eTag(etag(usuarioActualizado.getVersion())).body(usuarioActualizado);
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Edición concurrente del usuario {} rechazada", id);
+            return precondicionFallida();
+        } catch (AccessDeniedException e) {
+            log.warn("Cambio de rol del usuario {} rechazado: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             log.error("Error actualizando usuario {}: {}", id, e.getMessage());
             return ResponseEntity.badRequest().build();
@@ -113,12 +154,13 @@ public class UsuarioControlador {
 
     /**
      * Cambia el estado activo/inactivo de un usuario
-     * TODO: Agregar @PreAuthorize("hasRole('ADMIN')")
      */
     @PatchMapping("/{id}/estado")
+    @PreAuthorize("hasAuthority('USUARIOS_GESTIONAR')")
     public ResponseEntity<Map<String, String>> cambiarEstadoUsuario(
             @PathVariable Long id,
-            @RequestBody Map<String, Boolean> request) {
+            @RequestBody Map<String, Boolean> request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("PATCH /api/usuarios/{}/estado - Cambiando estado", id);
 
         try {
@@ -128,10 +170,13 @@ public class UsuarioControlador {
                     .body(Map.of("error", "El campo 'activo' es requerido"));
             }
 
-            usuarioServicio.cambiarEstadoUsuario(id, activo);
+            usuarioServicio.cambiarEstadoUsuario(id, activo, versionEsperada(ifMatch));
 
             String mensaje = activo ? "Usuario activado" : "Usuario desactivado";
             return ResponseEntity.ok(Map.of("mensaje", mensaje));
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Cambio de estado concurrente del usuario {} rechazado", id);
+            return precondicionFallida();
         } catch (RuntimeException e) {
             log.error("Error cambiando estado usuario {}: {}", id, e.getMessage());
             return ResponseEntity.badRequest()
@@ -140,10 +185,12 @@ public class UsuarioControlador {
     }
 
     /**
-     * Cambia la contraseña de un usuario
+     * Cambia la contraseña de un usuario; pide la actual, así que solo la
+     * puede cambiar el mismo usuario
      * TODO: Implementar validaciones de seguridad adicionales
      */
     @PatchMapping("/{id}/contrasena")
+    @PreAuthorize("#id == principal.idUsuario()")
     public ResponseEntity<Map<String, String>> cambiarContrasena(
             @PathVariable Long id,
             @RequestBody Map<String, String> request) {
@@ -172,6 +219,7 @@ public class UsuarioControlador {
      * TODO: Implementar búsqueda más avanzada
      */
     @GetMapping("/buscar")
+    @PreAuthorize("hasAuthority('USUARIOS_VER')")
     public ResponseEntity<List<UsuarioDTO>> buscarUsuarios(
             @RequestParam(required = false) String nombre,
             @RequestParam(required = false) Long rolId) {
@@ -195,6 +243,36 @@ public class UsuarioControlador {
         }
     }
 
+    /**
+     * Lista usuarios sin acceso en los últimos días, por lotes
+     * (el siguiente lote se pide con desdeId = id del último recibido)
+     */
+    @GetMapping("/inactivos")
+    @PreAuthorize("hasAuthority('USUARIOS_VER')")
+    public ResponseEntity<List<UsuarioDTO>> obtenerUsuariosInactivos(
+            @RequestParam(defaultValue = "90") int dias,
+            @RequestParam(defaultValue = "0") Long desdeId,
+            @RequestParam(defaultValue = "100") int limite) {
+        log.info("GET /api/usuarios/inactivos - dias: {}, desdeId: {}", dias, desdeId);
+
+        return ResponseEntity.ok(usuarioServicio.obtenerUsuariosInactivos(dias, desdeId, limite));
+    }
+
+    /**
+     * Lista usuarios creados en un rango de fechas, por lotes
+     */
+    @GetMapping("/creados")
+    @PreAuthorize("hasAuthority('USUARIOS_VER')")
+    public ResponseEntity<List<UsuarioDTO>> obtenerUsuariosCreadosEntre(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(defaultValue = "0") Long desdeId,
+            @RequestParam(defaultValue = "100") int limite) {
+        log.info("GET /api/usuarios/creados - {} a {}, desdeId: {}", desde, hasta, desdeId);
+
+        return ResponseEntity.ok(usuarioServicio.obtenerUsuariosCreadosEntre(desde, hasta, desdeId, limite));
+    }
+
     /**
      * Endpoint de salud para verificar el estado del microservicio
      */
@@ -207,10 +285,50 @@ public class UsuarioControlador {
         ));
     }
 
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private static String etag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static boolean coincide(String ifNoneMatch, String etag) {
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*") || valor.equals(etag) || valor.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Versión que indica If-Match; sin cabecera o con * no se exige ninguna.
+     * Un valor que no es una versión nunca coincide
+     */
+    private static Long versionEsperada(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(ifMatch.trim().replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    private static boolean tieneAutoridad(Authentication autenticacion, String autoridad) {
+        return autenticacion != null && autenticacion.getAuthorities().stream()
+                .anyMatch(concedida -> autoridad.equals(concedida.getAuthority()));
+    }
+
+    private static ResponseEntity<Map<String, String>> precondicionFallida() {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(Map.of("error", "El usuario fue modificado por otra operación; vuelva a consultarlo"));
+    }
+
     // TODO: Implementar endpoints adicionales:
     // - POST /api/usuarios/{id}/resetear-contrasena
     // - GET /api/usuarios/estadisticas
-    // - GET /api/usuarios/inactivos
     // - POST /api/usuarios/{id}/bloquear
     // - POST /api/usuarios/{id}/desbloquear
     // - GET /api/usuarios/export (exportar a Excel/CSV)
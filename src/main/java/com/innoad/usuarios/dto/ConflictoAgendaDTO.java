@@ -0,0 +1,20 @@
+package com.innoad.usuarios.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Reunión que ya ocupa el horario pedido para un usuario
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConflictoAgendaDTO {
+
+    private Long idUsuario;
+    private Long idReunion;
+    private LocalDateTime inicio;
+    private LocalDateTime fin;
+}
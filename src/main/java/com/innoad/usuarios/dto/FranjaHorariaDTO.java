@@ -0,0 +1,18 @@
+package com.innoad.usuarios.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Horario libre encontrado para un grupo de usuarios
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FranjaHorariaDTO {
+
+    private LocalDateTime inicio;
+    private LocalDateTime fin;
+}
@@ -0,0 +1,23 @@
+package com.innoad.usuarios.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Credenciales de inicio de sesión
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoginDTO {
+
+    @NotBlank(message = "El correo es obligatorio")
+    @Email(message = "El formato del correo no es válido")
+    private String correo;
+
+    @NotBlank(message = "La contraseña es obligatoria")
+    private String contrasena;
+}
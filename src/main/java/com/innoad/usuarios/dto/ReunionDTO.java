@@ -0,0 +1,49 @@
+package com.innoad.usuarios.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+
+/**
+ * DTO de reuniones; también sirve para verificar conflictos de un horario
+ * (fecha, horas, asistentes y, al mover, idReunion)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReunionDTO {
+
+    private Long idReunion;
+
+    @NotNull(message = "La fecha es obligatoria")
+    private LocalDate fecha;
+
+    @NotNull(message = "La hora de inicio es obligatoria")
+    private LocalTime horaInicio;
+
+    @NotNull(message = "La hora de fin es obligatoria")
+    private LocalTime horaFin;
+
+    @NotBlank(message = "El motivo es obligatorio")
+    @Size(max = 250, message = "El motivo no puede exceder 250 caracteres")
+    private String motivo;
+
+    private String descripcion;
+
+    @Size(max = 200, message = "La ubicación no puede exceder 200 caracteres")
+    private String ubicacion;
+
+    private String estado;
+
+    private Long organizadorId;
+
+    private Set<Long> asistentes;
+}
@@ -0,0 +1,25 @@
+package com.innoad.usuarios.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Respuesta de inicio de sesión y de renovación de tokens
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenDTO {
+
+    private String tokenAcceso;
+    private String tokenRefresco;
+    private String tipo = "Bearer";
+    private long expiraEnSegundos;
+
+    public TokenDTO(String tokenAcceso, String tokenRefresco, long expiraEnSegundos) {
+        this.tokenAcceso = tokenAcceso;
+        this.tokenRefresco = tokenRefresco;
+        this.expiraEnSegundos = expiraEnSegundos;
+    }
+}
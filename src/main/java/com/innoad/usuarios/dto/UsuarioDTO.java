@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.LocalDateTime;
 
 /**
@@ -62,6 +63,10 @@ public class UsuarioDTO {
     private Integer intentosLogin;
     private Boolean bloqueado;
 
+    // Versión de la entidad; en las respuestas va también como ETag
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     /**
      * Constructor para creación de usuario (sin ID)
      * TODO: Usar para requests de creación
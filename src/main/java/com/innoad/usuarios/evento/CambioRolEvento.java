@@ -0,0 +1,12 @@
+package com.innoad.usuarios.evento;
+
+/**
+ * Evento publicado cada vez que se persiste, modifica o elimina un rol,
+ * incluidos los cambios que solo tocan sus permisos declarados.
+ *
+ * Solo lleva el id: quien lo consuma (la tabla de permisos compilada) vuelve
+ * a leer todos los roles, porque un cambio en un rol afecta también a los que
+ * heredan de él.
+ */
+public record CambioRolEvento(Long idRol) {
+}
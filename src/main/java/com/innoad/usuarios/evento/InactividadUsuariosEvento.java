@@ -0,0 +1,13 @@
+package com.innoad.usuarios.evento;
+
+import java.util.List;
+
+/**
+ * Evento publicado por el barrido de inactividad después de confirmar cada
+ * lote, con los usuarios recién avisados y los recién desactivados.
+ */
+public record InactividadUsuariosEvento(
+        List<Long> marcados,
+        List<Long> desactivados
+) {
+}
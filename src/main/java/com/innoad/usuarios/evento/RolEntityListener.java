@@ -0,0 +1,32 @@
+package com.innoad.usuarios.evento;
+
+import com.innoad.usuarios.modelo.Rol;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA que convierte cada alta, modificación o borrado de un rol
+ * en un {@link CambioRolEvento} de Spring.
+ *
+ * Hibernate instancia este listener a través del contenedor de Spring, así
+ * que cualquier código que guarde un rol dispara la recompilación de permisos
+ * sin tener que acordarse de pedirla. Los cambios que solo tocan la
+ * colección de permisos los cubre {@link RolPermisosListener}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RolEntityListener {
+
+    private final ApplicationEventPublisher publicador;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void publicarCambio(Rol rol) {
+        publicador.publishEvent(new CambioRolEvento(rol.getIdRol()));
+    }
+}
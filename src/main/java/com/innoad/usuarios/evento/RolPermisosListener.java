@@ -0,0 +1,70 @@
+package com.innoad.usuarios.evento;
+
+import com.innoad.usuarios.modelo.Rol;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener de Hibernate que publica un {@link CambioRolEvento} cuando cambian
+ * los permisos declarados de un rol
+ *
+ * Complementa a {@link RolEntityListener}: Rol no tiene @Version, así que un
+ * cambio que solo toca la colección roles_permisos no deja al rol sucio y los
+ * callbacks @PostUpdate de JPA no se disparan. Los eventos de colección de
+ * Hibernate sí lo hacen. No hace falta publicar nada por los roles hijos: la
+ * recompilación vuelve a leer toda la jerarquía.
+ */
+@Component
+@RequiredArgsConstructor
+public class RolPermisosListener implements PostCollectionUpdateEventListener,
+        PostCollectionRecreateEventListener, PostCollectionRemoveEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher publicador;
+
+    @PostConstruct
+    public void registrar() {
+        EventListenerRegistry registro = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registro.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registro.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent evento) {
+        publicarSiEsRol(evento);
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent evento) {
+        publicarSiEsRol(evento);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent evento) {
+        publicarSiEsRol(evento);
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private void publicarSiEsRol(AbstractCollectionEvent evento) {
+        if (evento.getAffectedOwnerOrNull() instanceof Rol rol) {
+            publicador.publishEvent(new CambioRolEvento(rol.getIdRol()));
+        }
+    }
+}
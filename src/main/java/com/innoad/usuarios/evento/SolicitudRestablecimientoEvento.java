@@ -0,0 +1,24 @@
+package com.innoad.usuarios.evento;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento publicado cuando un usuario pide restablecer su contraseña.
+ *
+ * Lleva el token en claro, que solo existe aquí: en la base de datos se
+ * guarda su hash. Quien lo consuma (el envío de correo) no debe registrarlo
+ * en logs.
+ */
+public record SolicitudRestablecimientoEvento(
+        Long idUsuario,
+        String correo,
+        String nombre,
+        String token,
+        LocalDateTime expira
+) {
+
+    @Override
+    public String toString() {
+        return "SolicitudRestablecimientoEvento[idUsuario=" + idUsuario + ", expira=" + expira + "]";
+    }
+}
@@ -0,0 +1,48 @@
+package com.innoad.usuarios.modelo;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Avance de un proceso por lotes que recorre una tabla por id
+ *
+ * Se guarda en la misma transacción que cada lote, así tras un reinicio el
+ * proceso continúa desde el último lote confirmado con el mismo corte de
+ * fecha, en lugar de empezar de nuevo.
+ */
+@Entity
+@Table(name = "procesos_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckpointProceso {
+
+    @Id
+    @Column(length = 50)
+    private String proceso;
+
+    // Último id procesado (el siguiente lote empieza después)
+    @Column(name = "ultimo_id", nullable = false)
+    private Long ultimoId = 0L;
+
+    // Instante de referencia de la pasada en curso
+    private LocalDateTime corte;
+
+    @Column(nullable = false)
+    private Boolean completado = true;
+
+    @Column(name = "actualizado_en")
+    private LocalDateTime actualizadoEn = LocalDateTime.now();
+
+    public CheckpointProceso(String proceso) {
+        this.proceso = proceso;
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        this.actualizadoEn = LocalDateTime.now();
+    }
+}
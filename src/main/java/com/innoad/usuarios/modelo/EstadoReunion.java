@@ -0,0 +1,18 @@
+package com.innoad.usuarios.modelo;
+
+/**
+ * Estado de una reunión; los valores de la columna son el nombre en minúscula
+ */
+public enum EstadoReunion {
+    PROGRAMADA,
+    EN_CURSO,
+    FINALIZADA,
+    CANCELADA;
+
+    /**
+     * Las reuniones programadas o en curso ocupan la agenda de sus asistentes
+     */
+    public boolean ocupaAgenda() {
+        return this == PROGRAMADA || this == EN_CURSO;
+    }
+}
@@ -0,0 +1,22 @@
+package com.innoad.usuarios.modelo;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Convierte {@link EstadoReunion} al valor de la columna ENUM de MySQL
+ * ('programada', 'en_curso', ...), que init.sql define en minúscula
+ */
+@Converter
+public class EstadoReunionConverter implements AttributeConverter<EstadoReunion, String> {
+
+    @Override
+    public String convertToDatabaseColumn(EstadoReunion estado) {
+        return estado != null ? estado.name().toLowerCase() : null;
+    }
+
+    @Override
+    public EstadoReunion convertToEntityAttribute(String valor) {
+        return valor != null ? EstadoReunion.valueOf(valor.toUpperCase()) : null;
+    }
+}
@@ -12,12 +12,12 @@ import java.time.LocalDateTime;
  * Esta clase maneja los tokens únicos y seguros para la recuperación
  * de contraseñas olvidadas por parte de los usuarios.
  * 
+ * El campo token guarda el hash SHA-256 del token enviado al usuario, nunca
+ * el token en claro. La generación, el uso único y la limpieza viven en
+ * RecuperacionContrasenaServicio.
+ * 
  * TAREAS PARA EL EQUIPO DE DESARROLLO:
- * 1. Implementar generación segura de tokens
- * 2. Configurar tiempo de expiración personalizable
- * 3. Agregar sistema de limpieza de tokens expirados
- * 4. Implementar validaciones de uso único
- * 5. Integrar con servicio de envío de emails
+ * 1. Integrar con servicio de envío de emails
  * 
  * @author Equipo SENA ADSO
  */
@@ -33,6 +33,7 @@ public class PasswordResetToken {
     @Column(name = "id_token")
     private Long idToken;
 
+    // Hash SHA-256 en hexadecimal del token
     @Column(nullable = false, unique = true)
     private String token;
 
@@ -74,8 +75,7 @@ public class PasswordResetToken {
     }
 
     /**
-     * Constructor para crear nuevo token
-     * TODO: Mejorar generación de token con más entropía
+     * Constructor para crear nuevo token a partir del hash ya calculado
      */
     public PasswordResetToken(String token, Usuario usuario, int horasExpiracion) {
         this.token = token;
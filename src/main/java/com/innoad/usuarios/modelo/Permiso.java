@@ -0,0 +1,58 @@
+package com.innoad.usuarios.modelo;
+
+/**
+ * Permisos granulares del sistema InnoAd, agrupados por módulo
+ *
+ * Cada permiso ocupa un bit de un long según su posición en la enumeración,
+ * por eso no puede haber más de 64. Los permisos se guardan por nombre en
+ * roles_permisos, así que reordenar la enumeración es seguro; renombrar un
+ * valor obliga a migrar esa tabla.
+ *
+ * @author Equipo SENA ADSO
+ */
+public enum Permiso {
+
+    // Usuarios y roles
+    USUARIOS_VER,
+    USUARIOS_GESTIONAR,
+    ROLES_GESTIONAR,
+
+    // Campañas
+    CAMPANAS_VER,
+    CAMPANAS_CREAR,
+    CAMPANAS_EDITAR,
+    CAMPANAS_APROBAR,
+
+    // Contenido publicitario
+    CONTENIDO_VER,
+    CONTENIDO_GESTIONAR,
+
+    // Dispositivos
+    DISPOSITIVOS_VER,
+    DISPOSITIVOS_GESTIONAR,
+
+    // Reuniones de otros usuarios (el organizador siempre gestiona las suyas)
+    REUNIONES_GESTIONAR,
+
+    // Reportes y auditoría
+    REPORTES_VER,
+    AUDITORIA_VER,
+
+    // Administración general
+    SISTEMA_ADMINISTRAR;
+
+    static {
+        if (values().length > Long.SIZE) {
+            throw new ExceptionInInitializerError("Permiso admite como máximo 64 valores");
+        }
+    }
+
+    private final long bit = 1L << ordinal();
+
+    /**
+     * Máscara con solo el bit de este permiso
+     */
+    public long bit() {
+        return bit;
+    }
+}
@@ -0,0 +1,91 @@
+package com.innoad.usuarios.modelo;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reunión agendada por un organizador
+ *
+ * Los asistentes invitados están en reuniones_usuarios; la respuesta de cada
+ * uno (columna asistencia) se maneja con consultas del repositorio para no
+ * cargar la tabla de relación como entidad. El organizador ocupa el horario
+ * aunque no esté en la lista de invitados.
+ */
+@Entity
+@Table(name = "reuniones")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Reunion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_reunion")
+    private Long idReunion;
+
+    @NotNull(message = "La fecha es obligatoria")
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    @NotNull(message = "La hora de inicio es obligatoria")
+    @Column(name = "hora_inicio", nullable = false)
+    private LocalTime horaInicio;
+
+    @NotNull(message = "La hora de fin es obligatoria")
+    @Column(name = "hora_fin", nullable = false)
+    private LocalTime horaFin;
+
+    @NotBlank(message = "El motivo es obligatorio")
+    @Size(max = 250, message = "El motivo no puede exceder 250 caracteres")
+    @Column(nullable = false, length = 250)
+    private String motivo;
+
+    @Column(columnDefinition = "TEXT")
+    private String descripcion;
+
+    @Size(max = 200, message = "La ubicación no puede exceder 200 caracteres")
+    @Column(length = 200)
+    private String ubicacion;
+
+    @Convert(converter = EstadoReunionConverter.class)
+    @Column(nullable = false)
+    private EstadoReunion estado = EstadoReunion.PROGRAMADA;
+
+    @NotNull(message = "El organizador es obligatorio")
+    @Column(name = "organizador_id", nullable = false)
+    private Long organizadorId;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "reuniones_usuarios", joinColumns = @JoinColumn(name = "id_reunion"))
+    @Column(name = "id_usuario")
+    private Set<Long> asistentes = new HashSet<>();
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    // Métodos de utilidad
+
+    public LocalDateTime inicio() {
+        return LocalDateTime.of(fecha, horaInicio);
+    }
+
+    public LocalDateTime fin() {
+        return LocalDateTime.of(fecha, horaFin);
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
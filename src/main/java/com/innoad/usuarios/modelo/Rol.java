@@ -5,8 +5,14 @@ import jakarta.validation.constraints.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import com.innoad.usuarios.evento.RolEntityListener;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Entidad Rol para el sistema de permisos InnoAd
@@ -14,17 +20,25 @@ import java.util.List;
  * Esta clase define los diferentes roles que pueden tener los usuarios
  * en el sistema y sus respectivos permisos.
  * 
+ * Cada rol declara sus propios {@link Permiso} y puede heredar los de un rol
+ * padre. Los permisos efectivos no se calculan aquí: PermisosServicio los
+ * compila para todos los roles en una máscara de bits al arrancar y cada vez
+ * que un rol cambia.
+ * 
  * TAREAS PARA EL EQUIPO DE DESARROLLO:
- * 1. Definir enumeración de permisos específicos por módulo
- * 2. Implementar sistema de herencia de permisos
- * 3. Crear roles predefinidos (ADMIN, MANAGER, EDITOR, VIEWER)
- * 4. Implementar validaciones de permisos en los controladores
- * 5. Agregar sistema de permisos granulares por funcionalidad
+ * 1. Implementar validaciones de permisos en los controladores
+ * 
+ * Los roles casi nunca cambian y se resuelven con cada usuario cargado, por eso
+ * viven en la caché de segundo nivel (región "roles", ver application.conf).
+ * La colección de usuarios no se cachea.
  * 
  * @author Equipo SENA ADSO
  */
 @Entity
 @Table(name = "roles")
+@EntityListeners(RolEntityListener.class)
+@Cacheable
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "roles")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -55,35 +69,45 @@ public class Rol {
     @OneToMany(mappedBy = "rol", fetch = FetchType.LAZY)
     private List<Usuario> usuarios;
 
-    // TODO: Agregar relación con tabla de permisos específicos
-    // @ManyToMany
-    // @JoinTable(
-    //     name = "roles_permisos",
-    //     joinColumns = @JoinColumn(name = "id_rol"),
-    //     inverseJoinColumns = @JoinColumn(name = "id_permiso")
-    // )
-    // private List<Permiso> permisos;
+    // Rol del que se heredan permisos (null si es raíz)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_rol_padre")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Rol rolPadre;
+
+    // Permisos declarados directamente en este rol, sin los heredados
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "roles_permisos", joinColumns = @JoinColumn(name = "id_rol"))
+    @Enumerated(EnumType.STRING)
+    @Column(name = "permiso", nullable = false, length = 50)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Set<Permiso> permisos = new HashSet<>();
 
     /**
      * Verifica si el rol es de administrador
-     * TODO: Implementar lógica más robusta de verificación
+     * @deprecated compara nombres; usar PermisosServicio con SISTEMA_ADMINISTRAR
      */
+    @Deprecated
     public boolean esAdministrador() {
         return "ADMIN".equals(this.nombre) || "ADMINISTRADOR".equals(this.nombre);
     }
 
     /**
      * Verifica si el rol puede gestionar usuarios
-     * TODO: Implementar verificación basada en permisos granulares
+     * @deprecated compara nombres; usar PermisosServicio con USUARIOS_GESTIONAR
      */
+    @Deprecated
     public boolean puedeGestionarUsuarios() {
         return esAdministrador() || "MANAGER".equals(this.nombre);
     }
 
     /**
      * Verifica si el rol puede crear campañas
-     * TODO: Implementar sistema de permisos por módulo
+     * @deprecated compara nombres; usar PermisosServicio con CAMPANAS_CREAR
      */
+    @Deprecated
     public boolean puedeCrearCampanas() {
         return !("VIEWER".equals(this.nombre));
     }
@@ -6,6 +6,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import java.time.LocalDateTime;
 
 /**
@@ -54,6 +56,7 @@ public class Usuario {
 
     @NotNull(message = "El rol es obligatorio")
     @ManyToOne(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SELECT) // Sin JOIN: el rol se resuelve desde la caché de segundo nivel
     @JoinColumn(name = "id_rol", nullable = false)
     private Rol rol;
 
@@ -69,12 +72,21 @@ public class Usuario {
     @Column(name = "bloqueado_hasta")
     private LocalDateTime bloqueadoHasta;
 
+    // Fecha en que el barrido de inactividad avisó al usuario; se limpia al volver a entrar
+    @Column(name = "marcado_inactivo_en")
+    private LocalDateTime marcadoInactivoEn;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    // Control de concurrencia optimista; también es el ETag de GET /api/usuarios/{id}
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     // Métodos de utilidad
 
     /**
@@ -118,6 +130,7 @@ public class Usuario {
      */
     public void actualizarUltimoAcceso() {
         this.ultimoAcceso = LocalDateTime.now();
+        this.marcadoInactivoEn = null;
         this.updatedAt = LocalDateTime.now();
     }
 
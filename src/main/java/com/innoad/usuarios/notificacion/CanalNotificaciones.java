@@ -0,0 +1,17 @@
+package com.innoad.usuarios.notificacion;
+
+/**
+ * Puerto de salida para avisar a los usuarios (correo, mensajería...)
+ *
+ * Los servicios solo arman la {@link Notificacion}; cómo se entrega depende
+ * de la implementación activa, elegida con innoad.notificaciones.canal.
+ */
+public interface CanalNotificaciones {
+
+    /**
+     * Entrega la notificación
+     *
+     * @throws RuntimeException si el canal no la pudo entregar
+     */
+    void enviar(Notificacion notificacion);
+}
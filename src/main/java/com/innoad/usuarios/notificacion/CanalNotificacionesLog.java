@@ -0,0 +1,22 @@
+package com.innoad.usuarios.notificacion;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Canal de desarrollo: registra el envío en el log sin entregar nada
+ *
+ * Solo se registran destinatario y asunto; el cuerpo puede llevar el token
+ * de recuperación, que no debe quedar en los logs.
+ */
+@Component
+@ConditionalOnProperty(prefix = "innoad.notificaciones", name = "canal", havingValue = "log", matchIfMissing = true)
+@Slf4j
+public class CanalNotificacionesLog implements CanalNotificaciones {
+
+    @Override
+    public void enviar(Notificacion notificacion) {
+        log.info("Notificación para {}: {}", notificacion.destinatario(), notificacion.asunto());
+    }
+}
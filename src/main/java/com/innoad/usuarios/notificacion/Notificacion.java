@@ -0,0 +1,19 @@
+package com.innoad.usuarios.notificacion;
+
+/**
+ * Mensaje para un usuario, independiente del canal que lo entregue
+ *
+ * El cuerpo puede llevar datos sensibles (el enlace de recuperación), así
+ * que no aparece en toString.
+ */
+public record Notificacion(
+        String destinatario,
+        String asunto,
+        String cuerpo
+) {
+
+    @Override
+    public String toString() {
+        return "Notificacion[destinatario=" + destinatario + ", asunto=" + asunto + "]";
+    }
+}
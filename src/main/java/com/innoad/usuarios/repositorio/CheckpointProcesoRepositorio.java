@@ -0,0 +1,12 @@
+package com.innoad.usuarios.repositorio;
+
+import com.innoad.usuarios.modelo.CheckpointProceso;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio para el avance de los procesos por lotes
+ */
+@Repository
+public interface CheckpointProcesoRepositorio extends JpaRepository<CheckpointProceso, String> {
+}
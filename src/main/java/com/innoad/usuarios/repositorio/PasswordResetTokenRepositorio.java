@@ -0,0 +1,55 @@
+package com.innoad.usuarios.repositorio;
+
+import com.innoad.usuarios.modelo.PasswordResetToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repositorio para los tokens de recuperación de contraseña
+ *
+ * La columna token guarda el hash SHA-256 del token enviado al usuario, así
+ * que todas las búsquedas son por hash sobre el índice único de esa columna.
+ */
+@Repository
+public interface PasswordResetTokenRepositorio extends JpaRepository<PasswordResetToken, Long> {
+
+    Optional<PasswordResetToken> findByToken(String hashToken);
+
+    /**
+     * Consume el token si sigue vigente. El UPDATE condicional es el que
+     * garantiza el uso único: de dos peticiones simultáneas con el mismo
+     * token solo una obtiene 1.
+     *
+     * La expiración se adelanta al momento de uso para que la purga, que
+     * solo mira expiry_date, también se lleve los tokens usados.
+     */
+    @Modifying
+    @Query("UPDATE PasswordResetToken t SET t.usado = true, t.expiryDate = :ahora " +
+           "WHERE t.idToken = :idToken AND t.usado = false AND t.expiryDate > :ahora")
+    int consumir(@Param("idToken") Long idToken, @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Invalida los tokens pendientes del usuario (al emitir uno nuevo solo
+     * debe quedar vigente el último)
+     */
+    @Modifying
+    @Query("UPDATE PasswordResetToken t SET t.usado = true, t.expiryDate = :ahora " +
+           "WHERE t.usuario.idUsuario = :usuarioId AND t.usado = false")
+    int invalidarPendientes(@Param("usuarioId") Long usuarioId, @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Borra un lote de tokens expirados o usados. Cada llamada es su propia
+     * transacción corta para no retener bloqueos sobre la tabla.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM password_reset_tokens WHERE expiry_date < :limite ORDER BY expiry_date LIMIT :tamano",
+           nativeQuery = true)
+    int borrarExpirados(@Param("limite") LocalDateTime limite, @Param("tamano") int tamano);
+}
@@ -0,0 +1,33 @@
+package com.innoad.usuarios.repositorio;
+
+import com.innoad.usuarios.modelo.Reunion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+/**
+ * Repositorio de reuniones y de la respuesta de cada asistente
+ */
+@Repository
+public interface ReunionRepositorio extends JpaRepository<Reunion, Long> {
+
+    /**
+     * Guarda la respuesta de un invitado ('pendiente', 'confirmada', 'rechazada', 'ausente')
+     */
+    @Modifying
+    @Query(value = "UPDATE reuniones_usuarios SET asistencia = :asistencia " +
+                   "WHERE id_reunion = :idReunion AND id_usuario = :idUsuario", nativeQuery = true)
+    int actualizarAsistencia(@Param("idReunion") Long idReunion,
+                             @Param("idUsuario") Long idUsuario,
+                             @Param("asistencia") String asistencia);
+
+    /**
+     * Invitados que rechazaron la reunión (no ocupan su agenda)
+     */
+    @Query(value = "SELECT id_usuario FROM reuniones_usuarios " +
+                   "WHERE id_reunion = :idReunion AND asistencia = 'rechazada'", nativeQuery = true)
+    List<Number> findRechazados(@Param("idReunion") Long idReunion);
+}
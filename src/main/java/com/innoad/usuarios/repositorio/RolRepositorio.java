@@ -1,13 +1,33 @@
 package com.innoad.usuarios.repositorio;
 
 import com.innoad.usuarios.modelo.Rol;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Repositorio para la entidad Rol
+ *
+ * findById se resuelve con EntityManager.find y lo atiende la región "roles"
+ * de la caché de segundo nivel; las consultas por nombre usan la caché de
+ * consultas, que se invalida sola cuando cambia la tabla roles.
  */
 @Repository
 public interface RolRepositorio extends JpaRepository<Rol, Long> {
-    // En el futuro agregar queries específicas si es necesario
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<Rol> findByNombre(String nombre);
+
+    /**
+     * Todos los roles con sus permisos declarados en una sola consulta,
+     * para compilar la tabla de permisos efectivos
+     */
+    @Query("SELECT DISTINCT r FROM Rol r LEFT JOIN FETCH r.permisos")
+    List<Rol> findAllConPermisos();
 }
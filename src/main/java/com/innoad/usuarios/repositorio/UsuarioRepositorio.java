@@ -1,11 +1,16 @@
 package com.innoad.usuarios.repositorio;
 
 import com.innoad.usuarios.modelo.Usuario;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -54,7 +59,7 @@ public interface UsuarioRepositorio extends JpaRepository<Usuario, Long> {
 
     /**
      * Busca usuarios que no han accedido recientemente
-     * TODO: Implementar para reportes de usuarios inactivos
+     * Carga todo el resultado; para tablas grandes usar findInactivosDesdeId
      */
     @Query("SELECT u FROM Usuario u WHERE u.ultimoAcceso < :fecha OR u.ultimoAcceso IS NULL")
     List<Usuario> findUsuariosInactivosDesdeFecha(@Param("fecha") LocalDateTime fecha);
@@ -88,7 +93,7 @@ public interface UsuarioRepositorio extends JpaRepository<Usuario, Long> {
 
     /**
      * Busca usuarios creados en un rango de fechas
-     * TODO: Implementar para reportes periódicos
+     * Carga todo el resultado; para tablas grandes usar findCreadosEntreFechasDesdeId
      */
     @Query("SELECT u FROM Usuario u WHERE u.createdAt BETWEEN :fechaInicio AND :fechaFin")
     List<Usuario> findUsuariosCreadosEntreFechas(
@@ -112,6 +117,89 @@ public interface UsuarioRepositorio extends JpaRepository<Usuario, Long> {
         @Param("activo") Boolean activo
     );
 
+    // CONSULTAS POR LOTES (paginación por id: cada lote sigue al último id del anterior)
+
+    /**
+     * Usuarios sin acceso desde la fecha, a partir de un id
+     */
+    @Query("SELECT u FROM Usuario u WHERE u.idUsuario > :desdeId " +
+           "AND (u.ultimoAcceso < :fecha OR u.ultimoAcceso IS NULL) ORDER BY u.idUsuario")
+    List<Usuario> findInactivosDesdeId(@Param("fecha") LocalDateTime fecha,
+                                       @Param("desdeId") Long desdeId,
+                                       Pageable lote);
+
+    /**
+     * Usuarios creados en el rango, a partir de un id
+     */
+    @Query("SELECT u FROM Usuario u WHERE u.idUsuario > :desdeId " +
+           "AND u.createdAt BETWEEN :fechaInicio AND :fechaFin ORDER BY u.idUsuario")
+    List<Usuario> findCreadosEntreFechasDesdeId(@Param("fechaInicio") LocalDateTime fechaInicio,
+                                                @Param("fechaFin") LocalDateTime fechaFin,
+                                                @Param("desdeId") Long desdeId,
+                                                Pageable lote);
+
+    /**
+     * Ids siguientes a desdeId, para fijar los límites de un lote
+     */
+    @Query("SELECT u.idUsuario FROM Usuario u WHERE u.idUsuario > :desdeId ORDER BY u.idUsuario")
+    List<Long> findIdsDesde(@Param("desdeId") Long desdeId, Pageable lote);
+
+    /**
+     * Usuarios activos del rango (desdeId, hastaId] sin actividad desde el
+     * límite (o, si nunca entraron, creados antes) y todavía sin marcar.
+     * Bloquea las filas hasta el fin del lote para que un login concurrente
+     * espere al UPDATE en vez de quedar marcado por error.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u.idUsuario FROM Usuario u WHERE u.idUsuario > :desdeId AND u.idUsuario <= :hastaId " +
+           "AND u.activo = true AND u.marcadoInactivoEn IS NULL " +
+           "AND COALESCE(u.ultimoAcceso, u.createdAt) < :limite")
+    List<Long> findIdsParaMarcar(@Param("desdeId") Long desdeId,
+                                 @Param("hastaId") Long hastaId,
+                                 @Param("limite") LocalDateTime limite);
+
+    /**
+     * Usuarios activos del rango ya avisados, sin actividad desde el límite y
+     * cuyo rol no está excluido. Bloquea las filas igual que findIdsParaMarcar.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u.idUsuario FROM Usuario u WHERE u.idUsuario > :desdeId AND u.idUsuario <= :hastaId " +
+           "AND u.activo = true AND u.marcadoInactivoEn IS NOT NULL " +
+           "AND COALESCE(u.ultimoAcceso, u.createdAt) < :limite " +
+           "AND u.rol.idRol NOT IN :rolesExcluidos")
+    List<Long> findIdsParaDesactivar(@Param("desdeId") Long desdeId,
+                                     @Param("hastaId") Long hastaId,
+                                     @Param("limite") LocalDateTime limite,
+                                     @Param("rolesExcluidos") Collection<Long> rolesExcluidos);
+
+    /**
+     * Marca como inactivos a los usuarios indicados. Repite la condición de
+     * inactividad por si alguno entró entre la selección y el UPDATE.
+     */
+    @Modifying
+    @Query("UPDATE Usuario u SET u.marcadoInactivoEn = :ahora WHERE u.idUsuario IN :ids " +
+           "AND u.marcadoInactivoEn IS NULL AND COALESCE(u.ultimoAcceso, u.createdAt) < :limite")
+    int marcarInactivos(@Param("ids") Collection<Long> ids,
+                        @Param("ahora") LocalDateTime ahora,
+                        @Param("limite") LocalDateTime limite);
+
+    /**
+     * Desactiva a los usuarios indicados con la misma salvaguarda
+     */
+    @Modifying
+    @Query("UPDATE Usuario u SET u.activo = false, u.updatedAt = :ahora, u.version = u.version + 1 " +
+           "WHERE u.idUsuario IN :ids " +
+           "AND u.activo = true AND COALESCE(u.ultimoAcceso, u.createdAt) < :limite")
+    int desactivarInactivos(@Param("ids") Collection<Long> ids,
+                            @Param("ahora") LocalDateTime ahora,
+                            @Param("limite") LocalDateTime limite);
+
+    /**
+     * Solo la versión del usuario, para responder If-None-Match sin cargar la entidad
+     */
+    @Query("SELECT u.version FROM Usuario u WHERE u.idUsuario = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
     // TODO: Agregar más consultas según necesidades del negocio:
     // - findTopUsuariosPorActividad()
     // - findUsuariosPorDepartamento() (si se agrega campo)
@@ -0,0 +1,93 @@
+package com.innoad.usuarios.seguridad;
+
+import com.innoad.usuarios.modelo.Permiso;
+import com.innoad.usuarios.servicio.PermisosServicio;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Filtro que autentica cada petición con el token de acceso del encabezado
+ * Authorization
+ *
+ * El camino normal no toca la base de datos: firma y expiración se verifican
+ * con la clave ya preparada en JwtServicio, la revocación se descarta en
+ * memoria con ListaRevocacion y las autoridades salen de la máscara de
+ * permisos compilada del rol. La lista de autoridades se comparte entre todas
+ * las peticiones con la misma máscara.
+ *
+ * Un token ausente, inválido o revocado deja la petición sin autenticar; la
+ * configuración de seguridad decide si eso es un 401.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FiltroAutenticacionJwt extends OncePerRequestFilter {
+
+    private static final String PREFIJO = "Bearer ";
+
+    private final JwtServicio jwtServicio;
+    private final ListaRevocacion listaRevocacion;
+    private final PermisosServicio permisosServicio;
+
+    // Máscara de permisos -> autoridades ya construidas
+    private final Map<Long, List<GrantedAuthority>> autoridadesPorMascara = new ConcurrentHashMap<>();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String encabezado = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (encabezado != null && encabezado.startsWith(PREFIJO)) {
+            autenticar(encabezado.substring(PREFIJO.length()));
+        }
+        chain.doFilter(request, response);
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private void autenticar(String token) {
+        UsuarioAutenticado usuario;
+        try {
+            usuario = jwtServicio.validar(token, JwtServicio.TIPO_ACCESO);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Token de acceso rechazado: {}", e.getMessage());
+            return;
+        }
+        if (listaRevocacion.estaRevocado(usuario.idUsuario(), usuario.emitidoEn())) {
+            log.debug("Token revocado para usuario ID: {}", usuario.idUsuario());
+            return;
+        }
+
+        long mascara = permisosServicio.mascara(usuario.idRol());
+        List<GrantedAuthority> autoridades = autoridadesPorMascara.computeIfAbsent(mascara, this::construirAutoridades);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(usuario, null, autoridades));
+    }
+
+    private List<GrantedAuthority> construirAutoridades(long mascara) {
+        List<GrantedAuthority> autoridades = new ArrayList<>();
+        for (Permiso permiso : Permiso.values()) {
+            if ((mascara & permiso.bit()) != 0) {
+                autoridades.add(new SimpleGrantedAuthority(permiso.name()));
+            }
+        }
+        return List.copyOf(autoridades);
+    }
+}
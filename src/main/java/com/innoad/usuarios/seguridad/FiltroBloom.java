@@ -0,0 +1,75 @@
+package com.innoad.usuarios.seguridad;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de claves long
+ *
+ * Responde "seguro que no está" o "puede estar". Se usa delante de la lista
+ * de revocación para que el caso normal (un token que nadie revocó) se
+ * resuelva con unas pocas lecturas de bits, sin tocar el mapa exacto.
+ *
+ * Las escrituras se hacen bajo el cerrojo de quien lo posee; las lecturas son
+ * libres de bloqueo. No admite borrar: para vaciarlo se construye uno nuevo.
+ */
+final class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final int cantidadBits;
+    private final int funciones;
+
+    /**
+     * Dimensiona el filtro para la capacidad esperada y la tasa de falsos
+     * positivos indicada (por ejemplo 0.01)
+     */
+    FiltroBloom(int capacidad, double tasaFalsosPositivos) {
+        long m = (long) Math.ceil(-Math.max(capacidad, 1) * Math.log(tasaFalsosPositivos) / (Math.log(2) * Math.log(2)));
+        this.cantidadBits = (int) Math.min(Math.max(m, Long.SIZE), Integer.MAX_VALUE - Long.SIZE);
+        this.funciones = Math.max(1, (int) Math.round((double) cantidadBits / Math.max(capacidad, 1) * Math.log(2)));
+        this.bits = new AtomicLongArray((cantidadBits + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    void agregar(long clave) {
+        long h = mezclar(clave);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < funciones; i++) {
+            int posicion = indice(h1 + i * h2);
+            int palabra = posicion >>> 6;
+            long mascara = 1L << posicion;
+            long actual;
+            do {
+                actual = bits.get(palabra);
+                if ((actual & mascara) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(palabra, actual, actual | mascara));
+        }
+    }
+
+    boolean puedeContener(long clave) {
+        long h = mezclar(clave);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < funciones; i++) {
+            int posicion = indice(h1 + i * h2);
+            if ((bits.get(posicion >>> 6) & (1L << posicion)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private int indice(int hash) {
+        return (hash & Integer.MAX_VALUE) % cantidadBits;
+    }
+
+    // Finalizador de SplitMix64: reparte bien claves consecutivas como los ids
+    private static long mezclar(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+}
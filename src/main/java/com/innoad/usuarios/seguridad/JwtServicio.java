@@ -0,0 +1,117 @@
+package com.innoad.usuarios.seguridad;
+
+import com.innoad.usuarios.dto.TokenDTO;
+import com.innoad.usuarios.modelo.Usuario;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Emisión y validación de tokens JWT firmados con HMAC-SHA256
+ *
+ * La clave se deriva del secreto una sola vez y el parser (inmutable y seguro
+ * entre hilos) se construye en el constructor, así validar un token es
+ * verificar la firma y leer los claims, sin base de datos ni reservas de
+ * clave por petición.
+ *
+ * Cada inicio de sesión emite un token de acceso y uno de refresco con el
+ * mismo iat; ListaRevocacion usa el par usuario + iat para revocarlos juntos.
+ */
+@Service
+public class JwtServicio {
+
+    public static final String TIPO_ACCESO = "acceso";
+    public static final String TIPO_REFRESCO = "refresco";
+
+    private static final String CLAIM_TIPO = "tipo";
+    private static final String CLAIM_CORREO = "correo";
+    private static final String CLAIM_ROL = "rol";
+    private static final long TOLERANCIA_RELOJ_SEGUNDOS = 30;
+
+    private final SecretKey clave;
+    private final JwtParser parser;
+    private final long expiracionMs;
+    private final long expiracionRefrescoMs;
+
+    public JwtServicio(@Value("${spring.security.jwt.secret}") String secreto,
+                       @Value("${spring.security.jwt.expiration:86400000}") long expiracionMs,
+                       @Value("${spring.security.jwt.refresh-expiration:604800000}") long expiracionRefrescoMs) {
+        byte[] bytes = secreto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) {
+            throw new IllegalStateException("spring.security.jwt.secret debe tener al menos 32 bytes para HS256");
+        }
+        this.clave = Keys.hmacShaKeyFor(bytes);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(clave)
+                .setAllowedClockSkewSeconds(TOLERANCIA_RELOJ_SEGUNDOS)
+                .build();
+        this.expiracionMs = expiracionMs;
+        this.expiracionRefrescoMs = expiracionRefrescoMs;
+    }
+
+    /**
+     * Emite el par de tokens de acceso y refresco para el usuario
+     */
+    public TokenDTO emitir(Usuario usuario) {
+        return emitir(usuario, 0);
+    }
+
+    /**
+     * Emite un par con iat posterior a emitidoDespuesDe (segundos), para que
+     * revocar el par que se está renovando no revoque también el nuevo
+     */
+    public TokenDTO emitir(Usuario usuario, long emitidoDespuesDe) {
+        // iat de JWT va en segundos; se trunca aquí para que el valor firmado
+        // y el que se usa al revocar sean el mismo
+        Instant ahora = Instant.ofEpochSecond(Math.max(Instant.now().getEpochSecond(), emitidoDespuesDe + 1));
+        String acceso = construir(usuario, TIPO_ACCESO, ahora, expiracionMs);
+        String refresco = construir(usuario, TIPO_REFRESCO, ahora, expiracionRefrescoMs);
+        return new TokenDTO(acceso, refresco, expiracionMs / 1000);
+    }
+
+    /**
+     * Valida firma, expiración y tipo del token y devuelve su identidad
+     *
+     * @throws JwtException si el token no es válido o no es del tipo esperado
+     */
+    public UsuarioAutenticado validar(String token, String tipoEsperado) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (!tipoEsperado.equals(claims.get(CLAIM_TIPO, String.class))) {
+            throw new JwtException("Tipo de token no válido");
+        }
+        Date emitido = claims.getIssuedAt();
+        if (emitido == null) {
+            throw new JwtException("Token sin fecha de emisión");
+        }
+        return new UsuarioAutenticado(
+                Long.valueOf(claims.getSubject()),
+                claims.get(CLAIM_CORREO, String.class),
+                claims.get(CLAIM_ROL, Long.class),
+                emitido.getTime() / 1000
+        );
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private String construir(Usuario usuario, String tipo, Instant emitido, long duracionMs) {
+        return Jwts.builder()
+                .setSubject(String.valueOf(usuario.getIdUsuario()))
+                .claim(CLAIM_TIPO, tipo)
+                .claim(CLAIM_CORREO, usuario.getCorreo())
+                .claim(CLAIM_ROL, usuario.getRol().getIdRol())
+                .setIssuedAt(Date.from(emitido))
+                .setExpiration(Date.from(emitido.plusMillis(duracionMs)))
+                .signWith(clave, SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
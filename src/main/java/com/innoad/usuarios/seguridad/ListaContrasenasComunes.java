@@ -0,0 +1,125 @@
+package com.innoad.usuarios.seguridad;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Conjunto compacto de contraseñas comunes (filtradas en brechas conocidas)
+ *
+ * La lista es un archivo de texto con una contraseña por línea. Se recorre
+ * mapeada en memoria, sin crear un String por línea, y cada entrada se guarda
+ * como un hash de 64 bits en un filtro de Bloom: un millón de entradas ocupan
+ * alrededor de 1,8 MB. Un falso positivo rechaza una contraseña que no está en
+ * la lista, con la probabilidad configurada; nunca acepta una que sí está.
+ *
+ * La comparación no distingue mayúsculas de minúsculas en letras ASCII, así
+ * "Password" cuenta como "password".
+ */
+public final class ListaContrasenasComunes {
+
+    private static final double TASA_FALSOS_POSITIVOS = 0.001;
+    private static final long FNV_BASE = 0xcbf29ce484222325L;
+    private static final long FNV_PRIMO = 0x100000001b3L;
+
+    private final FiltroBloom filtro;
+    private final int tamano;
+
+    private ListaContrasenasComunes(FiltroBloom filtro, int tamano) {
+        this.filtro = filtro;
+        this.tamano = tamano;
+    }
+
+    /**
+     * Carga la lista desde un archivo, mapeándolo en memoria
+     */
+    public static ListaContrasenasComunes cargar(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            return construir(mapa);
+        }
+    }
+
+    /**
+     * Carga la lista desde un recurso del classpath (dentro del jar no se
+     * puede mapear, así que se lee completo; se usa para la lista por defecto)
+     */
+    public static ListaContrasenasComunes cargarRecurso(String recurso) throws IOException {
+        try (InputStream entrada = ListaContrasenasComunes.class.getClassLoader().getResourceAsStream(recurso)) {
+            if (entrada == null) {
+                throw new IOException("No existe el recurso " + recurso);
+            }
+            return construir(ByteBuffer.wrap(entrada.readAllBytes()));
+        }
+    }
+
+    public boolean contiene(String contrasena) {
+        byte[] bytes = contrasena.getBytes(StandardCharsets.UTF_8);
+        return filtro.puedeContener(hash(bytes, 0, bytes.length));
+    }
+
+    public int tamano() {
+        return tamano;
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private static ListaContrasenasComunes construir(ByteBuffer datos) {
+        // Primera pasada: contar líneas para dimensionar el filtro
+        int lineas = 0;
+        int limite = datos.limit();
+        for (int i = 0; i < limite; i++) {
+            if (datos.get(i) == '\n') {
+                lineas++;
+            }
+        }
+        if (limite > 0 && datos.get(limite - 1) != '\n') {
+            lineas++;
+        }
+
+        // Segunda pasada: hash de cada línea directamente sobre los bytes
+        FiltroBloom filtro = new FiltroBloom(Math.max(lineas, 1), TASA_FALSOS_POSITIVOS);
+        int cargadas = 0;
+        int inicio = 0;
+        for (int i = 0; i <= limite; i++) {
+            if (i == limite || datos.get(i) == '\n') {
+                int fin = i;
+                if (fin > inicio && datos.get(fin - 1) == '\r') {
+                    fin--;
+                }
+                if (fin > inicio) {
+                    filtro.agregar(hash(datos, inicio, fin));
+                    cargadas++;
+                }
+                inicio = i + 1;
+            }
+        }
+        return new ListaContrasenasComunes(filtro, cargadas);
+    }
+
+    // FNV-1a de 64 bits con minúsculas ASCII; las dos variantes deben coincidir
+    private static long hash(ByteBuffer datos, int desde, int hasta) {
+        long h = FNV_BASE;
+        for (int i = desde; i < hasta; i++) {
+            h = (h ^ minuscula(datos.get(i))) * FNV_PRIMO;
+        }
+        return h;
+    }
+
+    private static long hash(byte[] datos, int desde, int hasta) {
+        long h = FNV_BASE;
+        for (int i = desde; i < hasta; i++) {
+            h = (h ^ minuscula(datos[i])) * FNV_PRIMO;
+        }
+        return h;
+    }
+
+    private static int minuscula(byte b) {
+        return (b >= 'A' && b <= 'Z') ? b + ('a' - 'A') : b & 0xff;
+    }
+}
@@ -0,0 +1,213 @@
+package com.innoad.usuarios.seguridad;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lista de tokens revocados antes de su expiración
+ *
+ * Los tokens no se guardan: se identifican por usuario y fecha de emisión
+ * (iat), que es lo que llevan dentro. Hay dos tipos de revocación:
+ * - Puntual (cerrar sesión): un par usuario + iat. Como el token de acceso y
+ *   el de refresco se emiten juntos, revocar uno revoca el otro.
+ * - Por corte (cambio de contraseña o de rol, desactivación): todos los
+ *   tokens del usuario emitidos antes de un instante.
+ * Al renovar tokens, el par anterior se revoca de forma puntual.
+ *
+ * Los cortes se comprueban con una lectura exacta del mapa por usuario. Las
+ * revocaciones puntuales, que son la mayoría (cada renovación deja una durante
+ * toda la vida del token de refresco), tienen delante un filtro de Bloom con
+ * el par usuario + iat: un usuario activo que renovó ayer no pasa el filtro
+ * con el token que usa hoy, así que el caso normal se descarta sin consultar
+ * el mapa de puntuales. Las entradas se purgan cuando ya no puede existir un
+ * token vigente al que afecten, y al purgar se reconstruye el filtro.
+ *
+ * Cada revocación se escribe también en la tabla tokens_revocados de forma
+ * síncrona, dentro de la transacción de quien revoca (o en su propia sentencia
+ * si no hay transacción), y al arrancar la lista se reconstruye desde ahí. No
+ * se usa la auditoría para esto: es asíncrona y puede descartar registros, y
+ * un registro perdido volvería a dar por válido un token revocado. La clave
+ * primaria de la tabla es además lo que decide, entre dos renovaciones
+ * simultáneas con el mismo token (aunque lleguen a instancias distintas),
+ * cuál se queda con el par nuevo.
+ */
+@Component
+@Slf4j
+public class ListaRevocacion {
+
+    private static final double TASA_FALSOS_POSITIVOS = 0.01;
+
+    private static final String SQL_INSERTAR_PUNTUAL =
+            "INSERT INTO tokens_revocados (usuario_id, tipo, iat, expira_en) VALUES (?, 'puntual', ?, ?)";
+    private static final String SQL_INSERTAR_CORTE =
+            "INSERT INTO tokens_revocados (usuario_id, tipo, iat, expira_en) VALUES (?, 'corte', ?, ?) " +
+            "ON DUPLICATE KEY UPDATE expira_en = expira_en";
+    private static final String SQL_RECARGAR =
+            "SELECT usuario_id, tipo, iat FROM tokens_revocados WHERE expira_en > ?";
+    private static final String SQL_PURGAR =
+            "DELETE FROM tokens_revocados WHERE expira_en <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int capacidad;
+    // Vida máxima de un token (la del de refresco), en segundos
+    private final long vidaMaximaSegundos;
+
+    // Usuario -> iat mínimo aceptado (epoch segundos)
+    private final Map<Long, Long> cortes = new ConcurrentHashMap<>();
+    // Revocaciones puntuales
+    private final Map<TokenRevocado, Boolean> puntuales = new ConcurrentHashMap<>();
+
+    private final Object cerrojo = new Object();
+    private volatile FiltroBloom filtro;
+
+    public ListaRevocacion(JdbcTemplate jdbcTemplate,
+                           @Value("${spring.security.jwt.denylist.capacidad:100000}") int capacidad,
+                           @Value("${spring.security.jwt.refresh-expiration:604800000}") long expiracionRefrescoMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.capacidad = capacidad;
+        this.vidaMaximaSegundos = expiracionRefrescoMs / 1000;
+        this.filtro = new FiltroBloom(capacidad, TASA_FALSOS_POSITIVOS);
+    }
+
+    /**
+     * Indica si el token emitido para el usuario en el instante indicado
+     * fue revocado
+     */
+    public boolean estaRevocado(long idUsuario, long emitidoEn) {
+        Long corte = cortes.get(idUsuario);
+        if (corte != null && emitidoEn < corte) {
+            return true;
+        }
+        if (!filtro.puedeContener(clave(idUsuario, emitidoEn))) {
+            return false;
+        }
+        return puntuales.containsKey(new TokenRevocado(idUsuario, emitidoEn));
+    }
+
+    /**
+     * Revoca un token concreto (y su pareja de acceso o refresco)
+     */
+    public void revocar(long idUsuario, long emitidoEn) {
+        revocarSiVigente(idUsuario, emitidoEn);
+    }
+
+    /**
+     * Revoca un token concreto; devuelve false si ya estaba revocado. Sirve
+     * para que, de dos renovaciones simultáneas con el mismo token, solo una
+     * se quede con el par nuevo: la que inserta primero la fila.
+     */
+    public boolean revocarSiVigente(long idUsuario, long emitidoEn) {
+        if (estaRevocado(idUsuario, emitidoEn)) {
+            return false;
+        }
+        boolean insertada;
+        try {
+            jdbcTemplate.update(SQL_INSERTAR_PUNTUAL, idUsuario, emitidoEn, expiracion(emitidoEn));
+            insertada = true;
+        } catch (DuplicateKeyException e) {
+            // Otra petición (u otra instancia) lo revocó primero
+            insertada = false;
+        }
+        agregarPuntual(idUsuario, emitidoEn);
+        return insertada;
+    }
+
+    /**
+     * Revoca todos los tokens del usuario emitidos antes del instante indicado.
+     * La resolución es de un segundo, la del iat de JWT: un token emitido en el
+     * mismo segundo del corte sigue siendo válido, para no expulsar al usuario
+     * que vuelve a iniciar sesión justo después de cambiar su contraseña.
+     */
+    public void revocarEmitidosAntesDe(long idUsuario, Instant instante) {
+        long corte = instante.getEpochSecond();
+        jdbcTemplate.update(SQL_INSERTAR_CORTE, idUsuario, corte, expiracion(corte));
+        agregarCorte(idUsuario, corte);
+    }
+
+    /**
+     * Reconstruye la lista desde tokens_revocados, sin las filas de tokens
+     * que ya expiraron
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recargar() {
+        jdbcTemplate.query(SQL_RECARGAR, (RowCallbackHandler) rs -> {
+            long idUsuario = rs.getLong("usuario_id");
+            long iat = rs.getLong("iat");
+            if ("corte".equals(rs.getString("tipo"))) {
+                agregarCorte(idUsuario, iat);
+            } else {
+                agregarPuntual(idUsuario, iat);
+            }
+        }, Timestamp.from(Instant.now()));
+        log.info("Lista de revocación de tokens cargada con {} entradas", tamano());
+    }
+
+    /**
+     * Quita las revocaciones que ya no afectan a ningún token vigente y
+     * reconstruye el filtro de Bloom con las puntuales que quedan
+     */
+    @Scheduled(fixedDelayString = "${spring.security.jwt.denylist.purga-ms:3600000}")
+    public void purgar() {
+        Instant ahora = Instant.now();
+        long limite = ahora.getEpochSecond() - vidaMaximaSegundos;
+        jdbcTemplate.update(SQL_PURGAR, Timestamp.from(ahora));
+        synchronized (cerrojo) {
+            int antes = cortes.size() + puntuales.size();
+            cortes.values().removeIf(corte -> corte < limite);
+            puntuales.keySet().removeIf(token -> token.emitidoEn() < limite);
+
+            FiltroBloom nuevo = new FiltroBloom(Math.max(capacidad, puntuales.size()), TASA_FALSOS_POSITIVOS);
+            puntuales.keySet().forEach(token -> nuevo.agregar(clave(token.idUsuario(), token.emitidoEn())));
+            filtro = nuevo;
+
+            int purgadas = antes - cortes.size() - puntuales.size();
+            if (purgadas > 0) {
+                log.debug("Purgadas {} revocaciones de tokens ya expirados", purgadas);
+            }
+        }
+    }
+
+    public int tamano() {
+        return cortes.size() + puntuales.size();
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private void agregarPuntual(long idUsuario, long emitidoEn) {
+        synchronized (cerrojo) {
+            puntuales.put(new TokenRevocado(idUsuario, emitidoEn), Boolean.TRUE);
+            filtro.agregar(clave(idUsuario, emitidoEn));
+        }
+    }
+
+    private void agregarCorte(long idUsuario, long corte) {
+        synchronized (cerrojo) {
+            cortes.merge(idUsuario, corte, Math::max);
+        }
+    }
+
+    // El filtro mezcla la clave con SplitMix64; dos pares distintos solo coinciden como falso positivo
+    private static long clave(long idUsuario, long emitidoEn) {
+        return idUsuario * 0x9e3779b97f4a7c15L + emitidoEn;
+    }
+
+    // Un token emitido en emitidoEn (o antes de un corte en ese instante) ya expiró pasada su vida máxima
+    private Timestamp expiracion(long emitidoEn) {
+        return Timestamp.from(Instant.ofEpochSecond(emitidoEn + vidaMaximaSegundos));
+    }
+
+    private record TokenRevocado(long idUsuario, long emitidoEn) {
+    }
+}
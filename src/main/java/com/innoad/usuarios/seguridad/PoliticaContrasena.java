@@ -0,0 +1,133 @@
+package com.innoad.usuarios.seguridad;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Política de contraseñas ya compilada e inmutable
+ *
+ * Todas las reglas de caracteres se evalúan en un solo recorrido de la
+ * contraseña, acumulando en una máscara qué clases de caracteres aparecieron;
+ * al final se compara con la máscara requerida. Solo si algo falla se arma la
+ * lista de incumplimientos, así el caso válido no reserva memoria aparte de
+ * la consulta a la lista de contraseñas comunes.
+ *
+ * Se reemplaza completa al recargar la configuración.
+ */
+public final class PoliticaContrasena {
+
+    // BCrypt ignora lo que pase de 72 bytes
+    public static final int MAXIMO_BYTES_BCRYPT = 72;
+
+    private static final int MAYUSCULA = 1;
+    private static final int MINUSCULA = 1 << 1;
+    private static final int NUMERO = 1 << 2;
+    private static final int SIMBOLO = 1 << 3;
+
+    private final int longitudMinima;
+    private final int longitudMaxima;
+    private final int clasesRequeridas;
+    private final ListaContrasenasComunes comunes;
+
+    /**
+     * @param comunes lista de contraseñas comunes, o null para no comprobarla
+     */
+    public PoliticaContrasena(int longitudMinima, int longitudMaxima,
+                              boolean requiereMayusculas, boolean requiereMinusculas,
+                              boolean requiereNumeros, boolean requiereSimbolos,
+                              ListaContrasenasComunes comunes) {
+        if (longitudMinima < 1 || longitudMaxima < longitudMinima || longitudMaxima > MAXIMO_BYTES_BCRYPT) {
+            throw new IllegalArgumentException("Longitudes de contraseña no válidas: mínimo " + longitudMinima
+                    + ", máximo " + longitudMaxima + " (límite " + MAXIMO_BYTES_BCRYPT + ")");
+        }
+        this.longitudMinima = longitudMinima;
+        this.longitudMaxima = longitudMaxima;
+        this.clasesRequeridas = (requiereMayusculas ? MAYUSCULA : 0)
+                | (requiereMinusculas ? MINUSCULA : 0)
+                | (requiereNumeros ? NUMERO : 0)
+                | (requiereSimbolos ? SIMBOLO : 0);
+        this.comunes = comunes;
+    }
+
+    /**
+     * Devuelve la lista de reglas incumplidas; vacía si la contraseña es válida
+     */
+    public List<String> incumplimientos(String contrasena) {
+        if (contrasena == null) {
+            return List.of("debe tener al menos " + longitudMinima + " caracteres");
+        }
+
+        int clases = 0;
+        int cantidad = 0;
+        int bytesUtf8 = 0;
+        int longitud = contrasena.length();
+        for (int i = 0; i < longitud; i++) {
+            char c = contrasena.charAt(i);
+            if (!Character.isLowSurrogate(c)) {
+                cantidad++;
+            }
+            if (c < 0x80) {
+                bytesUtf8++;
+                if (c >= 'A' && c <= 'Z') {
+                    clases |= MAYUSCULA;
+                } else if (c >= 'a' && c <= 'z') {
+                    clases |= MINUSCULA;
+                } else if (c >= '0' && c <= '9') {
+                    clases |= NUMERO;
+                } else if (c > ' ' && c < 0x7f) {
+                    clases |= SIMBOLO;
+                }
+            } else {
+                bytesUtf8 += c < 0x800 ? 2 : (Character.isSurrogate(c) ? 2 : 3);
+                if (Character.isUpperCase(c)) {
+                    clases |= MAYUSCULA;
+                } else if (Character.isLowerCase(c)) {
+                    clases |= MINUSCULA;
+                } else if (Character.isDigit(c)) {
+                    clases |= NUMERO;
+                } else if (!Character.isWhitespace(c)) {
+                    clases |= SIMBOLO;
+                }
+            }
+        }
+
+        boolean longitudValida = cantidad >= longitudMinima && bytesUtf8 <= longitudMaxima;
+        if (longitudValida && (clases & clasesRequeridas) == clasesRequeridas
+                && (comunes == null || !comunes.contiene(contrasena))) {
+            return List.of();
+        }
+
+        List<String> incumplidas = new ArrayList<>();
+        if (cantidad < longitudMinima) {
+            incumplidas.add("debe tener al menos " + longitudMinima + " caracteres");
+        }
+        if (bytesUtf8 > longitudMaxima) {
+            incumplidas.add("no puede superar " + longitudMaxima + " bytes");
+        }
+        int faltantes = clasesRequeridas & ~clases;
+        if ((faltantes & MAYUSCULA) != 0) {
+            incumplidas.add("debe tener una letra mayúscula");
+        }
+        if ((faltantes & MINUSCULA) != 0) {
+            incumplidas.add("debe tener una letra minúscula");
+        }
+        if ((faltantes & NUMERO) != 0) {
+            incumplidas.add("debe tener un número");
+        }
+        if ((faltantes & SIMBOLO) != 0) {
+            incumplidas.add("debe tener un símbolo");
+        }
+        if (incumplidas.isEmpty() && comunes != null && comunes.contiene(contrasena)) {
+            incumplidas.add("no puede ser una contraseña común");
+        }
+        return incumplidas;
+    }
+
+    public int getLongitudMinima() {
+        return longitudMinima;
+    }
+
+    public int getTamanoListaComunes() {
+        return comunes == null ? 0 : comunes.tamano();
+    }
+}
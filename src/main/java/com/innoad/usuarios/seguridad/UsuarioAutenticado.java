@@ -0,0 +1,16 @@
+package com.innoad.usuarios.seguridad;
+
+/**
+ * Identidad extraída de un token válido
+ *
+ * Es el principal que queda en el SecurityContext durante la petición; lleva
+ * lo necesario para autorizar (rol) y para revocar el token (emitidoEn) sin
+ * volver a la base de datos.
+ */
+public record UsuarioAutenticado(
+        Long idUsuario,
+        String correo,
+        Long idRol,
+        long emitidoEn  // iat del token, en segundos desde epoch
+) {
+}
@@ -0,0 +1,104 @@
+package com.innoad.usuarios.servicio;
+
+import com.innoad.comun.auditoria.AuditoriaServicio;
+import com.innoad.comun.util.Reintentos;
+import com.innoad.usuarios.dto.TokenDTO;
+import com.innoad.usuarios.modelo.Usuario;
+import com.innoad.usuarios.repositorio.UsuarioRepositorio;
+import com.innoad.usuarios.seguridad.JwtServicio;
+import com.innoad.usuarios.seguridad.ListaRevocacion;
+import com.innoad.usuarios.seguridad.UsuarioAutenticado;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * Servicio de inicio de sesión, renovación y cierre de sesión con JWT
+ *
+ * Solo el inicio de sesión y la renovación consultan la base de datos; las
+ * peticiones normales se autentican con el token en FiltroAutenticacionJwt.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AutenticacionServicio {
+
+    private static final String CREDENCIALES_INVALIDAS = "Correo o contraseña incorrectos";
+
+    private final UsuarioRepositorio usuarioRepositorio;
+    private final UsuarioServicio usuarioServicio;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtServicio jwtServicio;
+    private final ListaRevocacion listaRevocacion;
+    private final AuditoriaServicio auditoriaServicio;
+
+    /**
+     * Verifica las credenciales y emite el par de tokens
+     */
+    public TokenDTO iniciarSesion(String correo, String contrasena) {
+        Usuario usuario = usuarioRepositorio.findByCorreo(correo)
+                .orElseThrow(() -> new RuntimeException(CREDENCIALES_INVALIDAS));
+
+        if (usuario.estaBloqueado()) {
+            throw new RuntimeException("Usuario bloqueado temporalmente por exceso de intentos");
+        }
+        if (!passwordEncoder.matches(contrasena, usuario.getContrasena())) {
+            Reintentos.conReintento(() -> usuarioServicio.registrarLoginFallido(correo));
+            throw new RuntimeException(CREDENCIALES_INVALIDAS);
+        }
+        if (!Boolean.TRUE.equals(usuario.getActivo())) {
+            throw new RuntimeException("Usuario inactivo");
+        }
+
+        Reintentos.conReintento(() -> usuarioServicio.registrarLoginExitoso(correo));
+        log.info("Inicio de sesión de usuario ID: {}", usuario.getIdUsuario());
+        return jwtServicio.emitir(usuario);
+    }
+
+    /**
+     * Emite un par nuevo a partir de un token de refresco vigente.
+     * Vuelve a leer el usuario para no renovar cuentas desactivadas ni
+     * arrastrar un rol que ya cambió. El par presentado queda revocado (el
+     * token de acceso anterior también), así un token de refresco robado
+     * sirve una sola vez.
+     */
+    public TokenDTO refrescar(String tokenRefresco) {
+        UsuarioAutenticado identidad;
+        try {
+            identidad = jwtServicio.validar(tokenRefresco, JwtServicio.TIPO_REFRESCO);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new RuntimeException("Token de refresco no válido");
+        }
+        if (listaRevocacion.estaRevocado(identidad.idUsuario(), identidad.emitidoEn())) {
+            throw new RuntimeException("Token de refresco revocado");
+        }
+
+        Usuario usuario = usuarioRepositorio.findById(identidad.idUsuario())
+                .filter(u -> Boolean.TRUE.equals(u.getActivo()))
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado o inactivo"));
+        TokenDTO tokens = jwtServicio.emitir(usuario, identidad.emitidoEn());
+
+        // El token presentado no se puede volver a usar; si otra renovación
+        // simultánea lo gastó primero, el par recién emitido se descarta
+        if (!listaRevocacion.revocarSiVigente(identidad.idUsuario(), identidad.emitidoEn())) {
+            throw new RuntimeException("Token de refresco revocado");
+        }
+        auditoriaServicio.registrar("usuarios", "REFRESCAR_TOKEN", identidad.idUsuario(),
+                Map.of("iat", identidad.emitidoEn()), identidad.idUsuario());
+        return tokens;
+    }
+
+    /**
+     * Revoca el token de la petición actual junto con su token de refresco
+     */
+    public void cerrarSesion(UsuarioAutenticado usuario) {
+        listaRevocacion.revocar(usuario.idUsuario(), usuario.emitidoEn());
+        auditoriaServicio.registrar("usuarios", "CERRAR_SESION", usuario.idUsuario(),
+                Map.of("iat", usuario.emitidoEn()), usuario.idUsuario());
+        log.info("Cierre de sesión de usuario ID: {}", usuario.idUsuario());
+    }
+}
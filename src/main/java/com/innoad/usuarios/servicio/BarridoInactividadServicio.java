@@ -0,0 +1,259 @@
+package com.innoad.usuarios.servicio;
+
+import com.innoad.comun.auditoria.AuditoriaServicio;
+import com.innoad.usuarios.evento.InactividadUsuariosEvento;
+import com.innoad.usuarios.modelo.CheckpointProceso;
+import com.innoad.usuarios.modelo.Permiso;
+import com.innoad.usuarios.repositorio.CheckpointProcesoRepositorio;
+import com.innoad.usuarios.repositorio.UsuarioRepositorio;
+import com.innoad.usuarios.seguridad.ListaRevocacion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Barrido periódico de usuarios inactivos
+ *
+ * Recorre la tabla de usuarios por lotes de ids consecutivos (paginación por
+ * id, sin OFFSET) y en cada lote:
+ * 1. Desactiva a los usuarios ya avisados que superan dias-desactivar sin
+ *    entrar, salvo los de roles con SISTEMA_ADMINISTRAR.
+ * 2. Marca (avisa) a los que superan dias-marcar sin entrar.
+ * Ambas acciones son un UPDATE por conjunto de ids, y el avance queda en
+ * procesos_checkpoint en la misma transacción del lote. Un reinicio a mitad
+ * de pasada continúa desde el último lote confirmado con el mismo corte.
+ *
+ * Después de cada commit se revocan los JWT de los desactivados, se registra
+ * la auditoría y se publica un InactividadUsuariosEvento para las
+ * notificaciones. Un usuario que nunca entró cuenta desde su fecha de alta.
+ */
+@Service
+@Slf4j
+public class BarridoInactividadServicio {
+
+    static final String PROCESO = "barrido-inactividad";
+
+    private final UsuarioRepositorio usuarioRepositorio;
+    private final CheckpointProcesoRepositorio checkpointRepositorio;
+    private final PermisosServicio permisosServicio;
+    private final ListaRevocacion listaRevocacion;
+    private final AuditoriaServicio auditoriaServicio;
+    private final ApplicationEventPublisher publicador;
+    private final TransactionTemplate transaccion;
+    private final boolean habilitado;
+    private final int diasMarcar;
+    private final int diasDesactivar;
+    private final int tamanoLote;
+    private final long pausaEntreLotesMs;
+
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+
+    public BarridoInactividadServicio(UsuarioRepositorio usuarioRepositorio,
+                                      CheckpointProcesoRepositorio checkpointRepositorio,
+                                      PermisosServicio permisosServicio,
+                                      ListaRevocacion listaRevocacion,
+                                      AuditoriaServicio auditoriaServicio,
+                                      ApplicationEventPublisher publicador,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${innoad.usuarios.inactividad.habilitado:true}") boolean habilitado,
+                                      @Value("${innoad.usuarios.inactividad.dias-marcar:90}") int diasMarcar,
+                                      @Value("${innoad.usuarios.inactividad.dias-desactivar:180}") int diasDesactivar,
+                                      @Value("${innoad.usuarios.inactividad.tamano-lote:500}") int tamanoLote,
+                                      @Value("${innoad.usuarios.inactividad.pausa-entre-lotes-ms:100}") long pausaEntreLotesMs) {
+        if (diasDesactivar <= diasMarcar) {
+            throw new IllegalArgumentException("innoad.usuarios.inactividad.dias-desactivar debe ser mayor que dias-marcar");
+        }
+        this.usuarioRepositorio = usuarioRepositorio;
+        this.checkpointRepositorio = checkpointRepositorio;
+        this.permisosServicio = permisosServicio;
+        this.listaRevocacion = listaRevocacion;
+        this.auditoriaServicio = auditoriaServicio;
+        this.publicador = publicador;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.habilitado = habilitado;
+        this.diasMarcar = diasMarcar;
+        this.diasDesactivar = diasDesactivar;
+        this.tamanoLote = tamanoLote;
+        this.pausaEntreLotesMs = pausaEntreLotesMs;
+    }
+
+    /**
+     * Si el servicio se detuvo a mitad de una pasada, la retoma en segundo
+     * plano sin esperar a la próxima ejecución programada
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reanudarSiPendiente() {
+        if (!habilitado) {
+            return;
+        }
+        boolean pendiente = checkpointRepositorio.findById(PROCESO)
+                .map(cp -> !Boolean.TRUE.equals(cp.getCompletado()))
+                .orElse(false);
+        if (pendiente) {
+            Thread hilo = new Thread(this::ejecutar, "barrido-inactividad");
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+    }
+
+    @Scheduled(cron = "${innoad.usuarios.inactividad.cron:0 0 3 * * *}")
+    public void ejecutarProgramado() {
+        if (habilitado) {
+            ejecutar();
+        }
+    }
+
+    /**
+     * Ejecuta (o continúa) una pasada completa del barrido
+     */
+    public void ejecutar() {
+        if (!enCurso.compareAndSet(false, true)) {
+            log.info("El barrido de inactividad ya está en curso");
+            return;
+        }
+        try {
+            CheckpointProceso checkpoint = iniciarPasada();
+            LocalDateTime corte = checkpoint.getCorte();
+            Pasada pasada = new Pasada(
+                    corte.minusDays(diasMarcar),
+                    corte.minusDays(diasDesactivar),
+                    rolesExcluidos());
+
+            long desdeId = checkpoint.getUltimoId();
+            int revisados = 0;
+            int marcados = 0;
+            int desactivados = 0;
+            boolean terminado = false;
+            while (!terminado) {
+                final long desde = desdeId;
+                Lote lote = transaccion.execute(estado -> procesarLote(desde, pasada));
+                if (lote == null || lote.revisados() == 0) {
+                    terminado = true;
+                    break;
+                }
+                despuesDelLote(lote);
+
+                desdeId = lote.hastaId();
+                revisados += lote.revisados();
+                marcados += lote.marcados().size();
+                desactivados += lote.desactivados().size();
+                terminado = lote.revisados() < tamanoLote;
+                if (!terminado && !pausar()) {
+                    break;
+                }
+            }
+
+            if (!terminado) {
+                log.warn("Barrido de inactividad interrumpido en el usuario ID: {}", desdeId);
+                return;
+            }
+            transaccion.executeWithoutResult(estado -> checkpointRepositorio.findById(PROCESO).ifPresent(cp -> {
+                cp.setCompletado(true);
+                checkpointRepositorio.save(cp);
+            }));
+            log.info("Barrido de inactividad terminado: {} revisados, {} marcados, {} desactivados",
+                    revisados, marcados, desactivados);
+        } catch (RuntimeException e) {
+            // El checkpoint queda en el último lote confirmado
+            log.error("Barrido de inactividad interrumpido: {}", e.getMessage(), e);
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private CheckpointProceso iniciarPasada() {
+        return transaccion.execute(estado -> {
+            CheckpointProceso checkpoint = checkpointRepositorio.findById(PROCESO)
+                    .orElseGet(() -> new CheckpointProceso(PROCESO));
+            if (Boolean.TRUE.equals(checkpoint.getCompletado()) || checkpoint.getCorte() == null) {
+                checkpoint.setCorte(LocalDateTime.now());
+                checkpoint.setUltimoId(0L);
+                checkpoint.setCompletado(false);
+                log.info("Iniciando barrido de inactividad");
+            } else {
+                log.info("Reanudando barrido de inactividad desde el usuario ID: {}", checkpoint.getUltimoId());
+            }
+            return checkpointRepositorio.save(checkpoint);
+        });
+    }
+
+    private Lote procesarLote(long desdeId, Pasada pasada) {
+        List<Long> ids = usuarioRepositorio.findIdsDesde(desdeId, PageRequest.of(0, tamanoLote));
+        if (ids.isEmpty()) {
+            return new Lote(0, desdeId, List.of(), List.of());
+        }
+        long hastaId = ids.get(ids.size() - 1);
+        LocalDateTime ahora = LocalDateTime.now();
+
+        // Primero desactivar: los que se marquen en este lote no se desactivan hasta otra pasada
+        List<Long> desactivar = usuarioRepositorio.findIdsParaDesactivar(
+                desdeId, hastaId, pasada.limiteDesactivar(), pasada.rolesExcluidos());
+        if (!desactivar.isEmpty()) {
+            usuarioRepositorio.desactivarInactivos(desactivar, ahora, pasada.limiteDesactivar());
+        }
+        List<Long> marcar = usuarioRepositorio.findIdsParaMarcar(desdeId, hastaId, pasada.limiteMarcar());
+        if (!marcar.isEmpty()) {
+            usuarioRepositorio.marcarInactivos(marcar, ahora, pasada.limiteMarcar());
+        }
+
+        CheckpointProceso checkpoint = checkpointRepositorio.findById(PROCESO)
+                .orElseThrow(() -> new IllegalStateException("Checkpoint del barrido no encontrado"));
+        checkpoint.setUltimoId(hastaId);
+        checkpointRepositorio.save(checkpoint);
+
+        // Se encolan al confirmar la transacción del lote
+        for (Long idUsuario : desactivar) {
+            auditoriaServicio.registrar("usuarios", "CAMBIAR_ESTADO", idUsuario,
+                    Map.of("activo", false, "origen", "inactividad"), null);
+        }
+        return new Lote(ids.size(), hastaId, marcar, desactivar);
+    }
+
+    private void despuesDelLote(Lote lote) {
+        Instant ahora = Instant.now();
+        for (Long idUsuario : lote.desactivados()) {
+            listaRevocacion.revocarEmitidosAntesDe(idUsuario, ahora);
+        }
+        if (!lote.marcados().isEmpty() || !lote.desactivados().isEmpty()) {
+            // NotificacionesServicio avisa a cada usuario
+            publicador.publishEvent(new InactividadUsuariosEvento(lote.marcados(), lote.desactivados()));
+        }
+    }
+
+    private List<Long> rolesExcluidos() {
+        List<Long> roles = permisosServicio.rolesConPermiso(Permiso.SISTEMA_ADMINISTRAR);
+        // NOT IN con una lista vacía no es SQL válido
+        return roles.isEmpty() ? List.of(-1L) : roles;
+    }
+
+    private boolean pausar() {
+        try {
+            Thread.sleep(pausaEntreLotesMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record Pasada(LocalDateTime limiteMarcar, LocalDateTime limiteDesactivar, List<Long> rolesExcluidos) {
+    }
+
+    private record Lote(int revisados, long hastaId, List<Long> marcados, List<Long> desactivados) {
+    }
+}
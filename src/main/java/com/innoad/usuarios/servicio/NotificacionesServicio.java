@@ -0,0 +1,99 @@
+package com.innoad.usuarios.servicio;
+
+import com.innoad.usuarios.evento.InactividadUsuariosEvento;
+import com.innoad.usuarios.evento.SolicitudRestablecimientoEvento;
+import com.innoad.usuarios.modelo.Usuario;
+import com.innoad.usuarios.notificacion.CanalNotificaciones;
+import com.innoad.usuarios.notificacion.Notificacion;
+import com.innoad.usuarios.repositorio.UsuarioRepositorio;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Servicio que convierte los eventos de usuarios en avisos por el
+ * {@link CanalNotificaciones} configurado
+ *
+ * Escucha después del commit: si la transacción que originó el evento se
+ * revierte, no sale ningún aviso. Un fallo del canal se registra y no afecta
+ * a la operación, que ya quedó confirmada.
+ */
+@Service
+@Slf4j
+public class NotificacionesServicio {
+
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private final CanalNotificaciones canal;
+    private final UsuarioRepositorio usuarioRepositorio;
+    private final String urlRestablecer;
+    // Días entre el aviso de inactividad y la desactivación
+    private final int diasHastaDesactivar;
+
+    public NotificacionesServicio(CanalNotificaciones canal,
+                                  UsuarioRepositorio usuarioRepositorio,
+                                  @Value("${innoad.notificaciones.url-restablecer:http://localhost:4200/restablecer-contrasena}") String urlRestablecer,
+                                  @Value("${innoad.usuarios.inactividad.dias-marcar:90}") int diasMarcar,
+                                  @Value("${innoad.usuarios.inactividad.dias-desactivar:180}") int diasDesactivar) {
+        this.canal = canal;
+        this.usuarioRepositorio = usuarioRepositorio;
+        this.urlRestablecer = urlRestablecer;
+        this.diasHastaDesactivar = diasDesactivar - diasMarcar;
+    }
+
+    /**
+     * Envía el enlace de recuperación de contraseña
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alSolicitarRestablecimiento(SolicitudRestablecimientoEvento evento) {
+        String enlace = urlRestablecer + "?token=" + URLEncoder.encode(evento.token(), StandardCharsets.UTF_8);
+        enviar(new Notificacion(evento.correo(), "Restablecer contraseña de InnoAd",
+                "Hola " + evento.nombre() + ",\n\n"
+                        + "Recibimos una solicitud para restablecer tu contraseña. Usa este enlace antes del "
+                        + FORMATO_HORA.format(evento.expira()) + ":\n\n"
+                        + enlace + "\n\n"
+                        + "Si no fuiste tú, ignora este mensaje; tu contraseña no cambia."));
+    }
+
+    /**
+     * Avisa a los usuarios marcados por inactividad que su cuenta se
+     * desactivará, y a los desactivados que ya lo fue
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alDetectarInactividad(InactividadUsuariosEvento evento) {
+        for (Usuario usuario : cargar(evento.marcados())) {
+            enviar(new Notificacion(usuario.getCorreo(), "Tu cuenta de InnoAd está inactiva",
+                    "Hola " + usuario.getNombre() + ",\n\n"
+                            + "Hace tiempo que no inicias sesión en InnoAd. Si no entras en los próximos "
+                            + diasHastaDesactivar + " días, tu cuenta se desactivará."));
+        }
+        for (Usuario usuario : cargar(evento.desactivados())) {
+            enviar(new Notificacion(usuario.getCorreo(), "Tu cuenta de InnoAd fue desactivada",
+                    "Hola " + usuario.getNombre() + ",\n\n"
+                            + "Tu cuenta se desactivó por inactividad. Para recuperarla, contacta con un administrador."));
+        }
+        log.info("Avisos de inactividad: {} marcados, {} desactivados",
+                evento.marcados().size(), evento.desactivados().size());
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private List<Usuario> cargar(List<Long> ids) {
+        return ids.isEmpty() ? List.of() : usuarioRepositorio.findAllById(ids);
+    }
+
+    private void enviar(Notificacion notificacion) {
+        try {
+            canal.enviar(notificacion);
+        } catch (RuntimeException e) {
+            log.error("No se pudo enviar la notificación {}: {}", notificacion, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.innoad.usuarios.servicio;
+
+import com.innoad.usuarios.evento.CambioRolEvento;
+import com.innoad.usuarios.modelo.Permiso;
+import com.innoad.usuarios.modelo.Rol;
+import com.innoad.usuarios.repositorio.RolRepositorio;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Servicio que evalúa los permisos de los roles
+ *
+ * Los permisos efectivos de cada rol (los propios más los heredados de toda
+ * su cadena de padres) se compilan en un long por rol, guardados en un arreglo
+ * indexado por id. Comprobar un permiso es leer la referencia volátil de la
+ * tabla y probar un bit, sin tocar la base de datos ni reservar memoria.
+ *
+ * La tabla es inmutable: cada recompilación construye una nueva y la publica
+ * de una sola escritura, así que una petición concurrente ve la versión
+ * anterior completa o la nueva completa, nunca una mezcla. Se recompila al
+ * arrancar y después del commit de cualquier cambio en un rol.
+ *
+ * Un rol inactivo no concede permisos, ni a sí mismo ni a los roles que
+ * heredan de él.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PermisosServicio {
+
+    private static final long[] SIN_ROLES = new long[0];
+
+    private final RolRepositorio rolRepositorio;
+
+    // Máscara de permisos efectivos por id de rol; 0 si el rol no existe
+    private volatile long[] mascaras = SIN_ROLES;
+
+    /**
+     * Compila la tabla al arrancar; si la jerarquía tiene un ciclo el
+     * servicio no debe arrancar con permisos a medias
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void compilarAlIniciar() {
+        recompilar();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarRol(CambioRolEvento evento) {
+        try {
+            recompilar();
+        } catch (IllegalStateException e) {
+            // Se conserva la tabla anterior, que sigue siendo coherente
+            log.error("No se recompilaron los permisos tras cambiar el rol {}: {}", evento.idRol(), e.getMessage());
+        }
+    }
+
+    /**
+     * Lee todos los roles y reemplaza la tabla de permisos de una vez.
+     * Público para cambios hechos fuera de JPA (scripts SQL sobre roles_permisos).
+     */
+    public void recompilar() {
+        List<Rol> roles = rolRepositorio.findAllConPermisos();
+        long[] nueva = compilar(roles);
+        mascaras = nueva;
+        log.info("Permisos compilados para {} roles", roles.size());
+    }
+
+    /**
+     * Indica si el rol tiene el permiso, propio o heredado
+     */
+    public boolean tienePermiso(Long idRol, Permiso permiso) {
+        return (mascara(idRol) & permiso.bit()) != 0;
+    }
+
+    /**
+     * Indica si el rol tiene todos los permisos indicados
+     */
+    public boolean tieneTodos(Long idRol, Permiso... permisos) {
+        long requerida = 0;
+        for (Permiso permiso : permisos) {
+            requerida |= permiso.bit();
+        }
+        return (mascara(idRol) & requerida) == requerida;
+    }
+
+    /**
+     * Permisos efectivos del rol, para mostrarlos o enviarlos al frontend
+     */
+    public Set<Permiso> permisosDe(Long idRol) {
+        long mascara = mascara(idRol);
+        EnumSet<Permiso> resultado = EnumSet.noneOf(Permiso.class);
+        for (Permiso permiso : Permiso.values()) {
+            if ((mascara & permiso.bit()) != 0) {
+                resultado.add(permiso);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Ids de los roles que tienen el permiso, propio o heredado
+     */
+    public List<Long> rolesConPermiso(Permiso permiso) {
+        long[] tabla = mascaras;
+        List<Long> resultado = new ArrayList<>();
+        for (int i = 0; i < tabla.length; i++) {
+            if ((tabla[i] & permiso.bit()) != 0) {
+                resultado.add((long) i);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Máscara de permisos efectivos del rol; 0 si no existe o está inactivo
+     */
+    public long mascara(Long idRol) {
+        long[] tabla = mascaras;
+        if (idRol == null || idRol < 0 || idRol >= tabla.length) {
+            return 0L;
+        }
+        return tabla[idRol.intValue()];
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private long[] compilar(List<Rol> roles) {
+        Map<Long, Rol> porId = new HashMap<>();
+        long maximoId = -1;
+        for (Rol rol : roles) {
+            porId.put(rol.getIdRol(), rol);
+            maximoId = Math.max(maximoId, rol.getIdRol());
+        }
+        if (maximoId >= Integer.MAX_VALUE) {
+            throw new IllegalStateException("Id de rol fuera de rango para la tabla de permisos: " + maximoId);
+        }
+
+        long[] tabla = new long[(int) (maximoId + 1)];
+        // 0 = sin visitar, 1 = en la cadena actual, 2 = resuelto
+        byte[] estado = new byte[tabla.length];
+        for (Rol rol : roles) {
+            resolver(rol.getIdRol(), porId, tabla, estado);
+        }
+        return tabla;
+    }
+
+    private long resolver(Long idRol, Map<Long, Rol> porId, long[] tabla, byte[] estado) {
+        int indice = idRol.intValue();
+        if (estado[indice] == 2) {
+            return tabla[indice];
+        }
+        if (estado[indice] == 1) {
+            throw new IllegalStateException("Ciclo en la herencia de roles que incluye el rol " + idRol);
+        }
+        estado[indice] = 1;
+
+        Rol rol = porId.get(idRol);
+        long mascara = 0L;
+        if (Boolean.TRUE.equals(rol.getActivo())) {
+            for (Permiso permiso : rol.getPermisos()) {
+                mascara |= permiso.bit();
+            }
+            Rol padre = rol.getRolPadre();
+            if (padre != null && porId.containsKey(padre.getIdRol())) {
+                mascara |= resolver(padre.getIdRol(), porId, tabla, estado);
+            }
+        }
+
+        tabla[indice] = mascara;
+        estado[indice] = 2;
+        return mascara;
+    }
+}
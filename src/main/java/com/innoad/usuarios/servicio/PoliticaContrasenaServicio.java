@@ -0,0 +1,167 @@
+package com.innoad.usuarios.servicio;
+
+import com.innoad.usuarios.seguridad.ListaContrasenasComunes;
+import com.innoad.usuarios.seguridad.PoliticaContrasena;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Servicio que mantiene la política de contraseñas vigente
+ *
+ * Los valores base salen de innoad.usuarios.password-policy.* en
+ * application.yml. Para cambiarlos sin reiniciar se puede indicar un archivo
+ * de propiedades (password-policy.archivo) con las mismas claves; lo que
+ * defina ese archivo reemplaza a los valores base. La lista de contraseñas
+ * comunes sale de password-policy.lista-comunes o, si no se indica, de la
+ * lista corta incluida en el jar.
+ *
+ * Cada cierto tiempo se revisa la fecha de modificación de ambos archivos y,
+ * si cambió alguno, se compila una política nueva y se publica de una sola
+ * escritura. Si la recarga falla se conserva la política anterior.
+ */
+@Service
+@Slf4j
+public class PoliticaContrasenaServicio {
+
+    private static final String RECURSO_COMUNES = "seguridad/contrasenas-comunes.txt";
+
+    private final int longitudMinimaBase;
+    private final int longitudMaximaBase;
+    private final boolean mayusculasBase;
+    private final boolean minusculasBase;
+    private final boolean numerosBase;
+    private final boolean simbolosBase;
+    private final Path archivo;
+    private final Path listaComunes;
+
+    private volatile PoliticaContrasena politica;
+    private ListaContrasenasComunes comunes;
+    private long modificacionArchivo = -1;
+    private long modificacionLista = -1;
+
+    public PoliticaContrasenaServicio(@Value("${innoad.usuarios.password-policy.min-length:8}") int longitudMinima,
+                                      @Value("${innoad.usuarios.password-policy.max-length:72}") int longitudMaxima,
+                                      @Value("${innoad.usuarios.password-policy.require-uppercase:true}") boolean mayusculas,
+                                      @Value("${innoad.usuarios.password-policy.require-lowercase:true}") boolean minusculas,
+                                      @Value("${innoad.usuarios.password-policy.require-numbers:true}") boolean numeros,
+                                      @Value("${innoad.usuarios.password-policy.require-symbols:false}") boolean simbolos,
+                                      @Value("${innoad.usuarios.password-policy.archivo:}") String archivo,
+                                      @Value("${innoad.usuarios.password-policy.lista-comunes:}") String listaComunes) {
+        this.longitudMinimaBase = longitudMinima;
+        this.longitudMaximaBase = longitudMaxima;
+        this.mayusculasBase = mayusculas;
+        this.minusculasBase = minusculas;
+        this.numerosBase = numeros;
+        this.simbolosBase = simbolos;
+        this.archivo = archivo.isBlank() ? null : Path.of(archivo);
+        this.listaComunes = listaComunes.isBlank() ? null : Path.of(listaComunes);
+        recargar();
+        if (politica == null) {
+            throw new IllegalStateException("No se pudo compilar la política de contraseñas");
+        }
+    }
+
+    /**
+     * Valida la contraseña contra la política vigente
+     *
+     * @throws RuntimeException con todas las reglas incumplidas
+     */
+    public void validar(String contrasena) {
+        List<String> incumplidas = politica.incumplimientos(contrasena);
+        if (!incumplidas.isEmpty()) {
+            throw new RuntimeException("La contraseña " + String.join(", ", incumplidas));
+        }
+    }
+
+    public PoliticaContrasena getPolitica() {
+        return politica;
+    }
+
+    @Scheduled(fixedDelayString = "${innoad.usuarios.password-policy.recarga-ms:30000}")
+    public void revisarCambios() {
+        if (modificado(archivo, modificacionArchivo) || modificado(listaComunes, modificacionLista)) {
+            recargar();
+        }
+    }
+
+    /**
+     * Vuelve a leer el archivo de la política y la lista de contraseñas
+     * comunes y publica la política compilada
+     */
+    public synchronized void recargar() {
+        try {
+            long fechaLista = fechaModificacion(listaComunes);
+            if (comunes == null || fechaLista != modificacionLista) {
+                comunes = cargarComunes();
+                modificacionLista = fechaLista;
+            }
+
+            long fechaArchivo = fechaModificacion(archivo);
+            Properties sobrescritos = leerArchivo();
+            PoliticaContrasena nueva = new PoliticaContrasena(
+                    entero(sobrescritos, "min-length", longitudMinimaBase),
+                    entero(sobrescritos, "max-length", longitudMaximaBase),
+                    booleano(sobrescritos, "require-uppercase", mayusculasBase),
+                    booleano(sobrescritos, "require-lowercase", minusculasBase),
+                    booleano(sobrescritos, "require-numbers", numerosBase),
+                    booleano(sobrescritos, "require-symbols", simbolosBase),
+                    comunes);
+            modificacionArchivo = fechaArchivo;
+            politica = nueva;
+            log.info("Política de contraseñas cargada: mínimo {} caracteres, {} contraseñas comunes",
+                    nueva.getLongitudMinima(), nueva.getTamanoListaComunes());
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("No se recargó la política de contraseñas, se mantiene la anterior: {}", e.getMessage());
+        }
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private ListaContrasenasComunes cargarComunes() throws IOException {
+        if (listaComunes != null) {
+            return ListaContrasenasComunes.cargar(listaComunes);
+        }
+        return ListaContrasenasComunes.cargarRecurso(RECURSO_COMUNES);
+    }
+
+    private Properties leerArchivo() throws IOException {
+        Properties propiedades = new Properties();
+        if (archivo != null && Files.exists(archivo)) {
+            try (Reader lector = Files.newBufferedReader(archivo)) {
+                propiedades.load(lector);
+            }
+        }
+        return propiedades;
+    }
+
+    private static boolean modificado(Path ruta, long conocida) {
+        return ruta != null && fechaModificacion(ruta) != conocida;
+    }
+
+    private static long fechaModificacion(Path ruta) {
+        try {
+            return ruta != null && Files.exists(ruta) ? Files.getLastModifiedTime(ruta).toMillis() : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static int entero(Properties propiedades, String clave, int defecto) {
+        String valor = propiedades.getProperty(clave);
+        return valor == null ? defecto : Integer.parseInt(valor.trim());
+    }
+
+    private static boolean booleano(Properties propiedades, String clave, boolean defecto) {
+        String valor = propiedades.getProperty(clave);
+        return valor == null ? defecto : Boolean.parseBoolean(valor.trim());
+    }
+}
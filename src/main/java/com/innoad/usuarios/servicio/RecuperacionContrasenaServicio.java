@@ -0,0 +1,181 @@
+package com.innoad.usuarios.servicio;
+
+import com.innoad.comun.auditoria.AuditoriaServicio;
+import com.innoad.usuarios.evento.SolicitudRestablecimientoEvento;
+import com.innoad.usuarios.modelo.PasswordResetToken;
+import com.innoad.usuarios.modelo.Usuario;
+import com.innoad.usuarios.repositorio.PasswordResetTokenRepositorio;
+import com.innoad.usuarios.repositorio.UsuarioRepositorio;
+import com.innoad.usuarios.seguridad.ListaRevocacion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Servicio del flujo de recuperación de contraseña
+ *
+ * - Solicitar: genera un token aleatorio de 256 bits, guarda solo su hash
+ *   SHA-256 e invalida los tokens anteriores del usuario. El token en claro
+ *   sale únicamente en el evento para el envío de correo.
+ * - Restablecer: busca por hash, valida la nueva contraseña y consume el
+ *   token con un UPDATE condicional; solo si ese UPDATE afecta una fila se
+ *   cambia la contraseña y se revocan los JWT anteriores.
+ * - Purgar: borra tokens expirados o usados en lotes pequeños, cada uno en su
+ *   propia transacción y con una pausa entre lotes.
+ */
+@Service
+@Slf4j
+public class RecuperacionContrasenaServicio {
+
+    private static final int BYTES_TOKEN = 32;
+    private static final String TOKEN_INVALIDO = "El enlace de recuperación no es válido o ya expiró";
+
+    private final PasswordResetTokenRepositorio tokenRepositorio;
+    private final UsuarioRepositorio usuarioRepositorio;
+    private final UsuarioServicio usuarioServicio;
+    private final PasswordEncoder passwordEncoder;
+    private final ListaRevocacion listaRevocacion;
+    private final AuditoriaServicio auditoriaServicio;
+    private final ApplicationEventPublisher publicador;
+    private final int horasExpiracion;
+    private final int tamanoLotePurga;
+    private final long pausaEntreLotesMs;
+
+    private final SecureRandom aleatorio = new SecureRandom();
+
+    public RecuperacionContrasenaServicio(PasswordResetTokenRepositorio tokenRepositorio,
+                                          UsuarioRepositorio usuarioRepositorio,
+                                          UsuarioServicio usuarioServicio,
+                                          PasswordEncoder passwordEncoder,
+                                          ListaRevocacion listaRevocacion,
+                                          AuditoriaServicio auditoriaServicio,
+                                          ApplicationEventPublisher publicador,
+                                          @Value("${innoad.usuarios.recuperacion.horas-expiracion:1}") int horasExpiracion,
+                                          @Value("${innoad.usuarios.recuperacion.tamano-lote-purga:500}") int tamanoLotePurga,
+                                          @Value("${innoad.usuarios.recuperacion.pausa-entre-lotes-ms:200}") long pausaEntreLotesMs) {
+        this.tokenRepositorio = tokenRepositorio;
+        this.usuarioRepositorio = usuarioRepositorio;
+        this.usuarioServicio = usuarioServicio;
+        this.passwordEncoder = passwordEncoder;
+        this.listaRevocacion = listaRevocacion;
+        this.auditoriaServicio = auditoriaServicio;
+        this.publicador = publicador;
+        this.horasExpiracion = horasExpiracion;
+        this.tamanoLotePurga = tamanoLotePurga;
+        this.pausaEntreLotesMs = pausaEntreLotesMs;
+    }
+
+    /**
+     * Inicia la recuperación para el correo indicado. No informa si el correo
+     * existe, para no permitir enumerar usuarios.
+     */
+    @Transactional
+    public void solicitar(String correo) {
+        Usuario usuario = usuarioRepositorio.findByCorreoAndActivoTrue(correo).orElse(null);
+        if (usuario == null) {
+            log.info("Solicitud de recuperación para correo no registrado o inactivo");
+            return;
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        tokenRepositorio.invalidarPendientes(usuario.getIdUsuario(), ahora);
+
+        String token = generarToken();
+        PasswordResetToken registro = new PasswordResetToken(hash(token), usuario, horasExpiracion);
+        tokenRepositorio.save(registro);
+
+        auditoriaServicio.registrar("password_reset_tokens", "SOLICITAR", registro.getIdToken(), null, usuario.getIdUsuario());
+        // NotificacionesServicio envía el enlace al confirmar la transacción
+        publicador.publishEvent(new SolicitudRestablecimientoEvento(
+                usuario.getIdUsuario(), usuario.getCorreo(), usuario.getNombre(), token, registro.getExpiryDate()));
+        log.info("Token de recuperación emitido para usuario ID: {}", usuario.getIdUsuario());
+    }
+
+    /**
+     * Cambia la contraseña con un token de recuperación vigente
+     */
+    @Transactional
+    public void restablecer(String token, String nuevaContrasena) {
+        PasswordResetToken registro = tokenRepositorio.findByToken(hash(token))
+                .orElseThrow(() -> new RuntimeException(TOKEN_INVALIDO));
+
+        // Primero la política: si falla, el token sigue disponible para otro intento
+        usuarioServicio.validarPoliticaContrasena(nuevaContrasena);
+
+        if (tokenRepositorio.consumir(registro.getIdToken(), LocalDateTime.now()) != 1) {
+            throw new RuntimeException(TOKEN_INVALIDO);
+        }
+
+        Usuario usuario = registro.getUsuario();
+        usuario.setContrasena(passwordEncoder.encode(nuevaContrasena));
+        usuario.reiniciarIntentosLogin();
+        usuarioRepositorio.save(usuario);
+
+        listaRevocacion.revocarEmitidosAntesDe(usuario.getIdUsuario(), Instant.now());
+        auditoriaServicio.registrar("usuarios", "CAMBIAR_CONTRASENA", usuario.getIdUsuario(),
+                Map.of("origen", "recuperacion"), usuario.getIdUsuario());
+        log.info("Contraseña restablecida para usuario ID: {}", usuario.getIdUsuario());
+    }
+
+    /**
+     * Borra tokens expirados o usados por lotes hasta vaciar el atraso
+     */
+    @Scheduled(cron = "${innoad.usuarios.recuperacion.purga-cron:0 15 * * * *}")
+    public void purgar() {
+        LocalDateTime limite = LocalDateTime.now();
+        int total = 0;
+        int borrados;
+        do {
+            borrados = tokenRepositorio.borrarExpirados(limite, tamanoLotePurga);
+            total += borrados;
+            if (borrados == tamanoLotePurga && !pausar()) {
+                break;
+            }
+        } while (borrados == tamanoLotePurga);
+
+        if (total > 0) {
+            log.info("Purgados {} tokens de recuperación expirados o usados", total);
+        }
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private String generarToken() {
+        byte[] bytes = new byte[BYTES_TOKEN];
+        aleatorio.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private boolean pausar() {
+        try {
+            Thread.sleep(pausaEntreLotesMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.innoad.usuarios.servicio;
+
+import com.innoad.comun.auditoria.AuditoriaServicio;
+import com.innoad.usuarios.agenda.IndiceAgenda;
+import com.innoad.usuarios.dto.ConflictoAgendaDTO;
+import com.innoad.usuarios.dto.FranjaHorariaDTO;
+import com.innoad.usuarios.dto.ReunionDTO;
+import com.innoad.usuarios.modelo.EstadoReunion;
+import com.innoad.usuarios.modelo.Reunion;
+import com.innoad.usuarios.repositorio.ReunionRepositorio;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Servicio de reuniones con detección de conflictos de agenda en memoria
+ *
+ * Las reuniones programadas o en curso viven además en un {@link IndiceAgenda}
+ * (un árbol de intervalos por usuario), así verificar a N asistentes es una
+ * búsqueda O(log n) por asistente sin consultas de solapamiento a MySQL, y el
+ * primer hueco común se encuentra saltando de conflicto en conflicto.
+ *
+ * El índice se carga al arrancar y se actualiza tras cada commit al crear,
+ * mover, cancelar o responder una invitación. Las escrituras se serializan
+ * con un cerrojo que envuelve verificación, transacción y actualización del
+ * índice, para que dos reservas simultáneas no ocupen el mismo horario. Una
+ * sola instancia del servicio es dueña de las reservas; otra instancia vería
+ * los cambios recién al reiniciar.
+ */
+@Service
+@Slf4j
+public class ReunionServicio {
+
+    private static final Set<String> ASISTENCIAS = Set.of("pendiente", "confirmada", "rechazada", "ausente");
+
+    private static final String SQL_CARGAR =
+            "SELECT r.id_reunion, r.fecha, r.hora_inicio, r.hora_fin, r.organizador_id, ru.id_usuario " +
+            "FROM reuniones r LEFT JOIN reuniones_usuarios ru ON ru.id_reunion = r.id_reunion " +
+            "AND (ru.asistencia IS NULL OR ru.asistencia <> 'rechazada') " +
+            "WHERE r.estado IN ('programada', 'en_curso') AND r.fecha >= ?";
+
+    private final ReunionRepositorio reunionRepositorio;
+    private final AuditoriaServicio auditoriaServicio;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final LocalTime inicioJornada;
+    private final LocalTime finJornada;
+    private final int horizonteDias;
+
+    private final IndiceAgenda indice = new IndiceAgenda();
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    public ReunionServicio(ReunionRepositorio reunionRepositorio,
+                           AuditoriaServicio auditoriaServicio,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${innoad.reuniones.jornada-inicio:08:00}") String inicioJornada,
+                           @Value("${innoad.reuniones.jornada-fin:18:00}") String finJornada,
+                           @Value("${innoad.reuniones.horizonte-dias:14}") int horizonteDias) {
+        this.reunionRepositorio = reunionRepositorio;
+        this.auditoriaServicio = auditoriaServicio;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.inicioJornada = LocalTime.parse(inicioJornada);
+        this.finJornada = LocalTime.parse(finJornada);
+        this.horizonteDias = horizonteDias;
+    }
+
+    /**
+     * Conflictos de agenda que impiden una reserva; el controlador los
+     * devuelve con 409
+     */
+    @Getter
+    public static class ConflictoAgendaException extends IllegalStateException {
+        private final List<ConflictoAgendaDTO> conflictos;
+
+        public ConflictoAgendaException(List<ConflictoAgendaDTO> conflictos) {
+            super("El horario choca con " + conflictos.size() + " reunión(es) de los asistentes");
+            this.conflictos = conflictos;
+        }
+    }
+
+    /**
+     * Carga en el índice las reuniones vigentes desde hoy
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarIndice() {
+        Map<Long, LocalDateTime[]> horarios = new HashMap<>();
+        Map<Long, Set<Long>> ocupantes = new HashMap<>();
+        escritura.lock();
+        try {
+            jdbcTemplate.query(SQL_CARGAR, (RowCallbackHandler) rs -> {
+                long idReunion = rs.getLong("id_reunion");
+                Set<Long> usuarios = ocupantes.computeIfAbsent(idReunion, id -> new HashSet<>());
+                if (!horarios.containsKey(idReunion)) {
+                    LocalDate fecha = rs.getDate("fecha").toLocalDate();
+                    horarios.put(idReunion, new LocalDateTime[]{
+                            LocalDateTime.of(fecha, rs.getTime("hora_inicio").toLocalTime()),
+                            LocalDateTime.of(fecha, rs.getTime("hora_fin").toLocalTime())});
+                    usuarios.add(rs.getLong("organizador_id"));
+                }
+                long idUsuario = rs.getLong("id_usuario");
+                if (!rs.wasNull()) {
+                    usuarios.add(idUsuario);
+                }
+            }, Date.valueOf(LocalDate.now()));
+            horarios.forEach((idReunion, horario) ->
+                    indice.colocar(idReunion, horario[0], horario[1], ocupantes.get(idReunion)));
+        } finally {
+            escritura.unlock();
+        }
+        log.info("Índice de agenda cargado con {} reuniones", indice.reuniones());
+    }
+
+    /**
+     * Olvida las reuniones de días anteriores
+     */
+    @Scheduled(cron = "${innoad.reuniones.purga-cron:0 5 0 * * *}")
+    public void purgarIndice() {
+        int purgadas = indice.purgarAnterioresA(LocalDate.now().atStartOfDay());
+        log.debug("Índice de agenda: {} reuniones terminadas purgadas", purgadas);
+    }
+
+    public Optional<ReunionDTO> obtenerReunion(Long id) {
+        return reunionRepositorio.findById(id).map(this::convertirADTO);
+    }
+
+    /**
+     * Crea la reunión si el organizador y los invitados están libres
+     *
+     * @throws ConflictoAgendaException si alguno ya tiene algo en ese horario
+     */
+    public ReunionDTO crearReunion(ReunionDTO dto, Long organizadorId) {
+        LocalDateTime inicio = LocalDateTime.of(dto.getFecha(), dto.getHoraInicio());
+        LocalDateTime fin = LocalDateTime.of(dto.getFecha(), dto.getHoraFin());
+        validarHorario(inicio, fin);
+        Set<Long> asistentes = dto.getAsistentes() != null ? new HashSet<>(dto.getAsistentes()) : new HashSet<>();
+        asistentes.remove(organizadorId);
+        Set<Long> ocupantes = new LinkedHashSet<>(asistentes);
+        ocupantes.add(organizadorId);
+
+        escritura.lock();
+        try {
+            exigirSinConflictos(ocupantes, inicio, fin, null);
+            Reunion guardada = transaccion.execute(estado -> {
+                Reunion reunion = new Reunion();
+                reunion.setFecha(dto.getFecha());
+                reunion.setHoraInicio(dto.getHoraInicio());
+                reunion.setHoraFin(dto.getHoraFin());
+                reunion.setMotivo(dto.getMotivo());
+                reunion.setDescripcion(dto.getDescripcion());
+                reunion.setUbicacion(dto.getUbicacion());
+                reunion.setOrganizadorId(organizadorId);
+                reunion.setAsistentes(asistentes);
+                return reunionRepositorio.save(reunion);
+            });
+            indice.colocar(guardada.getIdReunion(), inicio, fin, ocupantes);
+            auditoriaServicio.registrar("reuniones", "CREAR", guardada.getIdReunion(), Map.of(
+                    "inicio", inicio.toString(), "asistentes", asistentes.size()), organizadorId);
+            log.info("Reunión {} creada para {} con {} asistentes", guardada.getIdReunion(), inicio, asistentes.size());
+            return convertirADTO(guardada);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Cambia el horario de la reunión si sigue libre para quienes asisten
+     *
+     * @param puedeGestionar si el usuario tiene REUNIONES_GESTIONAR; sin él
+     *                       solo el organizador puede moverla
+     * @throws ConflictoAgendaException si el nuevo horario choca
+     */
+    public ReunionDTO moverReunion(Long id, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin,
+                                   Long usuarioId, boolean puedeGestionar) {
+        LocalDateTime inicio = LocalDateTime.of(fecha, horaInicio);
+        LocalDateTime fin = LocalDateTime.of(fecha, horaFin);
+        validarHorario(inicio, fin);
+
+        escritura.lock();
+        try {
+            Reunion reunion = buscarVigente(id);
+            exigirGestion(reunion, usuarioId, puedeGestionar);
+            Set<Long> ocupantes = ocupantes(reunion);
+            exigirSinConflictos(ocupantes, inicio, fin, id);
+            Reunion guardada = transaccion.execute(estado -> {
+                Reunion actual = buscarVigente(id);
+                actual.setFecha(fecha);
+                actual.setHoraInicio(horaInicio);
+                actual.setHoraFin(horaFin);
+                return reunionRepositorio.save(actual);
+            });
+            indice.colocar(id, inicio, fin, ocupantes);
+            auditoriaServicio.registrar("reuniones", "MOVER", id, Map.of(
+                    "desde", reunion.inicio().toString(), "hasta", inicio.toString()), usuarioId);
+            log.info("Reunión {} movida de {} a {}", id, reunion.inicio(), inicio);
+            return convertirADTO(guardada);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Cancela la reunión y libera el horario de sus asistentes; solo el
+     * organizador o quien tenga REUNIONES_GESTIONAR
+     */
+    public ReunionDTO cancelarReunion(Long id, Long usuarioId, boolean puedeGestionar) {
+        escritura.lock();
+        try {
+            exigirGestion(buscarVigente(id), usuarioId, puedeGestionar);
+            Reunion guardada = transaccion.execute(estado -> {
+                Reunion reunion = buscarVigente(id);
+                reunion.setEstado(EstadoReunion.CANCELADA);
+                return reunionRepositorio.save(reunion);
+            });
+            indice.quitar(id);
+            auditoriaServicio.registrar("reuniones", "CANCELAR", id, null, usuarioId);
+            log.info("Reunión {} cancelada", id);
+            return convertirADTO(guardada);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Registra la respuesta de un invitado. Rechazar libera su horario; volver
+     * a aceptar una invitación rechazada exige que el horario siga libre.
+     */
+    public void responderInvitacion(Long id, Long idUsuario, String asistencia) {
+        String valor = asistencia != null ? asistencia.toLowerCase() : null;
+        if (!ASISTENCIAS.contains(valor)) {
+            throw new IllegalArgumentException("Asistencia inválida: " + asistencia);
+        }
+        escritura.lock();
+        try {
+            Reunion reunion = buscarVigente(id);
+            if (!reunion.getAsistentes().contains(idUsuario)) {
+                throw new NoSuchElementException("El usuario " + idUsuario + " no está invitado a la reunión " + id);
+            }
+            boolean asiste = !"rechazada".equals(valor);
+            if (asiste) {
+                exigirSinConflictos(List.of(idUsuario), reunion.inicio(), reunion.fin(), id);
+            }
+            transaccion.executeWithoutResult(estado -> reunionRepositorio.actualizarAsistencia(id, idUsuario, valor));
+            indice.cambiarAsistencia(id, idUsuario, asiste);
+            auditoriaServicio.registrar("reuniones", "RESPONDER", id, Map.of("asistencia", valor), idUsuario);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Conflictos de todos los usuarios con el horario, en una sola pasada
+     */
+    public List<ConflictoAgendaDTO> verificarConflictos(Collection<Long> usuarios, LocalDateTime inicio,
+                                                        LocalDateTime fin, Long excluirReunion) {
+        if (!fin.isAfter(inicio)) {
+            throw new IllegalArgumentException("La hora de fin debe ser posterior a la de inicio");
+        }
+        return indice.conflictos(usuarios, inicio, fin, excluirReunion).stream()
+                .map(c -> new ConflictoAgendaDTO(c.idUsuario(), c.idReunion(), c.inicio(), c.fin()))
+                .toList();
+    }
+
+    /**
+     * Primer horario de la duración pedida libre para todos, dentro de la
+     * jornada configurada
+     *
+     * @param desde inicio de la búsqueda (por defecto, ahora)
+     * @param hasta fin de la búsqueda (por defecto, horizonte-dias después de desde)
+     */
+    public Optional<FranjaHorariaDTO> buscarHuecoComun(Collection<Long> usuarios, int duracionMinutos,
+                                                       LocalDateTime desde, LocalDateTime hasta) {
+        if (usuarios.isEmpty() || duracionMinutos <= 0) {
+            throw new IllegalArgumentException("Se requieren usuarios y una duración positiva");
+        }
+        LocalDateTime ahora = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        LocalDateTime inicioBusqueda = desde == null || desde.isBefore(ahora) ? ahora : desde;
+        LocalDateTime finBusqueda = hasta != null ? hasta : inicioBusqueda.plusDays(horizonteDias);
+        return indice.primerHuecoComun(usuarios, duracionMinutos, inicioBusqueda, finBusqueda, inicioJornada, finJornada)
+                .map(inicio -> new FranjaHorariaDTO(inicio, inicio.plusMinutes(duracionMinutos)));
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private static void exigirGestion(Reunion reunion, Long usuarioId, boolean puedeGestionar) {
+        if (!puedeGestionar && !reunion.getOrganizadorId().equals(usuarioId)) {
+            throw new AccessDeniedException("Solo el organizador puede modificar la reunión " + reunion.getIdReunion());
+        }
+    }
+
+    private void validarHorario(LocalDateTime inicio, LocalDateTime fin) {
+        if (!fin.isAfter(inicio)) {
+            throw new IllegalArgumentException("La hora de fin debe ser posterior a la de inicio");
+        }
+        if (inicio.isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("No se pueden agendar reuniones en el pasado");
+        }
+    }
+
+    private void exigirSinConflictos(Collection<Long> usuarios, LocalDateTime inicio, LocalDateTime fin,
+                                     Long excluirReunion) {
+        List<ConflictoAgendaDTO> conflictos = verificarConflictos(usuarios, inicio, fin, excluirReunion);
+        if (!conflictos.isEmpty()) {
+            throw new ConflictoAgendaException(conflictos);
+        }
+    }
+
+    private Reunion buscarVigente(Long id) {
+        Reunion reunion = reunionRepositorio.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Reunión no encontrada: " + id));
+        if (!reunion.getEstado().ocupaAgenda()) {
+            throw new IllegalArgumentException("La reunión " + id + " está " + reunion.getEstado().name().toLowerCase());
+        }
+        return reunion;
+    }
+
+    /**
+     * Organizador e invitados que no rechazaron
+     */
+    private Set<Long> ocupantes(Reunion reunion) {
+        Set<Long> ocupantes = new LinkedHashSet<>(reunion.getAsistentes());
+        reunionRepositorio.findRechazados(reunion.getIdReunion()).forEach(id -> ocupantes.remove(id.longValue()));
+        ocupantes.add(reunion.getOrganizadorId());
+        return ocupantes;
+    }
+
+    private ReunionDTO convertirADTO(Reunion reunion) {
+        return new ReunionDTO(reunion.getIdReunion(), reunion.getFecha(), reunion.getHoraInicio(),
+                reunion.getHoraFin(), reunion.getMotivo(), reunion.getDescripcion(), reunion.getUbicacion(),
+                reunion.getEstado().name().toLowerCase(), reunion.getOrganizadorId(),
+                new HashSet<>(reunion.getAsistentes()));
+    }
+}
@@ -1,17 +1,25 @@
 package com.innoad.usuarios.servicio;
 
+import com.innoad.comun.auditoria.AuditoriaServicio;
 import com.innoad.usuarios.dto.UsuarioDTO;
+import com.innoad.usuarios.modelo.Permiso;
 import com.innoad.usuarios.modelo.Usuario;
 import com.innoad.usuarios.modelo.Rol;
 import com.innoad.usuarios.repositorio.UsuarioRepositorio;
 import com.innoad.usuarios.repositorio.RolRepositorio;
+import com.innoad.usuarios.seguridad.ListaRevocacion;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -42,6 +50,13 @@ public class UsuarioServicio {
     private final UsuarioRepositorio usuarioRepositorio;
     private final RolRepositorio rolRepositorio;
     private final PasswordEncoder passwordEncoder;
+    private final AuditoriaServicio auditoriaServicio;
+    private final PermisosServicio permisosServicio;
+    private final ListaRevocacion listaRevocacion;
+    private final PoliticaContrasenaServicio politicaContrasenaServicio;
+
+    // Tope de filas por lote en los listados por lotes
+    private static final int LIMITE_MAXIMO_LOTE = 1000;
 
     /**
      * Crea un nuevo usuario en el sistema
@@ -75,7 +90,8 @@ public class UsuarioServicio {
         Usuario usuarioGuardado = usuarioRepositorio.save(usuario);
 
         // TODO: Enviar email de bienvenida
-        // TODO: Registrar en auditoría
+        auditoriaServicio.registrar("usuarios", "CREAR", usuarioGuardado.getIdUsuario(),
+                Map.of("correo", usuarioGuardado.getCorreo(), "idRol", rol.getIdRol()), null);
 
         log.info("Usuario creado exitosamente: ID {}", usuarioGuardado.getIdUsuario());
         return convertirADTO(usuarioGuardado);
@@ -107,6 +123,13 @@ public class UsuarioServicio {
                 .map(this::convertirADTO);
     }
 
+    /**
+     * Versión actual del usuario sin cargar la entidad (If-None-Match)
+     */
+    public Optional<Long> obtenerVersion(Long id) {
+        return usuarioRepositorio.findVersionById(id);
+    }
+
     /**
      * Busca un usuario por correo electrónico
      * Método crítico para autenticación
@@ -118,16 +141,18 @@ public class UsuarioServicio {
 
     /**
      * Actualiza la información de un usuario
-     * TODO: Implementar validaciones de permisos
+     *
+     * @param puedeCambiarRol si quien edita tiene ROLES_GESTIONAR; sin él un
+     *                        cambio de rol se rechaza con AccessDeniedException
      */
     @Transactional
-    public UsuarioDTO actualizarUsuario(Long id, UsuarioDTO usuarioDTO) {
+    public UsuarioDTO actualizarUsuario(Long id, UsuarioDTO usuarioDTO, Long versionEsperada, boolean puedeCambiarRol) {
         log.info("Actualizando usuario ID: {}", id);
 
         Usuario usuario = usuarioRepositorio.findById(id)
             .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        verificarVersion(usuario, versionEsperada);
 
-        // TODO: Validar permisos de actualización
         // TODO: Validar que el nuevo correo no esté en uso por otro usuario
 
         // Actualizar datos
@@ -141,15 +166,30 @@ public class UsuarioServicio {
         }
 
         // Actualizar rol si cambió
-        if (!usuario.getRol().getIdRol().equals(usuarioDTO.getIdRol())) {
+        Long rolAnterior = usuario.getRol().getIdRol();
+        if (!rolAnterior.equals(usuarioDTO.getIdRol())) {
+            if (!puedeCambiarRol) {
+                throw new AccessDeniedException("Cambiar el rol requiere el permiso ROLES_GESTIONAR");
+            }
             Rol nuevoRol = rolRepositorio.findById(usuarioDTO.getIdRol())
                 .orElseThrow(() -> new RuntimeException("Rol no encontrado"));
             usuario.setRol(nuevoRol);
         }
 
-        Usuario usuarioActualizado = usuarioRepositorio.save(usuario);
+        // Con flush la versión nueva sale en la respuesta y un conflicto se detecta aquí
+        Usuario usuarioActualizado = usuarioRepositorio.saveAndFlush(usuario);
+
+        auditoriaServicio.registrar("usuarios", "ACTUALIZAR", id, Map.of(
+                "correo", usuarioActualizado.getCorreo(),
+                "idRol", usuarioActualizado.getRol().getIdRol()), null);
 
-        // TODO: Registrar cambio en auditoría
+        if (!rolAnterior.equals(usuarioActualizado.getRol().getIdRol())) {
+            // Los tokens llevan el rol anterior: dejan de valer
+            listaRevocacion.revocarEmitidosAntesDe(id, Instant.now());
+            auditoriaServicio.registrar("usuarios", "CAMBIAR_ROL", id, Map.of(
+                    "idRolAnterior", rolAnterior,
+                    "idRol", usuarioActualizado.getRol().getIdRol()), null);
+        }
 
         return convertirADTO(usuarioActualizado);
     }
@@ -176,7 +216,10 @@ public class UsuarioServicio {
         usuario.setContrasena(passwordEncoder.encode(nuevaContrasena));
         usuarioRepositorio.save(usuario);
 
-        // TODO: Invalidar sesiones activas
+        auditoriaServicio.registrar("usuarios", "CAMBIAR_CONTRASENA", id, null, id);
+
+        // Los tokens emitidos con la contraseña anterior dejan de valer
+        listaRevocacion.revocarEmitidosAntesDe(id, Instant.now());
         // TODO: Enviar notificación de cambio de contraseña
 
         log.info("Contraseña cambiada exitosamente para usuario ID: {}", id);
@@ -187,15 +230,18 @@ public class UsuarioServicio {
      * TODO: Implementar validaciones de permisos
      */
     @Transactional
-    public void cambiarEstadoUsuario(Long id, boolean activo) {
+    public void cambiarEstadoUsuario(Long id, boolean activo, Long versionEsperada) {
         log.info("Cambiando estado de usuario ID: {} a {}", id, activo);
 
         Usuario usuario = usuarioRepositorio.findById(id)
             .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        verificarVersion(usuario, versionEsperada);
 
-        // TODO: Validar que no se desactive al último admin
-        if (!activo && usuario.getRol().esAdministrador()) {
-            long adminCount = usuarioRepositorio.findUsuariosActivosPorRol(usuario.getRol().getIdRol()).size();
+        // No se puede desactivar al último usuario activo con administración del sistema
+        if (!activo && permisosServicio.tienePermiso(usuario.getRol().getIdRol(), Permiso.SISTEMA_ADMINISTRAR)) {
+            long adminCount = permisosServicio.rolesConPermiso(Permiso.SISTEMA_ADMINISTRAR).stream()
+                .mapToLong(idRol -> usuarioRepositorio.findUsuariosActivosPorRol(idRol).size())
+                .sum();
             if (adminCount <= 1) {
                 throw new RuntimeException("No se puede desactivar al último administrador");
             }
@@ -204,8 +250,10 @@ public class UsuarioServicio {
         usuario.setActivo(activo);
         usuarioRepositorio.save(usuario);
 
-        // TODO: Si se desactiva, invalidar sesiones activas
-        // TODO: Registrar cambio en auditoría
+        if (!activo) {
+            listaRevocacion.revocarEmitidosAntesDe(id, Instant.now());
+        }
+        auditoriaServicio.registrar("usuarios", "CAMBIAR_ESTADO", id, Map.of("activo", activo), null);
     }
 
     /**
@@ -260,6 +308,31 @@ public class UsuarioServicio {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Usuarios sin acceso en los últimos días, por lotes: el siguiente lote
+     * se pide con el id del último usuario recibido
+     */
+    public List<UsuarioDTO> obtenerUsuariosInactivos(int dias, Long desdeId, int limite) {
+        log.debug("Obteniendo usuarios inactivos hace {} días desde ID: {}", dias, desdeId);
+
+        return usuarioRepositorio.findInactivosDesdeId(LocalDateTime.now().minusDays(dias), desdeId,
+                        PageRequest.of(0, Math.max(1, Math.min(limite, LIMITE_MAXIMO_LOTE)))).stream()
+                .map(this::convertirADTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Usuarios creados en el rango de fechas, por lotes igual que los inactivos
+     */
+    public List<UsuarioDTO> obtenerUsuariosCreadosEntre(LocalDateTime inicio, LocalDateTime fin, Long desdeId, int limite) {
+        log.debug("Obteniendo usuarios creados entre {} y {} desde ID: {}", inicio, fin, desdeId);
+
+        return usuarioRepositorio.findCreadosEntreFechasDesdeId(inicio, fin, desdeId,
+                        PageRequest.of(0, Math.max(1, Math.min(limite, LIMITE_MAXIMO_LOTE)))).stream()
+                .map(this::convertirADTO)
+                .collect(Collectors.toList());
+    }
+
     // ==========================================
     // MÉTODOS PRIVADOS DE UTILIDAD
     // ==========================================
@@ -267,8 +340,9 @@ public class UsuarioServicio {
     /**
      * Convierte entidad Usuario a DTO
      * TODO: Considerar usar MapStruct para mappings complejos
+     * Visible en el paquete para el módulo de benchmarks (benchmarks/usuarios-jmh)
      */
-    private UsuarioDTO convertirADTO(Usuario usuario) {
+    UsuarioDTO convertirADTO(Usuario usuario) {
         UsuarioDTO dto = new UsuarioDTO();
         dto.setIdUsuario(usuario.getIdUsuario());
         dto.setNombre(usuario.getNombre());
@@ -278,10 +352,22 @@ public class UsuarioServicio {
         dto.setActivo(usuario.getActivo());
         dto.setUltimoAcceso(usuario.getUltimoAcceso());
         dto.setCreatedAt(usuario.getCreatedAt());
+        dto.setVersion(usuario.getVersion());
         // No incluir contraseña en el DTO
         return dto;
     }
 
+    /**
+     * Con If-Match la edición se rechaza si el usuario cambió desde que el
+     * cliente lo leyó; sin él, @Version detecta igual a quien guarde entre la
+     * lectura y el commit
+     */
+    private void verificarVersion(Usuario usuario, Long versionEsperada) {
+        if (versionEsperada != null && !versionEsperada.equals(usuario.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Usuario.class, usuario.getIdUsuario());
+        }
+    }
+
     /**
      * Valida los datos básicos de un usuario
      * TODO: Implementar validaciones más robustas
@@ -298,15 +384,12 @@ public class UsuarioServicio {
 
     /**
      * Valida que la contraseña cumpla con la política de seguridad
-     * TODO: Implementar política configurable
+     * (innoad.usuarios.password-policy.*, ver PoliticaContrasenaServicio)
+     * Visible en el paquete para el módulo de benchmarks (benchmarks/usuarios-jmh)
      */
-    private void validarPoliticaContrasena(String contrasena) {
-        if (contrasena == null || contrasena.length() < 8) {
-            throw new RuntimeException("La contraseña debe tener al menos 8 caracteres");
-        }
+    void validarPoliticaContrasena(String contrasena) {
+        politicaContrasenaServicio.validar(contrasena);
 
-        // TODO: Validar mayúsculas, minúsculas, números y símbolos
-        // TODO: Validar que no sea una contraseña común
         // TODO: Validar que no contenga información personal
     }
 }
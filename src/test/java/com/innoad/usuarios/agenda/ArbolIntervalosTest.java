@@ -0,0 +1,101 @@
+package com.innoad.usuarios.agenda;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+class ArbolIntervalosTest {
+
+    private static final Comparator<ArbolIntervalos.Intervalo> ORDEN =
+            Comparator.comparingLong(ArbolIntervalos.Intervalo::inicio)
+                    .thenComparingLong(ArbolIntervalos.Intervalo::idReunion);
+
+    @Test
+    void intervalosSemiabiertosQueSeTocanNoSeSolapan() {
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        arbol.insertar(new ArbolIntervalos.Intervalo(10, 20, 1));
+
+        Assertions.assertTrue(solapados(arbol, 20, 30).isEmpty());
+        Assertions.assertTrue(solapados(arbol, 0, 10).isEmpty());
+        Assertions.assertEquals(1, solapados(arbol, 19, 21).size());
+        Assertions.assertEquals(Long.MIN_VALUE, arbol.maxFinSolapado(20, 30));
+        Assertions.assertEquals(20, arbol.maxFinSolapado(5, 11));
+    }
+
+    @Test
+    void eliminarSoloBorraLaReunionIndicada() {
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        arbol.insertar(new ArbolIntervalos.Intervalo(10, 20, 1));
+        arbol.insertar(new ArbolIntervalos.Intervalo(10, 40, 2));
+
+        Assertions.assertFalse(arbol.eliminar(10, 3));
+        Assertions.assertFalse(arbol.eliminar(11, 1));
+        Assertions.assertTrue(arbol.eliminar(10, 1));
+        Assertions.assertEquals(1, arbol.tamano());
+        Assertions.assertEquals(40, arbol.maxFinSolapado(30, 35));
+    }
+
+    @Test
+    void coincideConRecorrerTodosLosIntervalos() {
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        List<ArbolIntervalos.Intervalo> todos = new ArrayList<>();
+        Random random = new Random(3);
+        for (long id = 1; id <= 2_000; id++) {
+            long inicio = random.nextInt(100_000);
+            ArbolIntervalos.Intervalo intervalo = new ArbolIntervalos.Intervalo(inicio, inicio + 1 + random.nextInt(500), id);
+            arbol.insertar(intervalo);
+            todos.add(intervalo);
+            // Borrar de vez en cuando para ejercitar la unión de subárboles
+            if (random.nextInt(5) == 0) {
+                ArbolIntervalos.Intervalo borrado = todos.remove(random.nextInt(todos.size()));
+                Assertions.assertTrue(arbol.eliminar(borrado.inicio(), borrado.idReunion()));
+            }
+        }
+        Assertions.assertEquals(todos.size(), arbol.tamano());
+
+        for (int i = 0; i < 500; i++) {
+            long desde = random.nextInt(100_000);
+            long hasta = desde + 1 + random.nextInt(2_000);
+            List<ArbolIntervalos.Intervalo> esperado = new ArrayList<>();
+            long maxFin = Long.MIN_VALUE;
+            for (ArbolIntervalos.Intervalo intervalo : todos) {
+                if (intervalo.inicio() < hasta && intervalo.fin() > desde) {
+                    esperado.add(intervalo);
+                    maxFin = Math.max(maxFin, intervalo.fin());
+                }
+            }
+            esperado.sort(ORDEN);
+
+            Assertions.assertEquals(esperado, solapados(arbol, desde, hasta));
+            Assertions.assertEquals(maxFin, arbol.maxFinSolapado(desde, hasta));
+        }
+    }
+
+    @Test
+    void eliminarTerminadosAntesDeRespetaElLimite() {
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        arbol.insertar(new ArbolIntervalos.Intervalo(0, 10, 1));
+        arbol.insertar(new ArbolIntervalos.Intervalo(5, 20, 2));
+        // Empieza antes pero termina después: no se borra
+        arbol.insertar(new ArbolIntervalos.Intervalo(1, 50, 3));
+        arbol.insertar(new ArbolIntervalos.Intervalo(30, 40, 4));
+
+        Assertions.assertEquals(2, arbol.eliminarTerminadosAntesDe(20));
+        Assertions.assertEquals(2, arbol.tamano());
+        List<ArbolIntervalos.Intervalo> restantes = solapados(arbol, Long.MIN_VALUE, Long.MAX_VALUE);
+        Assertions.assertEquals(List.of(3L, 4L), restantes.stream().map(ArbolIntervalos.Intervalo::idReunion).toList());
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private static List<ArbolIntervalos.Intervalo> solapados(ArbolIntervalos arbol, long desde, long hasta) {
+        List<ArbolIntervalos.Intervalo> resultado = new ArrayList<>();
+        arbol.solapados(desde, hasta, resultado);
+        resultado.sort(ORDEN);
+        return resultado;
+    }
+}
@@ -0,0 +1,131 @@
+package com.innoad.usuarios.agenda;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+class IndiceAgendaTest {
+
+    private static final LocalDateTime LUNES = LocalDateTime.of(2025, 3, 3, 0, 0);
+    private static final LocalTime APERTURA = LocalTime.of(9, 0);
+    private static final LocalTime CIERRE = LocalTime.of(18, 0);
+
+    @Test
+    void detectaConflictosDeCadaAsistente() {
+        IndiceAgenda indice = new IndiceAgenda();
+        indice.colocar(100L, a(10, 0), a(11, 0), List.of(1L, 2L));
+        indice.colocar(200L, a(10, 30), a(12, 0), List.of(3L));
+
+        List<IndiceAgenda.Conflicto> conflictos = indice.conflictos(List.of(1L, 3L, 4L), a(10, 45), a(11, 15), null);
+
+        Assertions.assertEquals(List.of(
+                new IndiceAgenda.Conflicto(1L, 100L, a(10, 0), a(11, 0)),
+                new IndiceAgenda.Conflicto(3L, 200L, a(10, 30), a(12, 0))), conflictos);
+    }
+
+    @Test
+    void reunionQueSeMueveNoChocaConsigoMisma() {
+        IndiceAgenda indice = new IndiceAgenda();
+        indice.colocar(100L, a(10, 0), a(11, 0), List.of(1L));
+
+        Assertions.assertTrue(indice.conflictos(List.of(1L), a(10, 30), a(11, 30), 100L).isEmpty());
+        Assertions.assertEquals(1, indice.conflictos(List.of(1L), a(10, 30), a(11, 30), null).size());
+    }
+
+    @Test
+    void colocarDeNuevoReemplazaHorarioYAsistentes() {
+        IndiceAgenda indice = new IndiceAgenda();
+        indice.colocar(100L, a(10, 0), a(11, 0), List.of(1L, 2L));
+        indice.colocar(100L, a(15, 0), a(16, 0), List.of(2L));
+
+        Assertions.assertTrue(indice.conflictos(List.of(1L, 2L), a(10, 0), a(11, 0), null).isEmpty());
+        Assertions.assertEquals(1, indice.conflictos(List.of(1L, 2L), a(15, 0), a(16, 0), null).size());
+        Assertions.assertEquals(1, indice.reuniones());
+    }
+
+    @Test
+    void cambiarAsistenciaActualizaSoloAEseUsuario() {
+        IndiceAgenda indice = new IndiceAgenda();
+        indice.colocar(100L, a(10, 0), a(11, 0), List.of(1L));
+
+        indice.cambiarAsistencia(100L, 2L, true);
+        indice.cambiarAsistencia(100L, 1L, false);
+
+        Assertions.assertTrue(indice.conflictos(List.of(1L), a(10, 0), a(11, 0), null).isEmpty());
+        Assertions.assertEquals(1, indice.conflictos(List.of(2L), a(10, 0), a(11, 0), null).size());
+    }
+
+    @Test
+    void quitarLiberaElHorario() {
+        IndiceAgenda indice = new IndiceAgenda();
+        indice.colocar(100L, a(10, 0), a(11, 0), List.of(1L, 2L));
+
+        indice.quitar(100L);
+
+        Assertions.assertTrue(indice.conflictos(List.of(1L, 2L), a(10, 0), a(11, 0), null).isEmpty());
+        Assertions.assertEquals(0, indice.reuniones());
+    }
+
+    @Test
+    void primerHuecoComunSaltaReunionesEncadenadas() {
+        IndiceAgenda indice = new IndiceAgenda();
+        indice.colocar(1L, a(9, 0), a(10, 0), List.of(1L));
+        indice.colocar(2L, a(9, 45), a(11, 0), List.of(2L));
+        indice.colocar(3L, a(11, 30), a(12, 0), List.of(1L));
+
+        Optional<LocalDateTime> hueco = indice.primerHuecoComun(List.of(1L, 2L), 30, a(8, 0), a(18, 0),
+                APERTURA, CIERRE);
+
+        Assertions.assertEquals(Optional.of(a(11, 0)), hueco);
+    }
+
+    @Test
+    void primerHuecoComunPasaAlDiaSiguienteSiNoCabeEnLaJornada() {
+        IndiceAgenda indice = new IndiceAgenda();
+        indice.colocar(1L, a(9, 0), a(17, 30), List.of(1L));
+
+        Optional<LocalDateTime> hueco = indice.primerHuecoComun(List.of(1L), 60, a(9, 0), a(9, 0).plusDays(2),
+                APERTURA, CIERRE);
+
+        Assertions.assertEquals(Optional.of(a(9, 0).plusDays(1)), hueco);
+    }
+
+    @Test
+    void primerHuecoComunVacioSiNoHayLugarAntesDelLimite() {
+        IndiceAgenda indice = new IndiceAgenda();
+        indice.colocar(1L, a(9, 0), a(18, 0), List.of(1L));
+
+        Assertions.assertTrue(indice.primerHuecoComun(List.of(1L), 30, a(9, 0), a(18, 0), APERTURA, CIERRE).isEmpty());
+        Assertions.assertTrue(indice.primerHuecoComun(List.of(1L), 600, a(9, 0), a(9, 0).plusDays(5),
+                APERTURA, CIERRE).isEmpty());
+    }
+
+    @Test
+    void purgarOlvidaLasReunionesTerminadas() {
+        IndiceAgenda indice = new IndiceAgenda();
+        indice.colocar(1L, a(9, 0), a(10, 0), List.of(1L));
+        indice.colocar(2L, a(11, 0), a(12, 0), List.of(1L));
+
+        Assertions.assertEquals(1, indice.purgarAnterioresA(a(10, 0)));
+        Assertions.assertEquals(1, indice.reuniones());
+        Assertions.assertTrue(indice.conflictos(List.of(1L), a(9, 0), a(10, 0), null).isEmpty());
+    }
+
+    @Test
+    void minutosYFechaSonInversos() {
+        LocalDateTime fecha = LocalDateTime.of(1969, 12, 31, 23, 59);
+
+        Assertions.assertEquals(fecha, IndiceAgenda.aFecha(IndiceAgenda.aMinutos(fecha)));
+        Assertions.assertEquals(a(14, 5), IndiceAgenda.aFecha(IndiceAgenda.aMinutos(a(14, 5))));
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private static LocalDateTime a(int hora, int minuto) {
+        return LUNES.withHour(hora).withMinute(minuto);
+    }
+}
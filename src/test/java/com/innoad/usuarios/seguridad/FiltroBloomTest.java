@@ -0,0 +1,45 @@
+package com.innoad.usuarios.seguridad;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FiltroBloomTest {
+
+    @Test
+    void nuncaDaFalsosNegativos() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (long clave = 0; clave < 10_000; clave++) {
+            filtro.agregar(clave * 31 + 7);
+        }
+
+        for (long clave = 0; clave < 10_000; clave++) {
+            Assertions.assertTrue(filtro.puedeContener(clave * 31 + 7));
+        }
+    }
+
+    @Test
+    void tasaDeFalsosPositivosCercaDeLaPedida() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (long clave = 0; clave < 10_000; clave++) {
+            filtro.agregar(clave);
+        }
+
+        int falsosPositivos = 0;
+        for (long clave = 1_000_000; clave < 1_100_000; clave++) {
+            if (filtro.puedeContener(clave)) {
+                falsosPositivos++;
+            }
+        }
+        // 1 % esperado; margen amplio para no depender de la función de mezcla
+        Assertions.assertTrue(falsosPositivos < 2_000, "falsos positivos: " + falsosPositivos);
+    }
+
+    @Test
+    void filtroVacioNoContieneNada() {
+        FiltroBloom filtro = new FiltroBloom(100, 0.01);
+
+        for (long clave = -50; clave < 50; clave++) {
+            Assertions.assertFalse(filtro.puedeContener(clave));
+        }
+    }
+}
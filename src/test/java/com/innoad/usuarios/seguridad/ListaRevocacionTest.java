@@ -0,0 +1,142 @@
+package com.innoad.usuarios.seguridad;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+class ListaRevocacionTest {
+
+    private static final long VIDA_REFRESCO_MS = 3_600_000L;
+
+    private final TablaEnMemoria tabla = new TablaEnMemoria();
+
+    @Test
+    void tokenNoRevocadoEsValido() {
+        ListaRevocacion lista = new ListaRevocacion(tabla, 1_000, VIDA_REFRESCO_MS);
+
+        Assertions.assertFalse(lista.estaRevocado(1L, ahora()));
+    }
+
+    @Test
+    void revocacionPuntualAfectaSoloAEsePar() {
+        ListaRevocacion lista = new ListaRevocacion(tabla, 1_000, VIDA_REFRESCO_MS);
+        long iat = ahora();
+
+        lista.revocar(1L, iat);
+
+        Assertions.assertTrue(lista.estaRevocado(1L, iat));
+        Assertions.assertFalse(lista.estaRevocado(1L, iat + 1));
+        Assertions.assertFalse(lista.estaRevocado(2L, iat));
+        Assertions.assertEquals(1, tabla.filas.size());
+    }
+
+    @Test
+    void soloUnaRenovacionSeQuedaConElToken() {
+        ListaRevocacion lista = new ListaRevocacion(tabla, 1_000, VIDA_REFRESCO_MS);
+        long iat = ahora();
+
+        Assertions.assertTrue(lista.revocarSiVigente(1L, iat));
+        Assertions.assertFalse(lista.revocarSiVigente(1L, iat));
+    }
+
+    @Test
+    void laTablaDecideEntreInstancias() {
+        ListaRevocacion primera = new ListaRevocacion(tabla, 1_000, VIDA_REFRESCO_MS);
+        ListaRevocacion segunda = new ListaRevocacion(tabla, 1_000, VIDA_REFRESCO_MS);
+        long iat = ahora();
+
+        Assertions.assertTrue(primera.revocarSiVigente(1L, iat));
+        // La segunda no lo tenía en memoria: pierde por la clave primaria y lo aprende
+        Assertions.assertFalse(segunda.revocarSiVigente(1L, iat));
+        Assertions.assertTrue(segunda.estaRevocado(1L, iat));
+    }
+
+    @Test
+    void corteRevocaLoEmitidoAntesPeroNoEnElMismoSegundo() {
+        ListaRevocacion lista = new ListaRevocacion(tabla, 1_000, VIDA_REFRESCO_MS);
+        long corte = ahora();
+
+        lista.revocarEmitidosAntesDe(1L, Instant.ofEpochSecond(corte));
+
+        Assertions.assertTrue(lista.estaRevocado(1L, corte - 1));
+        Assertions.assertFalse(lista.estaRevocado(1L, corte));
+        Assertions.assertFalse(lista.estaRevocado(1L, corte + 10));
+        Assertions.assertFalse(lista.estaRevocado(2L, corte - 1));
+    }
+
+    @Test
+    void corteMasAntiguoNoReemplazaAlVigente() {
+        ListaRevocacion lista = new ListaRevocacion(tabla, 1_000, VIDA_REFRESCO_MS);
+        long corte = ahora();
+
+        lista.revocarEmitidosAntesDe(1L, Instant.ofEpochSecond(corte));
+        lista.revocarEmitidosAntesDe(1L, Instant.ofEpochSecond(corte - 100));
+
+        Assertions.assertTrue(lista.estaRevocado(1L, corte - 50));
+    }
+
+    @Test
+    void purgarOlvidaLoQueYaExpiroYMantieneLoVigente() {
+        ListaRevocacion lista = new ListaRevocacion(tabla, 1_000, VIDA_REFRESCO_MS);
+        long vigente = ahora();
+        long expirado = vigente - VIDA_REFRESCO_MS / 1000 - 60;
+        lista.revocar(1L, vigente);
+        lista.revocar(1L, expirado);
+        lista.revocarEmitidosAntesDe(2L, Instant.ofEpochSecond(expirado));
+
+        lista.purgar();
+
+        Assertions.assertEquals(1, lista.tamano());
+        Assertions.assertTrue(lista.estaRevocado(1L, vigente));
+        Assertions.assertFalse(lista.estaRevocado(1L, expirado));
+    }
+
+    @Test
+    void elFiltroNoTapaRevocacionesMasAllaDeSuCapacidad() {
+        ListaRevocacion lista = new ListaRevocacion(tabla, 16, VIDA_REFRESCO_MS);
+        long iat = ahora();
+        for (long usuario = 1; usuario <= 500; usuario++) {
+            lista.revocar(usuario, iat);
+        }
+        lista.purgar();
+
+        for (long usuario = 1; usuario <= 500; usuario++) {
+            Assertions.assertTrue(lista.estaRevocado(usuario, iat));
+            Assertions.assertFalse(lista.estaRevocado(usuario, iat + 1));
+        }
+    }
+
+    // MÉTODOS PRIVADOS DE UTILIDAD
+
+    private static long ahora() {
+        return Instant.now().getEpochSecond();
+    }
+
+    /**
+     * tokens_revocados en memoria: la clave primaria (usuario_id, tipo, iat)
+     * es lo único que la lista necesita de la tabla
+     */
+    private static final class TablaEnMemoria extends JdbcTemplate {
+
+        final Set<List<Object>> filas = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (!sql.startsWith("INSERT")) {
+                return 0;
+            }
+            boolean corte = sql.contains("'corte'");
+            boolean insertada = filas.add(List.of(args[0], corte ? "corte" : "puntual", args[1]));
+            if (!insertada && !corte) {
+                throw new DuplicateKeyException("Duplicate entry for key 'PRIMARY'");
+            }
+            return insertada ? 1 : 0;
+        }
+    }
+}